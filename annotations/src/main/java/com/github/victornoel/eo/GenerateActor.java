@@ -0,0 +1,40 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation to apply on interfaces to generate an actor envelope: every
+ * call is queued and applied in order to the wrapped implementation by a
+ * single consumer thread, so that implementation doesn't have to be
+ * thread-safe.
+ *
+ * <p>Calls to void methods return as soon as they are queued, calls to
+ * other methods wait for their result.</p>
+ *
+ * @since 1.1.0
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface GenerateActor {
+}
@@ -0,0 +1,95 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Annotation to apply on the methods of an interface annotated with
+ * {@link GenerateRateLimited} to set the rate of their calls.
+ *
+ * @since 1.1.0
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.METHOD)
+public @interface RateLimit {
+
+    /**
+     * The number of calls allowed per period.
+     *
+     * @return The number of calls
+     */
+    long permits();
+
+    /**
+     * The period.
+     *
+     * @return The period
+     */
+    long period() default 1L;
+
+    /**
+     * The unit of the period.
+     *
+     * @return The unit
+     */
+    TimeUnit unit() default TimeUnit.SECONDS;
+
+    /**
+     * The largest number of calls allowed at once, after a quiet time.
+     *
+     * @return The number of calls, 0 meaning the number of calls allowed
+     *  per period
+     */
+    long burst() default 0L;
+
+    /**
+     * What happens to the calls over the limit.
+     *
+     * @return The policy
+     */
+    Policy policy() default Policy.BLOCK;
+
+    /**
+     * What happens to the calls over the limit.
+     *
+     * @since 1.1.0
+     */
+    enum Policy {
+        /**
+         * Block the call until it is under the limit.
+         */
+        BLOCK,
+
+        /**
+         * Fail the call at once with a {@code ThrottledException}.
+         */
+        FAIL,
+
+        /**
+         * Admit the call on credit and delay it until it would have been
+         * under the limit, delayed calls being admitted in order.
+         */
+        DELAY
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.google.auto.common.MoreTypes;
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeVariableName;
+import com.squareup.javapoet.WildcardTypeName;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * The types to cast the boxed arguments of a method to, when they are
+ * passed to the method from a generated class: the parameter types as
+ * seen from the source interface, erased when they use the type
+ * parameters of the method itself.
+ *
+ * @since 1.1.0
+ */
+public final class ArgumentCasts implements Supplier<List<TypeName>> {
+
+    /**
+     * The method.
+     */
+    private final ExecutableElement method;
+
+    /**
+     * The source interface.
+     */
+    private final TypeElement source;
+
+    /**
+     * The processing environment.
+     */
+    private final ProcessingEnvironment procenv;
+
+    /**
+     * Ctor.
+     *
+     * @param method The method
+     * @param source The source interface
+     * @param procenv The processing environment
+     */
+    public ArgumentCasts(
+        final ExecutableElement method, final TypeElement source,
+        final ProcessingEnvironment procenv
+    ) {
+        this.method = method;
+        this.source = source;
+        this.procenv = procenv;
+    }
+
+    @Override
+    public List<TypeName> get() {
+        final Set<TypeVariableName> local = this.method.getTypeParameters()
+            .stream()
+            .map(TypeVariableName::get)
+            .collect(Collectors.toSet());
+        final ExecutableType member = MoreTypes.asExecutable(
+            this.procenv.getTypeUtils().asMemberOf(
+                MoreTypes.asDeclared(this.source.asType()), this.method
+            )
+        );
+        return member.getParameterTypes()
+            .stream()
+            .map(type -> this.cast(type, local))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * The type to cast an argument to.
+     *
+     * @param type The type of the parameter
+     * @param local The type parameters of the method
+     * @return The type
+     */
+    private TypeName cast(
+        final TypeMirror type, final Set<TypeVariableName> local
+    ) {
+        final TypeName name = TypeName.get(type);
+        final TypeName cast;
+        if (ArgumentCasts.mentions(name, local)) {
+            cast = TypeName.get(this.procenv.getTypeUtils().erasure(type));
+        } else {
+            cast = name;
+        }
+        return cast;
+    }
+
+    /**
+     * Whether a type uses some type variables.
+     *
+     * @param name The type
+     * @param vars The type variables
+     * @return Whether it uses them
+     */
+    private static boolean mentions(
+        final TypeName name, final Set<TypeVariableName> vars
+    ) {
+        final boolean mentions;
+        if (name instanceof TypeVariableName) {
+            mentions = vars.contains(name);
+        } else if (name instanceof ArrayTypeName) {
+            mentions = ArgumentCasts.mentions(
+                ((ArrayTypeName) name).componentType, vars
+            );
+        } else if (name instanceof ParameterizedTypeName) {
+            mentions = ((ParameterizedTypeName) name).typeArguments
+                .stream()
+                .anyMatch(arg -> ArgumentCasts.mentions(arg, vars));
+        } else if (name instanceof WildcardTypeName) {
+            final WildcardTypeName wildcard = (WildcardTypeName) name;
+            mentions = wildcard.upperBounds.stream()
+                .anyMatch(bound -> ArgumentCasts.mentions(bound, vars))
+                || wildcard.lowerBounds.stream()
+                .anyMatch(bound -> ArgumentCasts.mentions(bound, vars));
+        } else {
+            mentions = false;
+        }
+        return mentions;
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import java.util.Arrays;
+import java.util.Objects;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * The generated key of the arguments of a method: a nested class holding
+ * them with value-based equals and hashCode, arrays being compared by
+ * content.
+ *
+ * @since 1.1.0
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class ArgumentKey {
+
+    /**
+     * The method.
+     */
+    private final ExecutableElement method;
+
+    /**
+     * The name of the key class.
+     */
+    private final String name;
+
+    /**
+     * Ctor.
+     *
+     * @param method The method
+     * @param name The name of the key class
+     */
+    public ArgumentKey(final ExecutableElement method, final String name) {
+        this.method = method;
+        this.name = name;
+    }
+
+    /**
+     * The code creating the key of a call from within the method.
+     *
+     * @return The code
+     */
+    public CodeBlock instance() {
+        return CodeBlock.of(
+            "new $L($L)", this.name, new Arguments(this.method).get()
+        );
+    }
+
+    /**
+     * The nested key class.
+     *
+     * @return The class
+     */
+    public TypeSpec typeSpec() {
+        final ClassName self = ClassName.bestGuess(this.name);
+        final MethodSpec.Builder ctor = MethodSpec.constructorBuilder();
+        final CodeBlock.Builder equal = CodeBlock.builder();
+        final CodeBlock.Builder hash = CodeBlock.builder()
+            .addStatement("int hash = 1");
+        final TypeSpec.Builder builder = TypeSpec.classBuilder(this.name)
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL);
+        for (final VariableElement param : this.method.getParameters()) {
+            final TypeMirror type = param.asType();
+            final String field = param.getSimpleName().toString();
+            final TypeName stored = ArgumentKey.stored(type);
+            builder.addField(stored, field, Modifier.PRIVATE, Modifier.FINAL);
+            ctor.addParameter(stored, field, Modifier.FINAL)
+                .addStatement("this.$L = $L", field, field);
+            if (!equal.isEmpty()) {
+                equal.add("\n    && ");
+            }
+            equal.add(ArgumentKey.equality(type, stored, field));
+            hash.addStatement(
+                "hash = 31 * hash + $L", ArgumentKey.hashing(type, stored, field)
+            );
+        }
+        final MethodSpec.Builder equals = MethodSpec.methodBuilder("equals")
+            .addAnnotation(Override.class)
+            .addModifiers(Modifier.PUBLIC)
+            .returns(boolean.class)
+            .addParameter(Object.class, "other", Modifier.FINAL);
+        if (equal.isEmpty()) {
+            equals.addStatement("return other instanceof $T", self);
+        } else {
+            equals
+                .beginControlFlow("if (!(other instanceof $T))", self)
+                .addStatement("return false")
+                .endControlFlow()
+                .addStatement("final $T that = ($T) other", self, self)
+                .addStatement("return $L", equal.build());
+        }
+        return builder
+            .addMethod(ctor.build())
+            .addMethod(equals.build())
+            .addMethod(
+                MethodSpec.methodBuilder("hashCode")
+                    .addAnnotation(Override.class)
+                    .addModifiers(Modifier.PUBLIC)
+                    .returns(int.class)
+                    .addCode(hash.addStatement("return hash").build())
+                    .build()
+            )
+            .build();
+    }
+
+    /**
+     * The type of the field storing an argument.
+     *
+     * @param type The type of the parameter
+     * @return The type of the field
+     */
+    private static TypeName stored(final TypeMirror type) {
+        final TypeName stored;
+        if (type.getKind().isPrimitive() || ArgumentKey.primitives(type)) {
+            stored = TypeName.get(type);
+        } else if (type.getKind() == TypeKind.ARRAY) {
+            stored = ArrayTypeName.of(Object.class);
+        } else {
+            stored = TypeName.OBJECT;
+        }
+        return stored;
+    }
+
+    /**
+     * The code comparing an argument to the one of another key.
+     *
+     * @param type The type of the parameter
+     * @param stored The type of the field
+     * @param field The name of the field
+     * @return The code
+     */
+    private static CodeBlock equality(
+        final TypeMirror type, final TypeName stored, final String field
+    ) {
+        final CodeBlock equality;
+        if (type.getKind() == TypeKind.FLOAT
+            || type.getKind() == TypeKind.DOUBLE) {
+            equality = CodeBlock.of(
+                "$T.compare(this.$L, that.$L) == 0", stored.box(), field, field
+            );
+        } else if (type.getKind().isPrimitive()) {
+            equality = CodeBlock.of("this.$L == that.$L", field, field);
+        } else if (ArgumentKey.primitives(type)) {
+            equality = CodeBlock.of(
+                "$T.equals(this.$L, that.$L)", Arrays.class, field, field
+            );
+        } else if (type.getKind() == TypeKind.ARRAY) {
+            equality = CodeBlock.of(
+                "$T.deepEquals(this.$L, that.$L)", Arrays.class, field, field
+            );
+        } else {
+            equality = CodeBlock.of(
+                "$T.equals(this.$L, that.$L)", Objects.class, field, field
+            );
+        }
+        return equality;
+    }
+
+    /**
+     * The code hashing an argument.
+     *
+     * @param type The type of the parameter
+     * @param stored The type of the field
+     * @param field The name of the field
+     * @return The code
+     */
+    private static CodeBlock hashing(
+        final TypeMirror type, final TypeName stored, final String field
+    ) {
+        final CodeBlock hashing;
+        if (type.getKind().isPrimitive()) {
+            hashing = CodeBlock.of("$T.hashCode(this.$L)", stored.box(), field);
+        } else if (ArgumentKey.primitives(type)) {
+            hashing = CodeBlock.of("$T.hashCode(this.$L)", Arrays.class, field);
+        } else if (type.getKind() == TypeKind.ARRAY) {
+            hashing = CodeBlock.of(
+                "$T.deepHashCode(this.$L)", Arrays.class, field
+            );
+        } else {
+            hashing = CodeBlock.of("$T.hashCode(this.$L)", Objects.class, field);
+        }
+        return hashing;
+    }
+
+    /**
+     * Whether a type is an array of primitives.
+     *
+     * @param type The type
+     * @return Whether it is an array of primitives
+     */
+    private static boolean primitives(final TypeMirror type) {
+        return type.getKind() == TypeKind.ARRAY
+            && ((ArrayType) type).getComponentType().getKind().isPrimitive();
+    }
+}
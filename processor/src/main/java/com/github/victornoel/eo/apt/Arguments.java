@@ -0,0 +1,55 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.ParameterSpec;
+import java.util.function.Supplier;
+import javax.lang.model.element.ExecutableElement;
+
+/**
+ * The parameters of a method passed as arguments to another call.
+ *
+ * @since 1.1.0
+ */
+public final class Arguments implements Supplier<CodeBlock> {
+
+    /**
+     * The method.
+     */
+    private final ExecutableElement method;
+
+    /**
+     * Ctor.
+     *
+     * @param method The method
+     */
+    public Arguments(final ExecutableElement method) {
+        this.method = method;
+    }
+
+    @Override
+    public CodeBlock get() {
+        return this.method
+            .getParameters()
+            .stream()
+            .map(ps -> CodeBlock.of("$N", ParameterSpec.get(ps)))
+            .collect(CodeBlock.joining(", "));
+    }
+}
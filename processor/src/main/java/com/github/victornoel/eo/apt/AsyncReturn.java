@@ -0,0 +1,73 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * Whether a method is asynchronous, returning a {@link CompletionStage}
+ * or a {@link CompletableFuture}, whose result is only known when the
+ * returned stage completes.
+ *
+ * <p>The dependent stages of such a stage, made by {@code whenComplete}
+ * or {@code thenApply}, are of the declared return type, so generated
+ * code can return them in place of the stage.</p>
+ *
+ * @since 1.1.0
+ */
+public final class AsyncReturn {
+
+    /**
+     * The method.
+     */
+    private final ExecutableElement method;
+
+    /**
+     * Ctor.
+     *
+     * @param method The method
+     */
+    public AsyncReturn(final ExecutableElement method) {
+        this.method = method;
+    }
+
+    /**
+     * Whether the method returns a stage.
+     *
+     * @return True if it does
+     */
+    public boolean exists() {
+        final TypeMirror type = this.method.getReturnType();
+        boolean exists = false;
+        if (type.getKind() == TypeKind.DECLARED) {
+            final String name = ((TypeElement) ((DeclaredType) type).asElement())
+                .getQualifiedName()
+                .toString();
+            exists = name.equals(CompletionStage.class.getName())
+                || name.equals(CompletableFuture.class.getName());
+        }
+        return exists;
+    }
+}
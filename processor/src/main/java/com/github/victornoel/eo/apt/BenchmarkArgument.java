@@ -0,0 +1,171 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.google.auto.common.MoreTypes;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * The expression generating an argument of some type for a benchmark,
+ * from a {@code SplittableRandom} named {@code random} and a
+ * {@code size} parameter for texts, arrays and collections.
+ *
+ * <p>Types it doesn't know how to generate get {@code null}.</p>
+ *
+ * @since 1.1.0
+ */
+public final class BenchmarkArgument implements Supplier<CodeBlock> {
+
+    /**
+     * The argument of unknown types.
+     */
+    private static final CodeBlock NONE = CodeBlock.of("null");
+
+    /**
+     * The type of the argument.
+     */
+    private final TypeMirror type;
+
+    /**
+     * Ctor.
+     *
+     * @param type The type of the argument
+     */
+    public BenchmarkArgument(final TypeMirror type) {
+        this.type = type;
+    }
+
+    @Override
+    public CodeBlock get() {
+        TypeName name = TypeName.get(this.type);
+        if (name.isBoxedPrimitive()) {
+            name = name.unbox();
+        }
+        CodeBlock value = BenchmarkArgument.primitive(name);
+        if (value.isEmpty()) {
+            value = this.composite();
+        }
+        return value;
+    }
+
+    /**
+     * The expression generating a text, an array or a collection.
+     *
+     * @return The expression, {@code null} if unknown
+     */
+    @SuppressWarnings("PMD.LooseCoupling")
+    private CodeBlock composite() {
+        CodeBlock value = BenchmarkArgument.NONE;
+        if (this.type.getKind() == TypeKind.ARRAY) {
+            value = BenchmarkArgument.array((ArrayType) this.type);
+        } else if (MoreTypes.isTypeOf(String.class, this.type)) {
+            value = CodeBlock.of(
+                // @checkstyle LineLengthCheck (1 line)
+                "random.ints(size, 'a', 'z' + 1).collect($T::new, $T::appendCodePoint, $T::append).toString()",
+                StringBuilder.class, StringBuilder.class, StringBuilder.class
+            );
+        } else if (BenchmarkArgument.collection(this.type)) {
+            final List<? extends TypeMirror> args =
+                ((DeclaredType) this.type).getTypeArguments();
+            final CodeBlock element;
+            if (args.size() == 1 && args.get(0).getKind() == TypeKind.DECLARED) {
+                element = new BenchmarkArgument(args.get(0)).get();
+            } else {
+                element = BenchmarkArgument.NONE;
+            }
+            value = CodeBlock.of(
+                "new $T<>($T.nCopies(size, $L))",
+                ArrayList.class, Collections.class, element
+            );
+        }
+        return value;
+    }
+
+    /**
+     * The expression creating an array of {@code size} elements, its
+     * component being erased since generic arrays can't be created.
+     *
+     * @param type The type of the array
+     * @return The expression
+     */
+    private static CodeBlock array(final ArrayType type) {
+        final StringBuilder dims = new StringBuilder("[size]");
+        TypeMirror component = type.getComponentType();
+        while (component.getKind() == TypeKind.ARRAY) {
+            dims.append("[]");
+            component = ((ArrayType) component).getComponentType();
+        }
+        TypeName base = TypeName.get(component);
+        if (base instanceof ParameterizedTypeName) {
+            base = ((ParameterizedTypeName) base).rawType;
+        }
+        return CodeBlock.of("new $T$L", base, dims);
+    }
+
+    /**
+     * Whether a type is one of the collections an {@link ArrayList} can
+     * be assigned to.
+     *
+     * @param type The type
+     * @return True if it is
+     */
+    private static boolean collection(final TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED
+            && (MoreTypes.isTypeOf(List.class, type)
+            || MoreTypes.isTypeOf(Collection.class, type)
+            || MoreTypes.isTypeOf(Iterable.class, type));
+    }
+
+    /**
+     * The expression generating a primitive value.
+     *
+     * @param type The type, unboxed if possible
+     * @return The expression, empty if not primitive
+     */
+    private static CodeBlock primitive(final TypeName type) {
+        final CodeBlock value;
+        if (type.equals(TypeName.BOOLEAN)) {
+            value = CodeBlock.of("random.nextBoolean()");
+        } else if (type.equals(TypeName.INT)) {
+            value = CodeBlock.of("random.nextInt()");
+        } else if (type.equals(TypeName.LONG)) {
+            value = CodeBlock.of("random.nextLong()");
+        } else if (type.equals(TypeName.DOUBLE)) {
+            value = CodeBlock.of("random.nextDouble()");
+        } else if (type.equals(TypeName.FLOAT)) {
+            value = CodeBlock.of("(float) random.nextDouble()");
+        } else if (type.isPrimitive()) {
+            value = CodeBlock.of("($T) random.nextInt()", type);
+        } else {
+            value = CodeBlock.of("");
+        }
+        return value;
+    }
+}
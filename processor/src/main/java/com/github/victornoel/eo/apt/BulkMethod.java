@@ -0,0 +1,184 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.github.victornoel.eo.BatchedBy;
+import com.google.auto.common.MoreTypes;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+
+/**
+ * The bulk method named by the {@link BatchedBy} annotation of a
+ * single-key method, if any: a method taking a collection of keys, such
+ * as {@code Collection<K>}, and returning a map of values, such as
+ * {@code Map<K, V>}.
+ *
+ * @since 1.1.0
+ */
+public final class BulkMethod {
+
+    /**
+     * The single-key method.
+     */
+    private final ExecutableElement method;
+
+    /**
+     * The source interface.
+     */
+    private final TypeElement source;
+
+    /**
+     * The methods of the source interface.
+     */
+    private final List<ExecutableElement> methods;
+
+    /**
+     * The processing environment.
+     */
+    private final ProcessingEnvironment procenv;
+
+    /**
+     * Ctor.
+     *
+     * @param method The single-key method
+     * @param source The source interface
+     * @param methods The methods of the source interface
+     * @param procenv The processing environment
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    public BulkMethod(
+        final ExecutableElement method, final TypeElement source,
+        final List<ExecutableElement> methods,
+        final ProcessingEnvironment procenv
+    ) {
+        this.method = method;
+        this.source = source;
+        this.methods = methods;
+        this.procenv = procenv;
+    }
+
+    /**
+     * The bulk method of the single-key method.
+     *
+     * @return The bulk method, empty if the method is not annotated
+     * @throws InvalidElementException If the annotated method doesn't
+     *  take one key or there is no matching bulk method
+     */
+    public Optional<ExecutableElement> found() throws InvalidElementException {
+        final BatchedBy batched = this.method.getAnnotation(BatchedBy.class);
+        Optional<ExecutableElement> found = Optional.empty();
+        if (batched != null) {
+            final ExecutableType single = this.member(this.method);
+            if (single.getParameterTypes().size() != 1
+                || !this.method.getTypeParameters().isEmpty()
+                || single.getReturnType().getKind() != TypeKind.DECLARED
+                && single.getReturnType().getKind() != TypeKind.TYPEVAR) {
+                throw new InvalidElementException(
+                    String.format(
+                        "@%s requires a method taking one key and returning an object",
+                        BatchedBy.class.getSimpleName()
+                    ),
+                    this.method
+                );
+            }
+            found = this.methods.stream()
+                .filter(bulk -> bulk.getSimpleName().contentEquals(batched.value()))
+                .filter(bulk -> this.matches(bulk, single))
+                .findFirst();
+            if (!found.isPresent()) {
+                throw new InvalidElementException(
+                    String.format(
+                        "@%s(\"%s\") requires a method %s(Collection<K>) returning a Map<K, V>",
+                        BatchedBy.class.getSimpleName(), batched.value(),
+                        batched.value()
+                    ),
+                    this.method
+                );
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Whether a method can load the values of a single-key method: it
+     * accepts a {@link List} of its keys and returns a {@link Map} of its
+     * values.
+     *
+     * @param bulk The method
+     * @param single The single-key method
+     * @return True if it can
+     */
+    private boolean matches(
+        final ExecutableElement bulk, final ExecutableType single
+    ) {
+        final Types types = this.procenv.getTypeUtils();
+        final ExecutableType type = this.member(bulk);
+        TypeMirror key = single.getParameterTypes().get(0);
+        if (key.getKind().isPrimitive()) {
+            key = types.boxedClass(MoreTypes.asPrimitiveType(key)).asType();
+        }
+        return bulk.getTypeParameters().isEmpty()
+            && type.getParameterTypes().size() == 1
+            && types.isAssignable(
+                types.getDeclaredType(this.element(List.class), key),
+                type.getParameterTypes().get(0)
+            )
+            && types.isAssignable(
+                type.getReturnType(),
+                types.getDeclaredType(
+                    this.element(Map.class),
+                    types.getWildcardType(null, null),
+                    types.getWildcardType(single.getReturnType(), null)
+                )
+            );
+    }
+
+    /**
+     * A method as seen from the source interface.
+     *
+     * @param member The method
+     * @return Its type
+     */
+    private ExecutableType member(final ExecutableElement member) {
+        return MoreTypes.asExecutable(
+            this.procenv.getTypeUtils().asMemberOf(
+                MoreTypes.asDeclared(this.source.asType()), member
+            )
+        );
+    }
+
+    /**
+     * The element of a type.
+     *
+     * @param type The type
+     * @return The element
+     */
+    private TypeElement element(final Class<?> type) {
+        return this.procenv.getElementUtils()
+            .getTypeElement(type.getCanonicalName());
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.google.auto.common.MoreTypes;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Optional;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.tools.JavaFileManager;
+import javax.tools.StandardLocation;
+
+/**
+ * The digest of the classfiles of a binary interface and of all its
+ * super interfaces, to detect a changed library hierarchy.
+ *
+ * <p>It is empty when the interface or one of its super interfaces is
+ * compiled from sources or its classfile can't be read.</p>
+ *
+ * @since 1.1.0
+ */
+public final class ClassfileDigest {
+
+    /**
+     * The size of the buffer used to read classfiles.
+     */
+    private static final int BUFFER = 8192;
+
+    /**
+     * The binary interface.
+     */
+    private final TypeElement type;
+
+    /**
+     * The processing environment.
+     */
+    private final ProcessingEnvironment procenv;
+
+    /**
+     * Ctor.
+     *
+     * @param type The binary interface
+     * @param procenv The processing environment
+     */
+    public ClassfileDigest(
+        final TypeElement type, final ProcessingEnvironment procenv
+    ) {
+        this.type = type;
+        this.procenv = procenv;
+    }
+
+    /**
+     * The hexadecimal digest of the hierarchy.
+     *
+     * @return The digest or nothing if the hierarchy isn't all binary
+     */
+    public Optional<String> hex() {
+        Optional<String> hex;
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            if (this.update(digest, this.type)) {
+                final StringBuilder text = new StringBuilder();
+                for (final byte value : digest.digest()) {
+                    text.append(String.format("%02x", value));
+                }
+                hex = Optional.of(text.toString());
+            } else {
+                hex = Optional.empty();
+            }
+        } catch (final NoSuchAlgorithmException | IOException ex) {
+            hex = Optional.empty();
+        }
+        return hex;
+    }
+
+    /**
+     * Add the classfiles of an interface and its super interfaces to a
+     * digest.
+     *
+     * @param digest The digest
+     * @param current The interface
+     * @return Whether all of them were binary
+     * @throws IOException If a classfile can't be read
+     */
+    private boolean update(final MessageDigest digest, final TypeElement current)
+        throws IOException {
+        final Elements elements = this.procenv.getElementUtils();
+        final String pkg = elements.getPackageOf(current)
+            .getQualifiedName().toString();
+        final String binary = elements.getBinaryName(current).toString()
+            .substring(pkg.length() + Math.min(pkg.length(), 1));
+        boolean found = !ClassfileDigest.exists(
+            this.procenv.getFiler(),
+            StandardLocation.SOURCE_PATH,
+            pkg,
+            String.format("%s.java", ClassfileDigest.outermost(current))
+        );
+        if (found) {
+            found = ClassfileDigest.read(
+                digest, this.procenv.getFiler(), StandardLocation.CLASS_PATH,
+                pkg, binary
+            ) || ClassfileDigest.read(
+                digest, this.procenv.getFiler(),
+                StandardLocation.PLATFORM_CLASS_PATH, pkg, binary
+            );
+        }
+        for (final TypeMirror parent : current.getInterfaces()) {
+            found = found && this.update(digest, MoreTypes.asTypeElement(parent));
+        }
+        return found;
+    }
+
+    /**
+     * Read a classfile into a digest.
+     *
+     * @param digest The digest
+     * @param filer The filer
+     * @param location Where to look for the classfile
+     * @param pkg The package of the class
+     * @param binary The binary name of the class in its package
+     * @return Whether the classfile was found
+     * @throws IOException If the classfile can't be read
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private static boolean read(final MessageDigest digest, final Filer filer,
+        final JavaFileManager.Location location, final String pkg,
+        final String binary) throws IOException {
+        final String name = String.format("%s.class", binary);
+        final boolean found = ClassfileDigest.exists(
+            filer, location, pkg, name
+        );
+        if (found) {
+            try (InputStream input = filer.getResource(location, pkg, name)
+                .openInputStream()) {
+                final byte[] buffer = new byte[ClassfileDigest.BUFFER];
+                for (int read = input.read(buffer); read >= 0;
+                    read = input.read(buffer)) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Whether a file exists in some location.
+     *
+     * @param filer The filer
+     * @param location The location
+     * @param pkg The package of the file
+     * @param name The name of the file in its package
+     * @return Whether it exists
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private static boolean exists(final Filer filer,
+        final JavaFileManager.Location location, final String pkg,
+        final String name) {
+        boolean exists;
+        try (InputStream input = filer.getResource(location, pkg, name)
+            .openInputStream()) {
+            exists = input != null;
+            // @checkstyle IllegalCatchCheck (1 line)
+        } catch (final IOException | RuntimeException ex) {
+            // @checkstyle MethodBodyCommentsCheck (2 lines)
+            // some file managers fail instead of reporting a missing file
+            exists = false;
+        }
+        return exists;
+    }
+
+    /**
+     * The simple name of the top-level type enclosing a type.
+     *
+     * @param type The type
+     * @return Its simple name
+     */
+    private static String outermost(final TypeElement type) {
+        Element top = type;
+        while (top.getEnclosingElement() instanceof TypeElement) {
+            top = top.getEnclosingElement();
+        }
+        return top.getSimpleName().toString();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.MethodSpec;
+import java.util.function.Supplier;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+
+/**
+ * A method overriding a method of an interface by calling it directly on
+ * the implementation held in a field.
+ *
+ * @since 1.1.0
+ */
+public final class DelegatingMethod implements Supplier<MethodSpec> {
+
+    /**
+     * The method to delegate.
+     */
+    private final ExecutableElement method;
+
+    /**
+     * The source interface.
+     */
+    private final TypeElement source;
+
+    /**
+     * The name of the field of the implementation.
+     */
+    private final String field;
+
+    /**
+     * The processing environment.
+     */
+    private final ProcessingEnvironment procenv;
+
+    /**
+     * Ctor.
+     *
+     * @param method The method to delegate
+     * @param source The source interface
+     * @param field The name of the field of the implementation
+     * @param procenv The processing environment
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    public DelegatingMethod(
+        final ExecutableElement method, final TypeElement source,
+        final String field, final ProcessingEnvironment procenv
+    ) {
+        this.method = method;
+        this.source = source;
+        this.field = field;
+        this.procenv = procenv;
+    }
+
+    @Override
+    public MethodSpec get() {
+        final CodeBlock call = CodeBlock.of(
+            "this.$L.$N($L)",
+            this.field,
+            this.method.getSimpleName(),
+            new Arguments(this.method).get()
+        );
+        final MethodSpec.Builder builder = new OverridingMethod(
+            this.method, this.source, this.procenv
+        ).get();
+        if (this.method.getReturnType().getKind() == TypeKind.VOID) {
+            builder.addStatement(call);
+        } else {
+            builder.addStatement("return $L", call);
+        }
+        return builder.build();
+    }
+}
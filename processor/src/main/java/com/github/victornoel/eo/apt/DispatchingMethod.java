@@ -0,0 +1,133 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeName;
+import java.util.List;
+import java.util.function.Supplier;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+
+/**
+ * A generated method applying boxed calls to the wrapped implementation,
+ * switching on the index of the method.
+ *
+ * @since 1.1.0
+ */
+public final class DispatchingMethod implements Supplier<MethodSpec> {
+
+    /**
+     * The methods.
+     */
+    private final List<ExecutableElement> methods;
+
+    /**
+     * The field of the wrapped implementation.
+     */
+    private final FieldSpec wrapped;
+
+    /**
+     * The source interface.
+     */
+    private final TypeElement source;
+
+    /**
+     * The processing environment.
+     */
+    private final ProcessingEnvironment procenv;
+
+    /**
+     * Ctor.
+     *
+     * @param methods The methods
+     * @param wrapped The field of the wrapped implementation
+     * @param source The source interface
+     * @param procenv The processing environment
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    public DispatchingMethod(
+        final List<ExecutableElement> methods, final FieldSpec wrapped,
+        final TypeElement source, final ProcessingEnvironment procenv
+    ) {
+        this.methods = methods;
+        this.wrapped = wrapped;
+        this.source = source;
+        this.procenv = procenv;
+    }
+
+    @Override
+    public MethodSpec get() {
+        final CodeBlock.Builder code = CodeBlock.builder()
+            .beginControlFlow("switch (method)");
+        TypeName unchecked = TypeName.OBJECT;
+        for (int idx = 0; idx < this.methods.size(); ++idx) {
+            final ExecutableElement method = this.methods.get(idx);
+            final List<TypeName> casts = new ArgumentCasts(
+                method, this.source, this.procenv
+            ).get();
+            final CodeBlock.Builder args = CodeBlock.builder();
+            for (int arg = 0; arg < casts.size(); ++arg) {
+                if (arg > 0) {
+                    args.add(", ");
+                }
+                if (new UncheckedCast(casts.get(arg)).unchecked()) {
+                    unchecked = casts.get(arg);
+                }
+                args.add("($T) args[$L]", casts.get(arg), arg);
+            }
+            final CodeBlock call = CodeBlock.of(
+                "this.$N.$N($L)", this.wrapped, method.getSimpleName(),
+                args.build()
+            );
+            code.add("case $L:\n", idx).indent();
+            if (method.getReturnType().getKind() == TypeKind.VOID) {
+                code.addStatement(call).addStatement("return null");
+            } else {
+                code.addStatement("return $L", call);
+            }
+            code.unindent();
+        }
+        return new UncheckedCast(unchecked)
+            .suppress(MethodSpec.methodBuilder("dispatch"))
+            .addModifiers(Modifier.PRIVATE)
+            .returns(Object.class)
+            .addParameter(int.class, "method", Modifier.FINAL)
+            .addParameter(Object[].class, "args", Modifier.FINAL)
+            .addException(Exception.class)
+            .addCode(
+                code.add("default:\n")
+                    .indent()
+                    .addStatement(
+                        "throw new $T($S + method)",
+                        IllegalStateException.class,
+                        "Unknown method: "
+                    )
+                    .unindent()
+                    .endControlFlow()
+                    .build()
+            )
+            .build();
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import java.util.function.IntSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+import javax.lang.model.element.ExecutableElement;
+
+/**
+ * A fingerprint of the signatures of methods, to detect data produced
+ * from another version of an interface.
+ *
+ * @since 1.1.0
+ */
+public final class Fingerprint implements IntSupplier {
+
+    /**
+     * The methods.
+     */
+    private final Iterable<ExecutableElement> methods;
+
+    /**
+     * Ctor.
+     *
+     * @param methods The methods
+     */
+    public Fingerprint(final Iterable<ExecutableElement> methods) {
+        this.methods = methods;
+    }
+
+    @Override
+    public int getAsInt() {
+        return StreamSupport.stream(this.methods.spliterator(), false)
+            .map(ExecutableElement::toString)
+            .collect(Collectors.joining(";"))
+            .hashCode();
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import java.util.function.Supplier;
+import javax.lang.model.element.ExecutableElement;
+
+/**
+ * A name for a local variable of a generated method that does not
+ * clash with the parameters of the method.
+ *
+ * @since 1.1.0
+ */
+public final class FreshName implements Supplier<String> {
+
+    /**
+     * The method.
+     */
+    private final ExecutableElement method;
+
+    /**
+     * The preferred name.
+     */
+    private final String base;
+
+    /**
+     * Ctor.
+     *
+     * @param method The method
+     * @param base The preferred name
+     */
+    public FreshName(final ExecutableElement method, final String base) {
+        this.method = method;
+        this.base = base;
+    }
+
+    @Override
+    public String get() {
+        String name = this.base;
+        for (int idx = 1; this.clashes(name); ++idx) {
+            name = this.base + idx;
+        }
+        return name;
+    }
+
+    /**
+     * Whether a name is already used by a parameter.
+     *
+     * @param name The name
+     * @return True if it is used
+     */
+    private boolean clashes(final String name) {
+        return this.method.getParameters()
+            .stream()
+            .anyMatch(p -> p.getSimpleName().contentEquals(name));
+    }
+}
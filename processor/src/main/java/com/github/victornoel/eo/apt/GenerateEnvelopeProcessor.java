@@ -21,11 +21,22 @@ package com.github.victornoel.eo.apt;
 import com.github.victornoel.eo.GenerateEnvelope;
 import com.google.auto.service.AutoService;
 import com.squareup.javapoet.JavaFile;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.RoundEnvironment;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
@@ -33,18 +44,56 @@ import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.TypeElement;
 import javax.tools.Diagnostic;
 import javax.tools.Diagnostic.Kind;
+import javax.tools.StandardLocation;
 
 /**
- * A processor to generate envelopes from {@link GenerateEnvelope}.
+ * A processor to generate envelopes from {@link GenerateEnvelope} and
+ * the other variants of generated types.
  *
  * @since 1.0.0
  */
 @AutoService(javax.annotation.processing.Processor.class)
 public final class GenerateEnvelopeProcessor extends AbstractProcessor {
 
+    /**
+     * The location of the envelope index in the class output.
+     */
+    private static final String INDEX = "META-INF/eo-envelopes.idx";
+
+    /**
+     * The lines of the envelope index, written once processing is over.
+     */
+    private final List<String> index = new LinkedList<>();
+
+    /**
+     * The binary names of the types compiled with the processor, whose
+     * lines of a previous index are replaced by the new ones.
+     */
+    private final Set<String> compiled = new HashSet<>();
+
+    @Override
+    public void init(final ProcessingEnvironment procenv) {
+        super.init(procenv);
+        new MethodCache(procenv).load();
+    }
+
+    @Override
+    public Set<String> getSupportedOptions() {
+        return new HashSet<>(
+            Arrays.asList(
+                MethodCache.OPTION,
+                GeneratedBenchmarkTypeSpec.OPTION,
+                NativeImageConfig.OPTION
+            )
+        );
+    }
+
     @Override
     public Set<String> getSupportedAnnotationTypes() {
-        return Collections.singleton(GenerateEnvelope.class.getName());
+        return new Variants(this.processingEnv).get().keySet()
+            .stream()
+            .map(Class::getName)
+            .collect(Collectors.toSet());
     }
 
     @Override
@@ -57,21 +106,65 @@ public final class GenerateEnvelopeProcessor extends AbstractProcessor {
         final Set<? extends TypeElement> annotations,
         final RoundEnvironment env
     ) {
-        env.getElementsAnnotatedWith(GenerateEnvelope.class)
-            .forEach(this::process);
+        env.getRootElements().stream()
+            .filter(TypeElement.class::isInstance)
+            .map(
+                root -> this.processingEnv.getElementUtils()
+                    .getBinaryName((TypeElement) root)
+                    .toString()
+            )
+            .forEach(this.compiled::add);
+        new Variants(this.processingEnv).get().forEach(
+            (annotation, generator) -> env.getElementsAnnotatedWith(annotation)
+                .forEach(e -> this.process(e, annotation, generator))
+        );
+        if (env.processingOver()) {
+            final List<String> lines = this.merged();
+            if (!lines.isEmpty()) {
+                this.writeIndex(lines);
+                this.writeNativeImage(lines);
+            }
+        }
+        if (env.processingOver()) {
+            new MethodCache(this.processingEnv).save();
+        }
         return true;
     }
 
     /**
-     * Process one element annotated with {@link GenerateEnvelope}.
+     * Process one element annotated with one of the supported annotations.
      *
      * @param element The annotated element
+     * @param annotation The annotation
+     * @param generator The types to generate for the element
      */
     @SuppressWarnings("PMD.AvoidCatchingGenericException")
-    private void process(final Element element) {
+    private void process(
+        final Element element,
+        final Class<? extends Annotation> annotation,
+        final Function<TypeElement, Iterable<GeneratedTypeSpec>> generator
+    ) {
         if (element.getKind() == ElementKind.INTERFACE) {
             try {
-                this.generate((TypeElement) element);
+                for (final GeneratedTypeSpec spec
+                    : generator.apply((TypeElement) element)) {
+                    this.index.addAll(
+                        new IndexLines(
+                            (TypeElement) element,
+                            annotation.getSimpleName(),
+                            this.generate((TypeElement) element, spec)
+                        ).get()
+                    );
+                }
+                if (annotation == GenerateEnvelope.class) {
+                    this.benchmark((TypeElement) element);
+                }
+            } catch (final InvalidElementException exception) {
+                processingEnv.getMessager().printMessage(
+                    Kind.ERROR,
+                    exception.getMessage(),
+                    exception.element()
+                );
                 // @checkstyle IllegalCatchCheck (1 line)
             } catch (final Exception exception) {
                 final StringWriter writer = new StringWriter();
@@ -85,35 +178,188 @@ public final class GenerateEnvelopeProcessor extends AbstractProcessor {
         } else {
             this.processingEnv.getMessager().printMessage(
                 Diagnostic.Kind.ERROR,
-                "@GenerateEnvelope is only for interfaces",
+                String.format(
+                    "@%s is only for interfaces", annotation.getSimpleName()
+                ),
                 element
             );
         }
     }
 
     /**
-     * Generate an envelope for an interface annotated with
-     * {@link GenerateEnvelope}.
+     * Generate a type for an interface annotated with one of the
+     * supported annotations.
      *
      * @param itf The annotated interface
+     * @param spec The type to generate
+     * @return The generated file
      * @throws Exception If fails
      */
-    private void generate(final TypeElement itf) throws Exception {
+    private JavaFile generate(
+        final TypeElement itf, final GeneratedTypeSpec spec
+    ) throws Exception {
         final JavaFile file = JavaFile
             .builder(
                 this.processingEnv.getElementUtils()
                     .getPackageOf(itf)
                     .getQualifiedName()
                     .toString(),
-                new GeneratedEnvelopeTypeSpec(
-                    itf,
-                    this.processingEnv
-                ).typeSpec()
+                spec.typeSpec()
             )
             .build();
         // @checkstyle MethodBodyCommentsCheck (1 line)
         // mitigation for https://bugs.eclipse.org/bugs/show_bug.cgi?id=367599
         file.toJavaFileObject().delete();
         file.writeTo(this.processingEnv.getFiler());
+        return file;
+    }
+
+    /**
+     * Write the benchmark of an envelope if benchmarks were asked for
+     * with {@link GeneratedBenchmarkTypeSpec#OPTION}.
+     *
+     * <p>It is written directly in the given directory, usually test
+     * sources, because it must not be compiled with the main code.</p>
+     *
+     * @param itf The interface of the envelope
+     * @throws Exception If fails
+     */
+    private void benchmark(final TypeElement itf) throws Exception {
+        final String dir = this.processingEnv.getOptions()
+            .get(GeneratedBenchmarkTypeSpec.OPTION);
+        if (dir != null && itf.getTypeParameters().isEmpty()) {
+            JavaFile
+                .builder(
+                    this.processingEnv.getElementUtils()
+                        .getPackageOf(itf)
+                        .getQualifiedName()
+                        .toString(),
+                    new GeneratedBenchmarkTypeSpec(itf, this.processingEnv)
+                        .typeSpec()
+                )
+                .build()
+                .writeTo(Paths.get(dir));
+        } else if (dir != null) {
+            this.processingEnv.getMessager().printMessage(
+                Kind.WARNING,
+                "No benchmark is generated for generic interfaces",
+                itf
+            );
+        }
+    }
+
+    /**
+     * The lines of the index: the ones of the index of a previous
+     * compilation of the same output, on an incremental compilation,
+     * whose interfaces were not compiled again and still exist, followed
+     * by the ones of this compilation.
+     *
+     * @return The lines
+     */
+    private List<String> merged() {
+        final List<String> lines = new LinkedList<>();
+        for (final String line : this.previous()) {
+            final String itf = line.substring(0, Math.max(line.indexOf('\t'), 0));
+            if (!itf.isEmpty() && line.charAt(0) != '#'
+                && this.compiled.stream().noneMatch(
+                    name -> itf.equals(name) || itf.startsWith(String.format("%s$", name))
+                )
+                && this.processingEnv.getElementUtils()
+                    .getTypeElement(itf.replace('$', '.')) != null) {
+                lines.add(line);
+            }
+        }
+        lines.addAll(this.index);
+        return lines;
+    }
+
+    /**
+     * The lines of the index of a previous compilation.
+     *
+     * @return The lines, empty if there is none
+     */
+    private List<String> previous() {
+        List<String> lines;
+        try {
+            lines = Arrays.asList(
+                this.processingEnv.getFiler()
+                    .getResource(
+                        StandardLocation.CLASS_OUTPUT, "",
+                        GenerateEnvelopeProcessor.INDEX
+                    )
+                    .getCharContent(true)
+                    .toString()
+                    .split("\n")
+            );
+        } catch (final IOException | IllegalArgumentException ex) {
+            lines = Collections.emptyList();
+        }
+        return lines;
+    }
+
+    /**
+     * Write the index of the generated classes, for frameworks to find
+     * them without scanning the classpath.
+     *
+     * @param lines The lines of the index
+     */
+    private void writeIndex(final List<String> lines) {
+        this.writeResource(
+            GenerateEnvelopeProcessor.INDEX,
+            String.format(
+                "# interface, annotation, class, constructor parameters\n%s\n",
+                String.join("\n", lines)
+            )
+        );
+    }
+
+    /**
+     * Write the GraalVM native-image configuration of the generated
+     * classes if it was asked for with {@link NativeImageConfig#OPTION}.
+     *
+     * @param lines The lines of the index
+     */
+    private void writeNativeImage(final List<String> lines) {
+        final String dir = this.processingEnv.getOptions()
+            .get(NativeImageConfig.OPTION);
+        if (dir != null) {
+            final NativeImageConfig config = new NativeImageConfig(
+                GenerateEnvelopeProcessor.INDEX, lines
+            );
+            final String base = String.format("META-INF/native-image/%s", dir);
+            this.writeResource(
+                String.format("%s/reflect-config.json", base),
+                config.reflection()
+            );
+            this.writeResource(
+                String.format("%s/resource-config.json", base),
+                config.resources()
+            );
+            this.writeResource(
+                String.format("%s/native-image.properties", base),
+                config.properties()
+            );
+        }
+    }
+
+    /**
+     * Write a resource in the class output.
+     *
+     * @param location The location of the resource
+     * @param content The content of the resource
+     */
+    private void writeResource(final String location, final String content) {
+        try (Writer writer = this.processingEnv.getFiler()
+            .createResource(StandardLocation.CLASS_OUTPUT, "", location)
+            .openWriter()) {
+            writer.write(content);
+        } catch (final IOException exception) {
+            this.processingEnv.getMessager().printMessage(
+                Kind.ERROR,
+                String.format(
+                    "Can't write %s: %s", location, exception.getMessage()
+                )
+            );
+        }
     }
 }
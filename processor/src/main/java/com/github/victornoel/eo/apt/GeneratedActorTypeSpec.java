@@ -0,0 +1,354 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.github.victornoel.eo.GenerateActor;
+import com.github.victornoel.eo.runtime.DaemonThreads;
+import com.github.victornoel.eo.runtime.Histogram;
+import com.github.victornoel.eo.runtime.Mailbox;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Supplier;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+
+/**
+ * The generated code of an actor envelope, queuing calls in a
+ * {@link Mailbox} applied by a single consumer thread.
+ *
+ * @since 1.1.0
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class GeneratedActorTypeSpec implements GeneratedTypeSpec {
+
+    /**
+     * The name of the field of the wrapped implementation.
+     */
+    private static final String WRAPPED = "wrapped";
+
+    /**
+     * The name of the field of the mailbox.
+     */
+    private static final String MAILBOX = "mailbox";
+
+    /**
+     * The name of the parameter of the capacity.
+     */
+    private static final String CAPACITY = "capacity";
+
+    /**
+     * The name of the parameter of the thread factory.
+     */
+    private static final String THREADS = "threads";
+
+    /**
+     * The source interface.
+     */
+    private final TypeElement source;
+
+    /**
+     * The name for the generated actor.
+     */
+    private final String name;
+
+    /**
+     * The processing environment.
+     */
+    private final ProcessingEnvironment procenv;
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param procenv The processing environment
+     */
+    public GeneratedActorTypeSpec(
+        final TypeElement source, final ProcessingEnvironment procenv
+    ) {
+        this(source, new GeneratedEnvelopeName(source, "Actor").get(), procenv);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param name The name for the generated actor
+     * @param procenv The processing environment
+     */
+    public GeneratedActorTypeSpec(
+        final TypeElement source, final String name,
+        final ProcessingEnvironment procenv
+    ) {
+        this.source = source;
+        this.name = name;
+        this.procenv = procenv;
+    }
+
+    @Override
+    public TypeSpec typeSpec() throws Exception {
+        final List<ExecutableElement> methods = new ReservedNames(
+            new InterfaceMethods(this.source, this.procenv),
+            this.source,
+            GenerateActor.class.getSimpleName(),
+            Arrays.asList("close", "mailboxDepth", "processingLatency")
+        ).checked();
+        final int arity = methods.stream()
+            .mapToInt(method -> method.getParameters().size())
+            .max()
+            .orElse(0);
+        final TypeName type = TypeName.get(this.source.asType());
+        final FieldSpec wrapped = FieldSpec
+            .builder(
+                type, GeneratedActorTypeSpec.WRAPPED,
+                Modifier.PRIVATE, Modifier.FINAL
+            )
+            .build();
+        final FieldSpec mailbox = FieldSpec
+            .builder(
+                Mailbox.class, GeneratedActorTypeSpec.MAILBOX,
+                Modifier.PRIVATE, Modifier.FINAL
+            )
+            .build();
+        final TypeSpec.Builder builder = new GeneratedClassBuilder(
+            this.source, this.name, this.procenv
+        )
+            .get()
+            .addModifiers(Modifier.FINAL)
+            .addSuperinterface(type)
+            .addSuperinterface(AutoCloseable.class)
+            .addField(wrapped)
+            .addField(mailbox)
+            .addMethod(GeneratedActorTypeSpec.constructor(type, this.name))
+            .addMethod(GeneratedActorTypeSpec.constructor(type, arity));
+        for (int idx = 0; idx < methods.size(); ++idx) {
+            builder.addMethod(
+                new QueuingMethod(
+                    methods.get(idx), this.source, idx, this.procenv
+                ).get()
+            );
+        }
+        return builder
+            .addMethod(
+                MethodSpec.methodBuilder("mailboxDepth")
+                    .addJavadoc("The number of calls waiting to be applied.\n\n")
+                    .addJavadoc("@return The depth of the mailbox\n")
+                    .addModifiers(Modifier.PUBLIC)
+                    .returns(int.class)
+                    .addStatement("return this.$N.depth()", mailbox)
+                    .build()
+            )
+            .addMethod(
+                MethodSpec.methodBuilder("processingLatency")
+                    .addJavadoc(
+                        "The latencies of calls, from queuing to completion, in nanoseconds.\n\n"
+                    )
+                    .addJavadoc("@return The histogram of latencies\n")
+                    .addModifiers(Modifier.PUBLIC)
+                    .returns(Histogram.class)
+                    .addStatement("return this.$N.latency()", mailbox)
+                    .build()
+            )
+            .addMethod(
+                MethodSpec.methodBuilder("close")
+                    .addJavadoc(
+                        "Stop accepting calls, waiting for the queued ones to be applied.\n"
+                    )
+                    .addAnnotation(Override.class)
+                    .addModifiers(Modifier.PUBLIC)
+                    .addStatement("this.$N.close()", mailbox)
+                    .build()
+            )
+            .addMethod(
+                new DispatchingMethod(
+                    methods, wrapped, this.source, this.procenv
+                ).get()
+            )
+            .build();
+    }
+
+    /**
+     * The constructor with a default factory of daemon threads, so an
+     * actor that is never closed doesn't keep the JVM running.
+     *
+     * @param type The type of the source interface
+     * @param name The name of the actor, prefix of its thread name
+     * @return The constructor
+     */
+    private static MethodSpec constructor(final TypeName type, final String name) {
+        return MethodSpec.constructorBuilder()
+            .addModifiers(Modifier.PUBLIC)
+            .addParameter(type, GeneratedActorTypeSpec.WRAPPED)
+            .addParameter(int.class, GeneratedActorTypeSpec.CAPACITY)
+            .addStatement(
+                "this($L, $L, new $T($S))",
+                GeneratedActorTypeSpec.WRAPPED,
+                GeneratedActorTypeSpec.CAPACITY,
+                DaemonThreads.class, name
+            )
+            .build();
+    }
+
+    /**
+     * The main constructor, starting the consumer thread.
+     *
+     * @param type The type of the source interface
+     * @param arity The highest number of parameters of a method
+     * @return The constructor
+     */
+    private static MethodSpec constructor(final TypeName type, final int arity) {
+        final ParameterSpec wrapped = ParameterSpec
+            .builder(type, GeneratedActorTypeSpec.WRAPPED)
+            .build();
+        final ParameterSpec capacity = ParameterSpec
+            .builder(int.class, GeneratedActorTypeSpec.CAPACITY)
+            .build();
+        final ParameterSpec threads = ParameterSpec
+            .builder(ThreadFactory.class, GeneratedActorTypeSpec.THREADS)
+            .build();
+        return MethodSpec.constructorBuilder()
+            .addModifiers(Modifier.PUBLIC)
+            .addParameter(wrapped)
+            .addParameter(capacity)
+            .addParameter(threads)
+            .addStatement("this.$N = $N", wrapped, wrapped)
+            .addStatement(
+                "this.$L = new $T($N, $L)",
+                GeneratedActorTypeSpec.MAILBOX, Mailbox.class, capacity, arity
+            )
+            .addStatement(
+                "this.$L.start($N, this::dispatch)",
+                GeneratedActorTypeSpec.MAILBOX, threads
+            )
+            .build();
+    }
+
+    /**
+     * One generated method queuing its call.
+     *
+     * @since 1.1.0
+     */
+    private static final class QueuingMethod
+        implements Supplier<MethodSpec> {
+
+        /**
+         * The method to queue.
+         */
+        private final ExecutableElement method;
+
+        /**
+         * The source interface.
+         */
+        private final TypeElement source;
+
+        /**
+         * The id of the method.
+         */
+        private final int id;
+
+        /**
+         * The processing environment.
+         */
+        private final ProcessingEnvironment procenv;
+
+        /**
+         * Ctor.
+         *
+         * @param method The method to queue
+         * @param source The source interface
+         * @param id The id of the method
+         * @param procenv The processing environment
+         * @checkstyle ParameterNumberCheck (5 lines)
+         */
+        QueuingMethod(
+            final ExecutableElement method, final TypeElement source,
+            final int id, final ProcessingEnvironment procenv
+        ) {
+            this.method = method;
+            this.source = source;
+            this.id = id;
+            this.procenv = procenv;
+        }
+
+        @Override
+        public MethodSpec get() {
+            final String seq = new FreshName(this.method, "seq").get();
+            final String args = new FreshName(this.method, "args").get();
+            final MethodSpec.Builder builder = new OverridingMethod(
+                this.method, this.source, this.procenv
+            ).get();
+            final MethodSpec spec = builder.build();
+            builder.addStatement(
+                "final long $N = this.$L.claim()",
+                seq, GeneratedActorTypeSpec.MAILBOX
+            );
+            if (!spec.parameters.isEmpty()) {
+                builder.addStatement(
+                    "final $T $N = this.$L.arguments($N)",
+                    Object[].class, args, GeneratedActorTypeSpec.MAILBOX, seq
+                );
+            }
+            for (int idx = 0; idx < spec.parameters.size(); ++idx) {
+                builder.addStatement(
+                    "$N[$L] = $N", args, idx, spec.parameters.get(idx)
+                );
+            }
+            if (spec.returnType.equals(TypeName.VOID)) {
+                builder.addStatement(
+                    "this.$L.post($N, $L)",
+                    GeneratedActorTypeSpec.MAILBOX, seq, this.id
+                );
+            } else {
+                this.awaiting(builder, spec, seq);
+            }
+            return builder.build();
+        }
+
+        /**
+         * Add the code publishing the call and waiting for its result.
+         *
+         * @param builder The builder of the method
+         * @param spec The method being built
+         * @param seq The name of the variable of the sequence
+         */
+        private void awaiting(
+            final MethodSpec.Builder builder, final MethodSpec spec,
+            final String seq
+        ) {
+            new UncheckedCast(spec.returnType).suppress(builder).addCode(
+                new UnwrappingCall(
+                    spec.exceptions,
+                    CodeBlock.of(
+                        "return ($T) this.$L.call($N, $L).await()",
+                        spec.returnType, GeneratedActorTypeSpec.MAILBOX,
+                        seq, this.id
+                    )
+                ).get()
+            );
+        }
+    }
+}
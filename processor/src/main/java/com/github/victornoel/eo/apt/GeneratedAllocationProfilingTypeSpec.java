@@ -0,0 +1,228 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.github.victornoel.eo.GenerateAllocationProfiling;
+import com.github.victornoel.eo.runtime.Allocations;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+
+/**
+ * The generated code of an envelope measuring the bytes allocated by
+ * each delegated call with {@link Allocations}.
+ *
+ * @since 1.1.0
+ */
+public final class GeneratedAllocationProfilingTypeSpec
+    implements GeneratedTypeSpec {
+
+    /**
+     * The name of the field of the wrapped implementation.
+     */
+    private static final String WRAPPED = "wrapped";
+
+    /**
+     * The name of the field of the measurements.
+     */
+    private static final String ALLOCATIONS = "allocations";
+
+    /**
+     * The name of the sampling rate parameter.
+     */
+    private static final String EVERY = "every";
+
+    /**
+     * The source interface.
+     */
+    private final TypeElement source;
+
+    /**
+     * The name for the generated envelope.
+     */
+    private final String name;
+
+    /**
+     * The processing environment.
+     */
+    private final ProcessingEnvironment procenv;
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param procenv The processing environment
+     */
+    public GeneratedAllocationProfilingTypeSpec(
+        final TypeElement source, final ProcessingEnvironment procenv
+    ) {
+        this(
+            source,
+            new GeneratedEnvelopeName(source, "AllocationProfiling").get(),
+            procenv
+        );
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param name The name for the generated envelope
+     * @param procenv The processing environment
+     */
+    public GeneratedAllocationProfilingTypeSpec(
+        final TypeElement source, final String name,
+        final ProcessingEnvironment procenv
+    ) {
+        this.source = source;
+        this.name = name;
+        this.procenv = procenv;
+    }
+
+    @Override
+    public TypeSpec typeSpec() throws Exception {
+        final List<ExecutableElement> methods = new ReservedNames(
+            new InterfaceMethods(this.source, this.procenv),
+            this.source,
+            GenerateAllocationProfiling.class.getSimpleName(),
+            Collections.singleton(GeneratedAllocationProfilingTypeSpec.ALLOCATIONS)
+        ).checked();
+        final TypeName type = TypeName.get(this.source.asType());
+        final FieldSpec wrapped = FieldSpec
+            .builder(
+                type, GeneratedAllocationProfilingTypeSpec.WRAPPED,
+                Modifier.PRIVATE, Modifier.FINAL
+            )
+            .build();
+        final ParameterSpec param = ParameterSpec
+            .builder(type, GeneratedAllocationProfilingTypeSpec.WRAPPED)
+            .build();
+        final ParameterSpec every = ParameterSpec
+            .builder(int.class, GeneratedAllocationProfilingTypeSpec.EVERY)
+            .build();
+        final TypeSpec.Builder builder = new GeneratedClassBuilder(
+            this.source, this.name, this.procenv
+        )
+            .get()
+            .addModifiers(Modifier.FINAL)
+            .addSuperinterface(type)
+            .addField(wrapped)
+            .addField(
+                Allocations.class,
+                GeneratedAllocationProfilingTypeSpec.ALLOCATIONS,
+                Modifier.PRIVATE, Modifier.FINAL
+            )
+            .addMethod(
+                MethodSpec.constructorBuilder()
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(param)
+                    .addStatement("this($N, 1)", param)
+                    .build()
+            )
+            .addMethod(
+                MethodSpec.constructorBuilder()
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(param)
+                    .addParameter(every)
+                    .addStatement("this.$N = $N", wrapped, param)
+                    .addStatement(
+                        "this.$L = new $T($N, $L)",
+                        GeneratedAllocationProfilingTypeSpec.ALLOCATIONS,
+                        Allocations.class,
+                        every,
+                        methods.stream()
+                            .map(m -> CodeBlock.of("$S", m.toString()))
+                            .collect(CodeBlock.joining(", "))
+                    )
+                    .build()
+            );
+        for (int idx = 0; idx < methods.size(); ++idx) {
+            builder.addMethod(this.measuring(methods.get(idx), idx));
+        }
+        return builder
+            .addMethod(
+                MethodSpec
+                    .methodBuilder(
+                        GeneratedAllocationProfilingTypeSpec.ALLOCATIONS
+                    )
+                    .addJavadoc(
+                        "The bytes allocated by each method, in the order of the interface.\n\n"
+                    )
+                    .addJavadoc("@return The allocations\n")
+                    .addModifiers(Modifier.PUBLIC)
+                    .returns(Allocations.class)
+                    .addStatement(
+                        "return this.$L",
+                        GeneratedAllocationProfilingTypeSpec.ALLOCATIONS
+                    )
+                    .build()
+            )
+            .build();
+    }
+
+    /**
+     * A generated method measuring the bytes allocated by a delegated
+     * call.
+     *
+     * @param method The method
+     * @param id The id of the method
+     * @return The generated method
+     */
+    private MethodSpec measuring(final ExecutableElement method, final int id) {
+        final String start = new FreshName(method, "start").get();
+        final CodeBlock call = CodeBlock.of(
+            "this.$L.$N($L)",
+            GeneratedAllocationProfilingTypeSpec.WRAPPED,
+            method.getSimpleName(),
+            new Arguments(method).get()
+        );
+        final MethodSpec.Builder builder = new OverridingMethod(
+            method, this.source, this.procenv
+        ).get();
+        builder
+            .addStatement(
+                "final long $N = this.$L.start()",
+                start, GeneratedAllocationProfilingTypeSpec.ALLOCATIONS
+            )
+            .beginControlFlow("try");
+        if (method.getReturnType().getKind() == TypeKind.VOID) {
+            builder.addStatement(call);
+        } else {
+            builder.addStatement("return $L", call);
+        }
+        return builder
+            .nextControlFlow("finally")
+            .addStatement(
+                "this.$L.record($L, $N)",
+                GeneratedAllocationProfilingTypeSpec.ALLOCATIONS, id, start
+            )
+            .endControlFlow()
+            .build();
+    }
+}
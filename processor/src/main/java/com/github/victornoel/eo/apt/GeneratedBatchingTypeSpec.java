@@ -0,0 +1,312 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.github.victornoel.eo.BatchedBy;
+import com.github.victornoel.eo.GenerateBatching;
+import com.github.victornoel.eo.runtime.Batching;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+
+/**
+ * The generated code of an envelope batching the calls to the methods
+ * annotated with {@link BatchedBy} with a {@link Batching}, the other
+ * calls being delegated directly.
+ *
+ * @since 1.1.0
+ * @checkstyle ClassDataAbstractionCouplingCheck (300 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class GeneratedBatchingTypeSpec implements GeneratedTypeSpec {
+
+    /**
+     * The default maximum number of keys in a batch.
+     */
+    private static final int SIZE = 64;
+
+    /**
+     * The name of the field of the wrapped implementation.
+     */
+    private static final String WRAPPED = "wrapped";
+
+    /**
+     * The name of the field of the batches.
+     */
+    private static final String BATCHING = "batching";
+
+    /**
+     * The name of the field of the executor shared by default.
+     */
+    private static final String SHARED = "SHARED";
+
+    /**
+     * The source interface.
+     */
+    private final TypeElement source;
+
+    /**
+     * The name for the generated envelope.
+     */
+    private final String name;
+
+    /**
+     * The processing environment.
+     */
+    private final ProcessingEnvironment procenv;
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param procenv The processing environment
+     */
+    public GeneratedBatchingTypeSpec(
+        final TypeElement source, final ProcessingEnvironment procenv
+    ) {
+        this(
+            source, new GeneratedEnvelopeName(source, "Batching").get(),
+            procenv
+        );
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param name The name for the generated envelope
+     * @param procenv The processing environment
+     */
+    public GeneratedBatchingTypeSpec(
+        final TypeElement source, final String name,
+        final ProcessingEnvironment procenv
+    ) {
+        this.source = source;
+        this.name = name;
+        this.procenv = procenv;
+    }
+
+    @Override
+    public TypeSpec typeSpec() throws Exception {
+        final List<ExecutableElement> methods = new ReservedNames(
+            new InterfaceMethods(this.source, this.procenv),
+            this.source,
+            GenerateBatching.class.getSimpleName(),
+            Arrays.asList(GeneratedBatchingTypeSpec.BATCHING, "close")
+        ).checked();
+        final TypeName type = TypeName.get(this.source.asType());
+        final TypeSpec.Builder builder = new GeneratedClassBuilder(
+            this.source, this.name, this.procenv
+        )
+            .get()
+            .addModifiers(Modifier.FINAL)
+            .addSuperinterface(type)
+            .addSuperinterface(AutoCloseable.class)
+            .addField(
+                type, GeneratedBatchingTypeSpec.WRAPPED,
+                Modifier.PRIVATE, Modifier.FINAL
+            )
+            .addField(
+                FieldSpec.builder(
+                    Executor.class, GeneratedBatchingTypeSpec.SHARED,
+                    Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL
+                )
+                    .addJavadoc(
+                        "The executor of bulk calls shared by the envelopes created without one.\n"
+                    )
+                    .initializer(
+                        new SourceLevel(this.procenv).taskExecutor(this.name)
+                    )
+                    .build()
+            )
+            .addField(
+                FieldSpec.builder(
+                    Batching.class, GeneratedBatchingTypeSpec.BATCHING,
+                    Modifier.PRIVATE, Modifier.FINAL
+                ).build()
+            );
+        final List<String> batched = new ArrayList<>(0);
+        for (final ExecutableElement method : methods) {
+            final Optional<ExecutableElement> bulk = new BulkMethod(
+                method, this.source, methods, this.procenv
+            ).found();
+            if (bulk.isPresent()) {
+                builder.addMethod(
+                    this.loading(method, bulk.get(), batched.size())
+                );
+                batched.add(method.getSimpleName().toString());
+            } else {
+                builder.addMethod(
+                    new DelegatingMethod(
+                        method, this.source,
+                        GeneratedBatchingTypeSpec.WRAPPED, this.procenv
+                    ).get()
+                );
+            }
+        }
+        if (batched.isEmpty()) {
+            throw new InvalidElementException(
+                String.format(
+                    "@%s requires methods annotated with @%s",
+                    GenerateBatching.class.getSimpleName(),
+                    BatchedBy.class.getSimpleName()
+                ),
+                this.source
+            );
+        }
+        return builder
+            .addMethods(this.constructors(type, batched))
+            .addMethod(
+                MethodSpec.methodBuilder(GeneratedBatchingTypeSpec.BATCHING)
+                    .addJavadoc("The batches and their metrics.\n\n")
+                    .addJavadoc("@return The batches\n")
+                    .addModifiers(Modifier.PUBLIC)
+                    .returns(Batching.class)
+                    .addStatement(
+                        "return this.$L", GeneratedBatchingTypeSpec.BATCHING
+                    )
+                    .build()
+            )
+            .addMethod(
+                MethodSpec.methodBuilder("close")
+                    .addJavadoc(
+                        "Dispatch the open batches and stop accepting calls.\n"
+                    )
+                    .addAnnotation(Override.class)
+                    .addModifiers(Modifier.PUBLIC)
+                    .addStatement(
+                        "this.$L.close()", GeneratedBatchingTypeSpec.BATCHING
+                    )
+                    .build()
+            )
+            .build();
+    }
+
+    /**
+     * A generated method loading its value with the next batch.
+     *
+     * @param method The single-key method
+     * @param bulk The bulk method
+     * @param id The id of the method
+     * @return The generated method
+     */
+    private MethodSpec loading(
+        final ExecutableElement method, final ExecutableElement bulk,
+        final int id
+    ) {
+        final MethodSpec.Builder builder = new OverridingMethod(
+            method, this.source, this.procenv
+        ).get();
+        final String keys = new FreshName(method, "keys").get();
+        return builder
+            .addCode(
+                new UnwrappingCall(
+                    builder.build().exceptions,
+                    CodeBlock.of(
+                        "return this.$L.load($L, $N, $N -> this.$L.$N($N))",
+                        GeneratedBatchingTypeSpec.BATCHING, id,
+                        method.getParameters().get(0).getSimpleName().toString(),
+                        keys, GeneratedBatchingTypeSpec.WRAPPED,
+                        bulk.getSimpleName(), keys
+                    )
+                ).get()
+            )
+            .build();
+    }
+
+    /**
+     * The constructors.
+     *
+     * @param type The type of the source interface
+     * @param batched The names of the batched methods
+     * @return The constructors
+     */
+    private List<MethodSpec> constructors(
+        final TypeName type, final List<String> batched
+    ) {
+        final ParameterSpec wrapped = ParameterSpec
+            .builder(type, GeneratedBatchingTypeSpec.WRAPPED)
+            .build();
+        final ParameterSpec size = ParameterSpec
+            .builder(int.class, "size")
+            .build();
+        final ParameterSpec window = ParameterSpec
+            .builder(long.class, "window")
+            .build();
+        final ParameterSpec unit = ParameterSpec
+            .builder(TimeUnit.class, "unit")
+            .build();
+        final ParameterSpec executor = ParameterSpec
+            .builder(Executor.class, "executor")
+            .build();
+        final CodeBlock.Builder names = CodeBlock.builder();
+        for (final String method : batched) {
+            names.add(", $S", method);
+        }
+        return Arrays.asList(
+            MethodSpec.constructorBuilder()
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(wrapped)
+                .addStatement(
+                    "this($N, $L, 1L, $T.MILLISECONDS)",
+                    wrapped, GeneratedBatchingTypeSpec.SIZE, TimeUnit.class
+                )
+                .build(),
+            MethodSpec.constructorBuilder()
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(wrapped)
+                .addParameter(size)
+                .addParameter(window)
+                .addParameter(unit)
+                .addStatement(
+                    "this($N, $N, $N, $N, $L.$L)",
+                    wrapped, size, window, unit, this.name,
+                    GeneratedBatchingTypeSpec.SHARED
+                )
+                .build(),
+            MethodSpec.constructorBuilder()
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(wrapped)
+                .addParameter(size)
+                .addParameter(window)
+                .addParameter(unit)
+                .addParameter(executor)
+                .addStatement("this.$N = $N", wrapped, wrapped)
+                .addStatement(
+                    "this.$L = new $T($N, $N.toNanos($N), $N$L)",
+                    GeneratedBatchingTypeSpec.BATCHING, Batching.class,
+                    size, unit, window, executor, names.build()
+                )
+                .build()
+        );
+    }
+}
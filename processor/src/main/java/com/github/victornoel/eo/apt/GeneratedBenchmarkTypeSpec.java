@@ -0,0 +1,404 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.github.victornoel.eo.GenerateEnvelope;
+import com.google.auto.common.MoreTypes;
+import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * The generated code of a JMH benchmark comparing direct calls to a
+ * no-op implementation of an interface with calls through its
+ * {@link GenerateEnvelope} envelope.
+ *
+ * <p>JMH is only referenced by name: it is needed to compile the
+ * generated benchmark, not to run the processor.</p>
+ *
+ * @since 1.1.0
+ * @checkstyle ClassDataAbstractionCouplingCheck (300 lines)
+ */
+public final class GeneratedBenchmarkTypeSpec implements GeneratedTypeSpec {
+
+    /**
+     * The option giving the directory where to write benchmarks.
+     */
+    public static final String OPTION = "eo.envelopes.benchmarks";
+
+    /**
+     * The package of the JMH annotations.
+     */
+    private static final String ANNOTATIONS = "org.openjdk.jmh.annotations";
+
+    /**
+     * The suffix of the generated benchmark, and the JMH annotation
+     * of its methods.
+     */
+    private static final String TIMED = "Benchmark";
+
+    /**
+     * The field of the no-op implementation.
+     */
+    private static final String DIRECT = "direct";
+
+    /**
+     * The field of the envelope of the no-op implementation.
+     */
+    private static final String ENVELOPE = "envelope";
+
+    /**
+     * The JMH blackhole.
+     */
+    private static final ClassName BLACKHOLE = ClassName.get(
+        "org.openjdk.jmh.infra", "Blackhole"
+    );
+
+    /**
+     * The name of the field and parameter of the blackhole.
+     */
+    private static final String HOLE = "blackhole";
+
+    /**
+     * The seed of the generated arguments, for runs to be comparable.
+     */
+    private static final long SEED = 42L;
+
+    /**
+     * The source interface.
+     */
+    private final TypeElement source;
+
+    /**
+     * The name for the generated benchmark.
+     */
+    private final String name;
+
+    /**
+     * The processing environment.
+     */
+    private final ProcessingEnvironment procenv;
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param procenv The processing environment
+     */
+    public GeneratedBenchmarkTypeSpec(
+        final TypeElement source, final ProcessingEnvironment procenv
+    ) {
+        this(
+            source, new GeneratedEnvelopeName(
+                source, GeneratedBenchmarkTypeSpec.TIMED
+            ).get(),
+            procenv
+        );
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param name The name for the generated benchmark
+     * @param procenv The processing environment
+     */
+    public GeneratedBenchmarkTypeSpec(
+        final TypeElement source, final String name,
+        final ProcessingEnvironment procenv
+    ) {
+        this.source = source;
+        this.name = name;
+        this.procenv = procenv;
+    }
+
+    @Override
+    public TypeSpec typeSpec() throws Exception {
+        final TypeName type = TypeName.get(this.source.asType());
+        final ClassName baseline = ClassName.get("", "Baseline");
+        final MethodSpec.Builder setup = MethodSpec.methodBuilder("setup")
+            .addAnnotation(GeneratedBenchmarkTypeSpec.jmh("Setup"))
+            .addModifiers(Modifier.PUBLIC)
+            .addParameter(
+                GeneratedBenchmarkTypeSpec.BLACKHOLE,
+                GeneratedBenchmarkTypeSpec.HOLE
+            )
+            .addStatement("this.direct = new $T(blackhole)", baseline)
+            .addStatement(
+                "this.envelope = new $L(this.direct) { }",
+                new GeneratedEnvelopeName(this.source).get()
+            )
+            .addStatement(
+                "final $T random = new $T($LL)",
+                SplittableRandom.class, SplittableRandom.class,
+                GeneratedBenchmarkTypeSpec.SEED
+            );
+        final TypeSpec.Builder builder = new GeneratedClassBuilder(
+            this.source, this.name, this.procenv
+        )
+            .get()
+            .addJavadoc(
+                "Compares calls to a no-op $T with calls through its envelope.\n",
+                type
+            )
+            .addModifiers(Modifier.FINAL)
+            .addAnnotation(
+                GeneratedBenchmarkTypeSpec.annotation(
+                    "State", "$T.Benchmark",
+                    GeneratedBenchmarkTypeSpec.jmh("Scope")
+                )
+            )
+            .addAnnotation(
+                GeneratedBenchmarkTypeSpec.annotation(
+                    "BenchmarkMode", "$T.AverageTime",
+                    GeneratedBenchmarkTypeSpec.jmh("Mode")
+                )
+            )
+            .addAnnotation(
+                GeneratedBenchmarkTypeSpec.annotation(
+                    "OutputTimeUnit", "$T.NANOSECONDS", TimeUnit.class
+                )
+            )
+            .addField(
+                FieldSpec.builder(int.class, "size", Modifier.PUBLIC)
+                    .addAnnotation(
+                        GeneratedBenchmarkTypeSpec.annotation(
+                            "Param", "{$S, $S}", "8", "64"
+                        )
+                    )
+                    .build()
+            )
+            .addField(type, GeneratedBenchmarkTypeSpec.DIRECT, Modifier.PRIVATE)
+            .addField(type, GeneratedBenchmarkTypeSpec.ENVELOPE, Modifier.PRIVATE);
+        final List<ExecutableElement> methods = new ArrayList<>(0);
+        new InterfaceMethods(this.source, this.procenv).forEach(methods::add);
+        for (int idx = 0; idx < methods.size(); idx += 1) {
+            final ExecutableElement method = methods.get(idx);
+            if (method.getTypeParameters().isEmpty()) {
+                this.measure(builder, setup, method, idx);
+            }
+        }
+        return builder
+            .addMethod(setup.build())
+            .addType(this.baseline(baseline, type, methods))
+            .build();
+    }
+
+    /**
+     * Add the benchmarks of a method, and the fields of its arguments
+     * generated during the setup.
+     *
+     * @param builder The benchmark class
+     * @param setup The setup method
+     * @param method The method
+     * @param idx The index of the method, to tell overloads apart
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private void measure(
+        final TypeSpec.Builder builder, final MethodSpec.Builder setup,
+        final ExecutableElement method, final int idx
+    ) {
+        final String prefix = String.format("%s%d", method.getSimpleName(), idx);
+        final ExecutableType member = this.member(method);
+        final List<? extends TypeMirror> types = member.getParameterTypes();
+        final CodeBlock.Builder args = CodeBlock.builder();
+        for (int pos = 0; pos < types.size(); pos += 1) {
+            final VariableElement param = method.getParameters().get(pos);
+            final String field = GeneratedBenchmarkTypeSpec.joined(
+                prefix, param.getSimpleName().toString()
+            );
+            builder.addField(TypeName.get(types.get(pos)), field, Modifier.PRIVATE);
+            setup.addStatement(
+                "this.$N = $L", field, new BenchmarkArgument(types.get(pos)).get()
+            );
+            if (pos > 0) {
+                args.add(", ");
+            }
+            args.add("this.$N", field);
+        }
+        for (final String target : new String[] {
+            GeneratedBenchmarkTypeSpec.DIRECT,
+            GeneratedBenchmarkTypeSpec.ENVELOPE,
+        }) {
+            builder.addMethod(
+                GeneratedBenchmarkTypeSpec.call(
+                    method, member.getReturnType(), prefix, target,
+                    args.build()
+                )
+            );
+        }
+    }
+
+    /**
+     * A method as seen from the source interface.
+     *
+     * @param method The method
+     * @return The method type
+     */
+    private ExecutableType member(final ExecutableElement method) {
+        return MoreTypes.asExecutable(
+            this.procenv.getTypeUtils().asMemberOf(
+                MoreTypes.asDeclared(this.source.asType()), method
+            )
+        );
+    }
+
+    /**
+     * The benchmark of a method called on one of the fields.
+     *
+     * @param method The method
+     * @param returned The type it returns
+     * @param prefix The prefix of the benchmark name
+     * @param target The field to call the method on
+     * @param args The arguments of the call
+     * @return The benchmark
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private static MethodSpec call(
+        final ExecutableElement method, final TypeMirror returned,
+        final String prefix, final String target, final CodeBlock args
+    ) {
+        final MethodSpec.Builder builder = MethodSpec
+            .methodBuilder(GeneratedBenchmarkTypeSpec.joined(prefix, target))
+            .addAnnotation(
+                GeneratedBenchmarkTypeSpec.jmh(GeneratedBenchmarkTypeSpec.TIMED)
+            )
+            .addModifiers(Modifier.PUBLIC)
+            .returns(TypeName.get(returned));
+        for (final TypeMirror thrown : method.getThrownTypes()) {
+            builder.addException(TypeName.get(thrown));
+        }
+        final CodeBlock call = CodeBlock.of(
+            "this.$N.$N($L)", target, method.getSimpleName(), args
+        );
+        if (returned.getKind() == TypeKind.VOID) {
+            builder.addStatement(call);
+        } else {
+            builder.addStatement("return $L", call);
+        }
+        return builder.build();
+    }
+
+    /**
+     * The no-op implementation consuming its arguments into a blackhole.
+     *
+     * @param baseline The name of the implementation
+     * @param type The type of the source interface
+     * @param methods The methods of the source interface
+     * @return The implementation
+     */
+    private TypeSpec baseline(
+        final ClassName baseline, final TypeName type,
+        final List<ExecutableElement> methods
+    ) {
+        final TypeSpec.Builder builder = TypeSpec.classBuilder(baseline)
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+            .addSuperinterface(type)
+            .addField(
+                GeneratedBenchmarkTypeSpec.BLACKHOLE,
+                GeneratedBenchmarkTypeSpec.HOLE,
+                Modifier.PRIVATE, Modifier.FINAL
+            )
+            .addMethod(
+                MethodSpec.constructorBuilder()
+                    .addParameter(
+                        GeneratedBenchmarkTypeSpec.BLACKHOLE,
+                        GeneratedBenchmarkTypeSpec.HOLE
+                    )
+                    .addStatement("this.blackhole = blackhole")
+                    .build()
+            );
+        for (final ExecutableElement method : methods) {
+            final MethodSpec.Builder impl = new OverridingMethod(
+                method, this.source, this.procenv
+            ).get();
+            for (final VariableElement param : method.getParameters()) {
+                impl.addStatement(
+                    "this.blackhole.consume($N)", param.getSimpleName().toString()
+                );
+            }
+            final TypeMirror returned = this.member(method).getReturnType();
+            if (returned.getKind() == TypeKind.BOOLEAN) {
+                impl.addStatement("return false");
+            } else if (returned.getKind().isPrimitive()) {
+                impl.addStatement("return 0");
+            } else if (returned.getKind() != TypeKind.VOID) {
+                impl.addStatement("return null");
+            }
+            builder.addMethod(impl.build());
+        }
+        return builder.build();
+    }
+
+    /**
+     * A JMH annotation or type by its simple name.
+     *
+     * @param simple The simple name
+     * @return The name
+     */
+    private static ClassName jmh(final String simple) {
+        return ClassName.get(GeneratedBenchmarkTypeSpec.ANNOTATIONS, simple);
+    }
+
+    /**
+     * A JMH annotation with a value.
+     *
+     * @param simple The simple name of the annotation
+     * @param format The format of the value
+     * @param args The arguments of the format
+     * @return The annotation
+     */
+    private static AnnotationSpec annotation(
+        final String simple, final String format, final Object... args
+    ) {
+        return AnnotationSpec.builder(GeneratedBenchmarkTypeSpec.jmh(simple))
+            .addMember("value", format, args)
+            .build();
+    }
+
+    /**
+     * Join a prefix and a name in camel case.
+     *
+     * @param prefix The prefix
+     * @param name The name
+     * @return The joined name
+     */
+    private static String joined(final String prefix, final String name) {
+        return String.format(
+            "%s%s%s", prefix, Character.toUpperCase(name.charAt(0)),
+            name.substring(1)
+        );
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.github.victornoel.eo.GenerateChaos;
+import com.github.victornoel.eo.runtime.Chaos;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+
+/**
+ * The generated code of an envelope injecting the faults of a
+ * {@link Chaos} in the calls.
+ *
+ * @since 1.1.0
+ * @checkstyle ClassDataAbstractionCouplingCheck (300 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class GeneratedChaosTypeSpec implements GeneratedTypeSpec {
+
+    /**
+     * The name of the field of the wrapped implementation.
+     */
+    private static final String WRAPPED = "wrapped";
+
+    /**
+     * The name of the field of the faults.
+     */
+    private static final String CHAOS = "chaos";
+
+    /**
+     * The source interface.
+     */
+    private final TypeElement source;
+
+    /**
+     * The name for the generated envelope.
+     */
+    private final String name;
+
+    /**
+     * The processing environment.
+     */
+    private final ProcessingEnvironment procenv;
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param procenv The processing environment
+     */
+    public GeneratedChaosTypeSpec(
+        final TypeElement source, final ProcessingEnvironment procenv
+    ) {
+        this(source, new GeneratedEnvelopeName(source, "Chaos").get(), procenv);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param name The name for the generated envelope
+     * @param procenv The processing environment
+     */
+    public GeneratedChaosTypeSpec(
+        final TypeElement source, final String name,
+        final ProcessingEnvironment procenv
+    ) {
+        this.source = source;
+        this.name = name;
+        this.procenv = procenv;
+    }
+
+    @Override
+    public TypeSpec typeSpec() throws Exception {
+        final List<ExecutableElement> methods = new ReservedNames(
+            new InterfaceMethods(this.source, this.procenv),
+            this.source,
+            GenerateChaos.class.getSimpleName(),
+            Collections.singleton(GeneratedChaosTypeSpec.CHAOS)
+        ).checked();
+        final TypeName type = TypeName.get(this.source.asType());
+        final CodeBlock.Builder names = CodeBlock.builder();
+        for (final ExecutableElement method : methods) {
+            names.add(", $S", method.getSimpleName());
+        }
+        final TypeSpec.Builder builder = new GeneratedClassBuilder(
+            this.source, this.name, this.procenv
+        )
+            .get()
+            .addModifiers(Modifier.FINAL)
+            .addSuperinterface(type)
+            .addField(
+                type, GeneratedChaosTypeSpec.WRAPPED,
+                Modifier.PRIVATE, Modifier.FINAL
+            )
+            .addField(
+                Chaos.class, GeneratedChaosTypeSpec.CHAOS,
+                Modifier.PRIVATE, Modifier.FINAL
+            )
+            .addMethods(GeneratedChaosTypeSpec.constructors(type, names.build()));
+        for (int idx = 0; idx < methods.size(); ++idx) {
+            final ExecutableElement method = methods.get(idx);
+            final CodeBlock call = CodeBlock.of(
+                "this.$L.$N($L)",
+                GeneratedChaosTypeSpec.WRAPPED, method.getSimpleName(),
+                new Arguments(method).get()
+            );
+            final MethodSpec.Builder overriding = new OverridingMethod(
+                method, this.source, this.procenv
+            )
+                .get()
+                .addStatement("this.$L.inject($L)", GeneratedChaosTypeSpec.CHAOS, idx);
+            if (method.getReturnType().getKind() == TypeKind.VOID) {
+                overriding.addStatement(call);
+            } else {
+                overriding.addStatement("return $L", call);
+            }
+            builder.addMethod(overriding.build());
+        }
+        return builder
+            .addMethod(
+                MethodSpec.methodBuilder(GeneratedChaosTypeSpec.CHAOS)
+                    .addJavadoc("The faults injected in the calls.\n\n")
+                    .addJavadoc("@return The faults\n")
+                    .addModifiers(Modifier.PUBLIC)
+                    .returns(Chaos.class)
+                    .addStatement("return this.$L", GeneratedChaosTypeSpec.CHAOS)
+                    .build()
+            )
+            .build();
+    }
+
+    /**
+     * The constructors of the envelope.
+     *
+     * @param type The source interface
+     * @param names The names of the methods, as trailing arguments
+     * @return The constructors
+     */
+    private static List<MethodSpec> constructors(
+        final TypeName type, final CodeBlock names
+    ) {
+        final ParameterSpec wrapped = ParameterSpec
+            .builder(type, GeneratedChaosTypeSpec.WRAPPED)
+            .build();
+        final ParameterSpec seed = ParameterSpec
+            .builder(TypeName.LONG, "seed")
+            .build();
+        final ParameterSpec chaos = ParameterSpec
+            .builder(Chaos.class, GeneratedChaosTypeSpec.CHAOS)
+            .build();
+        return Arrays.asList(
+            MethodSpec.constructorBuilder()
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(wrapped)
+                .addStatement("this($N, $T.nanoTime())", wrapped, System.class)
+                .build(),
+            MethodSpec.constructorBuilder()
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(wrapped)
+                .addParameter(seed)
+                .addStatement(
+                    "this($N, new $T($N$L))", wrapped, Chaos.class, seed, names
+                )
+                .build(),
+            MethodSpec.constructorBuilder()
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(wrapped)
+                .addParameter(chaos)
+                .addStatement("this.$N = $N", wrapped, wrapped)
+                .addStatement("this.$N = $N", chaos, chaos)
+                .build()
+        );
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.google.auto.common.GeneratedAnnotationSpecs;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.TypeVariableName;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+
+/**
+ * The builder of a public class generated from an interface, with the
+ * type parameters of the interface and marked as generated.
+ *
+ * @since 1.1.0
+ */
+public final class GeneratedClassBuilder implements Supplier<TypeSpec.Builder> {
+
+    /**
+     * The source interface.
+     */
+    private final TypeElement source;
+
+    /**
+     * The name of the generated class.
+     */
+    private final String name;
+
+    /**
+     * The processing environment.
+     */
+    private final ProcessingEnvironment procenv;
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param name The name of the generated class
+     * @param procenv The processing environment
+     */
+    public GeneratedClassBuilder(
+        final TypeElement source, final String name,
+        final ProcessingEnvironment procenv
+    ) {
+        this.source = source;
+        this.name = name;
+        this.procenv = procenv;
+    }
+
+    @Override
+    public TypeSpec.Builder get() {
+        final TypeSpec.Builder builder = TypeSpec.classBuilder(this.name)
+            .addOriginatingElement(this.source)
+            .addModifiers(Modifier.PUBLIC)
+            .addTypeVariables(
+                this.source.getTypeParameters()
+                    .stream()
+                    .map(TypeVariableName::get)
+                    .collect(Collectors.toList())
+            );
+        GeneratedAnnotationSpecs.generatedAnnotationSpec(
+            this.procenv.getElementUtils(),
+            this.procenv.getSourceVersion(),
+            GenerateEnvelopeProcessor.class
+        ).ifPresent(builder::addAnnotation);
+        return builder;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.squareup.javapoet.ClassName;
+import java.util.function.Supplier;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.TypeElement;
+
+/**
+ * The qualified name of a class generated from an interface, to refer
+ * to it from another generated class.
+ *
+ * @since 1.1.0
+ */
+public final class GeneratedClassName implements Supplier<ClassName> {
+
+    /**
+     * The source interface.
+     */
+    private final TypeElement source;
+
+    /**
+     * The suffix of the generated class.
+     */
+    private final String suffix;
+
+    /**
+     * The processing environment.
+     */
+    private final ProcessingEnvironment procenv;
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param suffix The suffix of the generated class
+     * @param procenv The processing environment
+     */
+    public GeneratedClassName(
+        final TypeElement source, final String suffix,
+        final ProcessingEnvironment procenv
+    ) {
+        this.source = source;
+        this.suffix = suffix;
+        this.procenv = procenv;
+    }
+
+    @Override
+    public ClassName get() {
+        return ClassName.get(
+            this.procenv.getElementUtils()
+                .getPackageOf(this.source)
+                .getQualifiedName()
+                .toString(),
+            new GeneratedEnvelopeName(this.source, this.suffix).get()
+        );
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.github.victornoel.eo.GenerateConflating;
+import com.github.victornoel.eo.runtime.Conflation;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+
+/**
+ * The generated code of an envelope conflating the calls to void methods
+ * with a {@link com.github.victornoel.eo.Key} parameter with a
+ * {@link Conflation}, the other calls being delegated directly.
+ *
+ * @since 1.1.0
+ * @checkstyle ClassDataAbstractionCouplingCheck (300 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class GeneratedConflatingTypeSpec implements GeneratedTypeSpec {
+
+    /**
+     * The name of the field of the wrapped implementation.
+     */
+    private static final String WRAPPED = "wrapped";
+
+    /**
+     * The name of the field of the pending calls.
+     */
+    private static final String CONFLATION = "conflation";
+
+    /**
+     * The name of the parameter of the period.
+     */
+    private static final String PERIOD = "period";
+
+    /**
+     * The name of the parameter of the unit of the period.
+     */
+    private static final String UNIT = "unit";
+
+    /**
+     * The source interface.
+     */
+    private final TypeElement source;
+
+    /**
+     * The name for the generated envelope.
+     */
+    private final String name;
+
+    /**
+     * The processing environment.
+     */
+    private final ProcessingEnvironment procenv;
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param procenv The processing environment
+     */
+    public GeneratedConflatingTypeSpec(
+        final TypeElement source, final ProcessingEnvironment procenv
+    ) {
+        this(
+            source, new GeneratedEnvelopeName(source, "Conflating").get(),
+            procenv
+        );
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param name The name for the generated envelope
+     * @param procenv The processing environment
+     */
+    public GeneratedConflatingTypeSpec(
+        final TypeElement source, final String name,
+        final ProcessingEnvironment procenv
+    ) {
+        this.source = source;
+        this.name = name;
+        this.procenv = procenv;
+    }
+
+    @Override
+    public TypeSpec typeSpec() throws Exception {
+        final TypeName type = TypeName.get(this.source.asType());
+        final FieldSpec wrapped = FieldSpec
+            .builder(
+                type, GeneratedConflatingTypeSpec.WRAPPED,
+                Modifier.PRIVATE, Modifier.FINAL
+            )
+            .build();
+        final TypeSpec.Builder builder = new GeneratedClassBuilder(
+            this.source, this.name, this.procenv
+        )
+            .get()
+            .addModifiers(Modifier.FINAL)
+            .addSuperinterface(type)
+            .addSuperinterface(AutoCloseable.class)
+            .addField(wrapped)
+            .addField(
+                Conflation.class, GeneratedConflatingTypeSpec.CONFLATION,
+                Modifier.PRIVATE, Modifier.FINAL
+            );
+        final List<ExecutableElement> conflated = new ArrayList<>(0);
+        for (final ExecutableElement method : new ReservedNames(
+            new InterfaceMethods(this.source, this.procenv),
+            this.source,
+            GenerateConflating.class.getSimpleName(),
+            Arrays.asList("close", "dropped")
+        ).checked()) {
+            final Optional<VariableElement> key = new KeyParameter(method)
+                .found();
+            if (key.isPresent()
+                && method.getReturnType().getKind() == TypeKind.VOID) {
+                builder.addMethod(
+                    this.offering(method, key.get(), conflated.size())
+                );
+                conflated.add(method);
+            } else {
+                builder.addMethod(
+                    new DelegatingMethod(
+                        method, this.source,
+                        GeneratedConflatingTypeSpec.WRAPPED, this.procenv
+                    ).get()
+                );
+            }
+        }
+        return builder
+            .addMethods(
+                GeneratedConflatingTypeSpec.constructors(
+                    type, conflated.size(),
+                    new SourceLevel(this.procenv).threadFactory(this.name)
+                )
+            )
+            .addMethod(
+                MethodSpec.methodBuilder("dropped")
+                    .addJavadoc(
+                        "The number of calls replaced by a later call with the same key.\n\n"
+                    )
+                    .addJavadoc("@return The number of calls\n")
+                    .addModifiers(Modifier.PUBLIC)
+                    .returns(long.class)
+                    .addStatement(
+                        "return this.$L.dropped()",
+                        GeneratedConflatingTypeSpec.CONFLATION
+                    )
+                    .build()
+            )
+            .addMethod(
+                MethodSpec.methodBuilder("close")
+                    .addJavadoc(
+                        "Stop accepting calls, waiting for the pending ones to be applied.\n"
+                    )
+                    .addAnnotation(Override.class)
+                    .addModifiers(Modifier.PUBLIC)
+                    .addStatement(
+                        "this.$L.close()", GeneratedConflatingTypeSpec.CONFLATION
+                    )
+                    .build()
+            )
+            .addMethod(
+                new DispatchingMethod(
+                    conflated, wrapped, this.source, this.procenv
+                ).get()
+            )
+            .build();
+    }
+
+    /**
+     * A generated method making its call pending.
+     *
+     * @param method The method
+     * @param key The key parameter
+     * @param id The id of the method
+     * @return The generated method
+     */
+    private MethodSpec offering(
+        final ExecutableElement method, final VariableElement key,
+        final int id
+    ) {
+        final MethodSpec.Builder builder = new OverridingMethod(
+            method, this.source, this.procenv
+        ).get();
+        final CodeBlock args = new Arguments(method).get();
+        if (args.isEmpty()) {
+            builder.addStatement(
+                "this.$L.offer($L, $N)",
+                GeneratedConflatingTypeSpec.CONFLATION, id,
+                key.getSimpleName().toString()
+            );
+        } else {
+            builder.addStatement(
+                "this.$L.offer($L, $N, $L)",
+                GeneratedConflatingTypeSpec.CONFLATION, id,
+                key.getSimpleName().toString(), args
+            );
+        }
+        return builder.build();
+    }
+
+    /**
+     * The constructors, the main one starting the drainer thread.
+     *
+     * @param type The type of the source interface
+     * @param methods The number of conflated methods
+     * @param factory The expression creating the default thread factory
+     * @return The constructors
+     */
+    private static List<MethodSpec> constructors(
+        final TypeName type, final int methods, final CodeBlock factory
+    ) {
+        final ParameterSpec wrapped = ParameterSpec
+            .builder(type, GeneratedConflatingTypeSpec.WRAPPED)
+            .build();
+        final ParameterSpec period = ParameterSpec
+            .builder(long.class, GeneratedConflatingTypeSpec.PERIOD)
+            .build();
+        final ParameterSpec unit = ParameterSpec
+            .builder(TimeUnit.class, GeneratedConflatingTypeSpec.UNIT)
+            .build();
+        final ParameterSpec threads = ParameterSpec
+            .builder(ThreadFactory.class, "threads")
+            .build();
+        return Arrays.asList(
+            MethodSpec.constructorBuilder()
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(wrapped)
+                .addStatement(
+                    "this($N, 0L, $T.NANOSECONDS)", wrapped, TimeUnit.class
+                )
+                .build(),
+            MethodSpec.constructorBuilder()
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(wrapped)
+                .addParameter(period)
+                .addParameter(unit)
+                .addStatement(
+                    "this($N, $N, $N, $L)", wrapped, period, unit, factory
+                )
+                .build(),
+            MethodSpec.constructorBuilder()
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(wrapped)
+                .addParameter(period)
+                .addParameter(unit)
+                .addParameter(threads)
+                .addStatement("this.$N = $N", wrapped, wrapped)
+                .addStatement(
+                    "this.$L = new $T($L, $N.toNanos($N))",
+                    GeneratedConflatingTypeSpec.CONFLATION, Conflation.class,
+                    methods, unit, period
+                )
+                .addStatement(
+                    "this.$L.start($N, this::dispatch)",
+                    GeneratedConflatingTypeSpec.CONFLATION, threads
+                )
+                .build()
+        );
+    }
+}
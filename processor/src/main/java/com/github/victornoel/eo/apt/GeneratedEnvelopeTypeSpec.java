@@ -18,10 +18,6 @@
 
 package com.github.victornoel.eo.apt;
 
-import com.google.auto.common.GeneratedAnnotationSpecs;
-import com.google.auto.common.MoreElements;
-import com.google.auto.common.MoreTypes;
-import com.google.auto.common.Visibility;
 import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.CodeBlock.Builder;
 import com.squareup.javapoet.FieldSpec;
@@ -29,26 +25,21 @@ import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.ParameterSpec;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
-import com.squareup.javapoet.TypeVariableName;
-import java.util.Collection;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
-import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.TypeKind;
-import javax.lang.model.util.Types;
 
 /**
  * The generated code of a generated envelope.
  *
  * @since 1.0.0
  */
-public final class GeneratedEnvelopeTypeSpec {
+public final class GeneratedEnvelopeTypeSpec implements GeneratedTypeSpec {
 
     /**
      * The source interface.
@@ -92,12 +83,7 @@ public final class GeneratedEnvelopeTypeSpec {
         this.procenv = procenv;
     }
 
-    /**
-     * Generate the code for the generated envelope.
-     *
-     * @return The generated code
-     * @throws Exception If fails
-     */
+    @Override
     public TypeSpec typeSpec() throws Exception {
         final TypeName type = TypeName.get(this.source.asType());
         final String wrapped = "wrapped";
@@ -107,16 +93,10 @@ public final class GeneratedEnvelopeTypeSpec {
         final ParameterSpec parameter = ParameterSpec
             .builder(type, wrapped)
             .build();
-        final TypeSpec.Builder builder = TypeSpec.classBuilder(this.name)
-            .addOriginatingElement(this.source)
-            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+        return new GeneratedClassBuilder(this.source, this.name, this.procenv)
+            .get()
+            .addModifiers(Modifier.ABSTRACT)
             .addSuperinterface(type)
-            .addTypeVariables(
-                this.source.getTypeParameters()
-                    .stream()
-                    .map(TypeVariableName::get)
-                    .collect(Collectors.toList())
-            )
             .addField(field)
             .addMethod(MethodSpec.constructorBuilder()
                 .addModifiers(Modifier.PUBLIC)
@@ -124,13 +104,8 @@ public final class GeneratedEnvelopeTypeSpec {
                 .addStatement("this.$N = $N", field, parameter)
                 .build()
             )
-            .addMethods(new DelegatingMethods(field));
-        GeneratedAnnotationSpecs.generatedAnnotationSpec(
-            this.procenv.getElementUtils(),
-            this.procenv.getSourceVersion(),
-            GenerateEnvelopeProcessor.class
-        ).ifPresent(builder::addAnnotation);
-        return builder.build();
+            .addMethods(new DelegatingMethods(field))
+            .build();
     }
 
     /**
@@ -143,7 +118,7 @@ public final class GeneratedEnvelopeTypeSpec {
         /**
          * The methods to delegate.
          */
-        private final Collection<ExecutableElement> sources;
+        private final Iterable<ExecutableElement> sources;
 
         /**
          * The field to delegate to.
@@ -157,10 +132,9 @@ public final class GeneratedEnvelopeTypeSpec {
          */
         DelegatingMethods(final FieldSpec wrapped) {
             this(
-                MoreElements.getLocalAndInheritedMethods(
+                new InterfaceMethods(
                     GeneratedEnvelopeTypeSpec.this.source,
-                    GeneratedEnvelopeTypeSpec.this.procenv.getTypeUtils(),
-                    GeneratedEnvelopeTypeSpec.this.procenv.getElementUtils()
+                    GeneratedEnvelopeTypeSpec.this.procenv
                 ),
                 wrapped
             );
@@ -173,7 +147,7 @@ public final class GeneratedEnvelopeTypeSpec {
          * @param wrapped The field to delegate to
          */
         DelegatingMethods(
-            final Collection<ExecutableElement> sources, final FieldSpec wrapped
+            final Iterable<ExecutableElement> sources, final FieldSpec wrapped
         ) {
             this.sources = sources;
             this.wrapped = wrapped;
@@ -181,41 +155,9 @@ public final class GeneratedEnvelopeTypeSpec {
 
         @Override
         public Iterator<MethodSpec> iterator() {
-            return this.sources.stream().collect(
-                LinkedList<ExecutableElement>::new,
-                (acc, e) -> {
-                    if (acc.stream().noneMatch(o -> o != e && this.overrides(o, e))) {
-                        acc.add(e);
-                    }
-                },
-                (acc1, acc2) -> acc1.addAll(acc2)
-            )
-            .stream()
-            .map(m -> new DelegatingMethod(m, this.wrapped).get())
-            .iterator();
-        }
-
-        /**
-         * Inspired by MoreElements.overrides but without any check about owning interfaces.
-         * See also https://github.com/google/auto/issues/825.
-         *
-         * @param overrider A potentially overriding method
-         * @param overridden A potentially overridden method
-         * @return The value {@code true} if {@code overrider} overrides {@code overridden}
-         */
-        private boolean overrides(
-            final ExecutableElement overrider, final ExecutableElement overridden
-        ) {
-            final Types types = GeneratedEnvelopeTypeSpec.this.procenv.getTypeUtils();
-            final DeclaredType type = MoreTypes.asDeclared(
-                GeneratedEnvelopeTypeSpec.this.source.asType()
-            );
-            return overrider.getSimpleName().equals(overridden.getSimpleName())
-                && Visibility.ofElement(overrider).compareTo(Visibility.ofElement(overridden)) >= 0
-                && types.isSubsignature(
-                    MoreTypes.asExecutable(types.asMemberOf(type, overrider)),
-                    MoreTypes.asExecutable(types.asMemberOf(type, overridden))
-                );
+            return StreamSupport.stream(this.sources.spliterator(), false)
+                .map(m -> new DelegatingMethod(m, this.wrapped).get())
+                .iterator();
         }
     }
 
@@ -250,14 +192,12 @@ public final class GeneratedEnvelopeTypeSpec {
 
         @Override
         public MethodSpec get() {
-            return MethodSpec
-                .overriding(
-                    this.method,
-                    MoreTypes.asDeclared(
-                        GeneratedEnvelopeTypeSpec.this.source.asType()
-                    ),
-                    GeneratedEnvelopeTypeSpec.this.procenv.getTypeUtils()
-                )
+            return new OverridingMethod(
+                this.method,
+                GeneratedEnvelopeTypeSpec.this.source,
+                GeneratedEnvelopeTypeSpec.this.procenv
+            )
+                .get()
                 .addModifiers(Modifier.FINAL)
                 .addStatement(this.delegation())
                 .build();
@@ -276,12 +216,7 @@ public final class GeneratedEnvelopeTypeSpec {
             return statement
                 .add("$N.$N", this.wrapped, this.method.getSimpleName())
                 .add("(")
-                .add(this.method
-                    .getParameters()
-                    .stream()
-                    .map(ps -> CodeBlock.of("$N", ParameterSpec.get(ps)))
-                    .collect(CodeBlock.joining(","))
-                )
+                .add(new Arguments(this.method).get())
                 .add(")")
                 .build();
         }
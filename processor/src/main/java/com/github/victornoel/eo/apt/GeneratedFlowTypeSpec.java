@@ -0,0 +1,357 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.github.victornoel.eo.GenerateFlow;
+import com.github.victornoel.eo.runtime.Emission;
+import com.github.victornoel.eo.runtime.IterablePublisher;
+import com.github.victornoel.eo.runtime.Publisher;
+import com.google.auto.common.MoreTypes;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.TypeVariableName;
+import com.squareup.javapoet.WildcardTypeName;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+
+/**
+ * The generated code of an adapter exposing the methods returning an
+ * {@link Iterable} as publishers of its elements, each subscriber getting
+ * them from an {@link Emission}.
+ *
+ * <p>From Java 9, the methods return a
+ * {@code java.util.concurrent.Flow.Publisher}, adapted by a generated
+ * helper, and an {@link IterablePublisher} before.</p>
+ *
+ * @since 1.1.0
+ * @checkstyle ClassDataAbstractionCouplingCheck (300 lines)
+ */
+public final class GeneratedFlowTypeSpec implements GeneratedTypeSpec {
+
+    /**
+     * The name of the field of the wrapped implementation.
+     */
+    private static final String WRAPPED = "wrapped";
+
+    /**
+     * The name of the helper adapting emissions to Flow.
+     */
+    private static final String PUBLISHER = "publisher";
+
+    /**
+     * The first version with {@code java.util.concurrent.Flow}.
+     */
+    private static final int FLOW_LEVEL = 9;
+
+    /**
+     * The publisher interface from Java 9.
+     */
+    private static final ClassName FLOW = ClassName.bestGuess(
+        "java.util.concurrent.Flow.Publisher"
+    );
+
+    /**
+     * The source interface.
+     */
+    private final TypeElement source;
+
+    /**
+     * The name for the generated adapter.
+     */
+    private final String name;
+
+    /**
+     * The processing environment.
+     */
+    private final ProcessingEnvironment procenv;
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param procenv The processing environment
+     */
+    public GeneratedFlowTypeSpec(
+        final TypeElement source, final ProcessingEnvironment procenv
+    ) {
+        this(source, new GeneratedEnvelopeName(source, "Flow").get(), procenv);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param name The name for the generated adapter
+     * @param procenv The processing environment
+     */
+    public GeneratedFlowTypeSpec(
+        final TypeElement source, final String name,
+        final ProcessingEnvironment procenv
+    ) {
+        this.source = source;
+        this.name = name;
+        this.procenv = procenv;
+    }
+
+    @Override
+    public TypeSpec typeSpec() throws Exception {
+        final boolean flow = new SourceLevel(this.procenv)
+            .atLeast(GeneratedFlowTypeSpec.FLOW_LEVEL);
+        final TypeName type = TypeName.get(this.source.asType());
+        final FieldSpec wrapped = FieldSpec
+            .builder(
+                type, GeneratedFlowTypeSpec.WRAPPED,
+                Modifier.PRIVATE, Modifier.FINAL
+            )
+            .build();
+        final ParameterSpec param = ParameterSpec
+            .builder(type, GeneratedFlowTypeSpec.WRAPPED)
+            .build();
+        final TypeSpec.Builder builder = new GeneratedClassBuilder(
+            this.source, this.name, this.procenv
+        )
+            .get()
+            .addModifiers(Modifier.FINAL)
+            .addField(wrapped)
+            .addMethod(
+                MethodSpec.constructorBuilder()
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(param)
+                    .addStatement("this.$N = $N", wrapped, param)
+                    .build()
+            );
+        int published = 0;
+        for (final ExecutableElement method : new ReservedNames(
+            new InterfaceMethods(this.source, this.procenv),
+            this.source,
+            GenerateFlow.class.getSimpleName(),
+            Collections.singleton(GeneratedFlowTypeSpec.PUBLISHER)
+        ).checked()) {
+            final Optional<TypeMirror> element = this.element(
+                MoreTypes.asExecutable(
+                    this.procenv.getTypeUtils().asMemberOf(
+                        MoreTypes.asDeclared(this.source.asType()), method
+                    )
+                ).getReturnType()
+            );
+            if (element.isPresent()) {
+                builder.addMethod(
+                    GeneratedFlowTypeSpec.publishing(
+                        new OverridingMethod(method, this.source, this.procenv)
+                            .get().build(),
+                        TypeName.get(element.get()),
+                        flow
+                    )
+                );
+                ++published;
+            }
+        }
+        if (published == 0) {
+            throw new InvalidElementException(
+                String.format(
+                    "@%s requires methods returning an Iterable",
+                    GenerateFlow.class.getSimpleName()
+                ),
+                this.source
+            );
+        }
+        if (flow) {
+            builder.addMethod(GeneratedFlowTypeSpec.adapter());
+        }
+        return builder.build();
+    }
+
+    /**
+     * The type of the elements of a type, if it is an {@link Iterable}.
+     *
+     * @param type The type
+     * @return The type of the elements
+     */
+    private Optional<TypeMirror> element(final TypeMirror type) {
+        Optional<TypeMirror> element = Optional.empty();
+        if (type.getKind() == TypeKind.DECLARED
+            && MoreTypes.isTypeOf(Iterable.class, type)) {
+            final TypeMirror object = this.procenv.getElementUtils()
+                .getTypeElement(Object.class.getCanonicalName()).asType();
+            element = Optional.of(
+                MoreTypes.asDeclared(type).getTypeArguments().stream()
+                    .<TypeMirror>map(
+                        arg -> GeneratedFlowTypeSpec.bound(arg, object)
+                    )
+                    .findFirst()
+                    .orElse(object)
+            );
+        } else if (type.getKind() == TypeKind.DECLARED) {
+            element = this.procenv.getTypeUtils().directSupertypes(type)
+                .stream()
+                .map(this::element)
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .findFirst();
+        }
+        return element;
+    }
+
+    /**
+     * The upper bound of a type argument.
+     *
+     * @param arg The type argument
+     * @param object The type of {@link Object}
+     * @return The type argument or the upper bound of a wildcard
+     */
+    private static TypeMirror bound(final TypeMirror arg, final TypeMirror object) {
+        TypeMirror bound = arg;
+        if (arg.getKind() == TypeKind.WILDCARD) {
+            bound = Optional.ofNullable(((WildcardType) arg).getExtendsBound())
+                .orElse(object);
+        }
+        return bound;
+    }
+
+    /**
+     * A generated method publishing the elements returned by a method.
+     *
+     * @param method The method as seen from the interface
+     * @param element The type of the elements
+     * @param flow Whether to return a Flow publisher
+     * @return The generated method
+     */
+    private static MethodSpec publishing(
+        final MethodSpec method, final TypeName element, final boolean flow
+    ) {
+        final CodeBlock call = CodeBlock.of(
+            "() -> this.$L.$N($L)",
+            GeneratedFlowTypeSpec.WRAPPED, method,
+            method.parameters.stream()
+                .map(p -> CodeBlock.of("$N", p))
+                .collect(CodeBlock.joining(", "))
+        );
+        final MethodSpec.Builder builder = MethodSpec
+            .methodBuilder(method.name)
+            .addModifiers(Modifier.PUBLIC)
+            .addTypeVariables(method.typeVariables)
+            .addParameters(method.parameters);
+        if (flow) {
+            builder
+                .returns(
+                    ParameterizedTypeName.get(GeneratedFlowTypeSpec.FLOW, element)
+                )
+                .addStatement(
+                    "return $L($L)", GeneratedFlowTypeSpec.PUBLISHER, call
+                );
+        } else {
+            builder
+                .returns(ParameterizedTypeName.get(ClassName.get(Publisher.class), element))
+                .addStatement(
+                    "return new $T<$T>($L)",
+                    IterablePublisher.class, element, call
+                );
+        }
+        return builder.build();
+    }
+
+    /**
+     * The helper adapting an emission to a Flow publisher.
+     *
+     * @return The generated method
+     */
+    private static MethodSpec adapter() {
+        final TypeVariableName var = TypeVariableName.get("E");
+        final ParameterSpec source = ParameterSpec
+            .builder(
+                ParameterizedTypeName.get(
+                    ClassName.get(Callable.class),
+                    WildcardTypeName.subtypeOf(
+                        ParameterizedTypeName.get(
+                            ClassName.get(Iterable.class),
+                            WildcardTypeName.subtypeOf(var)
+                        )
+                    )
+                ),
+                "source"
+            )
+            .addModifiers(Modifier.FINAL)
+            .build();
+        return MethodSpec.methodBuilder(GeneratedFlowTypeSpec.PUBLISHER)
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+            .addTypeVariable(var)
+            .addParameter(source)
+            .returns(ParameterizedTypeName.get(GeneratedFlowTypeSpec.FLOW, var))
+            .addCode(
+                CodeBlock.builder()
+                    .add("return subscriber -> {\n")
+                    .indent()
+                    .addStatement(
+                        // @checkstyle LineLengthCheck (1 line)
+                        "final $T<$T> emission = new $T<$T>($N, subscriber::onNext, subscriber::onError, subscriber::onComplete)",
+                        Emission.class, var, Emission.class, var, source
+                    )
+                    .addStatement(
+                        "subscriber.onSubscribe($L)",
+                        GeneratedFlowTypeSpec.subscription()
+                    )
+                    .unindent()
+                    .add("};\n")
+                    .build()
+            )
+            .build();
+    }
+
+    /**
+     * An anonymous Flow subscription forwarding to an emission.
+     *
+     * @return The anonymous class
+     */
+    private static TypeSpec subscription() {
+        return TypeSpec.anonymousClassBuilder("")
+            .addSuperinterface(
+                GeneratedFlowTypeSpec.FLOW.peerClass("Subscription")
+            )
+            .addMethod(
+                MethodSpec.methodBuilder("request")
+                    .addAnnotation(Override.class)
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(long.class, "count", Modifier.FINAL)
+                    .addStatement("emission.request(count)")
+                    .build()
+            )
+            .addMethod(
+                MethodSpec.methodBuilder("cancel")
+                    .addAnnotation(Override.class)
+                    .addModifiers(Modifier.PUBLIC)
+                    .addStatement("emission.cancel()")
+                    .build()
+            )
+            .build();
+    }
+}
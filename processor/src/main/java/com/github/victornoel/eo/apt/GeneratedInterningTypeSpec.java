@@ -0,0 +1,224 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.github.victornoel.eo.GenerateInterning;
+import com.github.victornoel.eo.Interned;
+import com.github.victornoel.eo.runtime.InternTable;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+
+/**
+ * The generated code of an envelope interning the results of the calls
+ * with an {@link InternTable}.
+ *
+ * @since 1.1.0
+ * @checkstyle ClassDataAbstractionCouplingCheck (300 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class GeneratedInterningTypeSpec implements GeneratedTypeSpec {
+
+    /**
+     * The default capacity of the table.
+     */
+    private static final int CAPACITY = 4096;
+
+    /**
+     * The name of the field of the wrapped implementation.
+     */
+    private static final String WRAPPED = "wrapped";
+
+    /**
+     * The name of the field of the table.
+     */
+    private static final String INTERNED = "interned";
+
+    /**
+     * The source interface.
+     */
+    private final TypeElement source;
+
+    /**
+     * The name for the generated envelope.
+     */
+    private final String name;
+
+    /**
+     * The processing environment.
+     */
+    private final ProcessingEnvironment procenv;
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param procenv The processing environment
+     */
+    public GeneratedInterningTypeSpec(
+        final TypeElement source, final ProcessingEnvironment procenv
+    ) {
+        this(
+            source, new GeneratedEnvelopeName(source, "Interning").get(),
+            procenv
+        );
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param name The name for the generated envelope
+     * @param procenv The processing environment
+     */
+    public GeneratedInterningTypeSpec(
+        final TypeElement source, final String name,
+        final ProcessingEnvironment procenv
+    ) {
+        this.source = source;
+        this.name = name;
+        this.procenv = procenv;
+    }
+
+    @Override
+    public TypeSpec typeSpec() throws Exception {
+        final List<ExecutableElement> methods = new ReservedNames(
+            new InterfaceMethods(this.source, this.procenv),
+            this.source,
+            GenerateInterning.class.getSimpleName(),
+            Collections.singleton(GeneratedInterningTypeSpec.INTERNED)
+        ).checked();
+        final boolean chosen = methods.stream()
+            .anyMatch(method -> method.getAnnotation(Interned.class) != null);
+        final TypeName type = TypeName.get(this.source.asType());
+        final ParameterSpec wrapped = ParameterSpec
+            .builder(type, GeneratedInterningTypeSpec.WRAPPED)
+            .build();
+        final ParameterSpec table = ParameterSpec
+            .builder(InternTable.class, GeneratedInterningTypeSpec.INTERNED)
+            .build();
+        final TypeSpec.Builder builder = new GeneratedClassBuilder(
+            this.source, this.name, this.procenv
+        )
+            .get()
+            .addModifiers(Modifier.FINAL)
+            .addSuperinterface(type)
+            .addField(
+                type, GeneratedInterningTypeSpec.WRAPPED,
+                Modifier.PRIVATE, Modifier.FINAL
+            )
+            .addField(
+                InternTable.class, GeneratedInterningTypeSpec.INTERNED,
+                Modifier.PRIVATE, Modifier.FINAL
+            )
+            .addMethod(
+                MethodSpec.constructorBuilder()
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(wrapped)
+                    .addStatement(
+                        "this($N, new $T($L))",
+                        wrapped, InternTable.class,
+                        GeneratedInterningTypeSpec.CAPACITY
+                    )
+                    .build()
+            )
+            .addMethod(
+                MethodSpec.constructorBuilder()
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(wrapped)
+                    .addParameter(table)
+                    .addStatement("this.$N = $N", wrapped, wrapped)
+                    .addStatement("this.$N = $N", table, table)
+                    .build()
+            );
+        for (final ExecutableElement method : methods) {
+            final boolean interned = method.getAnnotation(Interned.class) != null;
+            if (interned && !GeneratedInterningTypeSpec.object(method)) {
+                throw new InvalidElementException(
+                    String.format(
+                        "@%s requires methods returning objects other than arrays",
+                        Interned.class.getSimpleName()
+                    ),
+                    method
+                );
+            }
+            if (interned || !chosen && GeneratedInterningTypeSpec.object(method)) {
+                builder.addMethod(this.interning(method));
+            } else {
+                builder.addMethod(
+                    new DelegatingMethod(
+                        method, this.source,
+                        GeneratedInterningTypeSpec.WRAPPED, this.procenv
+                    ).get()
+                );
+            }
+        }
+        return builder
+            .addMethod(
+                MethodSpec.methodBuilder(GeneratedInterningTypeSpec.INTERNED)
+                    .addJavadoc("The table of the interned results.\n\n")
+                    .addJavadoc("@return The table\n")
+                    .addModifiers(Modifier.PUBLIC)
+                    .returns(InternTable.class)
+                    .addStatement(
+                        "return this.$L", GeneratedInterningTypeSpec.INTERNED
+                    )
+                    .build()
+            )
+            .build();
+    }
+
+    /**
+     * A generated method interning its results.
+     *
+     * @param method The method
+     * @return The generated method
+     */
+    private MethodSpec interning(final ExecutableElement method) {
+        return new OverridingMethod(method, this.source, this.procenv)
+            .get()
+            .addStatement(
+                "return this.$L.intern(this.$L.$N($L))",
+                GeneratedInterningTypeSpec.INTERNED,
+                GeneratedInterningTypeSpec.WRAPPED,
+                method.getSimpleName(),
+                new Arguments(method).get()
+            )
+            .build();
+    }
+
+    /**
+     * Whether a method returns objects that can be interned.
+     *
+     * @param method The method
+     * @return True if it returns objects other than arrays
+     */
+    private static boolean object(final ExecutableElement method) {
+        final TypeKind kind = method.getReturnType().getKind();
+        return kind == TypeKind.DECLARED || kind == TypeKind.TYPEVAR;
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.github.victornoel.eo.GenerateLoadDriver;
+import com.github.victornoel.eo.runtime.OpenLoop;
+import com.google.auto.common.MoreTypes;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * The generated code of a driver of an open-loop load on the
+ * implementations of an interface, run by an {@link OpenLoop}, with
+ * arguments from {@link BenchmarkArgument}.
+ *
+ * @since 1.1.0
+ * @checkstyle ClassDataAbstractionCouplingCheck (300 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class GeneratedLoadDriverTypeSpec implements GeneratedTypeSpec {
+
+    /**
+     * The default size of texts, arrays and collections arguments.
+     */
+    private static final int SIZE = 16;
+
+    /**
+     * The name of the field of the called implementation.
+     */
+    private static final String TARGET = "target";
+
+    /**
+     * The name of the field of the load.
+     */
+    private static final String LOOP = "loop";
+
+    /**
+     * The name of the size of the arguments.
+     */
+    private static final String ARGS = "size";
+
+    /**
+     * The argument of unknown types.
+     */
+    private static final CodeBlock NONE = CodeBlock.of("null");
+
+    /**
+     * The source interface.
+     */
+    private final TypeElement source;
+
+    /**
+     * The name for the generated driver.
+     */
+    private final String name;
+
+    /**
+     * The processing environment.
+     */
+    private final ProcessingEnvironment procenv;
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param procenv The processing environment
+     */
+    public GeneratedLoadDriverTypeSpec(
+        final TypeElement source, final ProcessingEnvironment procenv
+    ) {
+        this(
+            source, new GeneratedEnvelopeName(source, "LoadDriver").get(),
+            procenv
+        );
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param name The name for the generated driver
+     * @param procenv The processing environment
+     */
+    public GeneratedLoadDriverTypeSpec(
+        final TypeElement source, final String name,
+        final ProcessingEnvironment procenv
+    ) {
+        this.source = source;
+        this.name = name;
+        this.procenv = procenv;
+    }
+
+    @Override
+    public TypeSpec typeSpec() throws Exception {
+        if (!this.source.getTypeParameters().isEmpty()) {
+            throw new InvalidElementException(
+                String.format(
+                    "@%s requires a non-generic interface",
+                    GenerateLoadDriver.class.getSimpleName()
+                ),
+                this.source
+            );
+        }
+        final List<ExecutableElement> methods = new ArrayList<>(0);
+        for (final ExecutableElement method
+            : new InterfaceMethods(this.source, this.procenv)) {
+            if (method.getTypeParameters().isEmpty()) {
+                methods.add(method);
+            }
+        }
+        final TypeName type = TypeName.get(this.source.asType());
+        final CodeBlock.Builder names = CodeBlock.builder();
+        final MethodSpec.Builder call = MethodSpec.methodBuilder("call")
+            .addModifiers(Modifier.PRIVATE)
+            .addParameter(int.class, "method", Modifier.FINAL)
+            .addParameter(SplittableRandom.class, "random", Modifier.FINAL)
+            .addException(Exception.class)
+            .addStatement(
+                "final int $L = this.$L",
+                GeneratedLoadDriverTypeSpec.ARGS, GeneratedLoadDriverTypeSpec.ARGS
+            )
+            .beginControlFlow("switch (method)");
+        for (int idx = 0; idx < methods.size(); ++idx) {
+            names.add(", $S", methods.get(idx).getSimpleName());
+            call.addCode("case $L:\n$>", idx)
+                .addStatement(
+                    "this.$L.$N($L)",
+                    GeneratedLoadDriverTypeSpec.TARGET,
+                    methods.get(idx).getSimpleName(),
+                    this.arguments(methods.get(idx))
+                )
+                .addStatement("break$<");
+        }
+        return new GeneratedClassBuilder(this.source, this.name, this.procenv)
+            .get()
+            .addJavadoc(
+                "Drives an open-loop load of calls to a $T.\n", type
+            )
+            .addModifiers(Modifier.FINAL)
+            .addField(
+                type, GeneratedLoadDriverTypeSpec.TARGET,
+                Modifier.PRIVATE, Modifier.FINAL
+            )
+            .addField(
+                OpenLoop.class, GeneratedLoadDriverTypeSpec.LOOP,
+                Modifier.PRIVATE, Modifier.FINAL
+            )
+            .addField(
+                int.class, GeneratedLoadDriverTypeSpec.ARGS,
+                Modifier.PRIVATE, Modifier.FINAL
+            )
+            .addMethods(
+                GeneratedLoadDriverTypeSpec.constructors(type, names.build())
+            )
+            .addMethod(
+                MethodSpec.methodBuilder("run")
+                    .addJavadoc("Run the load and print its latencies.\n\n")
+                    .addJavadoc("@param duration The duration of the load\n")
+                    .addJavadoc("@param unit The unit of the duration\n")
+                    .addJavadoc("@throws InterruptedException If interrupted\n")
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(long.class, "duration")
+                    .addParameter(TimeUnit.class, "unit")
+                    .addException(InterruptedException.class)
+                    .addStatement(
+                        "this.$L.run(this::call, duration, unit)",
+                        GeneratedLoadDriverTypeSpec.LOOP
+                    )
+                    .addStatement(
+                        "this.$L.print($T.out)",
+                        GeneratedLoadDriverTypeSpec.LOOP, System.class
+                    )
+                    .build()
+            )
+            .addMethod(
+                MethodSpec.methodBuilder(GeneratedLoadDriverTypeSpec.LOOP)
+                    .addJavadoc("The load, its mix and its latencies.\n\n")
+                    .addJavadoc("@return The load\n")
+                    .addModifiers(Modifier.PUBLIC)
+                    .returns(OpenLoop.class)
+                    .addStatement("return this.$L", GeneratedLoadDriverTypeSpec.LOOP)
+                    .build()
+            )
+            .addMethod(call.endControlFlow().build())
+            .build();
+    }
+
+    /**
+     * The generated arguments of a call, {@code null} ones being cast to
+     * their type to choose between overloads.
+     *
+     * @param method The method
+     * @return The arguments
+     */
+    private CodeBlock arguments(final ExecutableElement method) {
+        final List<? extends TypeMirror> types = MoreTypes.asExecutable(
+            this.procenv.getTypeUtils().asMemberOf(
+                MoreTypes.asDeclared(this.source.asType()), method
+            )
+        ).getParameterTypes();
+        final CodeBlock.Builder args = CodeBlock.builder();
+        for (int pos = 0; pos < types.size(); ++pos) {
+            if (pos > 0) {
+                args.add(", ");
+            }
+            final CodeBlock arg = new BenchmarkArgument(types.get(pos)).get();
+            if (arg.equals(GeneratedLoadDriverTypeSpec.NONE)) {
+                args.add("($T) $L", TypeName.get(types.get(pos)), arg);
+            } else {
+                args.add(arg);
+            }
+        }
+        return args.build();
+    }
+
+    /**
+     * The constructors of the driver.
+     *
+     * @param type The source interface
+     * @param names The names of the methods, as trailing arguments
+     * @return The constructors
+     */
+    private static List<MethodSpec> constructors(
+        final TypeName type, final CodeBlock names
+    ) {
+        final ParameterSpec target = ParameterSpec
+            .builder(type, GeneratedLoadDriverTypeSpec.TARGET)
+            .build();
+        final ParameterSpec loop = ParameterSpec
+            .builder(OpenLoop.class, GeneratedLoadDriverTypeSpec.LOOP)
+            .build();
+        final ParameterSpec size = ParameterSpec
+            .builder(int.class, GeneratedLoadDriverTypeSpec.ARGS)
+            .build();
+        return Arrays.asList(
+            MethodSpec.constructorBuilder()
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(target)
+                .addParameter(double.class, "rate")
+                .addParameter(int.class, "threads")
+                .addStatement(
+                    "this($N, new $T(rate, threads$L), $L)",
+                    target, OpenLoop.class, names,
+                    GeneratedLoadDriverTypeSpec.SIZE
+                )
+                .build(),
+            MethodSpec.constructorBuilder()
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(target)
+                .addParameter(loop)
+                .addParameter(size)
+                .addStatement("this.$N = $N", target, target)
+                .addStatement("this.$N = $N", loop, loop)
+                .addStatement("this.$N = $N", size, size)
+                .build()
+        );
+    }
+}
@@ -0,0 +1,345 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.github.victornoel.eo.GenerateManaged;
+import com.github.victornoel.eo.runtime.EnvelopeControl;
+import com.github.victornoel.eo.runtime.EnvelopeRegistry;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+
+/**
+ * The generated code of an envelope reporting its calls to an
+ * {@link EnvelopeControl}, which can be registered as an MBean with an
+ * {@link EnvelopeRegistry}, closing the envelope unregistering it. The
+ * envelope of an interface with its own {@code close()} method unregisters
+ * its control when it is called, others are made {@link AutoCloseable}.
+ *
+ * @since 1.1.0
+ * @checkstyle ClassDataAbstractionCouplingCheck (300 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class GeneratedManagedTypeSpec implements GeneratedTypeSpec {
+
+    /**
+     * The name of the field of the wrapped implementation.
+     */
+    private static final String WRAPPED = "wrapped";
+
+    /**
+     * The name of the field of the control.
+     */
+    private static final String CONTROL = "control";
+
+    /**
+     * The name of the field of the registry.
+     */
+    private static final String REGISTRY = "registry";
+
+    /**
+     * The name of the method closing the envelope.
+     */
+    private static final String CLOSE = "close";
+
+    /**
+     * The type of the field of the registry.
+     */
+    private static final TypeName OPTIONAL = ParameterizedTypeName.get(
+        Optional.class, EnvelopeRegistry.class
+    );
+
+    /**
+     * The source interface.
+     */
+    private final TypeElement source;
+
+    /**
+     * The name for the generated envelope.
+     */
+    private final String name;
+
+    /**
+     * The processing environment.
+     */
+    private final ProcessingEnvironment procenv;
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param procenv The processing environment
+     */
+    public GeneratedManagedTypeSpec(
+        final TypeElement source, final ProcessingEnvironment procenv
+    ) {
+        this(
+            source, new GeneratedEnvelopeName(source, "Managed").get(),
+            procenv
+        );
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param name The name for the generated envelope
+     * @param procenv The processing environment
+     */
+    public GeneratedManagedTypeSpec(
+        final TypeElement source, final String name,
+        final ProcessingEnvironment procenv
+    ) {
+        this.source = source;
+        this.name = name;
+        this.procenv = procenv;
+    }
+
+    @Override
+    public TypeSpec typeSpec() throws Exception {
+        final List<ExecutableElement> methods = new ReservedNames(
+            new InterfaceMethods(this.source, this.procenv),
+            this.source,
+            GenerateManaged.class.getSimpleName(),
+            Collections.singletonList(GeneratedManagedTypeSpec.CONTROL)
+        ).checked();
+        final TypeName type = TypeName.get(this.source.asType());
+        final TypeSpec.Builder builder = new GeneratedClassBuilder(
+            this.source, this.name, this.procenv
+        )
+            .get()
+            .addModifiers(Modifier.FINAL)
+            .addSuperinterface(type)
+            .addField(
+                type, GeneratedManagedTypeSpec.WRAPPED,
+                Modifier.PRIVATE, Modifier.FINAL
+            )
+            .addField(
+                EnvelopeControl.class, GeneratedManagedTypeSpec.CONTROL,
+                Modifier.PRIVATE, Modifier.FINAL
+            )
+            .addField(
+                GeneratedManagedTypeSpec.OPTIONAL,
+                GeneratedManagedTypeSpec.REGISTRY,
+                Modifier.PRIVATE, Modifier.FINAL
+            );
+        final CodeBlock.Builder names = CodeBlock.builder();
+        for (int idx = 0; idx < methods.size(); ++idx) {
+            builder.addMethod(this.managed(methods.get(idx), idx));
+            if (idx > 0) {
+                names.add(", ");
+            }
+            names.add("$S", methods.get(idx).getSimpleName());
+        }
+        if (methods.stream().noneMatch(GeneratedManagedTypeSpec::closes)) {
+            builder
+                .addSuperinterface(AutoCloseable.class)
+                .addMethod(
+                    MethodSpec.methodBuilder(GeneratedManagedTypeSpec.CLOSE)
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .addCode(GeneratedManagedTypeSpec.unregistering())
+                        .build()
+                );
+        }
+        return builder
+            .addMethods(this.constructors(type, names.build()))
+            .addMethod(
+                MethodSpec.methodBuilder(GeneratedManagedTypeSpec.CONTROL)
+                    .addJavadoc("The statistics and knobs of the envelope.\n\n")
+                    .addJavadoc("@return The control\n")
+                    .addModifiers(Modifier.PUBLIC)
+                    .returns(EnvelopeControl.class)
+                    .addStatement(
+                        "return this.$L", GeneratedManagedTypeSpec.CONTROL
+                    )
+                    .build()
+            )
+            .build();
+    }
+
+    /**
+     * A generated method reporting its calls.
+     *
+     * @param method The method
+     * @param id The index of the method in the control
+     * @return The generated method
+     */
+    private MethodSpec managed(final ExecutableElement method, final int id) {
+        final String start = new FreshName(method, "start").get();
+        final String result = new FreshName(method, "result").get();
+        final String error = new FreshName(method, "error").get();
+        final MethodSpec.Builder builder = new OverridingMethod(
+            method, this.source, this.procenv
+        ).get();
+        if (GeneratedManagedTypeSpec.closes(method)) {
+            builder.addCode(GeneratedManagedTypeSpec.unregistering());
+        }
+        final CodeBlock call = CodeBlock.of(
+            "this.$L.$N($L)",
+            GeneratedManagedTypeSpec.WRAPPED, method.getSimpleName(),
+            new Arguments(method).get()
+        );
+        builder.addStatement(
+            "final long $N = this.$L.enter($L)",
+            start, GeneratedManagedTypeSpec.CONTROL, id
+        );
+        final boolean valued = method.getReturnType().getKind() != TypeKind.VOID;
+        if (valued) {
+            builder.addStatement(
+                "final $T $N", builder.build().returnType, result
+            );
+        }
+        builder.beginControlFlow("try");
+        if (valued) {
+            builder.addStatement("$N = $L", result, call);
+        } else {
+            builder.addStatement(call);
+        }
+        builder
+            .nextControlFlow("catch (final $T $N)", Throwable.class, error)
+            .addStatement(
+                "this.$L.exit($L, $N, true)",
+                GeneratedManagedTypeSpec.CONTROL, id, start
+            )
+            .addStatement("throw $N", error)
+            .endControlFlow();
+        if (new AsyncReturn(method).exists()) {
+            builder.addStatement(
+                "$N.whenComplete(($N, $N) -> this.$L.exit($L, $N, $N != null))",
+                result, new FreshName(method, "value").get(), error,
+                GeneratedManagedTypeSpec.CONTROL, id, start, error
+            );
+        } else {
+            builder.addStatement(
+                "this.$L.exit($L, $N, false)",
+                GeneratedManagedTypeSpec.CONTROL, id, start
+            );
+        }
+        if (valued) {
+            builder.addStatement("return $N", result);
+        }
+        return builder.build();
+    }
+
+    /**
+     * The constructors.
+     *
+     * @param type The type of the source interface
+     * @param names The names of the methods, as arguments
+     * @return The constructors
+     */
+    private List<MethodSpec> constructors(
+        final TypeName type, final CodeBlock names
+    ) {
+        final ParameterSpec wrapped = ParameterSpec
+            .builder(type, GeneratedManagedTypeSpec.WRAPPED)
+            .build();
+        final ParameterSpec registry = ParameterSpec
+            .builder(EnvelopeRegistry.class, GeneratedManagedTypeSpec.REGISTRY)
+            .build();
+        final ParameterSpec control = ParameterSpec
+            .builder(EnvelopeControl.class, GeneratedManagedTypeSpec.CONTROL)
+            .build();
+        final CodeBlock created = CodeBlock.of(
+            "new $T($L)", EnvelopeControl.class, names
+        );
+        return Arrays.asList(
+            MethodSpec.constructorBuilder()
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(wrapped)
+                .addStatement("this($N, $L)", wrapped, created)
+                .build(),
+            MethodSpec.constructorBuilder()
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(wrapped)
+                .addParameter(registry)
+                .addStatement(
+                    "this($N, $N.registered($S, $L), $T.of($N))",
+                    wrapped, registry,
+                    ClassName.get(this.source).canonicalName(),
+                    created, Optional.class, registry
+                )
+                .build(),
+            MethodSpec.constructorBuilder()
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(wrapped)
+                .addParameter(control)
+                .addStatement(
+                    "this($N, $N, $T.empty())", wrapped, control, Optional.class
+                )
+                .build(),
+            MethodSpec.constructorBuilder()
+                .addModifiers(Modifier.PRIVATE)
+                .addParameter(wrapped)
+                .addParameter(control)
+                .addParameter(
+                    GeneratedManagedTypeSpec.OPTIONAL,
+                    GeneratedManagedTypeSpec.REGISTRY
+                )
+                .addStatement("this.$N = $N", wrapped, wrapped)
+                .addStatement("this.$N = $N", control, control)
+                .addStatement(
+                    "this.$L = $L",
+                    GeneratedManagedTypeSpec.REGISTRY,
+                    GeneratedManagedTypeSpec.REGISTRY
+                )
+                .build()
+        );
+    }
+
+    /**
+     * Whether a method closes the envelope.
+     *
+     * @param method The method
+     * @return True if it is {@code close()}
+     */
+    private static boolean closes(final ExecutableElement method) {
+        return method.getSimpleName().contentEquals(GeneratedManagedTypeSpec.CLOSE)
+            && method.getParameters().isEmpty();
+    }
+
+    /**
+     * The code unregistering the control from its registry, if any.
+     *
+     * @return The code
+     */
+    private static CodeBlock unregistering() {
+        return CodeBlock.builder()
+            .addStatement(
+                "this.$L.ifPresent(registry -> registry.unregister(this.$L))",
+                GeneratedManagedTypeSpec.REGISTRY,
+                GeneratedManagedTypeSpec.CONTROL
+            )
+            .build();
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.github.victornoel.eo.GenerateMaterialized;
+import com.github.victornoel.eo.runtime.Materialization;
+import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+
+/**
+ * The generated code of an envelope evaluating the no-argument methods of
+ * the wrapped implementation concurrently with a {@link Materialization}
+ * and keeping their results in final fields.
+ *
+ * @since 1.1.0
+ * @checkstyle ClassDataAbstractionCouplingCheck (300 lines)
+ */
+public final class GeneratedMaterializedTypeSpec implements GeneratedTypeSpec {
+
+    /**
+     * The name of the field of the wrapped implementation.
+     */
+    private static final String WRAPPED = "wrapped";
+
+    /**
+     * The name of the field of the evaluation.
+     */
+    private static final String MATERIALIZATION = "materialization";
+
+    /**
+     * The source interface.
+     */
+    private final TypeElement source;
+
+    /**
+     * The name for the generated envelope.
+     */
+    private final String name;
+
+    /**
+     * The processing environment.
+     */
+    private final ProcessingEnvironment procenv;
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param procenv The processing environment
+     */
+    public GeneratedMaterializedTypeSpec(
+        final TypeElement source, final ProcessingEnvironment procenv
+    ) {
+        this(
+            source, new GeneratedEnvelopeName(source, "Materialized").get(),
+            procenv
+        );
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param name The name for the generated envelope
+     * @param procenv The processing environment
+     */
+    public GeneratedMaterializedTypeSpec(
+        final TypeElement source, final String name,
+        final ProcessingEnvironment procenv
+    ) {
+        this.source = source;
+        this.name = name;
+        this.procenv = procenv;
+    }
+
+    @Override
+    public TypeSpec typeSpec() throws Exception {
+        final TypeName type = TypeName.get(this.source.asType());
+        final TypeSpec.Builder builder = new GeneratedClassBuilder(
+            this.source, this.name, this.procenv
+        )
+            .get()
+            .addModifiers(Modifier.FINAL)
+            .addSuperinterface(type)
+            .addField(
+                type, GeneratedMaterializedTypeSpec.WRAPPED,
+                Modifier.PRIVATE, Modifier.FINAL
+            )
+            .addField(
+                Materialization.class,
+                GeneratedMaterializedTypeSpec.MATERIALIZATION,
+                Modifier.PRIVATE, Modifier.FINAL
+            );
+        final List<MethodSpec> materialized = new ArrayList<>(0);
+        for (final ExecutableElement method : new ReservedNames(
+            new InterfaceMethods(this.source, this.procenv),
+            this.source,
+            GenerateMaterialized.class.getSimpleName(),
+            Collections.singleton(GeneratedMaterializedTypeSpec.MATERIALIZATION)
+        ).checked()) {
+            if (method.getParameters().isEmpty()
+                && method.getTypeParameters().isEmpty()
+                && method.getReturnType().getKind() != TypeKind.VOID) {
+                final MethodSpec spec = new OverridingMethod(
+                    method, this.source, this.procenv
+                ).get().build();
+                final FieldSpec field = FieldSpec
+                    .builder(
+                        spec.returnType,
+                        String.format("result%d", materialized.size()),
+                        Modifier.PRIVATE, Modifier.FINAL
+                    )
+                    .build();
+                builder
+                    .addField(field)
+                    .addMethod(
+                        spec.toBuilder()
+                            .addStatement("return this.$N", field)
+                            .build()
+                    );
+                materialized.add(spec);
+            } else {
+                builder.addMethod(
+                    new DelegatingMethod(
+                        method, this.source,
+                        GeneratedMaterializedTypeSpec.WRAPPED, this.procenv
+                    ).get()
+                );
+            }
+        }
+        return builder
+            .addMethods(
+                GeneratedMaterializedTypeSpec.constructors(type, materialized)
+            )
+            .addMethod(
+                MethodSpec
+                    .methodBuilder(GeneratedMaterializedTypeSpec.MATERIALIZATION)
+                    .addJavadoc(
+                        "The time spent computing each method, in the order of the interface.\n\n"
+                    )
+                    .addJavadoc("@return The evaluation\n")
+                    .addModifiers(Modifier.PUBLIC)
+                    .returns(Materialization.class)
+                    .addStatement(
+                        "return this.$L",
+                        GeneratedMaterializedTypeSpec.MATERIALIZATION
+                    )
+                    .build()
+            )
+            .build();
+    }
+
+    /**
+     * The constructors, the main one evaluating the methods.
+     *
+     * @param type The type of the source interface
+     * @param methods The evaluated methods
+     * @return The constructors
+     */
+    private static List<MethodSpec> constructors(
+        final TypeName type, final List<MethodSpec> methods
+    ) {
+        final ParameterSpec wrapped = ParameterSpec
+            .builder(type, GeneratedMaterializedTypeSpec.WRAPPED)
+            .build();
+        final ParameterSpec executor = ParameterSpec
+            .builder(Executor.class, "executor")
+            .build();
+        final Set<TypeName> exceptions = new LinkedHashSet<>(0);
+        final CodeBlock.Builder names = CodeBlock.builder();
+        final CodeBlock.Builder calls = CodeBlock.builder().add("$N", executor);
+        final CodeBlock.Builder fields = CodeBlock.builder();
+        boolean unchecked = false;
+        for (int idx = 0; idx < methods.size(); ++idx) {
+            final MethodSpec method = methods.get(idx);
+            exceptions.addAll(method.exceptions);
+            if (idx > 0) {
+                names.add(", ");
+            }
+            names.add("$S", String.format("%s()", method.name));
+            calls.add(", $N::$N", wrapped, method);
+            fields.addStatement(
+                "this.result$L = ($T) values[$L]",
+                idx, method.returnType.box(), idx
+            );
+            unchecked = unchecked
+                || new UncheckedCast(method.returnType).unchecked();
+        }
+        final MethodSpec.Builder main = MethodSpec.constructorBuilder()
+            .addModifiers(Modifier.PUBLIC)
+            .addParameter(wrapped)
+            .addParameter(executor)
+            .addExceptions(exceptions)
+            .addStatement("this.$N = $N", wrapped, wrapped)
+            .addStatement(
+                "this.$L = new $T($L)",
+                GeneratedMaterializedTypeSpec.MATERIALIZATION,
+                Materialization.class, names.build()
+            )
+            .addStatement("final $T[] values", Object.class)
+            .addCode(
+                new UnwrappingCall(
+                    new ArrayList<>(exceptions),
+                    CodeBlock.of(
+                        "values = this.$L.values($L)",
+                        GeneratedMaterializedTypeSpec.MATERIALIZATION,
+                        calls.build()
+                    )
+                ).get()
+            )
+            .addCode(fields.build());
+        if (unchecked) {
+            main.addAnnotation(
+                AnnotationSpec.builder(SuppressWarnings.class)
+                    .addMember("value", "$S", "unchecked")
+                    .build()
+            );
+        }
+        return Arrays.asList(
+            MethodSpec.constructorBuilder()
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(wrapped)
+                .addExceptions(exceptions)
+                .addStatement(
+                    "this($N, $T.commonPool())", wrapped, ForkJoinPool.class
+                )
+                .build(),
+            main.build()
+        );
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.github.victornoel.eo.GenerateOffHeap;
+import com.github.victornoel.eo.runtime.OffHeapStore;
+import com.google.auto.common.MoreTypes;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * The generated code of an envelope keeping the results of the methods
+ * returning bytes, texts or buffers in an {@link OffHeapStore}.
+ *
+ * @since 1.1.0
+ * @checkstyle ClassDataAbstractionCouplingCheck (300 lines)
+ */
+public final class GeneratedOffHeapTypeSpec implements GeneratedTypeSpec {
+
+    /**
+     * The name of the field of the wrapped implementation.
+     */
+    private static final String WRAPPED = "wrapped";
+
+    /**
+     * The name of the field of the store.
+     */
+    private static final String STORE = "store";
+
+    /**
+     * The source interface.
+     */
+    private final TypeElement source;
+
+    /**
+     * The name for the generated envelope.
+     */
+    private final String name;
+
+    /**
+     * The processing environment.
+     */
+    private final ProcessingEnvironment procenv;
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param procenv The processing environment
+     */
+    public GeneratedOffHeapTypeSpec(
+        final TypeElement source, final ProcessingEnvironment procenv
+    ) {
+        this(
+            source, new GeneratedEnvelopeName(source, "OffHeap").get(),
+            procenv
+        );
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param name The name for the generated envelope
+     * @param procenv The processing environment
+     */
+    public GeneratedOffHeapTypeSpec(
+        final TypeElement source, final String name,
+        final ProcessingEnvironment procenv
+    ) {
+        this.source = source;
+        this.name = name;
+        this.procenv = procenv;
+    }
+
+    @Override
+    public TypeSpec typeSpec() throws Exception {
+        final List<ExecutableElement> methods = new ReservedNames(
+            new InterfaceMethods(this.source, this.procenv),
+            this.source,
+            GenerateOffHeap.class.getSimpleName(),
+            Collections.singleton(GeneratedOffHeapTypeSpec.STORE)
+        ).checked();
+        final TypeName type = TypeName.get(this.source.asType());
+        final FieldSpec wrapped = FieldSpec
+            .builder(
+                type, GeneratedOffHeapTypeSpec.WRAPPED,
+                Modifier.PRIVATE, Modifier.FINAL
+            )
+            .build();
+        final FieldSpec store = FieldSpec
+            .builder(
+                OffHeapStore.class, GeneratedOffHeapTypeSpec.STORE,
+                Modifier.PRIVATE, Modifier.FINAL
+            )
+            .build();
+        final ParameterSpec param = ParameterSpec
+            .builder(type, GeneratedOffHeapTypeSpec.WRAPPED)
+            .build();
+        final ParameterSpec capacity = ParameterSpec
+            .builder(long.class, "capacity")
+            .build();
+        final ParameterSpec stores = ParameterSpec
+            .builder(OffHeapStore.class, GeneratedOffHeapTypeSpec.STORE)
+            .build();
+        final TypeSpec.Builder builder = new GeneratedClassBuilder(
+            this.source, this.name, this.procenv
+        )
+            .get()
+            .addModifiers(Modifier.FINAL)
+            .addSuperinterface(type)
+            .addField(wrapped)
+            .addField(store)
+            .addMethod(
+                MethodSpec.constructorBuilder()
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(param)
+                    .addParameter(capacity)
+                    .addStatement(
+                        "this($N, new $T($N))", param, OffHeapStore.class,
+                        capacity
+                    )
+                    .build()
+            )
+            .addMethod(
+                MethodSpec.constructorBuilder()
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(param)
+                    .addParameter(stores)
+                    .addStatement("this.$N = $N", wrapped, param)
+                    .addStatement("this.$L = $N", store.name, stores)
+                    .build()
+            );
+        int stored = 0;
+        for (int idx = 0; idx < methods.size(); ++idx) {
+            final ExecutableElement method = methods.get(idx);
+            final Optional<String> read = this.read(method);
+            if (read.isPresent()) {
+                final ArgumentKey key = new ArgumentKey(
+                    method, String.format("Key%d", idx)
+                );
+                builder
+                    .addMethod(this.storing(method, key, read.get()))
+                    .addType(key.typeSpec());
+                ++stored;
+            } else {
+                builder.addMethod(
+                    new DelegatingMethod(
+                        method, this.source,
+                        GeneratedOffHeapTypeSpec.WRAPPED, this.procenv
+                    ).get()
+                );
+            }
+        }
+        if (stored == 0) {
+            throw new InvalidElementException(
+                String.format(
+                    "@%s requires methods returning byte[], String or ByteBuffer",
+                    GenerateOffHeap.class.getSimpleName()
+                ),
+                this.source
+            );
+        }
+        return builder
+            .addMethod(
+                MethodSpec.methodBuilder(GeneratedOffHeapTypeSpec.STORE)
+                    .addJavadoc("The off-heap store of the results.\n\n")
+                    .addJavadoc("@return The store\n")
+                    .addModifiers(Modifier.PUBLIC)
+                    .returns(OffHeapStore.class)
+                    .addStatement("return this.$N", store)
+                    .build()
+            )
+            .build();
+    }
+
+    /**
+     * The method of the store reading the results of a method, if they
+     * can be stored.
+     *
+     * @param method The method
+     * @return The name of the method of the store
+     */
+    private Optional<String> read(final ExecutableElement method) {
+        final TypeMirror type = MoreTypes.asExecutable(
+            this.procenv.getTypeUtils().asMemberOf(
+                MoreTypes.asDeclared(this.source.asType()), method
+            )
+        ).getReturnType();
+        final Optional<String> read;
+        if (type.getKind() == TypeKind.ARRAY
+            && TypeKind.BYTE == ((ArrayType) type).getComponentType().getKind()) {
+            read = Optional.of("bytes");
+        } else if (type.getKind() == TypeKind.DECLARED
+            && MoreTypes.isTypeOf(String.class, type)) {
+            read = Optional.of("text");
+        } else if (type.getKind() == TypeKind.DECLARED
+            && MoreTypes.isTypeOf(ByteBuffer.class, type)) {
+            read = Optional.of("buffer");
+        } else {
+            read = Optional.empty();
+        }
+        return read;
+    }
+
+    /**
+     * A generated method reading its result from the store.
+     *
+     * @param method The method
+     * @param key The key of the arguments
+     * @param read The method of the store reading the result
+     * @return The generated method
+     */
+    private MethodSpec storing(
+        final ExecutableElement method, final ArgumentKey key,
+        final String read
+    ) {
+        final MethodSpec.Builder builder = new OverridingMethod(
+            method, this.source, this.procenv
+        ).get();
+        return builder
+            .addCode(
+                new UnwrappingCall(
+                    builder.build().exceptions,
+                    CodeBlock.of(
+                        "return this.$L.$L($L, () -> this.$L.$N($L))",
+                        GeneratedOffHeapTypeSpec.STORE,
+                        read,
+                        key.instance(),
+                        GeneratedOffHeapTypeSpec.WRAPPED,
+                        method.getSimpleName(),
+                        new Arguments(method).get()
+                    )
+                ).get()
+            )
+            .build();
+    }
+}
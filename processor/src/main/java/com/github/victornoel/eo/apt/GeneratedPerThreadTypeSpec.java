@@ -0,0 +1,204 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.github.victornoel.eo.GeneratePerThread;
+import com.github.victornoel.eo.runtime.PerThread;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.WildcardTypeName;
+import java.util.Collections;
+import java.util.function.Supplier;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+
+/**
+ * The generated code of an envelope delegating each call to the instance
+ * of the calling thread provided by a {@link PerThread}.
+ *
+ * @since 1.1.0
+ */
+public final class GeneratedPerThreadTypeSpec implements GeneratedTypeSpec {
+
+    /**
+     * The name of the field of the instances.
+     */
+    private static final String DELEGATES = "delegates";
+
+    /**
+     * The source interface.
+     */
+    private final TypeElement source;
+
+    /**
+     * The name for the generated envelope.
+     */
+    private final String name;
+
+    /**
+     * The processing environment.
+     */
+    private final ProcessingEnvironment procenv;
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param procenv The processing environment
+     */
+    public GeneratedPerThreadTypeSpec(
+        final TypeElement source, final ProcessingEnvironment procenv
+    ) {
+        this(
+            source, new GeneratedEnvelopeName(source, "PerThread").get(),
+            procenv
+        );
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param name The name for the generated envelope
+     * @param procenv The processing environment
+     */
+    public GeneratedPerThreadTypeSpec(
+        final TypeElement source, final String name,
+        final ProcessingEnvironment procenv
+    ) {
+        this.source = source;
+        this.name = name;
+        this.procenv = procenv;
+    }
+
+    @Override
+    public TypeSpec typeSpec() throws Exception {
+        final TypeName type = TypeName.get(this.source.asType());
+        final TypeName delegates = ParameterizedTypeName.get(
+            ClassName.get(PerThread.class), type
+        );
+        final FieldSpec field = FieldSpec
+            .builder(
+                delegates, GeneratedPerThreadTypeSpec.DELEGATES,
+                Modifier.PRIVATE, Modifier.FINAL
+            )
+            .build();
+        final ParameterSpec factory = ParameterSpec
+            .builder(
+                ParameterizedTypeName.get(
+                    ClassName.get(Supplier.class),
+                    WildcardTypeName.subtypeOf(type)
+                ),
+                "factory"
+            )
+            .build();
+        final ParameterSpec param = ParameterSpec
+            .builder(delegates, GeneratedPerThreadTypeSpec.DELEGATES)
+            .build();
+        final TypeSpec.Builder builder = new GeneratedClassBuilder(
+            this.source, this.name, this.procenv
+        )
+            .get()
+            .addModifiers(Modifier.FINAL)
+            .addSuperinterface(type)
+            .addField(field)
+            .addMethod(
+                MethodSpec.constructorBuilder()
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(factory)
+                    .addStatement("this(new $T<>($N))", PerThread.class, factory)
+                    .build()
+            )
+            .addMethod(
+                MethodSpec.constructorBuilder()
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(param)
+                    .addStatement("this.$N = $N", field, param)
+                    .build()
+            );
+        for (final ExecutableElement method : new ReservedNames(
+            new InterfaceMethods(this.source, this.procenv),
+            this.source,
+            GeneratePerThread.class.getSimpleName(),
+            Collections.singleton(GeneratedPerThreadTypeSpec.DELEGATES)
+        ).checked()) {
+            builder.addMethod(this.confined(method, type));
+        }
+        return builder
+            .addMethod(
+                MethodSpec.methodBuilder(GeneratedPerThreadTypeSpec.DELEGATES)
+                    .addJavadoc("The instances of each thread, to clean them up.\n\n")
+                    .addJavadoc("@return The instances\n")
+                    .addModifiers(Modifier.PUBLIC)
+                    .returns(delegates)
+                    .addStatement("return this.$N", field)
+                    .build()
+            )
+            .build();
+    }
+
+    /**
+     * A generated method delegating to the instance of the calling
+     * thread.
+     *
+     * @param method The method
+     * @param type The type of the source interface
+     * @return The generated method
+     */
+    private MethodSpec confined(
+        final ExecutableElement method, final TypeName type
+    ) {
+        final String delegate = new FreshName(method, "delegate").get();
+        final CodeBlock call = CodeBlock.of(
+            "$N.$N($L)",
+            delegate, method.getSimpleName(), new Arguments(method).get()
+        );
+        final MethodSpec.Builder builder = new OverridingMethod(
+            method, this.source, this.procenv
+        ).get();
+        builder
+            .addStatement(
+                "final $T $N = this.$L.acquire()",
+                type, delegate, GeneratedPerThreadTypeSpec.DELEGATES
+            )
+            .beginControlFlow("try");
+        if (method.getReturnType().getKind() == TypeKind.VOID) {
+            builder.addStatement(call);
+        } else {
+            builder.addStatement("return $L", call);
+        }
+        return builder
+            .nextControlFlow("finally")
+            .addStatement(
+                "this.$L.release($N)",
+                GeneratedPerThreadTypeSpec.DELEGATES, delegate
+            )
+            .endControlFlow()
+            .build();
+    }
+}
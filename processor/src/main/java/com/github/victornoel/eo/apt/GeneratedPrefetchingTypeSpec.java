@@ -0,0 +1,404 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.github.victornoel.eo.Prefetched;
+import com.github.victornoel.eo.runtime.Prefetching;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.WildcardTypeName;
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+
+/**
+ * The generated code of an envelope reading ahead of the iterators
+ * returned by the wrapped implementation with {@link Prefetching}.
+ *
+ * @since 1.1.0
+ * @checkstyle ClassDataAbstractionCouplingCheck (300 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class GeneratedPrefetchingTypeSpec implements GeneratedTypeSpec {
+
+    /**
+     * The number of elements read ahead by default, as in
+     * {@link Prefetched}.
+     */
+    private static final int BUFFER = 16;
+
+    /**
+     * The name of the field of the wrapped implementation.
+     */
+    private static final String WRAPPED = "wrapped";
+
+    /**
+     * The name of the field of the executor.
+     */
+    private static final String EXECUTOR = "executor";
+
+    /**
+     * The name of the field of the executor shared by default.
+     */
+    private static final String SHARED = "SHARED";
+
+    /**
+     * The source interface.
+     */
+    private final TypeElement source;
+
+    /**
+     * The name for the generated envelope.
+     */
+    private final String name;
+
+    /**
+     * The processing environment.
+     */
+    private final ProcessingEnvironment procenv;
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param procenv The processing environment
+     */
+    public GeneratedPrefetchingTypeSpec(
+        final TypeElement source, final ProcessingEnvironment procenv
+    ) {
+        this(
+            source, new GeneratedEnvelopeName(source, "Prefetching").get(),
+            procenv
+        );
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param name The name for the generated envelope
+     * @param procenv The processing environment
+     */
+    public GeneratedPrefetchingTypeSpec(
+        final TypeElement source, final String name,
+        final ProcessingEnvironment procenv
+    ) {
+        this.source = source;
+        this.name = name;
+        this.procenv = procenv;
+    }
+
+    @Override
+    public TypeSpec typeSpec() throws Exception {
+        final TypeName type = TypeName.get(this.source.asType());
+        final ParameterSpec wrapped = ParameterSpec
+            .builder(type, GeneratedPrefetchingTypeSpec.WRAPPED)
+            .build();
+        final ParameterSpec executor = ParameterSpec
+            .builder(Executor.class, GeneratedPrefetchingTypeSpec.EXECUTOR)
+            .build();
+        final TypeSpec.Builder builder = new GeneratedClassBuilder(
+            this.source, this.name, this.procenv
+        )
+            .get()
+            .addModifiers(Modifier.FINAL)
+            .addSuperinterface(type)
+            .addField(
+                FieldSpec.builder(
+                    type, GeneratedPrefetchingTypeSpec.WRAPPED,
+                    Modifier.PRIVATE, Modifier.FINAL
+                ).build()
+            )
+            .addField(this.defaultExecutor())
+            .addField(
+                FieldSpec.builder(
+                    Executor.class, GeneratedPrefetchingTypeSpec.EXECUTOR,
+                    Modifier.PRIVATE, Modifier.FINAL
+                ).build()
+            )
+            .addMethod(
+                MethodSpec.constructorBuilder()
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(wrapped)
+                    .addStatement(
+                        "this($N, $L.$L)",
+                        wrapped, this.name, GeneratedPrefetchingTypeSpec.SHARED
+                    )
+                    .build()
+            )
+            .addMethod(
+                MethodSpec.constructorBuilder()
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(wrapped)
+                    .addParameter(executor)
+                    .addStatement("this.$N = $N", wrapped, wrapped)
+                    .addStatement("this.$N = $N", executor, executor)
+                    .build()
+            );
+        for (final ExecutableElement method
+            : new InterfaceMethods(this.source, this.procenv)) {
+            final MethodSpec.Builder overriding = new OverridingMethod(
+                method, this.source, this.procenv
+            ).get();
+            final TypeName result = overriding.build().returnType;
+            if (GeneratedPrefetchingTypeSpec.iterating(result)
+                && !GeneratedPrefetchingTypeSpec.contravariant(result)) {
+                builder.addMethod(
+                    new PrefetchingMethod(
+                        method, overriding,
+                        GeneratedPrefetchingTypeSpec.size(method)
+                    ).get()
+                );
+            } else if (method.getAnnotation(Prefetched.class) == null) {
+                builder.addMethod(
+                    new DelegatingMethod(
+                        method, this.source,
+                        GeneratedPrefetchingTypeSpec.WRAPPED, this.procenv
+                    ).get()
+                );
+            } else if (GeneratedPrefetchingTypeSpec.iterating(result)) {
+                throw new InvalidElementException(
+                    String.format(
+                        // @checkstyle LineLengthCheck (1 line)
+                        "@%s can't read ahead of %s, its %s has no upper bound for the type of its elements",
+                        Prefetched.class.getSimpleName(),
+                        method.getSimpleName(),
+                        method.getReturnType()
+                    ),
+                    method
+                );
+            } else {
+                throw new InvalidElementException(
+                    String.format(
+                        // @checkstyle LineLengthCheck (1 line)
+                        "@%s only applies to methods returning an Iterator or an Iterable, but %s returns a %s",
+                        Prefetched.class.getSimpleName(),
+                        method.getSimpleName(),
+                        method.getReturnType()
+                    ),
+                    method
+                );
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * The default executor, shared by all the envelopes of the class so
+     * that creating envelopes doesn't create executors nobody shuts down.
+     *
+     * @return The static field
+     */
+    private FieldSpec defaultExecutor() {
+        return FieldSpec.builder(
+            Executor.class, GeneratedPrefetchingTypeSpec.SHARED,
+            Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL
+        )
+            .addJavadoc(
+                "The executor shared by the envelopes created without one.\n"
+            )
+            .initializer(new SourceLevel(this.procenv).taskExecutor(this.name))
+            .build();
+    }
+
+    /**
+     * Whether a type is an iterator or an iterable.
+     *
+     * @param type The type
+     * @return Whether to read ahead of it
+     */
+    private static boolean iterating(final TypeName type) {
+        final TypeName raw = GeneratedPrefetchingTypeSpec.raw(type);
+        return raw.equals(ClassName.get(Iterator.class))
+            || raw.equals(ClassName.get(Iterable.class));
+    }
+
+    /**
+     * Whether a type is an iterable of elements with a lower bound, such as
+     * {@code Iterable<? super X>}, whose iterator can't be read as an
+     * iterator of any type its lambda would have to return.
+     *
+     * @param type The type
+     * @return True if it is
+     */
+    private static boolean contravariant(final TypeName type) {
+        boolean lower = false;
+        if (type instanceof ParameterizedTypeName
+            && GeneratedPrefetchingTypeSpec.raw(type)
+                .equals(ClassName.get(Iterable.class))) {
+            final TypeName element =
+                ((ParameterizedTypeName) type).typeArguments.get(0);
+            lower = element instanceof WildcardTypeName
+                && !((WildcardTypeName) element).lowerBounds.isEmpty();
+        }
+        return lower;
+    }
+
+    /**
+     * A type without its type arguments.
+     *
+     * @param type The type
+     * @return The raw type
+     */
+    private static TypeName raw(final TypeName type) {
+        final TypeName raw;
+        if (type instanceof ParameterizedTypeName) {
+            raw = ((ParameterizedTypeName) type).rawType;
+        } else {
+            raw = type;
+        }
+        return raw;
+    }
+
+    /**
+     * The number of elements to read ahead for a method.
+     *
+     * @param method The method
+     * @return The number of elements
+     * @throws InvalidElementException If it is not positive
+     */
+    private static int size(final ExecutableElement method)
+        throws InvalidElementException {
+        final Prefetched prefetched = method.getAnnotation(Prefetched.class);
+        final int buffer;
+        if (prefetched == null) {
+            buffer = GeneratedPrefetchingTypeSpec.BUFFER;
+        } else {
+            buffer = prefetched.buffer();
+        }
+        if (buffer < 1) {
+            throw new InvalidElementException(
+                String.format(
+                    "@%s buffer of %s must be positive, but is %d",
+                    Prefetched.class.getSimpleName(),
+                    method.getSimpleName(),
+                    buffer
+                ),
+                method
+            );
+        }
+        return buffer;
+    }
+
+    /**
+     * One generated method reading ahead of the returned iterator.
+     *
+     * @since 1.1.0
+     */
+    private static final class PrefetchingMethod
+        implements Supplier<MethodSpec> {
+
+        /**
+         * The method to read ahead of.
+         */
+        private final ExecutableElement method;
+
+        /**
+         * The overriding method, without any code yet.
+         */
+        private final MethodSpec.Builder builder;
+
+        /**
+         * The number of elements to read ahead.
+         */
+        private final int buffer;
+
+        /**
+         * Ctor.
+         *
+         * @param method The method to read ahead of
+         * @param builder The overriding method, without any code yet
+         * @param buffer The number of elements to read ahead
+         */
+        PrefetchingMethod(
+            final ExecutableElement method, final MethodSpec.Builder builder,
+            final int buffer
+        ) {
+            this.method = method;
+            this.builder = builder;
+            this.buffer = buffer;
+        }
+
+        @Override
+        public MethodSpec get() {
+            final TypeName result = this.builder.build().returnType;
+            final CodeBlock call = CodeBlock.of(
+                "this.$L.$N($L)",
+                GeneratedPrefetchingTypeSpec.WRAPPED,
+                this.method.getSimpleName(),
+                new Arguments(this.method).get()
+            );
+            final TypeName prefetching = ParameterizedTypeName.get(
+                ClassName.get(Prefetching.class),
+                PrefetchingMethod.element(result)
+            );
+            if (GeneratedPrefetchingTypeSpec.raw(result)
+                .equals(ClassName.get(Iterable.class))) {
+                final String origin = new FreshName(this.method, "origin")
+                    .get();
+                this.builder
+                    .addStatement("final $T $N = $L", result, origin, call)
+                    .addStatement(
+                        "return () -> new $T($N.iterator(), $L, this.$L).start()",
+                        prefetching, origin, this.buffer,
+                        GeneratedPrefetchingTypeSpec.EXECUTOR
+                    );
+            } else {
+                this.builder.addStatement(
+                    "return new $T($L, $L, this.$L).start()",
+                    prefetching, call, this.buffer,
+                    GeneratedPrefetchingTypeSpec.EXECUTOR
+                );
+            }
+            return this.builder.build();
+        }
+
+        /**
+         * The type of the elements of an iterator or an iterable.
+         *
+         * @param result The iterator or iterable type
+         * @return The type of its elements
+         */
+        private static TypeName element(final TypeName result) {
+            TypeName element = TypeName.OBJECT;
+            if (result instanceof ParameterizedTypeName) {
+                element = ((ParameterizedTypeName) result).typeArguments.get(0);
+            }
+            if (element instanceof WildcardTypeName) {
+                final WildcardTypeName wildcard = (WildcardTypeName) element;
+                if (wildcard.lowerBounds.isEmpty()) {
+                    element = wildcard.upperBounds.get(0);
+                } else {
+                    element = TypeName.OBJECT;
+                }
+            }
+            return element;
+        }
+    }
+}
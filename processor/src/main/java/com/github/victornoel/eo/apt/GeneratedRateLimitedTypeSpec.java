@@ -0,0 +1,273 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.github.victornoel.eo.GenerateRateLimited;
+import com.github.victornoel.eo.RateLimit;
+import com.github.victornoel.eo.runtime.Throttle;
+import com.github.victornoel.eo.runtime.TokenBucket;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+
+/**
+ * The generated code of an envelope limiting the rate of the calls to the
+ * methods annotated with {@link RateLimit} with a {@link Throttle} each,
+ * the other calls being delegated directly.
+ *
+ * @since 1.1.0
+ * @checkstyle ClassDataAbstractionCouplingCheck (300 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class GeneratedRateLimitedTypeSpec implements GeneratedTypeSpec {
+
+    /**
+     * The name of the field of the wrapped implementation.
+     */
+    private static final String WRAPPED = "wrapped";
+
+    /**
+     * The name of the field of the throttles.
+     */
+    private static final String THROTTLES = "throttles";
+
+    /**
+     * The source interface.
+     */
+    private final TypeElement source;
+
+    /**
+     * The name for the generated envelope.
+     */
+    private final String name;
+
+    /**
+     * The processing environment.
+     */
+    private final ProcessingEnvironment procenv;
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param procenv The processing environment
+     */
+    public GeneratedRateLimitedTypeSpec(
+        final TypeElement source, final ProcessingEnvironment procenv
+    ) {
+        this(
+            source, new GeneratedEnvelopeName(source, "RateLimited").get(),
+            procenv
+        );
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param name The name for the generated envelope
+     * @param procenv The processing environment
+     */
+    public GeneratedRateLimitedTypeSpec(
+        final TypeElement source, final String name,
+        final ProcessingEnvironment procenv
+    ) {
+        this.source = source;
+        this.name = name;
+        this.procenv = procenv;
+    }
+
+    @Override
+    public TypeSpec typeSpec() throws Exception {
+        final List<ExecutableElement> methods = new ReservedNames(
+            new InterfaceMethods(this.source, this.procenv),
+            this.source,
+            GenerateRateLimited.class.getSimpleName(),
+            Collections.singletonList(GeneratedRateLimitedTypeSpec.THROTTLES)
+        ).checked();
+        final TypeName type = TypeName.get(this.source.asType());
+        final TypeName list = ParameterizedTypeName.get(
+            ClassName.get(List.class), ClassName.get(Throttle.class)
+        );
+        final TypeSpec.Builder builder = new GeneratedClassBuilder(
+            this.source, this.name, this.procenv
+        )
+            .get()
+            .addModifiers(Modifier.FINAL)
+            .addSuperinterface(type)
+            .addField(
+                type, GeneratedRateLimitedTypeSpec.WRAPPED,
+                Modifier.PRIVATE, Modifier.FINAL
+            )
+            .addField(
+                list, GeneratedRateLimitedTypeSpec.THROTTLES,
+                Modifier.PRIVATE, Modifier.FINAL
+            );
+        final CodeBlock.Builder throttles = CodeBlock.builder();
+        int count = 0;
+        for (final ExecutableElement method : methods) {
+            final RateLimit limit = method.getAnnotation(RateLimit.class);
+            if (limit == null) {
+                builder.addMethod(
+                    new DelegatingMethod(
+                        method, this.source,
+                        GeneratedRateLimitedTypeSpec.WRAPPED, this.procenv
+                    ).get()
+                );
+            } else {
+                builder.addMethod(this.limited(method, limit, count));
+                throttles.add(
+                    "$L$>\nnew $T($S, $LL, $LL, $T.$L, $LL)$<",
+                    GeneratedRateLimitedTypeSpec.separator(count),
+                    Throttle.class, method.getSimpleName(),
+                    limit.permits(), limit.period(), TimeUnit.class,
+                    limit.unit(), limit.burst()
+                );
+                ++count;
+            }
+        }
+        if (count == 0) {
+            throw new InvalidElementException(
+                String.format(
+                    "@%s requires methods annotated with @%s",
+                    GenerateRateLimited.class.getSimpleName(),
+                    RateLimit.class.getSimpleName()
+                ),
+                this.source
+            );
+        }
+        final ParameterSpec wrapped = ParameterSpec
+            .builder(type, GeneratedRateLimitedTypeSpec.WRAPPED)
+            .build();
+        return builder
+            .addMethod(
+                MethodSpec.constructorBuilder()
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(wrapped)
+                    .addStatement("this.$N = $N", wrapped, wrapped)
+                    .addStatement(
+                        "this.$L = $T.unmodifiableList($>$>\n$T.asList($L)$<$<)",
+                        GeneratedRateLimitedTypeSpec.THROTTLES,
+                        Collections.class, Arrays.class, throttles.build()
+                    )
+                    .build()
+            )
+            .addMethod(
+                MethodSpec.methodBuilder(GeneratedRateLimitedTypeSpec.THROTTLES)
+                    .addJavadoc(
+                        "The rate limits of the annotated methods, in order.\n\n"
+                    )
+                    .addJavadoc("@return The rate limits and their metrics\n")
+                    .addModifiers(Modifier.PUBLIC)
+                    .returns(list)
+                    .addStatement(
+                        "return this.$L", GeneratedRateLimitedTypeSpec.THROTTLES
+                    )
+                    .build()
+            )
+            .build();
+    }
+
+    /**
+     * A generated method admitting its calls with its throttle before
+     * delegating them.
+     *
+     * @param method The method
+     * @param limit The rate limit of the method
+     * @param id The index of the throttle of the method
+     * @return The generated method
+     * @throws InvalidElementException If the rate limit is invalid
+     */
+    private MethodSpec limited(
+        final ExecutableElement method, final RateLimit limit, final int id
+    ) throws InvalidElementException {
+        if (limit.permits() < 1L || limit.period() < 1L
+            || limit.burst() < 0L || limit.burst() > TokenBucket.MAXIMUM) {
+            throw new InvalidElementException(
+                String.format(
+                    // @checkstyle LineLengthCheck (1 line)
+                    "@%s of %s requires positive permits and period, and a burst between 0 and %d",
+                    RateLimit.class.getSimpleName(), method.getSimpleName(),
+                    TokenBucket.MAXIMUM
+                ),
+                method
+            );
+        }
+        final Optional<VariableElement> key = new KeyParameter(method)
+            .found();
+        final CodeBlock arg;
+        if (key.isPresent()) {
+            arg = CodeBlock.of("$N", key.get().getSimpleName().toString());
+        } else {
+            arg = CodeBlock.of("null");
+        }
+        final CodeBlock call = CodeBlock.of(
+            "this.$L.$N($L)",
+            GeneratedRateLimitedTypeSpec.WRAPPED, method.getSimpleName(),
+            new Arguments(method).get()
+        );
+        final MethodSpec.Builder builder = new OverridingMethod(
+            method, this.source, this.procenv
+        )
+            .get()
+            .addStatement(
+                "this.$L.get($L).$L($L)",
+                GeneratedRateLimitedTypeSpec.THROTTLES, id,
+                limit.policy().name().toLowerCase(Locale.ENGLISH), arg
+            );
+        if (method.getReturnType().getKind() == TypeKind.VOID) {
+            builder.addStatement(call);
+        } else {
+            builder.addStatement("return $L", call);
+        }
+        return builder.build();
+    }
+
+    /**
+     * The separator before a throttle in the list of throttles.
+     *
+     * @param index The index of the throttle
+     * @return The separator
+     */
+    private static String separator(final int index) {
+        final String separator;
+        if (index == 0) {
+            separator = "";
+        } else {
+            separator = ",";
+        }
+        return separator;
+    }
+}
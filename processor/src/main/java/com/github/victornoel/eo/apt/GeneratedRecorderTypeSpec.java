@@ -0,0 +1,252 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.github.victornoel.eo.GenerateRecorder;
+import com.github.victornoel.eo.runtime.BufferWriter;
+import com.github.victornoel.eo.runtime.Journal;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import java.util.List;
+import java.util.function.Supplier;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+
+/**
+ * The generated code of a recorder writing every call to a
+ * {@link Journal} before delegating it.
+ *
+ * @since 1.1.0
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class GeneratedRecorderTypeSpec implements GeneratedTypeSpec {
+
+    /**
+     * The name of the field to delegate to.
+     */
+    private static final String WRAPPED = "wrapped";
+
+    /**
+     * The name of the field of the journal.
+     */
+    private static final String JOURNAL = "journal";
+
+    /**
+     * The name of the field of the writer.
+     */
+    private static final String WRITER = "writer";
+
+    /**
+     * The source interface.
+     */
+    private final TypeElement source;
+
+    /**
+     * The name for the generated recorder.
+     */
+    private final String name;
+
+    /**
+     * The processing environment.
+     */
+    private final ProcessingEnvironment procenv;
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param procenv The processing environment
+     */
+    public GeneratedRecorderTypeSpec(
+        final TypeElement source, final ProcessingEnvironment procenv
+    ) {
+        this(
+            source,
+            new GeneratedEnvelopeName(source, "Recorder").get(),
+            procenv
+        );
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param name The name for the generated recorder
+     * @param procenv The processing environment
+     */
+    public GeneratedRecorderTypeSpec(
+        final TypeElement source, final String name,
+        final ProcessingEnvironment procenv
+    ) {
+        this.source = source;
+        this.name = name;
+        this.procenv = procenv;
+    }
+
+    @Override
+    public TypeSpec typeSpec() throws Exception {
+        final List<ExecutableElement> methods = new MarshalledMethods(
+            new InterfaceMethods(this.source, this.procenv),
+            this.source,
+            GenerateRecorder.class.getSimpleName()
+        ).checked();
+        final TypeName type = TypeName.get(this.source.asType());
+        final FieldSpec fingerprint = FieldSpec
+            .builder(
+                int.class, "FINGERPRINT",
+                Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL
+            )
+            .addJavadoc("The fingerprint of the recorded interface.\n")
+            .initializer("$L", new Fingerprint(methods).getAsInt())
+            .build();
+        final ParameterSpec wrapped = ParameterSpec
+            .builder(type, GeneratedRecorderTypeSpec.WRAPPED)
+            .build();
+        final ParameterSpec journal = ParameterSpec
+            .builder(Journal.class, GeneratedRecorderTypeSpec.JOURNAL)
+            .build();
+        final TypeSpec.Builder builder = new GeneratedClassBuilder(
+            this.source, this.name, this.procenv
+        )
+            .get()
+            .addModifiers(Modifier.FINAL)
+            .addSuperinterface(type)
+            .addField(fingerprint)
+            .addField(
+                type, GeneratedRecorderTypeSpec.WRAPPED,
+                Modifier.PRIVATE, Modifier.FINAL
+            )
+            .addField(
+                Journal.class, GeneratedRecorderTypeSpec.JOURNAL,
+                Modifier.PRIVATE, Modifier.FINAL
+            )
+            .addField(
+                BufferWriter.class, GeneratedRecorderTypeSpec.WRITER,
+                Modifier.PRIVATE, Modifier.FINAL
+            )
+            .addMethod(
+                MethodSpec.constructorBuilder()
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(wrapped)
+                    .addParameter(journal)
+                    .addStatement("this.$N = $N", wrapped, wrapped)
+                    .addStatement("this.$N = $N", journal, journal)
+                    .addStatement(
+                        "this.$L = $N.writer()",
+                        GeneratedRecorderTypeSpec.WRITER, journal
+                    )
+                    .addStatement("$N.stamp($N)", journal, fingerprint)
+                    .build()
+            );
+        for (int idx = 0; idx < methods.size(); ++idx) {
+            builder.addMethod(new RecordingMethod(methods.get(idx), idx).get());
+        }
+        return builder.build();
+    }
+
+    /**
+     * One generated method recording the call before delegating it.
+     *
+     * @since 1.1.0
+     */
+    private final class RecordingMethod implements Supplier<MethodSpec> {
+
+        /**
+         * The method to record.
+         */
+        private final ExecutableElement method;
+
+        /**
+         * The id of the method.
+         */
+        private final int id;
+
+        /**
+         * Ctor.
+         *
+         * @param method The method to record
+         * @param id The id of the method
+         */
+        RecordingMethod(final ExecutableElement method, final int id) {
+            this.method = method;
+            this.id = id;
+        }
+
+        @Override
+        public MethodSpec get() {
+            final String pos = new FreshName(this.method, "at").get();
+            final CodeBlock writer = CodeBlock.of(
+                "this.$L", GeneratedRecorderTypeSpec.WRITER
+            );
+            CodeBlock size = CodeBlock.of("0");
+            CodeBlock end = CodeBlock.of("$N", pos);
+            for (final VariableElement param : this.method.getParameters()) {
+                final MarshalledType type = new MarshalledType(param.asType());
+                final CodeBlock value = CodeBlock.of(
+                    "$N", param.getSimpleName().toString()
+                );
+                if (this.method.getParameters().indexOf(param) == 0) {
+                    size = type.size(writer, value);
+                } else {
+                    size = CodeBlock.of("$L + $L", size, type.size(writer, value));
+                }
+                end = type.write(writer, end, value);
+            }
+            if (this.method.getParameters().size() > 1) {
+                size = CodeBlock.of("$L.bounded(0L + $L)", writer, size);
+            }
+            final CodeBlock.Builder call = CodeBlock.builder();
+            if (this.method.getReturnType().getKind() != TypeKind.VOID) {
+                call.add("return ");
+            }
+            call.add(
+                "this.$L.$N($L)",
+                GeneratedRecorderTypeSpec.WRAPPED,
+                this.method.getSimpleName(),
+                new Arguments(this.method).get()
+            );
+            return new OverridingMethod(
+                this.method,
+                GeneratedRecorderTypeSpec.this.source,
+                GeneratedRecorderTypeSpec.this.procenv
+            )
+                .get()
+                .addStatement(
+                    "final int $N = this.$L.claim($L, $L)",
+                    pos, GeneratedRecorderTypeSpec.JOURNAL, this.id, size
+                )
+                .beginControlFlow("if ($N >= 0)", pos)
+                .addStatement(
+                    "this.$L.commit($N, $L)",
+                    GeneratedRecorderTypeSpec.JOURNAL, pos, end
+                )
+                .endControlFlow()
+                .addStatement(call.build())
+                .build();
+        }
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.github.victornoel.eo.GenerateRecorder;
+import com.github.victornoel.eo.runtime.BufferReader;
+import com.github.victornoel.eo.runtime.JournalCursor;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Supplier;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+
+/**
+ * The generated code of a replayer reading the calls recorded by the
+ * generated recorder and calling them on another implementation.
+ *
+ * @since 1.1.0
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class GeneratedReplayerTypeSpec implements GeneratedTypeSpec {
+
+    /**
+     * The name of the field of the file.
+     */
+    private static final String FILE = "file";
+
+    /**
+     * The source interface.
+     */
+    private final TypeElement source;
+
+    /**
+     * The name for the generated replayer.
+     */
+    private final String name;
+
+    /**
+     * The name of the generated recorder.
+     */
+    private final ClassName recorder;
+
+    /**
+     * The processing environment.
+     */
+    private final ProcessingEnvironment procenv;
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param procenv The processing environment
+     */
+    public GeneratedReplayerTypeSpec(
+        final TypeElement source, final ProcessingEnvironment procenv
+    ) {
+        this(
+            source,
+            new GeneratedEnvelopeName(source, "Replayer").get(),
+            new GeneratedClassName(source, "Recorder", procenv).get(),
+            procenv
+        );
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param name The name for the generated replayer
+     * @param recorder The name of the generated recorder
+     * @param procenv The processing environment
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    public GeneratedReplayerTypeSpec(
+        final TypeElement source, final String name, final ClassName recorder,
+        final ProcessingEnvironment procenv
+    ) {
+        this.source = source;
+        this.name = name;
+        this.recorder = recorder;
+        this.procenv = procenv;
+    }
+
+    @Override
+    public TypeSpec typeSpec() throws Exception {
+        final List<ExecutableElement> methods = new MarshalledMethods(
+            new InterfaceMethods(this.source, this.procenv),
+            this.source,
+            GenerateRecorder.class.getSimpleName()
+        ).checked();
+        final TypeName type = TypeName.get(this.source.asType());
+        final ParameterSpec file = ParameterSpec
+            .builder(Path.class, GeneratedReplayerTypeSpec.FILE)
+            .build();
+        final ParameterSpec target = ParameterSpec.builder(type, "target").build();
+        final ParameterSpec paced = ParameterSpec.builder(boolean.class, "paced").build();
+        final TypeName exception;
+        if (methods.stream().anyMatch(m -> !m.getThrownTypes().isEmpty())) {
+            exception = TypeName.get(Exception.class);
+        } else {
+            exception = TypeName.get(IOException.class);
+        }
+        return new GeneratedClassBuilder(this.source, this.name, this.procenv)
+            .get()
+            .addModifiers(Modifier.FINAL)
+            .addField(
+                Path.class, GeneratedReplayerTypeSpec.FILE,
+                Modifier.PRIVATE, Modifier.FINAL
+            )
+            .addMethod(
+                MethodSpec.constructorBuilder()
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(file)
+                    .addStatement("this.$N = $N", file, file)
+                    .build()
+            )
+            .addMethod(
+                MethodSpec.methodBuilder("replay")
+                    .addJavadoc("Replay the calls as fast as possible.\n\n")
+                    .addJavadoc("@param $N The implementation to call\n", target)
+                    .addJavadoc("@return The number of replayed calls\n")
+                    .addJavadoc("@throws $T If fails\n", exception)
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(target)
+                    .returns(long.class)
+                    .addException(exception)
+                    .addStatement("return this.replay($N, false)", target)
+                    .build()
+            )
+            .addMethod(
+                MethodSpec.methodBuilder("replay")
+                    .addJavadoc("Replay the calls.\n\n")
+                    .addJavadoc("@param $N The implementation to call\n", target)
+                    .addJavadoc(
+                        "@param $N Whether to reproduce the recorded pace\n",
+                        paced
+                    )
+                    .addJavadoc("@return The number of replayed calls\n")
+                    .addJavadoc("@throws $T If fails\n", exception)
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(target)
+                    .addParameter(paced)
+                    .returns(long.class)
+                    .addException(exception)
+                    .addCode(new ReplayingCode(methods, target, paced).get())
+                    .build()
+            )
+            .build();
+    }
+
+    /**
+     * The generated code replaying the calls.
+     *
+     * @since 1.1.0
+     */
+    private final class ReplayingCode implements Supplier<CodeBlock> {
+
+        /**
+         * The methods to replay.
+         */
+        private final List<ExecutableElement> methods;
+
+        /**
+         * The implementation to call.
+         */
+        private final ParameterSpec target;
+
+        /**
+         * Whether to reproduce the recorded pace.
+         */
+        private final ParameterSpec paced;
+
+        /**
+         * Ctor.
+         *
+         * @param methods The methods to replay
+         * @param target The implementation to call
+         * @param paced Whether to reproduce the recorded pace
+         */
+        ReplayingCode(
+            final List<ExecutableElement> methods, final ParameterSpec target,
+            final ParameterSpec paced
+        ) {
+            this.methods = methods;
+            this.target = target;
+            this.paced = paced;
+        }
+
+        @Override
+        public CodeBlock get() {
+            final CodeBlock.Builder code = CodeBlock.builder()
+                .addStatement("long count = 0")
+                .beginControlFlow(
+                    "try ($T cursor = new $T(this.$L, $T.FINGERPRINT, $N))",
+                    JournalCursor.class,
+                    JournalCursor.class,
+                    GeneratedReplayerTypeSpec.FILE,
+                    GeneratedReplayerTypeSpec.this.recorder,
+                    this.paced
+                )
+                .addStatement(
+                    "final $T reader = cursor.reader()", BufferReader.class
+                )
+                .beginControlFlow("while (cursor.next())")
+                .beginControlFlow("switch (cursor.method())");
+            final CodeBlock reader = CodeBlock.of("reader");
+            for (int idx = 0; idx < this.methods.size(); ++idx) {
+                final ExecutableElement method = this.methods.get(idx);
+                code.add("case $L:\n", idx)
+                    .indent()
+                    .addStatement(
+                        "$N.$N($L)",
+                        this.target,
+                        method.getSimpleName(),
+                        method.getParameters()
+                            .stream()
+                            .map(p -> new MarshalledType(p.asType()).read(reader))
+                            .collect(CodeBlock.joining(", "))
+                    )
+                    .addStatement("break")
+                    .unindent();
+            }
+            return code
+                .add("default:\n")
+                .indent()
+                .addStatement(
+                    "throw new $T($S + cursor.method())",
+                    IllegalStateException.class,
+                    "Unknown method in journal: "
+                )
+                .unindent()
+                .endControlFlow()
+                .addStatement("count += 1")
+                .endControlFlow()
+                .endControlFlow()
+                .addStatement("return count")
+                .build();
+        }
+    }
+}
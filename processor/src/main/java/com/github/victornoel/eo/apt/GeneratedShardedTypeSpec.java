@@ -0,0 +1,240 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.github.victornoel.eo.Broadcast;
+import com.github.victornoel.eo.Key;
+import com.github.victornoel.eo.runtime.Shards;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.WildcardTypeName;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+
+/**
+ * The generated code of an envelope routing calls to the implementation
+ * owning the shard of their {@link Key} with {@link Shards}.
+ *
+ * @since 1.1.0
+ * @checkstyle ClassDataAbstractionCouplingCheck (300 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class GeneratedShardedTypeSpec implements GeneratedTypeSpec {
+
+    /**
+     * The name of the field of the implementations.
+     */
+    private static final String DELEGATES = "delegates";
+
+    /**
+     * The name of the field of the shards.
+     */
+    private static final String SHARDS = "shards";
+
+    /**
+     * The source interface.
+     */
+    private final TypeElement source;
+
+    /**
+     * The name for the generated envelope.
+     */
+    private final String name;
+
+    /**
+     * The processing environment.
+     */
+    private final ProcessingEnvironment procenv;
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param procenv The processing environment
+     */
+    public GeneratedShardedTypeSpec(
+        final TypeElement source, final ProcessingEnvironment procenv
+    ) {
+        this(
+            source, new GeneratedEnvelopeName(source, "Sharded").get(),
+            procenv
+        );
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param name The name for the generated envelope
+     * @param procenv The processing environment
+     */
+    public GeneratedShardedTypeSpec(
+        final TypeElement source, final String name,
+        final ProcessingEnvironment procenv
+    ) {
+        this.source = source;
+        this.name = name;
+        this.procenv = procenv;
+    }
+
+    @Override
+    public TypeSpec typeSpec() throws Exception {
+        final TypeName type = TypeName.get(this.source.asType());
+        final ParameterSpec delegates = ParameterSpec
+            .builder(
+                ParameterizedTypeName.get(
+                    ClassName.get(List.class),
+                    WildcardTypeName.subtypeOf(type)
+                ),
+                GeneratedShardedTypeSpec.DELEGATES
+            )
+            .build();
+        final TypeSpec.Builder builder = new GeneratedClassBuilder(
+            this.source, this.name, this.procenv
+        )
+            .get()
+            .addModifiers(Modifier.FINAL)
+            .addSuperinterface(type)
+            .addField(
+                ParameterizedTypeName.get(ClassName.get(List.class), type),
+                GeneratedShardedTypeSpec.DELEGATES,
+                Modifier.PRIVATE, Modifier.FINAL
+            )
+            .addField(
+                Shards.class, GeneratedShardedTypeSpec.SHARDS,
+                Modifier.PRIVATE, Modifier.FINAL
+            )
+            .addMethod(
+                MethodSpec.constructorBuilder()
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(delegates)
+                    .addStatement(
+                        "this.$N = new $T<>($N)",
+                        delegates, ArrayList.class, delegates
+                    )
+                    .addStatement(
+                        "this.$L = new $T($N.size())",
+                        GeneratedShardedTypeSpec.SHARDS, Shards.class,
+                        delegates
+                    )
+                    .build()
+            );
+        for (final ExecutableElement method
+            : new InterfaceMethods(this.source, this.procenv)) {
+            builder.addMethod(this.routing(method, type));
+        }
+        return builder.build();
+    }
+
+    /**
+     * A generated method routing its calls.
+     *
+     * @param method The method
+     * @param type The type of the implementations
+     * @return The generated method
+     * @throws InvalidElementException If its annotations are invalid
+     */
+    private MethodSpec routing(
+        final ExecutableElement method, final TypeName type
+    ) throws InvalidElementException {
+        final Optional<VariableElement> key = new KeyParameter(method)
+            .found();
+        final MethodSpec.Builder builder = new OverridingMethod(
+            method, this.source, this.procenv
+        ).get();
+        if (method.getAnnotation(Broadcast.class) == null) {
+            final CodeBlock target;
+            if (key.isPresent()) {
+                target = CodeBlock.of(
+                    "this.$L.get(this.$L.index($N))",
+                    GeneratedShardedTypeSpec.DELEGATES,
+                    GeneratedShardedTypeSpec.SHARDS,
+                    key.get().getSimpleName().toString()
+                );
+            } else {
+                target = CodeBlock.of(
+                    "this.$L.get(0)", GeneratedShardedTypeSpec.DELEGATES
+                );
+            }
+            final CodeBlock call = CodeBlock.of(
+                "$L.$N($L)",
+                target, method.getSimpleName(), new Arguments(method).get()
+            );
+            if (method.getReturnType().getKind() == TypeKind.VOID) {
+                builder.addStatement(call);
+            } else {
+                builder.addStatement("return $L", call);
+            }
+        } else {
+            GeneratedShardedTypeSpec.broadcasting(method, key, builder, type);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Add the code of a method calling every implementation.
+     *
+     * @param method The method
+     * @param key The parameter annotated with {@link Key}, if any
+     * @param builder The generated method
+     * @param type The type of the implementations
+     * @throws InvalidElementException If the method can't be broadcast
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private static void broadcasting(
+        final ExecutableElement method, final Optional<VariableElement> key,
+        final MethodSpec.Builder builder, final TypeName type
+    ) throws InvalidElementException {
+        if (key.isPresent()
+            || method.getReturnType().getKind() != TypeKind.VOID) {
+            throw new InvalidElementException(
+                String.format(
+                    "@%s only applies to void methods without @%s, unlike %s",
+                    Broadcast.class.getSimpleName(),
+                    Key.class.getSimpleName(),
+                    method.getSimpleName()
+                ),
+                method
+            );
+        }
+        final String delegate = new FreshName(method, "delegate").get();
+        builder
+            .beginControlFlow(
+                "for (final $T $N : this.$L)",
+                type, delegate, GeneratedShardedTypeSpec.DELEGATES
+            )
+            .addStatement(
+                "$N.$N($L)",
+                delegate, method.getSimpleName(), new Arguments(method).get()
+            )
+            .endControlFlow();
+    }
+}
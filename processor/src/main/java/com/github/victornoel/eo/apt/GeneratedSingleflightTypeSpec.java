@@ -0,0 +1,274 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.github.victornoel.eo.Collapsed;
+import com.github.victornoel.eo.GenerateSingleflight;
+import com.github.victornoel.eo.runtime.Singleflight;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+
+/**
+ * The generated code of an envelope collapsing concurrent identical
+ * calls with a {@link Singleflight}, the calls to asynchronous methods
+ * being in flight until their returned stage completes.
+ *
+ * @since 1.1.0
+ */
+public final class GeneratedSingleflightTypeSpec implements GeneratedTypeSpec {
+
+    /**
+     * The name of the field of the wrapped implementation.
+     */
+    private static final String WRAPPED = "wrapped";
+
+    /**
+     * The name of the field of the calls in flight.
+     */
+    private static final String FLIGHTS = "flights";
+
+    /**
+     * The source interface.
+     */
+    private final TypeElement source;
+
+    /**
+     * The name for the generated envelope.
+     */
+    private final String name;
+
+    /**
+     * The processing environment.
+     */
+    private final ProcessingEnvironment procenv;
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param procenv The processing environment
+     */
+    public GeneratedSingleflightTypeSpec(
+        final TypeElement source, final ProcessingEnvironment procenv
+    ) {
+        this(
+            source, new GeneratedEnvelopeName(source, "Singleflight").get(),
+            procenv
+        );
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param name The name for the generated envelope
+     * @param procenv The processing environment
+     */
+    public GeneratedSingleflightTypeSpec(
+        final TypeElement source, final String name,
+        final ProcessingEnvironment procenv
+    ) {
+        this.source = source;
+        this.name = name;
+        this.procenv = procenv;
+    }
+
+    @Override
+    public TypeSpec typeSpec() throws Exception {
+        final List<ExecutableElement> methods = new ReservedNames(
+            new InterfaceMethods(this.source, this.procenv),
+            this.source,
+            GenerateSingleflight.class.getSimpleName(),
+            Collections.singleton(GeneratedSingleflightTypeSpec.FLIGHTS)
+        ).checked();
+        final boolean chosen = methods.stream()
+            .anyMatch(method -> method.getAnnotation(Collapsed.class) != null);
+        final TypeName type = TypeName.get(this.source.asType());
+        final FieldSpec wrapped = FieldSpec
+            .builder(
+                type, GeneratedSingleflightTypeSpec.WRAPPED,
+                Modifier.PRIVATE, Modifier.FINAL
+            )
+            .build();
+        final ParameterSpec param = ParameterSpec
+            .builder(type, GeneratedSingleflightTypeSpec.WRAPPED)
+            .build();
+        final TypeSpec.Builder builder = new GeneratedClassBuilder(
+            this.source, this.name, this.procenv
+        )
+            .get()
+            .addModifiers(Modifier.FINAL)
+            .addSuperinterface(type)
+            .addField(wrapped)
+            .addField(
+                Singleflight.class, GeneratedSingleflightTypeSpec.FLIGHTS,
+                Modifier.PRIVATE, Modifier.FINAL
+            )
+            .addMethod(
+                MethodSpec.constructorBuilder()
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(param)
+                    .addStatement("this.$N = $N", wrapped, param)
+                    .addStatement(
+                        "this.$L = new $T()",
+                        GeneratedSingleflightTypeSpec.FLIGHTS,
+                        Singleflight.class
+                    )
+                    .build()
+            );
+        for (int idx = 0; idx < methods.size(); ++idx) {
+            final ExecutableElement method = methods.get(idx);
+            if (method.getReturnType().getKind() == TypeKind.VOID
+                || chosen && method.getAnnotation(Collapsed.class) == null) {
+                builder.addMethod(
+                    new DelegatingMethod(
+                        method, this.source,
+                        GeneratedSingleflightTypeSpec.WRAPPED, this.procenv
+                    ).get()
+                );
+            } else {
+                final ArgumentKey key = new ArgumentKey(
+                    method, String.format("Key%d", idx)
+                );
+                builder
+                    .addMethod(
+                        new CollapsingMethod(
+                            method, this.source, key, this.procenv
+                        ).get()
+                    )
+                    .addType(key.typeSpec());
+            }
+        }
+        return builder
+            .addMethod(
+                MethodSpec.methodBuilder(GeneratedSingleflightTypeSpec.FLIGHTS)
+                    .addJavadoc("The calls in flight and the collapsed calls.\n\n")
+                    .addJavadoc("@return The calls\n")
+                    .addModifiers(Modifier.PUBLIC)
+                    .returns(Singleflight.class)
+                    .addStatement(
+                        "return this.$L", GeneratedSingleflightTypeSpec.FLIGHTS
+                    )
+                    .build()
+            )
+            .build();
+    }
+
+    /**
+     * One generated method collapsing identical calls.
+     *
+     * @since 1.1.0
+     */
+    private static final class CollapsingMethod
+        implements Supplier<MethodSpec> {
+
+        /**
+         * The method to collapse.
+         */
+        private final ExecutableElement method;
+
+        /**
+         * The source interface.
+         */
+        private final TypeElement source;
+
+        /**
+         * The key of the arguments.
+         */
+        private final ArgumentKey key;
+
+        /**
+         * The processing environment.
+         */
+        private final ProcessingEnvironment procenv;
+
+        /**
+         * Ctor.
+         *
+         * @param method The method to collapse
+         * @param source The source interface
+         * @param key The key of the arguments
+         * @param procenv The processing environment
+         * @checkstyle ParameterNumberCheck (5 lines)
+         */
+        CollapsingMethod(
+            final ExecutableElement method, final TypeElement source,
+            final ArgumentKey key, final ProcessingEnvironment procenv
+        ) {
+            this.method = method;
+            this.source = source;
+            this.key = key;
+            this.procenv = procenv;
+        }
+
+        @Override
+        public MethodSpec get() {
+            final MethodSpec.Builder builder = new OverridingMethod(
+                this.method, this.source, this.procenv
+            ).get();
+            final MethodSpec spec = builder.build();
+            return new UncheckedCast(spec.returnType)
+                .suppress(builder)
+                .addCode(
+                    new UnwrappingCall(
+                        spec.exceptions,
+                        CodeBlock.of(
+                            "return ($T) this.$L.$L($L, () -> this.$L.$N($L))",
+                            spec.returnType,
+                            GeneratedSingleflightTypeSpec.FLIGHTS,
+                            this.collapse(),
+                            this.key.instance(),
+                            GeneratedSingleflightTypeSpec.WRAPPED,
+                            this.method.getSimpleName(),
+                            new Arguments(this.method).get()
+                        )
+                    ).get()
+                )
+                .build();
+        }
+
+        /**
+         * The method of {@link Singleflight} collapsing the calls, sharing
+         * the returned stage of asynchronous ones.
+         *
+         * @return The name of the method
+         */
+        private String collapse() {
+            final String collapse;
+            if (new AsyncReturn(this.method).exists()) {
+                collapse = "stage";
+            } else {
+                collapse = "call";
+            }
+            return collapse;
+        }
+    }
+}
@@ -0,0 +1,349 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.github.victornoel.eo.GenerateIpc;
+import com.github.victornoel.eo.runtime.BufferReader;
+import com.github.victornoel.eo.runtime.BufferWriter;
+import com.github.victornoel.eo.runtime.IpcChannel;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+
+/**
+ * The generated code of a skeleton serving the calls sent through an
+ * {@link IpcChannel} by the generated stub of another process.
+ *
+ * @since 1.1.0
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class GeneratedSkeletonTypeSpec implements GeneratedTypeSpec {
+
+    /**
+     * The name of the field of the implementation.
+     */
+    private static final String TARGET = "target";
+
+    /**
+     * The name of the field of the channel.
+     */
+    private static final String CHANNEL = "channel";
+
+    /**
+     * The name of the field of the writer.
+     */
+    private static final String WRITER = "writer";
+
+    /**
+     * The source interface.
+     */
+    private final TypeElement source;
+
+    /**
+     * The name for the generated skeleton.
+     */
+    private final String name;
+
+    /**
+     * The name of the generated stub.
+     */
+    private final ClassName stub;
+
+    /**
+     * The processing environment.
+     */
+    private final ProcessingEnvironment procenv;
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param procenv The processing environment
+     */
+    public GeneratedSkeletonTypeSpec(
+        final TypeElement source, final ProcessingEnvironment procenv
+    ) {
+        this(
+            source,
+            new GeneratedEnvelopeName(source, "Skeleton").get(),
+            new GeneratedClassName(source, "Stub", procenv).get(),
+            procenv
+        );
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param name The name for the generated skeleton
+     * @param stub The name of the generated stub
+     * @param procenv The processing environment
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    public GeneratedSkeletonTypeSpec(
+        final TypeElement source, final String name, final ClassName stub,
+        final ProcessingEnvironment procenv
+    ) {
+        this.source = source;
+        this.name = name;
+        this.stub = stub;
+        this.procenv = procenv;
+    }
+
+    @Override
+    public TypeSpec typeSpec() throws Exception {
+        final List<ExecutableElement> methods = new MarshalledMethods(
+            new InterfaceMethods(this.source, this.procenv),
+            this.source,
+            GenerateIpc.class.getSimpleName(),
+            true
+        ).checked();
+        final TypeName type = TypeName.get(this.source.asType());
+        final ParameterSpec target = ParameterSpec
+            .builder(type, GeneratedSkeletonTypeSpec.TARGET)
+            .build();
+        final ParameterSpec channel = ParameterSpec
+            .builder(IpcChannel.class, GeneratedSkeletonTypeSpec.CHANNEL)
+            .build();
+        final TypeSpec.Builder builder = new GeneratedClassBuilder(
+            this.source, this.name, this.procenv
+        )
+            .get()
+            .addModifiers(Modifier.FINAL)
+            .addSuperinterface(Runnable.class)
+            .addField(
+                type, GeneratedSkeletonTypeSpec.TARGET,
+                Modifier.PRIVATE, Modifier.FINAL
+            )
+            .addField(
+                IpcChannel.class, GeneratedSkeletonTypeSpec.CHANNEL,
+                Modifier.PRIVATE, Modifier.FINAL
+            )
+            .addField(
+                BufferWriter.class, GeneratedSkeletonTypeSpec.WRITER,
+                Modifier.PRIVATE, Modifier.FINAL
+            )
+            .addMethod(
+                MethodSpec.constructorBuilder()
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(target)
+                    .addParameter(channel)
+                    .addStatement("this.$N = $N", target, target)
+                    .addStatement("this.$N = $N", channel, channel)
+                    .addStatement(
+                        "this.$L = $N.writer()",
+                        GeneratedSkeletonTypeSpec.WRITER, channel
+                    )
+                    .addStatement("$N.bind($T.FINGERPRINT)", channel, this.stub)
+                    .build()
+            )
+            .addMethod(
+                MethodSpec.methodBuilder("run")
+                    .addJavadoc("Serve requests until the thread is interrupted.\n")
+                    .addAnnotation(Override.class)
+                    .addModifiers(Modifier.PUBLIC)
+                    .addStatement("int idle = 0")
+                    .beginControlFlow(
+                        "while (!$T.currentThread().isInterrupted())",
+                        Thread.class
+                    )
+                    .beginControlFlow("if (this.serve())")
+                    .addStatement("idle = 0")
+                    .nextControlFlow("else")
+                    .addStatement(
+                        "this.$L.idle(idle)", GeneratedSkeletonTypeSpec.CHANNEL
+                    )
+                    .addStatement("idle += 1")
+                    .endControlFlow()
+                    .endControlFlow()
+                    .build()
+            )
+            .addMethod(GeneratedSkeletonTypeSpec.serve())
+            .addMethod(GeneratedSkeletonTypeSpec.dispatch(methods));
+        for (int idx = 0; idx < methods.size(); ++idx) {
+            builder.addMethod(new InvokingMethod(methods.get(idx), idx).get());
+        }
+        return builder.build();
+    }
+
+    /**
+     * The method serving one request.
+     *
+     * @return The method
+     */
+    private static MethodSpec serve() {
+        return MethodSpec.methodBuilder("serve")
+            .addJavadoc("Serve one pending request, if any.\n\n")
+            .addJavadoc("@return Whether a request was served\n")
+            .addModifiers(Modifier.PUBLIC)
+            .returns(boolean.class)
+            .addStatement(
+                "final int at = this.$L.poll()", GeneratedSkeletonTypeSpec.CHANNEL
+            )
+            .beginControlFlow("if (at >= 0)")
+            .beginControlFlow("try")
+            .addStatement("this.dispatch(at)")
+            .addStatement("this.$L.respond(at)", GeneratedSkeletonTypeSpec.CHANNEL)
+            .nextControlFlow("catch (final $T ex)", Throwable.class)
+            .addStatement(
+                "this.$L.fail(at, ex)", GeneratedSkeletonTypeSpec.CHANNEL
+            )
+            .beginControlFlow("if (ex instanceof $T)", Error.class)
+            .addStatement("throw ($T) ex", Error.class)
+            .endControlFlow()
+            .endControlFlow()
+            .endControlFlow()
+            .addStatement("return at >= 0")
+            .build();
+    }
+
+    /**
+     * The method dispatching a request to the method it calls.
+     *
+     * @param methods The methods
+     * @return The method
+     */
+    private static MethodSpec dispatch(final List<ExecutableElement> methods) {
+        final CodeBlock.Builder code = CodeBlock.builder()
+            .beginControlFlow(
+                "switch (this.$L.method(at))", GeneratedSkeletonTypeSpec.CHANNEL
+            );
+        for (int idx = 0; idx < methods.size(); ++idx) {
+            code.add("case $L:\n", idx)
+                .indent()
+                .addStatement("this.invoke$L(at)", idx)
+                .addStatement("break")
+                .unindent();
+        }
+        return MethodSpec.methodBuilder("dispatch")
+            .addModifiers(Modifier.PRIVATE)
+            .addParameter(int.class, "at", Modifier.FINAL)
+            .addException(Exception.class)
+            .addCode(
+                code.add("default:\n")
+                    .indent()
+                    .addStatement(
+                        "throw new $T($S + this.$L.method(at))",
+                        IllegalStateException.class,
+                        "Unknown method in request: ",
+                        GeneratedSkeletonTypeSpec.CHANNEL
+                    )
+                    .unindent()
+                    .endControlFlow()
+                    .build()
+            )
+            .build();
+    }
+
+    /**
+     * One generated method invoking the implementation for a request.
+     *
+     * @since 1.1.0
+     */
+    private final class InvokingMethod implements Supplier<MethodSpec> {
+
+        /**
+         * The method to invoke.
+         */
+        private final ExecutableElement method;
+
+        /**
+         * The id of the method.
+         */
+        private final int id;
+
+        /**
+         * Ctor.
+         *
+         * @param method The method to invoke
+         * @param id The id of the method
+         */
+        InvokingMethod(final ExecutableElement method, final int id) {
+            this.method = method;
+            this.id = id;
+        }
+
+        @Override
+        public MethodSpec get() {
+            final CodeBlock reader = CodeBlock.of("reader");
+            final CodeBlock call = CodeBlock.of(
+                "this.$L.$N($L)",
+                GeneratedSkeletonTypeSpec.TARGET,
+                this.method.getSimpleName(),
+                this.method.getParameters()
+                    .stream()
+                    .map(p -> new MarshalledType(p.asType()).read(reader))
+                    .collect(CodeBlock.joining(", "))
+            );
+            final MethodSpec.Builder builder = MethodSpec
+                .methodBuilder(String.format("invoke%d", this.id))
+                .addModifiers(Modifier.PRIVATE)
+                .addParameter(int.class, "at", Modifier.FINAL)
+                .addExceptions(
+                    this.method.getThrownTypes()
+                        .stream()
+                        .map(TypeName::get)
+                        .collect(Collectors.toList())
+                )
+                .addStatement(
+                    "final $T $L = this.$L.reader(at)",
+                    BufferReader.class, reader, GeneratedSkeletonTypeSpec.CHANNEL
+                );
+            if (this.method.getReturnType().getKind() == TypeKind.VOID) {
+                builder.addStatement(call);
+            } else {
+                final MarshalledType type = new MarshalledType(
+                    this.method.getReturnType()
+                );
+                final CodeBlock writer = CodeBlock.of(
+                    "this.$L", GeneratedSkeletonTypeSpec.WRITER
+                );
+                final CodeBlock result = CodeBlock.of("result");
+                builder
+                    .addStatement(
+                        "final $T $L = $L",
+                        TypeName.get(this.method.getReturnType()), result, call
+                    )
+                    .addStatement(
+                        type.write(
+                            writer,
+                            CodeBlock.of(
+                                "this.$L.reserve(at, $L)",
+                                GeneratedSkeletonTypeSpec.CHANNEL,
+                                type.size(writer, result)
+                            ),
+                            result
+                        )
+                    );
+            }
+            return builder.build();
+        }
+    }
+}
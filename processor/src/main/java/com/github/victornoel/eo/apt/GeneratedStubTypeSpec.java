@@ -0,0 +1,242 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.github.victornoel.eo.GenerateIpc;
+import com.github.victornoel.eo.runtime.BufferWriter;
+import com.github.victornoel.eo.runtime.IpcChannel;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import java.util.List;
+import java.util.function.Supplier;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+
+/**
+ * The generated code of a stub sending every call through an
+ * {@link IpcChannel} to the generated skeleton of another process.
+ *
+ * @since 1.1.0
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class GeneratedStubTypeSpec implements GeneratedTypeSpec {
+
+    /**
+     * The name of the field of the channel.
+     */
+    private static final String CHANNEL = "channel";
+
+    /**
+     * The name of the field of the writer.
+     */
+    private static final String WRITER = "writer";
+
+    /**
+     * The source interface.
+     */
+    private final TypeElement source;
+
+    /**
+     * The name for the generated stub.
+     */
+    private final String name;
+
+    /**
+     * The processing environment.
+     */
+    private final ProcessingEnvironment procenv;
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param procenv The processing environment
+     */
+    public GeneratedStubTypeSpec(
+        final TypeElement source, final ProcessingEnvironment procenv
+    ) {
+        this(source, new GeneratedEnvelopeName(source, "Stub").get(), procenv);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param name The name for the generated stub
+     * @param procenv The processing environment
+     */
+    public GeneratedStubTypeSpec(
+        final TypeElement source, final String name,
+        final ProcessingEnvironment procenv
+    ) {
+        this.source = source;
+        this.name = name;
+        this.procenv = procenv;
+    }
+
+    @Override
+    public TypeSpec typeSpec() throws Exception {
+        final List<ExecutableElement> methods = new MarshalledMethods(
+            new InterfaceMethods(this.source, this.procenv),
+            this.source,
+            GenerateIpc.class.getSimpleName(),
+            true
+        ).checked();
+        final TypeName type = TypeName.get(this.source.asType());
+        final FieldSpec fingerprint = FieldSpec
+            .builder(
+                int.class, "FINGERPRINT",
+                Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL
+            )
+            .addJavadoc("The fingerprint of the called interface.\n")
+            .initializer("$L", new Fingerprint(methods).getAsInt())
+            .build();
+        final ParameterSpec channel = ParameterSpec
+            .builder(IpcChannel.class, GeneratedStubTypeSpec.CHANNEL)
+            .build();
+        final TypeSpec.Builder builder = new GeneratedClassBuilder(
+            this.source, this.name, this.procenv
+        )
+            .get()
+            .addModifiers(Modifier.FINAL)
+            .addSuperinterface(type)
+            .addField(fingerprint)
+            .addField(
+                IpcChannel.class, GeneratedStubTypeSpec.CHANNEL,
+                Modifier.PRIVATE, Modifier.FINAL
+            )
+            .addField(
+                BufferWriter.class, GeneratedStubTypeSpec.WRITER,
+                Modifier.PRIVATE, Modifier.FINAL
+            )
+            .addMethod(
+                MethodSpec.constructorBuilder()
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(channel)
+                    .addStatement("this.$N = $N", channel, channel)
+                    .addStatement(
+                        "this.$L = $N.writer()",
+                        GeneratedStubTypeSpec.WRITER, channel
+                    )
+                    .addStatement("$N.bind($N)", channel, fingerprint)
+                    .build()
+            );
+        for (int idx = 0; idx < methods.size(); ++idx) {
+            builder.addMethod(new CallingMethod(methods.get(idx), idx).get());
+        }
+        return builder.build();
+    }
+
+    /**
+     * One generated method sending the call and waiting for its result.
+     *
+     * @since 1.1.0
+     */
+    private final class CallingMethod implements Supplier<MethodSpec> {
+
+        /**
+         * The method to call.
+         */
+        private final ExecutableElement method;
+
+        /**
+         * The id of the method.
+         */
+        private final int id;
+
+        /**
+         * Ctor.
+         *
+         * @param method The method to call
+         * @param id The id of the method
+         */
+        CallingMethod(final ExecutableElement method, final int id) {
+            this.method = method;
+            this.id = id;
+        }
+
+        @Override
+        public MethodSpec get() {
+            final String pos = new FreshName(this.method, "at").get();
+            final CodeBlock writer = CodeBlock.of(
+                "this.$L", GeneratedStubTypeSpec.WRITER
+            );
+            CodeBlock size = CodeBlock.of("0");
+            CodeBlock end = CodeBlock.of("$N", pos);
+            for (final VariableElement param : this.method.getParameters()) {
+                final MarshalledType type = new MarshalledType(param.asType());
+                final CodeBlock value = CodeBlock.of(
+                    "$N", param.getSimpleName().toString()
+                );
+                if (this.method.getParameters().indexOf(param) == 0) {
+                    size = type.size(writer, value);
+                } else {
+                    size = CodeBlock.of("$L + $L", size, type.size(writer, value));
+                }
+                end = type.write(writer, end, value);
+            }
+            if (this.method.getParameters().size() > 1) {
+                size = CodeBlock.of("$L.bounded(0L + $L)", writer, size);
+            }
+            final MethodSpec.Builder builder = new OverridingMethod(
+                this.method,
+                GeneratedStubTypeSpec.this.source,
+                GeneratedStubTypeSpec.this.procenv
+            )
+                .get()
+                .addStatement(
+                    "final int $N = this.$L.request($L, $L)",
+                    pos, GeneratedStubTypeSpec.CHANNEL, this.id, size
+                )
+                .beginControlFlow("try");
+            if (!this.method.getParameters().isEmpty()) {
+                builder.addStatement(end);
+            }
+            builder.addStatement(
+                "this.$L.send($N)", GeneratedStubTypeSpec.CHANNEL, pos
+            );
+            final CodeBlock receive = CodeBlock.of(
+                "this.$L.receive($N)", GeneratedStubTypeSpec.CHANNEL, pos
+            );
+            if (this.method.getReturnType().getKind() == TypeKind.VOID) {
+                builder.addStatement(receive);
+            } else {
+                builder.addStatement(
+                    "return $L",
+                    new MarshalledType(this.method.getReturnType()).read(receive)
+                );
+            }
+            return builder
+                .nextControlFlow("finally")
+                .addStatement(
+                    "this.$L.release($N)", GeneratedStubTypeSpec.CHANNEL, pos
+                )
+                .endControlFlow()
+                .build();
+        }
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.github.victornoel.eo.GenerateSwappable;
+import com.github.victornoel.eo.runtime.Drain;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import java.util.Collections;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+
+/**
+ * The generated code of an envelope whose wrapped implementation can be
+ * swapped, tracking the calls in flight with a {@link Drain}.
+ *
+ * @since 1.1.0
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class GeneratedSwappableTypeSpec implements GeneratedTypeSpec {
+
+    /**
+     * The name of the field of the wrapped implementation.
+     */
+    private static final String WRAPPED = "wrapped";
+
+    /**
+     * The name of the field of the calls in flight.
+     */
+    private static final String CALLS = "calls";
+
+    /**
+     * The name of the method swapping the wrapped implementation.
+     */
+    private static final String SWAP = "swap";
+
+    /**
+     * The source interface.
+     */
+    private final TypeElement source;
+
+    /**
+     * The name for the generated envelope.
+     */
+    private final String name;
+
+    /**
+     * The processing environment.
+     */
+    private final ProcessingEnvironment procenv;
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param procenv The processing environment
+     */
+    public GeneratedSwappableTypeSpec(
+        final TypeElement source, final ProcessingEnvironment procenv
+    ) {
+        this(
+            source, new GeneratedEnvelopeName(source, "Swappable").get(),
+            procenv
+        );
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param name The name for the generated envelope
+     * @param procenv The processing environment
+     */
+    public GeneratedSwappableTypeSpec(
+        final TypeElement source, final String name,
+        final ProcessingEnvironment procenv
+    ) {
+        this.source = source;
+        this.name = name;
+        this.procenv = procenv;
+    }
+
+    @Override
+    public TypeSpec typeSpec() throws Exception {
+        final TypeName type = TypeName.get(this.source.asType());
+        final FieldSpec calls = FieldSpec
+            .builder(
+                Drain.class, GeneratedSwappableTypeSpec.CALLS,
+                Modifier.PRIVATE, Modifier.FINAL
+            )
+            .build();
+        final FieldSpec wrapped = FieldSpec
+            .builder(
+                type, GeneratedSwappableTypeSpec.WRAPPED,
+                Modifier.PRIVATE, Modifier.VOLATILE
+            )
+            .build();
+        final ParameterSpec initial = ParameterSpec
+            .builder(type, GeneratedSwappableTypeSpec.WRAPPED)
+            .build();
+        final ParameterSpec drain = ParameterSpec
+            .builder(boolean.class, "drain")
+            .build();
+        final ParameterSpec replacement = ParameterSpec
+            .builder(type, "replacement")
+            .build();
+        final TypeSpec.Builder builder = new GeneratedClassBuilder(
+            this.source, this.name, this.procenv
+        )
+            .get()
+            .addModifiers(Modifier.FINAL)
+            .addSuperinterface(type)
+            .addField(calls)
+            .addField(wrapped)
+            .addMethod(
+                MethodSpec.constructorBuilder()
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(initial)
+                    .addStatement("this($N, false)", initial)
+                    .build()
+            )
+            .addMethod(
+                MethodSpec.constructorBuilder()
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(initial)
+                    .addParameter(drain)
+                    .addStatement("this.$N = new $T($N)", calls, Drain.class, drain)
+                    .addStatement("this.$N = $N", wrapped, initial)
+                    .build()
+            );
+        for (final ExecutableElement method : new ReservedNames(
+            new InterfaceMethods(this.source, this.procenv),
+            this.source,
+            GenerateSwappable.class.getSimpleName(),
+            Collections.singleton(GeneratedSwappableTypeSpec.SWAP),
+            Collections.singletonList(ClassName.get(this.source))
+        ).checked()) {
+            builder.addMethod(this.tracking(method));
+        }
+        return builder
+            .addMethod(
+                MethodSpec.methodBuilder(GeneratedSwappableTypeSpec.SWAP)
+                    .addJavadoc("Replace the wrapped implementation.\n\n")
+                    .addJavadoc("@param $N The new implementation\n", replacement)
+                    .addJavadoc(
+                        "@return The replaced implementation, without calls in flight if draining\n"
+                    )
+                    .addModifiers(Modifier.PUBLIC)
+                    .returns(type)
+                    .addParameter(replacement)
+                    .beginControlFlow("synchronized (this.$N)", calls)
+                    .addStatement("final $T replaced = this.$N", type, wrapped)
+                    .addStatement("this.$N = $N", wrapped, replacement)
+                    .addStatement("this.$N.drain()", calls)
+                    .addStatement("return replaced")
+                    .endControlFlow()
+                    .build()
+            )
+            .build();
+    }
+
+    /**
+     * A generated method delegating while tracking the call.
+     *
+     * @param method The method to delegate
+     * @return The method
+     */
+    private MethodSpec tracking(final ExecutableElement method) {
+        final String epoch = new FreshName(method, "epoch").get();
+        final CodeBlock call = CodeBlock.of(
+            "this.$L.$N($L)",
+            GeneratedSwappableTypeSpec.WRAPPED,
+            method.getSimpleName(),
+            new Arguments(method).get()
+        );
+        final MethodSpec.Builder builder = new OverridingMethod(
+            method, this.source, this.procenv
+        )
+            .get()
+            .addStatement(
+                "final int $N = this.$L.enter()",
+                epoch, GeneratedSwappableTypeSpec.CALLS
+            )
+            .beginControlFlow("try");
+        if (method.getReturnType().getKind() == TypeKind.VOID) {
+            builder.addStatement(call);
+        } else {
+            builder.addStatement("return $L", call);
+        }
+        return builder
+            .nextControlFlow("finally")
+            .addStatement(
+                "this.$L.exit($N)", GeneratedSwappableTypeSpec.CALLS, epoch
+            )
+            .endControlFlow()
+            .build();
+    }
+}
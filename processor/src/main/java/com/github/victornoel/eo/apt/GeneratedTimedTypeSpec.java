@@ -0,0 +1,229 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.github.victornoel.eo.GenerateTimed;
+import com.github.victornoel.eo.runtime.Histogram;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+
+/**
+ * The generated code of an envelope recording the latency of the calls
+ * to each method in a {@link Histogram}, when the call returns or, for
+ * asynchronous methods (see {@link AsyncReturn}), when its returned stage
+ * completes, the stage itself being returned as is.
+ *
+ * @since 1.1.0
+ * @checkstyle ClassDataAbstractionCouplingCheck (300 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class GeneratedTimedTypeSpec implements GeneratedTypeSpec {
+
+    /**
+     * The name of the field of the wrapped implementation.
+     */
+    private static final String WRAPPED = "wrapped";
+
+    /**
+     * The name of the field of the latencies.
+     */
+    private static final String LATENCIES = "latencies";
+
+    /**
+     * The source interface.
+     */
+    private final TypeElement source;
+
+    /**
+     * The name for the generated envelope.
+     */
+    private final String name;
+
+    /**
+     * The processing environment.
+     */
+    private final ProcessingEnvironment procenv;
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param procenv The processing environment
+     */
+    public GeneratedTimedTypeSpec(
+        final TypeElement source, final ProcessingEnvironment procenv
+    ) {
+        this(
+            source, new GeneratedEnvelopeName(source, "Timed").get(),
+            procenv
+        );
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param name The name for the generated envelope
+     * @param procenv The processing environment
+     */
+    public GeneratedTimedTypeSpec(
+        final TypeElement source, final String name,
+        final ProcessingEnvironment procenv
+    ) {
+        this.source = source;
+        this.name = name;
+        this.procenv = procenv;
+    }
+
+    @Override
+    public TypeSpec typeSpec() throws Exception {
+        final List<ExecutableElement> methods = new ReservedNames(
+            new InterfaceMethods(this.source, this.procenv),
+            this.source,
+            GenerateTimed.class.getSimpleName(),
+            Collections.singletonList(GeneratedTimedTypeSpec.LATENCIES)
+        ).checked();
+        final TypeName type = TypeName.get(this.source.asType());
+        final TypeName list = ParameterizedTypeName.get(
+            ClassName.get(List.class), ClassName.get(Histogram.class)
+        );
+        final TypeSpec.Builder builder = new GeneratedClassBuilder(
+            this.source, this.name, this.procenv
+        )
+            .get()
+            .addModifiers(Modifier.FINAL)
+            .addSuperinterface(type)
+            .addField(
+                type, GeneratedTimedTypeSpec.WRAPPED,
+                Modifier.PRIVATE, Modifier.FINAL
+            )
+            .addField(
+                list, GeneratedTimedTypeSpec.LATENCIES,
+                Modifier.PRIVATE, Modifier.FINAL
+            );
+        final CodeBlock.Builder histograms = CodeBlock.builder();
+        for (int idx = 0; idx < methods.size(); ++idx) {
+            builder.addMethod(this.timed(methods.get(idx), idx));
+            if (idx > 0) {
+                histograms.add(",");
+            }
+            histograms.add("$>\nnew $T()$<", Histogram.class);
+        }
+        final ParameterSpec wrapped = ParameterSpec
+            .builder(type, GeneratedTimedTypeSpec.WRAPPED)
+            .build();
+        return builder
+            .addMethod(
+                MethodSpec.constructorBuilder()
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(wrapped)
+                    .addStatement("this.$N = $N", wrapped, wrapped)
+                    .addStatement(
+                        "this.$L = $T.unmodifiableList($>$>\n$T.asList($L)$<$<)",
+                        GeneratedTimedTypeSpec.LATENCIES,
+                        Collections.class, Arrays.class, histograms.build()
+                    )
+                    .build()
+            )
+            .addMethod(
+                MethodSpec.methodBuilder(GeneratedTimedTypeSpec.LATENCIES)
+                    .addJavadoc(
+                        "The latencies of the methods in nanoseconds, in order.\n\n"
+                    )
+                    .addJavadoc("@return The histograms of the latencies\n")
+                    .addModifiers(Modifier.PUBLIC)
+                    .returns(list)
+                    .addStatement(
+                        "return this.$L", GeneratedTimedTypeSpec.LATENCIES
+                    )
+                    .build()
+            )
+            .build();
+    }
+
+    /**
+     * A generated method recording the latency of its calls.
+     *
+     * @param method The method
+     * @param id The index of the histogram of the method
+     * @return The generated method
+     */
+    private MethodSpec timed(final ExecutableElement method, final int id) {
+        final String start = new FreshName(method, "start").get();
+        final CodeBlock call = CodeBlock.of(
+            "this.$L.$N($L)",
+            GeneratedTimedTypeSpec.WRAPPED, method.getSimpleName(),
+            new Arguments(method).get()
+        );
+        final CodeBlock record = CodeBlock.of(
+            "this.$L.get($L).record($T.nanoTime() - $N)",
+            GeneratedTimedTypeSpec.LATENCIES, id, System.class, start
+        );
+        final MethodSpec.Builder builder = new OverridingMethod(
+            method, this.source, this.procenv
+        )
+            .get()
+            .addStatement("final long $N = $T.nanoTime()", start, System.class);
+        if (new AsyncReturn(method).exists()) {
+            final String stage = new FreshName(method, "stage").get();
+            final String error = new FreshName(method, "error").get();
+            builder
+                .addStatement("final $T $N", builder.build().returnType, stage)
+                .beginControlFlow("try")
+                .addStatement("$N = $L", stage, call)
+                .nextControlFlow("catch (final $T $N)", Throwable.class, error)
+                .addStatement(record)
+                .addStatement("throw $N", error)
+                .endControlFlow()
+                .addStatement(
+                    "$N.whenComplete(($N, $N) -> $L)",
+                    stage, new FreshName(method, "result").get(), error, record
+                )
+                .addStatement("return $N", stage);
+        } else if (method.getReturnType().getKind() == TypeKind.VOID) {
+            builder
+                .beginControlFlow("try")
+                .addStatement(call)
+                .nextControlFlow("finally")
+                .addStatement(record)
+                .endControlFlow();
+        } else {
+            builder
+                .beginControlFlow("try")
+                .addStatement("return $L", call)
+                .nextControlFlow("finally")
+                .addStatement(record)
+                .endControlFlow();
+        }
+        return builder.build();
+    }
+}
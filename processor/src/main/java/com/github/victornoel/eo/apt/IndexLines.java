@@ -0,0 +1,126 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeVariableName;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+
+/**
+ * The lines of the envelope index describing a generated class: one per
+ * public constructor, made of the binary names of the interface and of
+ * the generated class, the generating annotation and the erased
+ * parameter types, separated by tabs.
+ *
+ * @since 1.1.0
+ */
+public final class IndexLines implements Supplier<List<String>> {
+
+    /**
+     * The source interface.
+     */
+    private final TypeElement source;
+
+    /**
+     * The simple name of the generating annotation.
+     */
+    private final String annotation;
+
+    /**
+     * The generated file.
+     */
+    private final JavaFile file;
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param annotation The simple name of the generating annotation
+     * @param file The generated file
+     */
+    public IndexLines(
+        final TypeElement source, final String annotation, final JavaFile file
+    ) {
+        this.source = source;
+        this.annotation = annotation;
+        this.file = file;
+    }
+
+    @Override
+    public List<String> get() {
+        final String generated = ClassName
+            .get(this.file.packageName, this.file.typeSpec.name)
+            .reflectionName();
+        final String itf = ClassName.get(this.source).reflectionName();
+        return this.file.typeSpec.methodSpecs
+            .stream()
+            .filter(
+                method -> method.isConstructor()
+                    && method.modifiers.contains(Modifier.PUBLIC)
+            )
+            .map(
+                ctor -> String.join(
+                    "\t",
+                    itf,
+                    this.annotation,
+                    generated,
+                    ctor.parameters
+                        .stream()
+                        .map(param -> IndexLines.erased(param.type))
+                        .collect(Collectors.joining(","))
+                )
+            )
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * The binary name of the erasure of a type.
+     *
+     * @param type The type
+     * @return The name
+     */
+    private static String erased(final TypeName type) {
+        final String name;
+        if (type instanceof ClassName) {
+            name = ((ClassName) type).reflectionName();
+        } else if (type instanceof ParameterizedTypeName) {
+            name = ((ParameterizedTypeName) type).rawType.reflectionName();
+        } else if (type instanceof ArrayTypeName) {
+            name = String.format(
+                "%s[]", IndexLines.erased(((ArrayTypeName) type).componentType)
+            );
+        } else if (type instanceof TypeVariableName
+            && !((TypeVariableName) type).bounds.isEmpty()) {
+            name = IndexLines.erased(((TypeVariableName) type).bounds.get(0));
+        } else if (type instanceof TypeVariableName) {
+            name = Object.class.getName();
+        } else {
+            name = type.toString();
+        }
+        return name;
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.google.auto.common.MoreElements;
+import com.google.auto.common.MoreTypes;
+import com.google.auto.common.Visibility;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.Name;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+
+/**
+ * The methods of an interface, including inherited ones, each method
+ * overridden along the hierarchy being present only once.
+ *
+ * <p>The order is stable between compilations of the same interface,
+ * so the position of a method can be used as its id.</p>
+ *
+ * @since 1.1.0
+ */
+public final class InterfaceMethods implements Iterable<ExecutableElement> {
+
+    /**
+     * The source interface.
+     */
+    private final TypeElement source;
+
+    /**
+     * The processing environment.
+     */
+    private final ProcessingEnvironment procenv;
+
+    /**
+     * Ctor.
+     *
+     * @param source The source interface
+     * @param procenv The processing environment
+     */
+    public InterfaceMethods(
+        final TypeElement source, final ProcessingEnvironment procenv
+    ) {
+        this.source = source;
+        this.procenv = procenv;
+    }
+
+    @Override
+    public Iterator<ExecutableElement> iterator() {
+        return this.inherited().stream().collect(
+            LinkedList<ExecutableElement>::new,
+            (acc, e) -> {
+                if (acc.stream().noneMatch(o -> o != e && this.overrides(o, e))) {
+                    acc.add(e);
+                }
+            },
+            (acc1, acc2) -> acc1.addAll(acc2)
+        ).iterator();
+    }
+
+    /**
+     * The local and inherited methods of the interface, in the order
+     * returned by {@link MoreElements#getLocalAndInheritedMethods}, the
+     * methods of its binary super interfaces coming from the
+     * {@link MethodCache}.
+     *
+     * @return The methods
+     */
+    private Collection<ExecutableElement> inherited() {
+        final MethodCache cache = new MethodCache(this.procenv);
+        final List<Optional<List<ExecutableElement>>> cached =
+            this.source.getInterfaces().stream()
+                .map(MoreTypes::asTypeElement)
+                .map(cache::methods)
+                .collect(Collectors.toList());
+        final Collection<ExecutableElement> methods;
+        if (cached.stream().anyMatch(Optional::isPresent)) {
+            final Set<ExecutableElement> all = new LinkedHashSet<>();
+            for (int pos = 0; pos < cached.size(); ++pos) {
+                final TypeElement parent = MoreTypes.asTypeElement(
+                    this.source.getInterfaces().get(pos)
+                );
+                all.addAll(
+                    cached.get(pos).orElseGet(
+                        () -> new ArrayList<>(this.resolved(parent))
+                    )
+                );
+            }
+            ElementFilter.methodsIn(this.source.getEnclosedElements())
+                .stream()
+                .filter(m -> !m.getModifiers().contains(Modifier.STATIC))
+                .filter(m -> !m.getModifiers().contains(Modifier.PRIVATE))
+                .forEach(all::add);
+            final Map<Name, List<ExecutableElement>> named = all.stream()
+                .collect(Collectors.groupingBy(ExecutableElement::getSimpleName));
+            methods = all.stream()
+                .filter(
+                    m -> named.get(m.getSimpleName()).stream()
+                        .noneMatch(o -> o != m && this.inherits(o, m))
+                )
+                .collect(Collectors.toCollection(LinkedList::new));
+        } else {
+            methods = this.resolved(this.source);
+        }
+        return methods;
+    }
+
+    /**
+     * The local and inherited methods of an interface, resolved without
+     * cache.
+     *
+     * @param type The interface
+     * @return The methods
+     */
+    private Collection<ExecutableElement> resolved(final TypeElement type) {
+        return MoreElements.getLocalAndInheritedMethods(
+            type,
+            this.procenv.getTypeUtils(),
+            this.procenv.getElementUtils()
+        );
+    }
+
+    /**
+     * Whether a method overrides another one declared in one of its
+     * super interfaces, as checked by
+     * {@link MoreElements#getLocalAndInheritedMethods}.
+     *
+     * @param overrider A potentially overriding method
+     * @param overridden A potentially overridden method
+     * @return The value {@code true} if {@code overrider} overrides {@code overridden}
+     */
+    private boolean inherits(
+        final ExecutableElement overrider, final ExecutableElement overridden
+    ) {
+        return MoreElements.overrides(
+            overrider, overridden, this.source, this.procenv.getTypeUtils()
+        );
+    }
+
+    /**
+     * Inspired by MoreElements.overrides but without any check about owning interfaces.
+     * See also https://github.com/google/auto/issues/825.
+     *
+     * @param overrider A potentially overriding method
+     * @param overridden A potentially overridden method
+     * @return The value {@code true} if {@code overrider} overrides {@code overridden}
+     */
+    private boolean overrides(
+        final ExecutableElement overrider, final ExecutableElement overridden
+    ) {
+        final Types types = this.procenv.getTypeUtils();
+        final DeclaredType type = MoreTypes.asDeclared(this.source.asType());
+        return overrider.getSimpleName().equals(overridden.getSimpleName())
+            && Visibility.ofElement(overrider).compareTo(Visibility.ofElement(overridden)) >= 0
+            && types.isSubsignature(
+                MoreTypes.asExecutable(types.asMemberOf(type, overrider)),
+                MoreTypes.asExecutable(types.asMemberOf(type, overridden))
+            );
+    }
+}
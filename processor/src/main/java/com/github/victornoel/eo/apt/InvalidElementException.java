@@ -0,0 +1,60 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import javax.lang.model.element.Element;
+
+/**
+ * An element that can't be processed, reported as a compilation error
+ * on the element.
+ *
+ * @since 1.1.0
+ */
+public final class InvalidElementException extends Exception {
+
+    /**
+     * Serialization marker.
+     */
+    private static final long serialVersionUID = 4021731427382045341L;
+
+    /**
+     * The invalid element.
+     */
+    private final transient Element invalid;
+
+    /**
+     * Ctor.
+     *
+     * @param message The error
+     * @param element The invalid element
+     */
+    public InvalidElementException(final String message, final Element element) {
+        super(message);
+        this.invalid = element;
+    }
+
+    /**
+     * The invalid element.
+     *
+     * @return The element
+     */
+    public Element element() {
+        return this.invalid;
+    }
+}
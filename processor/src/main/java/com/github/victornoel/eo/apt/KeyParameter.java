@@ -0,0 +1,71 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.github.victornoel.eo.Key;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.VariableElement;
+
+/**
+ * The parameter of a method annotated with {@link Key}, if any.
+ *
+ * @since 1.1.0
+ */
+public final class KeyParameter {
+
+    /**
+     * The method.
+     */
+    private final ExecutableElement method;
+
+    /**
+     * Ctor.
+     *
+     * @param method The method
+     */
+    public KeyParameter(final ExecutableElement method) {
+        this.method = method;
+    }
+
+    /**
+     * The parameter annotated with {@link Key}.
+     *
+     * @return The parameter, if any
+     * @throws InvalidElementException If more than one is annotated
+     */
+    public Optional<VariableElement> found() throws InvalidElementException {
+        final List<VariableElement> keys = this.method.getParameters()
+            .stream()
+            .filter(param -> param.getAnnotation(Key.class) != null)
+            .collect(Collectors.toList());
+        if (keys.size() > 1) {
+            throw new InvalidElementException(
+                String.format(
+                    "@%s can only be applied to one parameter of %s",
+                    Key.class.getSimpleName(), this.method.getSimpleName()
+                ),
+                this.method
+            );
+        }
+        return keys.stream().findFirst();
+    }
+}
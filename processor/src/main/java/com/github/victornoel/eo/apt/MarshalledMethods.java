@@ -0,0 +1,135 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+
+/**
+ * The methods of an interface, failing if any of them has a parameter,
+ * or optionally a result, that is not a {@link MarshalledType}.
+ *
+ * @since 1.1.0
+ */
+public final class MarshalledMethods {
+
+    /**
+     * The methods.
+     */
+    private final Iterable<ExecutableElement> methods;
+
+    /**
+     * The source interface.
+     */
+    private final TypeElement source;
+
+    /**
+     * The annotation requiring marshalling, for error messages.
+     */
+    private final String annotation;
+
+    /**
+     * Whether results must be marshalled too.
+     */
+    private final boolean results;
+
+    /**
+     * Ctor.
+     *
+     * @param methods The methods
+     * @param source The source interface
+     * @param annotation The annotation requiring marshalling
+     */
+    public MarshalledMethods(
+        final Iterable<ExecutableElement> methods, final TypeElement source,
+        final String annotation
+    ) {
+        this(methods, source, annotation, false);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param methods The methods
+     * @param source The source interface
+     * @param annotation The annotation requiring marshalling
+     * @param results Whether results must be marshalled too
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    public MarshalledMethods(
+        final Iterable<ExecutableElement> methods, final TypeElement source,
+        final String annotation, final boolean results
+    ) {
+        this.methods = methods;
+        this.source = source;
+        this.annotation = annotation;
+        this.results = results;
+    }
+
+    /**
+     * The checked methods.
+     *
+     * @return The methods
+     * @throws InvalidElementException If a parameter or result is not
+     *  supported
+     */
+    public List<ExecutableElement> checked() throws InvalidElementException {
+        final List<ExecutableElement> checked = new LinkedList<>();
+        final Iterator<ExecutableElement> iterator = this.methods.iterator();
+        while (iterator.hasNext()) {
+            final ExecutableElement method = iterator.next();
+            for (final VariableElement param : method.getParameters()) {
+                if (!new MarshalledType(param.asType()).supported()) {
+                    throw new InvalidElementException(
+                        String.format(
+                            // @checkstyle LineLengthCheck (1 line)
+                            "@%s only supports primitive, String and byte[] parameters, but %s of %s is a %s",
+                            this.annotation,
+                            param.getSimpleName(),
+                            method.getSimpleName(),
+                            param.asType()
+                        ),
+                        this.source
+                    );
+                }
+            }
+            if (this.results
+                && method.getReturnType().getKind() != TypeKind.VOID
+                && !new MarshalledType(method.getReturnType()).supported()) {
+                throw new InvalidElementException(
+                    String.format(
+                        // @checkstyle LineLengthCheck (1 line)
+                        "@%s only supports primitive, String and byte[] results, but %s returns a %s",
+                        this.annotation,
+                        method.getSimpleName(),
+                        method.getReturnType()
+                    ),
+                    this.source
+                );
+            }
+            checked.add(method);
+        }
+        return checked;
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.google.auto.common.MoreTypes;
+import com.squareup.javapoet.CodeBlock;
+import java.util.Optional;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * A type that generated code can write with a
+ * {@link com.github.victornoel.eo.runtime.BufferWriter} and read with a
+ * {@link com.github.victornoel.eo.runtime.BufferReader}: primitives,
+ * {@link String} and {@code byte[]}.
+ *
+ * @since 1.1.0
+ */
+public final class MarshalledType {
+
+    /**
+     * The type.
+     */
+    private final TypeMirror type;
+
+    /**
+     * Ctor.
+     *
+     * @param type The type
+     */
+    public MarshalledType(final TypeMirror type) {
+        this.type = type;
+    }
+
+    /**
+     * Whether the type can be written and read.
+     *
+     * @return True if it is supported
+     */
+    public boolean supported() {
+        return this.suffix().isPresent();
+    }
+
+    /**
+     * The number of bytes needed to write a value of this type.
+     *
+     * @param writer The writer
+     * @param value The value
+     * @return The expression computing the size
+     */
+    public CodeBlock size(final CodeBlock writer, final CodeBlock value) {
+        final CodeBlock size;
+        if (this.type.getKind().isPrimitive()) {
+            size = CodeBlock.of("$L", this.primitiveSize());
+        } else {
+            size = CodeBlock.of("$L.sizeOf($L)", writer, value);
+        }
+        return size;
+    }
+
+    /**
+     * Write a value of this type.
+     *
+     * @param writer The writer
+     * @param pos The position to write at
+     * @param value The value
+     * @return The expression writing the value and returning the position
+     *  after it
+     */
+    public CodeBlock write(
+        final CodeBlock writer, final CodeBlock pos, final CodeBlock value
+    ) {
+        return CodeBlock.of("$L.put$L($L, $L)", writer, this.name(), pos, value);
+    }
+
+    /**
+     * Read a value of this type.
+     *
+     * @param reader The reader
+     * @return The expression reading the value
+     */
+    public CodeBlock read(final CodeBlock reader) {
+        return CodeBlock.of("$L.read$L()", reader, this.name());
+    }
+
+    /**
+     * The name of the type in the methods of the writer and reader.
+     *
+     * @return The name
+     */
+    private String name() {
+        return this.suffix().orElseThrow(
+            () -> new IllegalStateException(
+                String.format("%s can't be marshalled", this.type)
+            )
+        );
+    }
+
+    /**
+     * The size of a primitive.
+     *
+     * @return The size in bytes
+     * @checkstyle MagicNumberCheck (30 lines)
+     */
+    private int primitiveSize() {
+        final int size;
+        switch (this.type.getKind()) {
+            case BOOLEAN:
+            case BYTE:
+                size = 1;
+                break;
+            case SHORT:
+            case CHAR:
+                size = 2;
+                break;
+            case INT:
+            case FLOAT:
+                size = 4;
+                break;
+            default:
+                size = 8;
+                break;
+        }
+        return size;
+    }
+
+    /**
+     * The name of the type in the methods of the writer and reader.
+     *
+     * @return The name if the type is supported
+     * @checkstyle CyclomaticComplexityCheck (50 lines)
+     */
+    @SuppressWarnings("PMD.CyclomaticComplexity")
+    private Optional<String> suffix() {
+        final Optional<String> suffix;
+        switch (this.type.getKind()) {
+            case BOOLEAN:
+                suffix = Optional.of("Boolean");
+                break;
+            case BYTE:
+                suffix = Optional.of("Byte");
+                break;
+            case SHORT:
+                suffix = Optional.of("Short");
+                break;
+            case CHAR:
+                suffix = Optional.of("Char");
+                break;
+            case INT:
+                suffix = Optional.of("Int");
+                break;
+            case LONG:
+                suffix = Optional.of("Long");
+                break;
+            case FLOAT:
+                suffix = Optional.of("Float");
+                break;
+            case DOUBLE:
+                suffix = Optional.of("Double");
+                break;
+            case DECLARED:
+                suffix = Optional.of("String").filter(
+                    s -> MoreTypes.isTypeOf(String.class, this.type)
+                );
+                break;
+            case ARRAY:
+                suffix = Optional.of("Bytes").filter(
+                    s -> MoreTypes.asArray(this.type)
+                        .getComponentType()
+                        .getKind() == TypeKind.BYTE
+                );
+                break;
+            default:
+                suffix = Optional.empty();
+                break;
+        }
+        return suffix;
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.google.auto.common.MoreElements;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+
+/**
+ * The resolved methods of binary super interfaces, kept between
+ * compilations so that unchanged library hierarchies are not resolved
+ * again.
+ *
+ * <p>Entries are keyed by the qualified name of the interface and hold
+ * the {@link ClassfileDigest} of its hierarchy, so that a new digest
+ * replaces the entry of an interface that changed. They are kept in
+ * memory for the lifetime of the compiler, which is useful for
+ * long-lived daemons, and the ones used by a compilation are persisted
+ * in the file given by the {@value #OPTION} processor option, usually in
+ * the build directory. Without this option, nothing is digested nor
+ * cached.</p>
+ *
+ * @since 1.1.0
+ */
+public final class MethodCache {
+
+    /**
+     * The processor option giving the file the cache is persisted in.
+     */
+    public static final String OPTION = "eo.envelopes.cache";
+
+    /**
+     * The separator of the fields of a persisted entry.
+     */
+    private static final String TAB = "\t";
+
+    /**
+     * The digest of the hierarchy of each cached interface followed by
+     * the signatures of its methods.
+     */
+    private static final Map<String, List<String>> MEMORY =
+        new ConcurrentHashMap<>();
+
+    /**
+     * The interfaces whose entries were used by the compilation
+     * persisting its cache in each file.
+     */
+    private static final Map<Path, Set<String>> USED =
+        new ConcurrentHashMap<>();
+
+    /**
+     * The processing environment.
+     */
+    private final ProcessingEnvironment procenv;
+
+    /**
+     * Ctor.
+     *
+     * @param procenv The processing environment
+     */
+    public MethodCache(final ProcessingEnvironment procenv) {
+        this.procenv = procenv;
+    }
+
+    /**
+     * The local and inherited methods of a super interface, if it is a
+     * binary one, as returned by
+     * {@link MoreElements#getLocalAndInheritedMethods}.
+     *
+     * @param type The super interface
+     * @return Its methods or nothing if it isn't binary
+     */
+    public Optional<List<ExecutableElement>> methods(final TypeElement type) {
+        return this.file().flatMap(
+            path -> new ClassfileDigest(type, this.procenv).hex().map(
+                hex -> {
+                    final String name = type.getQualifiedName().toString();
+                    MethodCache.USED.computeIfAbsent(
+                        path, file -> ConcurrentHashMap.newKeySet()
+                    ).add(name);
+                    return this.cached(type, name, hex);
+                }
+            )
+        );
+    }
+
+    /**
+     * Read the persisted entries, if any, in memory, at the start of a
+     * compilation.
+     */
+    public void load() {
+        this.file().ifPresent(MethodCache.USED::remove);
+        this.file().filter(Files::isReadable).ifPresent(
+            path -> {
+                try {
+                    for (final String line
+                        : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                        final List<String> fields = Arrays.asList(
+                            line.split(MethodCache.TAB, -1)
+                        );
+                        final int sep = fields.get(0).lastIndexOf('@');
+                        if (sep > 0 && line.charAt(0) != '#') {
+                            final List<String> entry =
+                                new ArrayList<>(fields);
+                            entry.set(0, fields.get(0).substring(sep + 1));
+                            MethodCache.MEMORY.putIfAbsent(
+                                fields.get(0).substring(0, sep), entry
+                            );
+                        }
+                    }
+                } catch (final IOException ex) {
+                    this.warn(path, ex);
+                }
+            }
+        );
+    }
+
+    /**
+     * Persist the entries used by the compilation, if a file was given.
+     */
+    public void save() {
+        this.file().ifPresent(
+            path -> {
+                final Set<String> used = Optional.ofNullable(
+                    MethodCache.USED.remove(path)
+                ).orElseGet(Collections::emptySet);
+                final List<String> lines = new ArrayList<>(used.size() + 1);
+                lines.add("# interface@digest, method signatures");
+                for (final String name : used) {
+                    final List<String> fields = new ArrayList<>(
+                        MethodCache.MEMORY.get(name)
+                    );
+                    fields.set(0, String.format("%s@%s", name, fields.get(0)));
+                    lines.add(String.join(MethodCache.TAB, fields));
+                }
+                try {
+                    if (path.getParent() != null) {
+                        Files.createDirectories(path.getParent());
+                    }
+                    Files.write(path, lines, StandardCharsets.UTF_8);
+                } catch (final IOException ex) {
+                    this.warn(path, ex);
+                }
+            }
+        );
+    }
+
+    /**
+     * The methods of an interface, restored from memory if its hierarchy
+     * didn't change, and remembered otherwise.
+     *
+     * @param type The interface
+     * @param name Its qualified name
+     * @param hex The digest of its hierarchy
+     * @return Its methods
+     */
+    private List<ExecutableElement> cached(
+        final TypeElement type, final String name, final String hex
+    ) {
+        return Optional.ofNullable(MethodCache.MEMORY.get(name))
+            .filter(entry -> entry.get(0).equals(hex))
+            .flatMap(entry -> this.restored(entry.subList(1, entry.size())))
+            .orElseGet(
+                () -> {
+                    final List<ExecutableElement> methods = new ArrayList<>(
+                        MoreElements.getLocalAndInheritedMethods(
+                            type,
+                            this.procenv.getTypeUtils(),
+                            this.procenv.getElementUtils()
+                        )
+                    );
+                    final List<String> entry =
+                        new ArrayList<>(methods.size() + 1);
+                    entry.add(hex);
+                    methods.stream()
+                        .map(MethodCache::signature)
+                        .forEach(entry::add);
+                    MethodCache.MEMORY.put(name, entry);
+                    return methods;
+                }
+            );
+    }
+
+    /**
+     * The methods of some signatures.
+     *
+     * @param signatures The signatures
+     * @return The methods or nothing if one of them can't be found
+     */
+    private Optional<List<ExecutableElement>> restored(
+        final List<String> signatures
+    ) {
+        final List<ExecutableElement> methods =
+            new ArrayList<>(signatures.size());
+        for (final String signature : signatures) {
+            final TypeElement owner = this.procenv.getElementUtils()
+                .getTypeElement(signature.substring(0, signature.indexOf('#')));
+            if (owner != null) {
+                ElementFilter.methodsIn(owner.getEnclosedElements()).stream()
+                    .filter(m -> MethodCache.signature(m).equals(signature))
+                    .findFirst()
+                    .ifPresent(methods::add);
+            }
+        }
+        final Optional<List<ExecutableElement>> restored;
+        if (methods.size() == signatures.size()) {
+            restored = Optional.of(methods);
+        } else {
+            restored = Optional.empty();
+        }
+        return restored;
+    }
+
+    /**
+     * The file the cache is persisted in.
+     *
+     * @return The file or nothing if the option is not set
+     */
+    private Optional<Path> file() {
+        return Optional.ofNullable(
+            this.procenv.getOptions().get(MethodCache.OPTION)
+        ).filter(name -> !name.isEmpty()).map(Paths::get);
+    }
+
+    /**
+     * Report a cache that can't be read or written, which only slows
+     * down compilation.
+     *
+     * @param path The file of the cache
+     * @param error The error
+     */
+    private void warn(final Path path, final IOException error) {
+        this.procenv.getMessager().printMessage(
+            Kind.WARNING,
+            String.format(
+                "Can't use method cache %s: %s", path, error.getMessage()
+            )
+        );
+    }
+
+    /**
+     * The signature of a method, unique in its hierarchy.
+     *
+     * @param method The method
+     * @return Its signature
+     */
+    private static String signature(final ExecutableElement method) {
+        return String.format(
+            "%s#%s(%s)",
+            ((TypeElement) method.getEnclosingElement()).getQualifiedName(),
+            method.getSimpleName(),
+            method.getParameters().stream()
+                .map(VariableElement::asType)
+                .map(Object::toString)
+                .collect(Collectors.joining(","))
+        );
+    }
+}
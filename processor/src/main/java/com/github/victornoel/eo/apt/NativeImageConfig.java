@@ -0,0 +1,226 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.github.victornoel.eo.GenerateBatching;
+import com.github.victornoel.eo.GeneratePrefetching;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.stream.Collectors;
+
+/**
+ * The GraalVM native-image configuration of the generated classes, made
+ * from the lines of the envelope index (see {@link IndexLines}).
+ *
+ * <p>The public constructors of the generated classes are registered for
+ * reflection, the index itself is registered as a resource, and the
+ * generated classes whose static state is only made of constants are
+ * initialized at build time, so native builds need no tracing agent.
+ * The classes holding a shared executor in a static field are left to
+ * be initialized at run time, since an image can't contain threads.</p>
+ *
+ * @since 1.1.0
+ */
+public final class NativeImageConfig {
+
+    /**
+     * The option giving the {@code <group>/<artifact>} directory of the
+     * configuration under {@code META-INF/native-image}.
+     */
+    public static final String OPTION = "eo.envelopes.native";
+
+    /**
+     * The separator of JSON elements.
+     */
+    private static final String COMMA = ",\n";
+
+    /**
+     * The separator of the columns of the index lines.
+     */
+    private static final String TAB = "\t";
+
+    /**
+     * The column of the generating annotation in the index lines.
+     */
+    private static final int ANNOTATION = 1;
+
+    /**
+     * The generating annotations of the classes holding a shared executor
+     * in a static field.
+     */
+    private static final Collection<String> EXECUTORS = Arrays.asList(
+        GenerateBatching.class.getSimpleName(),
+        GeneratePrefetching.class.getSimpleName()
+    );
+
+    /**
+     * The column of the generated class in the index lines.
+     */
+    private static final int TYPE = 2;
+
+    /**
+     * The column of the constructor parameters in the index lines.
+     */
+    private static final int PARAMS = 3;
+
+    /**
+     * The location of the envelope index.
+     */
+    private final String index;
+
+    /**
+     * The lines of the envelope index.
+     */
+    private final List<String> lines;
+
+    /**
+     * Ctor.
+     *
+     * @param index The location of the envelope index
+     * @param lines The lines of the envelope index
+     */
+    public NativeImageConfig(final String index, final List<String> lines) {
+        this.index = index;
+        this.lines = lines;
+    }
+
+    /**
+     * The content of {@code reflect-config.json}.
+     *
+     * @return The JSON text
+     */
+    public String reflection() {
+        final StringJoiner classes = new StringJoiner(NativeImageConfig.COMMA, "[\n", "\n]\n");
+        this.constructors().forEach(
+            (type, ctors) -> {
+                final StringJoiner methods = new StringJoiner(NativeImageConfig.COMMA);
+                for (final String params : ctors) {
+                    final StringJoiner types = new StringJoiner(", ");
+                    for (final String param : NativeImageConfig.split(params)) {
+                        types.add(NativeImageConfig.quoted(param));
+                    }
+                    methods.add(
+                        String.format(
+                            // @checkstyle LineLengthCheck (1 line)
+                            "      {\"name\": \"<init>\", \"parameterTypes\": [%s]}",
+                            types
+                        )
+                    );
+                }
+                classes.add(
+                    String.format(
+                        // @checkstyle LineLengthCheck (1 line)
+                        "  {\n    \"name\": %s,\n    \"methods\": [\n%s\n    ]\n  }",
+                        NativeImageConfig.quoted(type), methods
+                    )
+                );
+            }
+        );
+        return classes.toString();
+    }
+
+    /**
+     * The content of {@code resource-config.json}.
+     *
+     * @return The JSON text
+     */
+    public String resources() {
+        return String.format(
+            "{\n  \"resources\": [\n    {\"pattern\": %s}\n  ]\n}\n",
+            NativeImageConfig.quoted(String.format("\\Q%s\\E", this.index))
+        );
+    }
+
+    /**
+     * The content of {@code native-image.properties}.
+     *
+     * @return The properties text
+     */
+    public String properties() {
+        final String classes = this.lines.stream()
+            .map(line -> line.split(NativeImageConfig.TAB, -1))
+            .filter(
+                cols -> !NativeImageConfig.EXECUTORS.contains(
+                    cols[NativeImageConfig.ANNOTATION]
+                )
+            )
+            .map(cols -> cols[NativeImageConfig.TYPE])
+            .distinct()
+            .collect(Collectors.joining(","));
+        final String props;
+        if (classes.isEmpty()) {
+            props = "";
+        } else {
+            props = String.format(
+                "Args = --initialize-at-build-time=%s\n", classes
+            );
+        }
+        return props;
+    }
+
+    /**
+     * The erased parameters of the public constructors of each generated
+     * class, in the order of the index.
+     *
+     * @return The parameters, comma separated, per class binary name
+     */
+    private Map<String, List<String>> constructors() {
+        final Map<String, List<String>> ctors = new LinkedHashMap<>();
+        for (final String line : this.lines) {
+            final String[] cols = line.split(NativeImageConfig.TAB, -1);
+            ctors.computeIfAbsent(
+                cols[NativeImageConfig.TYPE], type -> new ArrayList<>(1)
+            ).add(cols[NativeImageConfig.PARAMS]);
+        }
+        return ctors;
+    }
+
+    /**
+     * Split comma separated parameters.
+     *
+     * @param params The parameters
+     * @return The parameters, none if empty
+     */
+    private static String[] split(final String params) {
+        final String[] split;
+        if (params.isEmpty()) {
+            split = new String[0];
+        } else {
+            split = params.split(",");
+        }
+        return split;
+    }
+
+    /**
+     * A JSON string.
+     *
+     * @param text The text
+     * @return The quoted and escaped text
+     */
+    private static String quoted(final String text) {
+        return String.format(
+            "\"%s\"", text.replace("\\", "\\\\").replace("\"", "\\\"")
+        );
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.google.auto.common.MoreTypes;
+import com.squareup.javapoet.MethodSpec;
+import java.util.function.Supplier;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+
+/**
+ * A method overriding a method of an interface, as seen from this
+ * interface, without any code yet.
+ *
+ * @since 1.1.0
+ */
+public final class OverridingMethod implements Supplier<MethodSpec.Builder> {
+
+    /**
+     * The method to override.
+     */
+    private final ExecutableElement method;
+
+    /**
+     * The source interface.
+     */
+    private final TypeElement source;
+
+    /**
+     * The processing environment.
+     */
+    private final ProcessingEnvironment procenv;
+
+    /**
+     * Ctor.
+     *
+     * @param method The method to override
+     * @param source The source interface
+     * @param procenv The processing environment
+     */
+    public OverridingMethod(
+        final ExecutableElement method, final TypeElement source,
+        final ProcessingEnvironment procenv
+    ) {
+        this.method = method;
+        this.source = source;
+        this.procenv = procenv;
+    }
+
+    @Override
+    public MethodSpec.Builder get() {
+        return MethodSpec.overriding(
+            this.method,
+            MoreTypes.asDeclared(this.source.asType()),
+            this.procenv.getTypeUtils()
+        );
+    }
+}
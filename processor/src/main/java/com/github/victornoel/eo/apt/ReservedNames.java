@@ -0,0 +1,151 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+
+/**
+ * The methods of an interface, failing if any of them has the name and
+ * the erased parameter types of a method added by a generated class.
+ *
+ * @since 1.1.0
+ */
+public final class ReservedNames {
+
+    /**
+     * The methods.
+     */
+    private final Iterable<ExecutableElement> methods;
+
+    /**
+     * The source interface.
+     */
+    private final TypeElement source;
+
+    /**
+     * The annotation of the generated class, for error messages.
+     */
+    private final String annotation;
+
+    /**
+     * The names of the methods added by the generated class.
+     */
+    private final Collection<String> names;
+
+    /**
+     * The erased parameter types of the added methods.
+     */
+    private final List<TypeName> params;
+
+    /**
+     * Ctor.
+     *
+     * @param methods The methods
+     * @param source The source interface
+     * @param annotation The annotation of the generated class
+     * @param names The names of the added methods without parameters
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    public ReservedNames(
+        final Iterable<ExecutableElement> methods, final TypeElement source,
+        final String annotation, final Collection<String> names
+    ) {
+        this(methods, source, annotation, names, Collections.emptyList());
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param methods The methods
+     * @param source The source interface
+     * @param annotation The annotation of the generated class
+     * @param names The names of the added methods
+     * @param params The erased parameter types of the added methods
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    public ReservedNames(
+        final Iterable<ExecutableElement> methods, final TypeElement source,
+        final String annotation, final Collection<String> names,
+        final List<TypeName> params
+    ) {
+        this.methods = methods;
+        this.source = source;
+        this.annotation = annotation;
+        this.names = names;
+        this.params = params;
+    }
+
+    /**
+     * The checked methods.
+     *
+     * @return The methods
+     * @throws InvalidElementException If a method conflicts with an added
+     *  one
+     */
+    public List<ExecutableElement> checked() throws InvalidElementException {
+        final List<ExecutableElement> checked = new LinkedList<>();
+        for (final ExecutableElement method : this.methods) {
+            if (this.names.contains(method.getSimpleName().toString())
+                && ReservedNames.erased(method).equals(this.params)) {
+                throw new InvalidElementException(
+                    String.format(
+                        "@%s generates a method %s(%s) which conflicts with the one of %s",
+                        this.annotation,
+                        method.getSimpleName(),
+                        this.params.stream().map(TypeName::toString)
+                            .collect(Collectors.joining(", ")),
+                        this.source.getQualifiedName()
+                    ),
+                    this.source
+                );
+            }
+            checked.add(method);
+        }
+        return checked;
+    }
+
+    /**
+     * The erased parameter types of a method.
+     *
+     * @param method The method
+     * @return The types
+     */
+    private static List<TypeName> erased(final ExecutableElement method) {
+        return method.getParameters().stream()
+            .map(param -> TypeName.get(param.asType()))
+            .map(
+                type -> {
+                    TypeName raw = type;
+                    if (type instanceof ParameterizedTypeName) {
+                        raw = ((ParameterizedTypeName) type).rawType;
+                    }
+                    return raw;
+                }
+            )
+            .collect(Collectors.toList());
+    }
+}
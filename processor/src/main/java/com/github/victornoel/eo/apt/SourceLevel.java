@@ -0,0 +1,103 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.github.victornoel.eo.runtime.DaemonThreads;
+import com.squareup.javapoet.CodeBlock;
+import java.util.concurrent.Executors;
+import javax.annotation.processing.ProcessingEnvironment;
+
+/**
+ * The Java version the generated code is compiled for, to use the
+ * fastest constructs it supports while still compiling on Java 8.
+ *
+ * @since 1.1.0
+ */
+public final class SourceLevel {
+
+    /**
+     * The first version with virtual threads.
+     */
+    private static final int VIRTUAL = 21;
+
+    /**
+     * The processing environment.
+     */
+    private final ProcessingEnvironment procenv;
+
+    /**
+     * Ctor.
+     *
+     * @param procenv The processing environment
+     */
+    public SourceLevel(final ProcessingEnvironment procenv) {
+        this.procenv = procenv;
+    }
+
+    /**
+     * Whether the generated code is compiled for at least some version.
+     *
+     * @param version The feature version, such as 9
+     * @return Whether it is supported
+     */
+    public boolean atLeast(final int version) {
+        return this.procenv.getSourceVersion().ordinal() >= version;
+    }
+
+    /**
+     * The default factory of background threads spending most of their
+     * time parked: virtual ones from Java 21, platform daemon ones before,
+     * so that they never keep the JVM running.
+     *
+     * @param name The prefix of the names of the platform threads
+     * @return The expression creating the factory
+     */
+    public CodeBlock threadFactory(final String name) {
+        final CodeBlock threads;
+        if (this.atLeast(SourceLevel.VIRTUAL)) {
+            threads = CodeBlock.of("$T.ofVirtual().factory()", Thread.class);
+        } else {
+            threads = CodeBlock.of("new $T($S)", DaemonThreads.class, name);
+        }
+        return threads;
+    }
+
+    /**
+     * The default executor of blocking background tasks: one virtual
+     * thread per task from Java 21, a cached pool of daemon threads
+     * before.
+     *
+     * @param name The prefix of the names of the pooled threads
+     * @return The expression creating the executor
+     */
+    public CodeBlock taskExecutor(final String name) {
+        final CodeBlock executor;
+        if (this.atLeast(SourceLevel.VIRTUAL)) {
+            executor = CodeBlock.of(
+                "$T.newVirtualThreadPerTaskExecutor()", Executors.class
+            );
+        } else {
+            executor = CodeBlock.of(
+                "$T.newCachedThreadPool(new $T($S))",
+                Executors.class, DaemonThreads.class, name
+            );
+        }
+        return executor;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeName;
+
+/**
+ * A cast from {@link Object} in generated code, unchecked when the type
+ * is generic.
+ *
+ * @since 1.1.0
+ */
+public final class UncheckedCast {
+
+    /**
+     * The type to cast to.
+     */
+    private final TypeName type;
+
+    /**
+     * Ctor.
+     *
+     * @param type The type to cast to
+     */
+    public UncheckedCast(final TypeName type) {
+        this.type = type;
+    }
+
+    /**
+     * Whether the cast is unchecked.
+     *
+     * @return Whether it is unchecked
+     */
+    public boolean unchecked() {
+        TypeName erased = this.type;
+        while (erased instanceof ArrayTypeName) {
+            erased = ((ArrayTypeName) erased).componentType;
+        }
+        return !erased.isPrimitive() && !(erased instanceof ClassName);
+    }
+
+    /**
+     * Suppress the warning about the cast on a generated method, if it is
+     * unchecked.
+     *
+     * @param method The generated method
+     * @return The generated method
+     */
+    public MethodSpec.Builder suppress(final MethodSpec.Builder method) {
+        if (this.unchecked()) {
+            method.addAnnotation(
+                AnnotationSpec.builder(SuppressWarnings.class)
+                    .addMember("value", "$S", "unchecked")
+                    .build()
+            );
+        }
+        return method;
+    }
+}
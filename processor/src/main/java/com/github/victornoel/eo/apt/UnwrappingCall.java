@@ -0,0 +1,81 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.TypeName;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * The generated code of a statement calling the runtime, which reports
+ * checked failures wrapped in a {@link CompletionException}: the
+ * failures declared by the generated method are unwrapped and rethrown.
+ *
+ * @since 1.1.0
+ */
+public final class UnwrappingCall implements Supplier<CodeBlock> {
+
+    /**
+     * The exceptions declared by the generated method.
+     */
+    private final List<TypeName> exceptions;
+
+    /**
+     * The statement.
+     */
+    private final CodeBlock statement;
+
+    /**
+     * Ctor.
+     *
+     * @param exceptions The exceptions declared by the generated method
+     * @param statement The statement
+     */
+    public UnwrappingCall(
+        final List<TypeName> exceptions, final CodeBlock statement
+    ) {
+        this.exceptions = exceptions;
+        this.statement = statement;
+    }
+
+    @Override
+    public CodeBlock get() {
+        final CodeBlock.Builder code = CodeBlock.builder();
+        if (this.exceptions.isEmpty()) {
+            code.addStatement(this.statement);
+        } else {
+            code.beginControlFlow("try")
+                .addStatement(this.statement)
+                .nextControlFlow(
+                    "catch (final $T ex)", CompletionException.class
+                );
+            for (final TypeName exception : this.exceptions) {
+                code.beginControlFlow(
+                    "if (ex.getCause() instanceof $T)", exception
+                )
+                    .addStatement("throw ($T) ex.getCause()", exception)
+                    .endControlFlow();
+            }
+            code.addStatement("throw ex").endControlFlow();
+        }
+        return code.build();
+    }
+}
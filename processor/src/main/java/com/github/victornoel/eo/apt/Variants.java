@@ -0,0 +1,201 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.github.victornoel.eo.GenerateActor;
+import com.github.victornoel.eo.GenerateAllocationProfiling;
+import com.github.victornoel.eo.GenerateBatching;
+import com.github.victornoel.eo.GenerateChaos;
+import com.github.victornoel.eo.GenerateConflating;
+import com.github.victornoel.eo.GenerateEnvelope;
+import com.github.victornoel.eo.GenerateFlow;
+import com.github.victornoel.eo.GenerateInterning;
+import com.github.victornoel.eo.GenerateIpc;
+import com.github.victornoel.eo.GenerateLoadDriver;
+import com.github.victornoel.eo.GenerateManaged;
+import com.github.victornoel.eo.GenerateMaterialized;
+import com.github.victornoel.eo.GenerateOffHeap;
+import com.github.victornoel.eo.GeneratePerThread;
+import com.github.victornoel.eo.GeneratePrefetching;
+import com.github.victornoel.eo.GenerateRateLimited;
+import com.github.victornoel.eo.GenerateRecorder;
+import com.github.victornoel.eo.GenerateSharded;
+import com.github.victornoel.eo.GenerateSingleflight;
+import com.github.victornoel.eo.GenerateSwappable;
+import com.github.victornoel.eo.GenerateTimed;
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.TypeElement;
+
+/**
+ * The types to generate for each supported annotation.
+ *
+ * @since 1.1.0
+ * @checkstyle ClassDataAbstractionCouplingCheck (200 lines)
+ */
+@SuppressWarnings("PMD.CouplingBetweenObjects")
+final class Variants implements Supplier<Map<Class<? extends Annotation>,
+    Function<TypeElement, Iterable<GeneratedTypeSpec>>>> {
+
+    /**
+     * The processing environment.
+     */
+    private final ProcessingEnvironment procenv;
+
+    /**
+     * Ctor.
+     *
+     * @param procenv The processing environment
+     */
+    Variants(final ProcessingEnvironment procenv) {
+        this.procenv = procenv;
+    }
+
+    @Override
+    public Map<Class<? extends Annotation>,
+        Function<TypeElement, Iterable<GeneratedTypeSpec>>> get() {
+        final Map<Class<? extends Annotation>,
+            Function<TypeElement, Iterable<GeneratedTypeSpec>>> generators =
+            new LinkedHashMap<>();
+        generators.put(
+            GenerateEnvelope.class,
+            this.single(GeneratedEnvelopeTypeSpec::new)
+        );
+        generators.put(
+            GenerateRecorder.class,
+            itf -> Arrays.asList(
+                new GeneratedRecorderTypeSpec(itf, this.procenv),
+                new GeneratedReplayerTypeSpec(itf, this.procenv)
+            )
+        );
+        generators.put(
+            GenerateIpc.class,
+            itf -> Arrays.asList(
+                new GeneratedStubTypeSpec(itf, this.procenv),
+                new GeneratedSkeletonTypeSpec(itf, this.procenv)
+            )
+        );
+        generators.put(
+            GenerateActor.class,
+            this.single(GeneratedActorTypeSpec::new)
+        );
+        generators.put(
+            GenerateSwappable.class,
+            this.single(GeneratedSwappableTypeSpec::new)
+        );
+        generators.put(
+            GenerateSingleflight.class,
+            this.single(GeneratedSingleflightTypeSpec::new)
+        );
+        generators.put(
+            GeneratePrefetching.class,
+            this.single(GeneratedPrefetchingTypeSpec::new)
+        );
+        generators.put(
+            GenerateSharded.class,
+            this.single(GeneratedShardedTypeSpec::new)
+        );
+        generators.put(
+            GenerateConflating.class,
+            this.single(GeneratedConflatingTypeSpec::new)
+        );
+        this.tuning(generators);
+        return generators;
+    }
+
+    /**
+     * Add the types to generate for the annotations of envelopes
+     * measuring, tuning or controlling the calls.
+     *
+     * @param generators The types to generate for each annotation
+     */
+    private void tuning(
+        final Map<Class<? extends Annotation>,
+            Function<TypeElement, Iterable<GeneratedTypeSpec>>> generators
+    ) {
+        generators.put(
+            GenerateAllocationProfiling.class,
+            this.single(GeneratedAllocationProfilingTypeSpec::new)
+        );
+        generators.put(
+            GenerateMaterialized.class,
+            this.single(GeneratedMaterializedTypeSpec::new)
+        );
+        generators.put(
+            GenerateFlow.class,
+            this.single(GeneratedFlowTypeSpec::new)
+        );
+        generators.put(
+            GeneratePerThread.class,
+            this.single(GeneratedPerThreadTypeSpec::new)
+        );
+        generators.put(
+            GenerateOffHeap.class,
+            this.single(GeneratedOffHeapTypeSpec::new)
+        );
+        generators.put(
+            GenerateBatching.class,
+            this.single(GeneratedBatchingTypeSpec::new)
+        );
+        generators.put(
+            GenerateRateLimited.class,
+            this.single(GeneratedRateLimitedTypeSpec::new)
+        );
+        generators.put(
+            GenerateTimed.class,
+            this.single(GeneratedTimedTypeSpec::new)
+        );
+        generators.put(
+            GenerateInterning.class,
+            this.single(GeneratedInterningTypeSpec::new)
+        );
+        generators.put(
+            GenerateManaged.class,
+            this.single(GeneratedManagedTypeSpec::new)
+        );
+        generators.put(
+            GenerateChaos.class,
+            this.single(GeneratedChaosTypeSpec::new)
+        );
+        generators.put(
+            GenerateLoadDriver.class,
+            this.single(GeneratedLoadDriverTypeSpec::new)
+        );
+    }
+
+    /**
+     * The generation of a single type for an annotated interface.
+     *
+     * @param generator The constructor of the type to generate
+     * @return The types to generate for an annotated interface
+     */
+    private Function<TypeElement, Iterable<GeneratedTypeSpec>> single(
+        final BiFunction<TypeElement, ProcessingEnvironment,
+            GeneratedTypeSpec> generator
+    ) {
+        return itf -> Collections.singleton(generator.apply(itf, this.procenv));
+    }
+}
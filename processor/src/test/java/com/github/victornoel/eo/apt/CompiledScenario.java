@@ -0,0 +1,130 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.google.testing.compile.Compilation;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Callable;
+import javax.tools.JavaFileObject;
+
+/**
+ * A {@link Callable} compiled during a test, used to exercise the
+ * generated code.
+ *
+ * @since 1.1.0
+ */
+final class CompiledScenario implements Callable<Object> {
+
+    /**
+     * The compilation.
+     */
+    private final Compilation compilation;
+
+    /**
+     * The binary name of the compiled {@link Callable}.
+     */
+    private final String name;
+
+    /**
+     * Ctor.
+     *
+     * @param compilation The compilation
+     * @param name The binary name of the compiled {@link Callable}
+     */
+    CompiledScenario(final Compilation compilation, final String name) {
+        this.compilation = compilation;
+        this.name = name;
+    }
+
+    @Override
+    public Object call() throws Exception {
+        return Callable.class.cast(
+            new CompiledClasses(this.compilation).loadClass(this.name).newInstance()
+        ).call();
+    }
+
+    /**
+     * The classes produced by the compilation.
+     *
+     * @since 1.1.0
+     */
+    private static final class CompiledClasses extends ClassLoader {
+
+        /**
+         * Size of the chunks read from class files.
+         */
+        private static final int CHUNK = 4096;
+
+        /**
+         * The compilation.
+         */
+        private final Compilation compilation;
+
+        /**
+         * Ctor.
+         *
+         * @param compilation The compilation
+         */
+        CompiledClasses(final Compilation compilation) {
+            super(Thread.currentThread().getContextClassLoader());
+            this.compilation = compilation;
+        }
+
+        @Override
+        public Class<?> findClass(final String cls)
+            throws ClassNotFoundException {
+            final String path = String.format(
+                "/%s.class", cls.replace('.', '/')
+            );
+            for (final JavaFileObject file
+                : this.compilation.generatedFiles()) {
+                if (file.getKind() == JavaFileObject.Kind.CLASS
+                    && file.getName().endsWith(path)) {
+                    final byte[] bytes = CompiledClasses.bytes(file);
+                    return this.defineClass(cls, bytes, 0, bytes.length);
+                }
+            }
+            throw new ClassNotFoundException(cls);
+        }
+
+        /**
+         * Read the content of a class file.
+         *
+         * @param file The class file
+         * @return The content
+         * @throws ClassNotFoundException If it can't be read
+         */
+        private static byte[] bytes(final JavaFileObject file)
+            throws ClassNotFoundException {
+            try (InputStream input = file.openInputStream()) {
+                final ByteArrayOutputStream output = new ByteArrayOutputStream();
+                final byte[] buffer = new byte[CompiledClasses.CHUNK];
+                for (int read = input.read(buffer); read >= 0;
+                    read = input.read(buffer)) {
+                    output.write(buffer, 0, read);
+                }
+                return output.toByteArray();
+            } catch (final IOException ex) {
+                throw new ClassNotFoundException(file.getName(), ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.assertj.core.api.Assertions;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for the envelope index of {@link GenerateEnvelopeProcessor} on
+ * incremental compilations.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ * @checkstyle VisibilityModifierCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class GenerateEnvelopeProcessorIndexTest {
+
+    /**
+     * The folder of the sources and classes of the compilations.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void mergesIndexOfIncrementalCompilations() throws Exception {
+        final File first = this.source(
+            "First", "@com.github.victornoel.eo.GenerateEnvelope"
+        );
+        final File second = this.source(
+            "Second", "@com.github.victornoel.eo.GenerateEnvelope"
+        );
+        final File classes = this.folder.newFolder("classes");
+        this.compile(classes, first, second);
+        this.source("First", "@com.github.victornoel.eo.GenerateSwappable");
+        this.compile(classes, first);
+        Assertions.assertThat(
+            Files.readAllLines(
+                new File(classes, "META-INF/eo-envelopes.idx").toPath(),
+                StandardCharsets.UTF_8
+            )
+        ).containsExactly(
+            "# interface, annotation, class, constructor parameters",
+            "test.Second\tGenerateEnvelope\ttest.SecondEnvelope\ttest.Second",
+            "test.First\tGenerateSwappable\ttest.FirstSwappable\ttest.First",
+            "test.First\tGenerateSwappable\ttest.FirstSwappable\ttest.First,boolean"
+        );
+    }
+
+    /**
+     * Write the source of an annotated interface.
+     *
+     * @param name The name of the interface
+     * @param annotation The annotation of the interface
+     * @return The file
+     * @throws Exception If fails
+     */
+    private File source(final String name, final String annotation)
+        throws Exception {
+        final File file = new File(
+            this.folder.getRoot(), String.format("test/%s.java", name)
+        );
+        file.getParentFile().mkdirs();
+        Files.write(
+            file.toPath(),
+            Arrays.asList(
+                "package test;",
+                annotation,
+                String.format("public interface %s {", name),
+                "  String test();",
+                "}"
+            ),
+            StandardCharsets.UTF_8
+        );
+        return file;
+    }
+
+    /**
+     * Compile sources to a directory of classes on the class path, like an
+     * incremental compilation.
+     *
+     * @param classes The directory of the classes
+     * @param sources The sources
+     * @throws Exception If fails
+     */
+    private void compile(final File classes, final File... sources)
+        throws Exception {
+        final JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager files =
+            javac.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+            final JavaCompiler.CompilationTask task = javac.getTask(
+                null, files, null,
+                Arrays.asList(
+                    "-d", classes.toString(),
+                    "-classpath",
+                    String.format(
+                        "%s%s%s", classes, File.pathSeparator,
+                        System.getProperty("java.class.path")
+                    )
+                ),
+                null,
+                files.getJavaFileObjects(sources)
+            );
+            task.setProcessors(
+                Collections.singleton(new GenerateEnvelopeProcessor())
+            );
+            Assertions.assertThat(task.call()).isTrue();
+        }
+    }
+}
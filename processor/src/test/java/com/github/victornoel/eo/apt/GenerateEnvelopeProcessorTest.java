@@ -22,6 +22,7 @@ import com.google.testing.compile.Compilation;
 import com.google.testing.compile.CompilationSubject;
 import com.google.testing.compile.Compiler;
 import com.google.testing.compile.JavaFileObjects;
+import javax.tools.StandardLocation;
 import org.assertj.core.api.Assertions;
 import org.junit.Test;
 
@@ -860,4 +861,128 @@ public final class GenerateEnvelopeProcessorTest {
             );
         CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
     }
+
+    @Test
+    public void indexesGeneratedClasses() throws Exception {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "test.Outer",
+                    "package test;",
+                    "import com.github.victornoel.eo.GenerateEnvelope;",
+                    "import com.github.victornoel.eo.GenerateSwappable;",
+                    "public interface Outer {",
+                    "  @GenerateEnvelope",
+                    "  @GenerateSwappable",
+                    "  interface Inner<T> {",
+                    "    T test();",
+                    "  }",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        Assertions.assertThat(
+            compilation
+                .generatedFile(
+                    StandardLocation.CLASS_OUTPUT, "META-INF/eo-envelopes.idx"
+                )
+                .get()
+                .getCharContent(false)
+                .toString()
+        )
+            .isEqualTo(
+                String.join(
+                    "\n",
+                    "# interface, annotation, class, constructor parameters",
+                    // @checkstyle LineLengthCheck (3 lines)
+                    "test.Outer$Inner\tGenerateEnvelope\ttest.OuterInnerEnvelope\ttest.Outer$Inner",
+                    "test.Outer$Inner\tGenerateSwappable\ttest.OuterInnerSwappable\ttest.Outer$Inner",
+                    "test.Outer$Inner\tGenerateSwappable\ttest.OuterInnerSwappable\ttest.Outer$Inner,boolean",
+                    ""
+                )
+            );
+    }
+
+    @Test
+    public void writesNativeImageConfiguration() throws Exception {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .withOptions("-Aeo.envelopes.native=org.example/app")
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "test.Test",
+                    "package test;",
+                    "import com.github.victornoel.eo.GenerateEnvelope;",
+                    "import com.github.victornoel.eo.GenerateSwappable;",
+                    "@GenerateEnvelope",
+                    "@GenerateSwappable",
+                    "public interface Test {",
+                    "  String[] test();",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        Assertions.assertThat(
+            GenerateEnvelopeProcessorTest.resource(
+                compilation, "reflect-config.json"
+            )
+        )
+            .isEqualTo(
+                String.join(
+                    "\n",
+                    "[",
+                    "  {",
+                    "    \"name\": \"test.TestEnvelope\",",
+                    "    \"methods\": [",
+                    "      {\"name\": \"<init>\", \"parameterTypes\": [\"test.Test\"]}",
+                    "    ]",
+                    "  },",
+                    "  {",
+                    "    \"name\": \"test.TestSwappable\",",
+                    "    \"methods\": [",
+                    "      {\"name\": \"<init>\", \"parameterTypes\": [\"test.Test\"]},",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "      {\"name\": \"<init>\", \"parameterTypes\": [\"test.Test\", \"boolean\"]}",
+                    "    ]",
+                    "  }",
+                    "]",
+                    ""
+                )
+            );
+        Assertions.assertThat(
+            GenerateEnvelopeProcessorTest.resource(
+                compilation, "resource-config.json"
+            )
+        ).contains("{\"pattern\": \"\\\\QMETA-INF/eo-envelopes.idx\\\\E\"}");
+        Assertions.assertThat(
+            GenerateEnvelopeProcessorTest.resource(
+                compilation, "native-image.properties"
+            )
+        ).isEqualTo(
+            // @checkstyle LineLengthCheck (1 line)
+            "Args = --initialize-at-build-time=test.TestEnvelope,test.TestSwappable\n"
+        );
+    }
+
+    /**
+     * Read a generated native-image configuration file.
+     *
+     * @param compilation The compilation
+     * @param name The name of the file
+     * @return The content of the file
+     * @throws Exception If fails
+     */
+    private static String resource(
+        final Compilation compilation, final String name
+    ) throws Exception {
+        return compilation
+            .generatedFile(
+                StandardLocation.CLASS_OUTPUT,
+                String.format("META-INF/native-image/org.example/app/%s", name)
+            )
+            .get()
+            .getCharContent(false)
+            .toString();
+    }
 }
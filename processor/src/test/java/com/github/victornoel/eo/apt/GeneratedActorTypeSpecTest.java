@@ -0,0 +1,232 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.CompilationSubject;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Tests for {@link GeneratedActorTypeSpec}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class GeneratedActorTypeSpecTest {
+
+    @Test
+    public void queuesCallsInMailbox() {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "AnInterface",
+                    "import com.github.victornoel.eo.GenerateActor;",
+                    "import java.io.IOException;",
+                    "@GenerateActor",
+                    "public interface AnInterface {",
+                    "  void hit(int seq, String name);",
+                    "  long count() throws IOException;",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        CompilationSubject.assertThat(compilation)
+            .generatedSourceFile("AnInterfaceActor")
+            .hasSourceEquivalentTo(
+                JavaFileObjects.forSourceLines(
+                    "AnInterfaceActor",
+                    "import com.github.victornoel.eo.runtime.DaemonThreads;",
+                    "import com.github.victornoel.eo.runtime.Histogram;",
+                    "import com.github.victornoel.eo.runtime.Mailbox;",
+                    "import java.io.IOException;",
+                    "import java.lang.AutoCloseable;",
+                    "import java.lang.Exception;",
+                    "import java.lang.IllegalStateException;",
+                    "import java.lang.Object;",
+                    "import java.lang.Override;",
+                    "import java.lang.String;",
+                    "import java.util.concurrent.CompletionException;",
+                    "import java.util.concurrent.ThreadFactory;",
+                    "import javax.annotation.Generated;",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "@Generated(\"com.github.victornoel.eo.apt.GenerateEnvelopeProcessor\")",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "public final class AnInterfaceActor implements AnInterface, AutoCloseable {",
+                    "  private final AnInterface wrapped;",
+                    "  private final Mailbox mailbox;",
+                    "  public AnInterfaceActor(AnInterface wrapped, int capacity) {",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "    this(wrapped, capacity, new DaemonThreads(\"AnInterfaceActor\"));",
+                    "  }",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "  public AnInterfaceActor(AnInterface wrapped, int capacity, ThreadFactory threads) {",
+                    "    this.wrapped = wrapped;",
+                    "    this.mailbox = new Mailbox(capacity, 2);",
+                    "    this.mailbox.start(threads, this::dispatch);",
+                    "  }",
+                    "  @Override",
+                    "  public void hit(int seq, String name) {",
+                    "    final long seq1 = this.mailbox.claim();",
+                    "    final Object[] args = this.mailbox.arguments(seq1);",
+                    "    args[0] = seq;",
+                    "    args[1] = name;",
+                    "    this.mailbox.post(seq1, 0);",
+                    "  }",
+                    "  @Override",
+                    "  public long count() throws IOException {",
+                    "    final long seq = this.mailbox.claim();",
+                    "    try {",
+                    "      return (long) this.mailbox.call(seq, 1).await();",
+                    "    } catch (final CompletionException ex) {",
+                    "      if (ex.getCause() instanceof IOException) {",
+                    "        throw (IOException) ex.getCause();",
+                    "      }",
+                    "      throw ex;",
+                    "    }",
+                    "  }",
+                    "  public int mailboxDepth() {",
+                    "    return this.mailbox.depth();",
+                    "  }",
+                    "  public Histogram processingLatency() {",
+                    "    return this.mailbox.latency();",
+                    "  }",
+                    "  @Override",
+                    "  public void close() {",
+                    "    this.mailbox.close();",
+                    "  }",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "  private Object dispatch(final int method, final Object[] args) throws Exception {",
+                    "    switch (method) {",
+                    "      case 0:",
+                    "        this.wrapped.hit((int) args[0], (String) args[1]);",
+                    "        return null;",
+                    "      case 1:",
+                    "        return this.wrapped.count();",
+                    "      default:",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "        throw new IllegalStateException(\"Unknown method: \" + method);",
+                    "    }",
+                    "  }",
+                    "}"
+                )
+            );
+    }
+
+    @Test
+    public void rejectsConflictingMethods() {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "AnInterface",
+                    "import com.github.victornoel.eo.GenerateActor;",
+                    "@GenerateActor",
+                    "public interface AnInterface extends AutoCloseable {",
+                    "  void hit();",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).failed();
+        CompilationSubject.assertThat(compilation)
+            .hadErrorContaining("generates a method close()");
+    }
+
+    @Test
+    public void appliesCallsInOrderFromOneThread() throws Exception {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "test.Counter",
+                    "package test;",
+                    "import com.github.victornoel.eo.GenerateActor;",
+                    "import java.util.List;",
+                    "@GenerateActor",
+                    "public interface Counter<T> {",
+                    "  void add(T item, int times);",
+                    "  <X extends T> List<T> items(List<X> more) throws Exception;",
+                    "  int fail(String message);",
+                    "}"
+                ),
+                JavaFileObjects.forSourceLines(
+                    "test.Scenario",
+                    "package test;",
+                    "import java.util.ArrayList;",
+                    "import java.util.Collections;",
+                    "import java.util.List;",
+                    "import java.util.Set;",
+                    "import java.util.concurrent.Callable;",
+                    "import java.util.concurrent.ConcurrentHashMap;",
+                    "public final class Scenario implements Callable<Object> {",
+                    "  public Object call() throws Exception {",
+                    "    final Set<Thread> threads = ConcurrentHashMap.newKeySet();",
+                    "    final List<String> items = new ArrayList<>();",
+                    "    final Counter<String> impl = new Counter<String>() {",
+                    "      public void add(String item, int times) {",
+                    "        threads.add(Thread.currentThread());",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "        for (int idx = 0; idx < times; ++idx) { items.add(item); }",
+                    "      }",
+                    "      public <X extends String> List<String> items(List<X> more) {",
+                    "        threads.add(Thread.currentThread());",
+                    "        items.addAll(more);",
+                    "        return new ArrayList<>(items);",
+                    "      }",
+                    "      public int fail(String message) {",
+                    "        throw new IllegalArgumentException(message);",
+                    "      }",
+                    "    };",
+                    "    final StringBuilder seen = new StringBuilder();",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "    try (CounterActor<String> actor = new CounterActor<>(impl, 2)) {",
+                    "      final Thread[] producers = new Thread[4];",
+                    "      for (int idx = 0; idx < producers.length; ++idx) {",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "        producers[idx] = new Thread(() -> { for (int num = 0; num < 100; ++num) { actor.add(\"x\", 2); } });",
+                    "        producers[idx].start();",
+                    "      }",
+                    "      for (final Thread producer : producers) {",
+                    "        producer.join();",
+                    "      }",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "      seen.append(actor.items(Collections.singletonList(\"y\")).size()).append(';');",
+                    "      try {",
+                    "        actor.fail(\"boom\");",
+                    "      } catch (final IllegalArgumentException ex) {",
+                    "        seen.append(ex.getMessage()).append(';');",
+                    "      }",
+                    "      seen.append(actor.mailboxDepth()).append(';');",
+                    "      seen.append(actor.processingLatency().count()).append(';');",
+                    "    }",
+                    "    seen.append(threads.size()).append(';');",
+                    "    return seen.append(threads.iterator().next().isDaemon()).toString();",
+                    "  }",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        Assertions.assertThat(new CompiledScenario(compilation, "test.Scenario").call())
+            .isEqualTo("801;boom;0;402;1;true");
+    }
+}
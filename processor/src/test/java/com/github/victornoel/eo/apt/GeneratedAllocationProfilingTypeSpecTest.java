@@ -0,0 +1,150 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.CompilationSubject;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Tests for {@link GeneratedAllocationProfilingTypeSpec}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class GeneratedAllocationProfilingTypeSpecTest {
+
+    @Test
+    public void measuresEachDelegatedCall() {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "AnInterface",
+                    "import com.github.victornoel.eo.GenerateAllocationProfiling;",
+                    "import java.io.IOException;",
+                    "@GenerateAllocationProfiling",
+                    "public interface AnInterface {",
+                    "  String load(String start) throws IOException;",
+                    "  void save(int key);",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        CompilationSubject.assertThat(compilation)
+            .generatedSourceFile("AnInterfaceAllocationProfiling")
+            .hasSourceEquivalentTo(
+                JavaFileObjects.forSourceLines(
+                    "AnInterfaceAllocationProfiling",
+                    "import com.github.victornoel.eo.runtime.Allocations;",
+                    "import java.io.IOException;",
+                    "import java.lang.Override;",
+                    "import java.lang.String;",
+                    "import javax.annotation.Generated;",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "@Generated(\"com.github.victornoel.eo.apt.GenerateEnvelopeProcessor\")",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "public final class AnInterfaceAllocationProfiling implements AnInterface {",
+                    "  private final AnInterface wrapped;",
+                    "  private final Allocations allocations;",
+                    "  public AnInterfaceAllocationProfiling(AnInterface wrapped) {",
+                    "    this(wrapped, 1);",
+                    "  }",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "  public AnInterfaceAllocationProfiling(AnInterface wrapped, int every) {",
+                    "    this.wrapped = wrapped;",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "    this.allocations = new Allocations(every, \"load(java.lang.String)\", \"save(int)\");",
+                    "  }",
+                    "  @Override",
+                    "  public String load(String start) throws IOException {",
+                    "    final long start1 = this.allocations.start();",
+                    "    try {",
+                    "      return this.wrapped.load(start);",
+                    "    } finally {",
+                    "      this.allocations.record(0, start1);",
+                    "    }",
+                    "  }",
+                    "  @Override",
+                    "  public void save(int key) {",
+                    "    final long start = this.allocations.start();",
+                    "    try {",
+                    "      this.wrapped.save(key);",
+                    "    } finally {",
+                    "      this.allocations.record(1, start);",
+                    "    }",
+                    "  }",
+                    "  public Allocations allocations() {",
+                    "    return this.allocations;",
+                    "  }",
+                    "}"
+                )
+            );
+    }
+
+    @Test
+    public void attributesAllocationsToMethods() throws Exception {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "test.Buffers",
+                    "package test;",
+                    "import com.github.victornoel.eo.GenerateAllocationProfiling;",
+                    "@GenerateAllocationProfiling",
+                    "public interface Buffers {",
+                    "  byte[] allocate(int size);",
+                    "  int size();",
+                    "}"
+                ),
+                JavaFileObjects.forSourceLines(
+                    "test.Scenario",
+                    "package test;",
+                    "import java.util.concurrent.Callable;",
+                    "public final class Scenario implements Callable<Object> {",
+                    "  public Object call() {",
+                    "    final BuffersAllocationProfiling buffers =",
+                    "      new BuffersAllocationProfiling(",
+                    "        new Buffers() {",
+                    "          public byte[] allocate(final int size) {",
+                    "            return new byte[size];",
+                    "          }",
+                    "          public int size() {",
+                    "            return 0;",
+                    "          }",
+                    "        }",
+                    "      );",
+                    "    final int size = buffers.allocate(1 << 20).length;",
+                    "    buffers.allocations().sample(0);",
+                    "    buffers.allocate(size);",
+                    "    return buffers.allocations().histogram(0).count() + \";\"",
+                    "      + (buffers.allocations().histogram(0).sum() >= size);",
+                    "  }",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        Assertions.assertThat(new CompiledScenario(compilation, "test.Scenario").call())
+            .isEqualTo("1;true");
+    }
+}
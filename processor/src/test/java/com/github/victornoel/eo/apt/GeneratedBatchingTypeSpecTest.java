@@ -0,0 +1,204 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.CompilationSubject;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Tests for {@link GeneratedBatchingTypeSpec}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class GeneratedBatchingTypeSpecTest {
+
+    @Test
+    public void batchesSingleKeyMethods() {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "AnInterface",
+                    "import com.github.victornoel.eo.BatchedBy;",
+                    "import com.github.victornoel.eo.GenerateBatching;",
+                    "import java.io.IOException;",
+                    "import java.util.Collection;",
+                    "import java.util.Map;",
+                    "@GenerateBatching",
+                    "public interface AnInterface {",
+                    "  @BatchedBy(\"names\")",
+                    "  String name(long keys) throws IOException;",
+                    "  Map<Long, String> names(Collection<Long> ids) throws IOException;",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        CompilationSubject.assertThat(compilation)
+            .generatedSourceFile("AnInterfaceBatching")
+            .hasSourceEquivalentTo(
+                JavaFileObjects.forSourceLines(
+                    "AnInterfaceBatching",
+                    "import com.github.victornoel.eo.runtime.Batching;",
+                    "import com.github.victornoel.eo.runtime.DaemonThreads;",
+                    "import java.io.IOException;",
+                    "import java.lang.AutoCloseable;",
+                    "import java.lang.Long;",
+                    "import java.lang.Override;",
+                    "import java.lang.String;",
+                    "import java.util.Collection;",
+                    "import java.util.Map;",
+                    "import java.util.concurrent.CompletionException;",
+                    "import java.util.concurrent.Executor;",
+                    "import java.util.concurrent.Executors;",
+                    "import java.util.concurrent.TimeUnit;",
+                    "import javax.annotation.Generated;",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "@Generated(\"com.github.victornoel.eo.apt.GenerateEnvelopeProcessor\")",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "public final class AnInterfaceBatching implements AnInterface, AutoCloseable {",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "  private static final Executor SHARED = Executors.newCachedThreadPool(",
+                    "    new DaemonThreads(\"AnInterfaceBatching\"));",
+                    "  private final AnInterface wrapped;",
+                    "  private final Batching batching;",
+                    "  public AnInterfaceBatching(AnInterface wrapped) {",
+                    "    this(wrapped, 64, 1L, TimeUnit.MILLISECONDS);",
+                    "  }",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "  public AnInterfaceBatching(AnInterface wrapped, int size, long window, TimeUnit unit) {",
+                    "    this(wrapped, size, window, unit, AnInterfaceBatching.SHARED);",
+                    "  }",
+                    "  public AnInterfaceBatching(AnInterface wrapped, int size, long window,",
+                    "    TimeUnit unit, Executor executor) {",
+                    "    this.wrapped = wrapped;",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "    this.batching = new Batching(size, unit.toNanos(window), executor, \"name\");",
+                    "  }",
+                    "  @Override",
+                    "  public String name(long keys) throws IOException {",
+                    "    try {",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "      return this.batching.load(0, keys, keys1 -> this.wrapped.names(keys1));",
+                    "    } catch (final CompletionException ex) {",
+                    "      if (ex.getCause() instanceof IOException) {",
+                    "        throw (IOException) ex.getCause();",
+                    "      }",
+                    "      throw ex;",
+                    "    }",
+                    "  }",
+                    "  @Override",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "  public Map<Long, String> names(Collection<Long> ids) throws IOException {",
+                    "    return this.wrapped.names(ids);",
+                    "  }",
+                    "  public Batching batching() {",
+                    "    return this.batching;",
+                    "  }",
+                    "  @Override",
+                    "  public void close() {",
+                    "    this.batching.close();",
+                    "  }",
+                    "}"
+                )
+            );
+    }
+
+    @Test
+    public void completesCallsFromBulkResult() throws Exception {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "test.Users",
+                    "package test;",
+                    "import com.github.victornoel.eo.BatchedBy;",
+                    "import com.github.victornoel.eo.GenerateBatching;",
+                    "import java.util.List;",
+                    "import java.util.Map;",
+                    "@GenerateBatching",
+                    "public interface Users {",
+                    "  @BatchedBy(\"all\")",
+                    "  String get(int id);",
+                    "  Map<Integer, String> all(Iterable<Integer> ids);",
+                    "}"
+                ),
+                JavaFileObjects.forSourceLines(
+                    "test.Scenario",
+                    "package test;",
+                    "import java.util.HashMap;",
+                    "import java.util.Map;",
+                    "import java.util.concurrent.Callable;",
+                    "import java.util.concurrent.TimeUnit;",
+                    "public final class Scenario implements Callable<Object> {",
+                    "  public Object call() {",
+                    "    final int[] calls = new int[1];",
+                    "    try (UsersBatching users = new UsersBatching(",
+                    "      new Users() {",
+                    "        public String get(int id) {",
+                    "          throw new UnsupportedOperationException();",
+                    "        }",
+                    "        public Map<Integer, String> all(Iterable<Integer> ids) {",
+                    "          ++calls[0];",
+                    "          final Map<Integer, String> all = new HashMap<>();",
+                    "          ids.forEach(id -> all.put(id, \"user\" + id));",
+                    "          return all;",
+                    "        }",
+                    "      },",
+                    "      1, 1L, TimeUnit.HOURS",
+                    "    )) {",
+                    "      return users.get(1) + users.get(2) + ';' + calls[0];",
+                    "    }",
+                    "  }",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        Assertions.assertThat(new CompiledScenario(compilation, "test.Scenario").call())
+            .isEqualTo("user1user2;2");
+    }
+
+    @Test
+    public void rejectsMissingBulkMethods() {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "AnInterface",
+                    "import com.github.victornoel.eo.BatchedBy;",
+                    "import com.github.victornoel.eo.GenerateBatching;",
+                    "import java.util.Map;",
+                    "import java.util.Set;",
+                    "@GenerateBatching",
+                    "public interface AnInterface {",
+                    "  @BatchedBy(\"all\")",
+                    "  String get(String key);",
+                    "  Map<String, String> all(Set<String> keys);",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation)
+            .hadErrorContaining("@BatchedBy(\"all\") requires a method all");
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.CompilationSubject;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.tools.JavaFileObject;
+import org.assertj.core.api.Assertions;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link GeneratedBenchmarkTypeSpec}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ * @checkstyle VisibilityModifierCheck (500 lines)
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class GeneratedBenchmarkTypeSpecTest {
+
+    /**
+     * The folder of the generated benchmarks.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writesBenchmarkWhenAsked() throws Exception {
+        final Compilation compilation = this.compiled(
+            "public interface Cache {",
+            "    byte[] load(String key, java.util.List<Integer> ids, long[][] ranks);",
+            "    void clear() throws java.io.IOException;",
+            "}"
+        );
+        CompilationSubject.assertThat(compilation).succeeded();
+        final String benchmark = new String(
+            Files.readAllBytes(
+                new File(this.folder.getRoot(), "test/CacheBenchmark.java")
+                    .toPath()
+            ),
+            StandardCharsets.UTF_8
+        );
+        Assertions.assertThat(benchmark).contains(
+            "@State(Scope.Benchmark)",
+            "@Param({\"8\", \"64\"})",
+            "this.envelope = new CacheEnvelope(this.direct) { };",
+            "this.load0Ids = new ArrayList<>(Collections.nCopies(size, random.nextInt()));",
+            "this.load0Ranks = new long[size][];",
+            "public byte[] load0Envelope() {",
+            // @checkstyle LineLengthCheck (2 lines)
+            "return this.envelope.load(this.load0Key, this.load0Ids, this.load0Ranks);",
+            "return this.direct.load(this.load0Key, this.load0Ids, this.load0Ranks);",
+            "public void clear1Direct() throws IOException {",
+            "this.blackhole.consume(key);"
+        );
+        final List<JavaFileObject> sources = new ArrayList<>(
+            GeneratedBenchmarkTypeSpecTest.jmh()
+        );
+        sources.add(compilation.sourceFiles().get(0));
+        sources.add(
+            JavaFileObjects.forSourceString("test.CacheBenchmark", benchmark)
+        );
+        CompilationSubject.assertThat(
+            Compiler.javac()
+                .withProcessors(new GenerateEnvelopeProcessor())
+                .compile(sources)
+        ).succeededWithoutWarnings();
+    }
+
+    @Test
+    public void skipsGenericInterfaces() throws Exception {
+        final Compilation compilation = this.compiled(
+            "public interface Cache<T> {",
+            "    T load(String key);",
+            "}"
+        );
+        CompilationSubject.assertThat(compilation)
+            .hadWarningContaining("No benchmark is generated");
+        Assertions.assertThat(this.folder.getRoot().list()).isEmpty();
+    }
+
+    /**
+     * Stubs of the JMH annotations and blackhole used by the benchmarks.
+     *
+     * @return The sources of the stubs
+     */
+    private static List<JavaFileObject> jmh() {
+        final String annotations = "package org.openjdk.jmh.annotations;";
+        return Arrays.asList(
+            JavaFileObjects.forSourceLines(
+                "org.openjdk.jmh.annotations.Benchmark", annotations,
+                "public @interface Benchmark { }"
+            ),
+            JavaFileObjects.forSourceLines(
+                "org.openjdk.jmh.annotations.Setup", annotations,
+                "public @interface Setup { }"
+            ),
+            JavaFileObjects.forSourceLines(
+                "org.openjdk.jmh.annotations.Scope", annotations,
+                "public enum Scope { Benchmark }"
+            ),
+            JavaFileObjects.forSourceLines(
+                "org.openjdk.jmh.annotations.State", annotations,
+                "public @interface State { Scope value(); }"
+            ),
+            JavaFileObjects.forSourceLines(
+                "org.openjdk.jmh.annotations.Mode", annotations,
+                "public enum Mode { AverageTime }"
+            ),
+            JavaFileObjects.forSourceLines(
+                "org.openjdk.jmh.annotations.BenchmarkMode", annotations,
+                "public @interface BenchmarkMode { Mode[] value(); }"
+            ),
+            JavaFileObjects.forSourceLines(
+                "org.openjdk.jmh.annotations.OutputTimeUnit", annotations,
+                "public @interface OutputTimeUnit {",
+                "    java.util.concurrent.TimeUnit value();",
+                "}"
+            ),
+            JavaFileObjects.forSourceLines(
+                "org.openjdk.jmh.annotations.Param", annotations,
+                "public @interface Param { String[] value(); }"
+            ),
+            JavaFileObjects.forSourceLines(
+                "org.openjdk.jmh.infra.Blackhole",
+                "package org.openjdk.jmh.infra;",
+                "public class Blackhole {",
+                "    public void consume(final Object obj) { }",
+                "}"
+            )
+        );
+    }
+
+    /**
+     * Compile an envelope with benchmarks written to the folder.
+     *
+     * @param lines The lines of the interface
+     * @return The compilation
+     */
+    private Compilation compiled(final String... lines) {
+        final String[] source = new String[lines.length + 3];
+        source[0] = "package test;";
+        source[1] = "import com.github.victornoel.eo.GenerateEnvelope;";
+        source[2] = "@GenerateEnvelope";
+        System.arraycopy(lines, 0, source, 3, lines.length);
+        return Compiler.javac()
+            .withOptions(
+                String.format(
+                    "-A%s=%s", GeneratedBenchmarkTypeSpec.OPTION,
+                    this.folder.getRoot()
+                )
+            )
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(JavaFileObjects.forSourceLines("test.Cache", source));
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.CompilationSubject;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Tests for {@link GeneratedChaosTypeSpec}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class GeneratedChaosTypeSpecTest {
+
+    @Test
+    public void injectsFaultsBeforeCalls() {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "AnInterface",
+                    "import com.github.victornoel.eo.GenerateChaos;",
+                    "import java.io.IOException;",
+                    "@GenerateChaos",
+                    "public interface AnInterface {",
+                    "  String get(int id) throws IOException;",
+                    "  void put(String value);",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        CompilationSubject.assertThat(compilation)
+            .generatedSourceFile("AnInterfaceChaos")
+            .hasSourceEquivalentTo(
+                JavaFileObjects.forSourceLines(
+                    "AnInterfaceChaos",
+                    "import com.github.victornoel.eo.runtime.Chaos;",
+                    "import java.io.IOException;",
+                    "import java.lang.Override;",
+                    "import java.lang.String;",
+                    "import java.lang.System;",
+                    "import javax.annotation.Generated;",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "@Generated(\"com.github.victornoel.eo.apt.GenerateEnvelopeProcessor\")",
+                    "public final class AnInterfaceChaos implements AnInterface {",
+                    "  private final AnInterface wrapped;",
+                    "  private final Chaos chaos;",
+                    "  public AnInterfaceChaos(AnInterface wrapped) {",
+                    "    this(wrapped, System.nanoTime());",
+                    "  }",
+                    "  public AnInterfaceChaos(AnInterface wrapped, long seed) {",
+                    "    this(wrapped, new Chaos(seed, \"get\", \"put\"));",
+                    "  }",
+                    "  public AnInterfaceChaos(AnInterface wrapped, Chaos chaos) {",
+                    "    this.wrapped = wrapped;",
+                    "    this.chaos = chaos;",
+                    "  }",
+                    "  @Override",
+                    "  public String get(int id) throws IOException {",
+                    "    this.chaos.inject(0);",
+                    "    return this.wrapped.get(id);",
+                    "  }",
+                    "  @Override",
+                    "  public void put(String value) {",
+                    "    this.chaos.inject(1);",
+                    "    this.wrapped.put(value);",
+                    "  }",
+                    "  public Chaos chaos() {",
+                    "    return this.chaos;",
+                    "  }",
+                    "}"
+                )
+            );
+    }
+
+    @Test
+    public void failsDeterministically() throws Exception {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "test.Store",
+                    "package test;",
+                    "import com.github.victornoel.eo.GenerateChaos;",
+                    "@GenerateChaos",
+                    "public interface Store {",
+                    "  String get(int id);",
+                    "  int size();",
+                    "}"
+                ),
+                JavaFileObjects.forSourceLines(
+                    "test.Scenario",
+                    "package test;",
+                    "import com.github.victornoel.eo.runtime.ChaosException;",
+                    "import com.github.victornoel.eo.runtime.Fault;",
+                    "import com.github.victornoel.eo.runtime.Latency;",
+                    "import java.util.concurrent.Callable;",
+                    "public final class Scenario implements Callable<Object> {",
+                    "  public Object call() {",
+                    "    return this.run() + \";\" + this.run();",
+                    "  }",
+                    "  private String run() {",
+                    "    final StoreChaos store = new StoreChaos(",
+                    "      new Store() {",
+                    "        public String get(int id) {",
+                    "          return \"v\";",
+                    "        }",
+                    "        public int size() {",
+                    "          return 1;",
+                    "        }",
+                    "      },",
+                    "      5L",
+                    "    );",
+                    "    store.chaos().enable(\"get\", new Fault(new Latency.Fixed(0L), 0.5));",
+                    "    final StringBuilder trace = new StringBuilder();",
+                    "    for (int idx = 0; idx < 20; ++idx) {",
+                    "      try {",
+                    "        trace.append(store.get(idx)).append(store.size());",
+                    "      } catch (final ChaosException ex) {",
+                    "        trace.append('x');",
+                    "      }",
+                    "    }",
+                    "    return trace.toString();",
+                    "  }",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        final String[] runs = new CompiledScenario(compilation, "test.Scenario")
+            .call().toString().split(";");
+        Assertions.assertThat(runs[0]).isEqualTo(runs[1]).contains("x", "v1");
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.CompilationSubject;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Tests for {@link GeneratedConflatingTypeSpec}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class GeneratedConflatingTypeSpecTest {
+
+    @Test
+    public void conflatesKeyedUpdates() {
+        final Compilation compilation = Compiler.javac()
+            .withOptions("-source", "8")
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "AnInterface",
+                    "import com.github.victornoel.eo.GenerateConflating;",
+                    "import com.github.victornoel.eo.Key;",
+                    "@GenerateConflating",
+                    "public interface AnInterface {",
+                    "  void update(@Key String symbol, double price);",
+                    "  double price(String symbol);",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeeded();
+        CompilationSubject.assertThat(compilation)
+            .generatedSourceFile("AnInterfaceConflating")
+            .hasSourceEquivalentTo(
+                JavaFileObjects.forSourceLines(
+                    "AnInterfaceConflating",
+                    "import com.github.victornoel.eo.runtime.Conflation;",
+                    "import com.github.victornoel.eo.runtime.DaemonThreads;",
+                    "import java.lang.AutoCloseable;",
+                    "import java.lang.Exception;",
+                    "import java.lang.IllegalStateException;",
+                    "import java.lang.Object;",
+                    "import java.lang.Override;",
+                    "import java.lang.String;",
+                    "import java.util.concurrent.ThreadFactory;",
+                    "import java.util.concurrent.TimeUnit;",
+                    "import javax.annotation.Generated;",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "@Generated(\"com.github.victornoel.eo.apt.GenerateEnvelopeProcessor\")",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "public final class AnInterfaceConflating implements AnInterface, AutoCloseable {",
+                    "  private final AnInterface wrapped;",
+                    "  private final Conflation conflation;",
+                    "  public AnInterfaceConflating(AnInterface wrapped) {",
+                    "    this(wrapped, 0L, TimeUnit.NANOSECONDS);",
+                    "  }",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "  public AnInterfaceConflating(AnInterface wrapped, long period, TimeUnit unit) {",
+                    "    this(wrapped, period, unit,",
+                    "      new DaemonThreads(\"AnInterfaceConflating\"));",
+                    "  }",
+                    "  public AnInterfaceConflating(AnInterface wrapped, long period,",
+                    "    TimeUnit unit, ThreadFactory threads) {",
+                    "    this.wrapped = wrapped;",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "    this.conflation = new Conflation(1, unit.toNanos(period));",
+                    "    this.conflation.start(threads, this::dispatch);",
+                    "  }",
+                    "  @Override",
+                    "  public void update(String symbol, double price) {",
+                    "    this.conflation.offer(0, symbol, symbol, price);",
+                    "  }",
+                    "  @Override",
+                    "  public double price(String symbol) {",
+                    "    return this.wrapped.price(symbol);",
+                    "  }",
+                    "  public long dropped() {",
+                    "    return this.conflation.dropped();",
+                    "  }",
+                    "  @Override",
+                    "  public void close() {",
+                    "    this.conflation.close();",
+                    "  }",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "  private Object dispatch(final int method, final Object[] args) throws Exception {",
+                    "    switch (method) {",
+                    "      case 0:",
+                    "        this.wrapped.update((String) args[0], (double) args[1]);",
+                    "        return null;",
+                    "      default:",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "        throw new IllegalStateException(\"Unknown method: \" + method);",
+                    "    }",
+                    "  }",
+                    "}"
+                )
+            );
+    }
+
+    @Test
+    public void forwardsLatestPricePerSymbol() throws Exception {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "test.Prices",
+                    "package test;",
+                    "import com.github.victornoel.eo.GenerateConflating;",
+                    "import com.github.victornoel.eo.Key;",
+                    "@GenerateConflating",
+                    "public interface Prices {",
+                    "  void update(@Key String symbol, int price);",
+                    "}"
+                ),
+                JavaFileObjects.forSourceLines(
+                    "test.Scenario",
+                    "package test;",
+                    "import java.util.concurrent.Callable;",
+                    "import java.util.concurrent.ConcurrentHashMap;",
+                    "import java.util.concurrent.CountDownLatch;",
+                    "import java.util.concurrent.atomic.AtomicInteger;",
+                    "public final class Scenario implements Callable<Object> {",
+                    "  public Object call() throws Exception {",
+                    "    final CountDownLatch release = new CountDownLatch(1);",
+                    "    final AtomicInteger calls = new AtomicInteger();",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "    final ConcurrentHashMap<String, Integer> last = new ConcurrentHashMap<>();",
+                    "    final PricesConflating prices = new PricesConflating(",
+                    "      (symbol, price) -> {",
+                    "        try {",
+                    "          release.await();",
+                    "        } catch (final InterruptedException ex) {",
+                    "          Thread.currentThread().interrupt();",
+                    "        }",
+                    "        calls.incrementAndGet();",
+                    "        last.put(symbol, price);",
+                    "      }",
+                    "    );",
+                    "    for (int idx = 1; idx <= 100; ++idx) {",
+                    "      prices.update(\"a\", idx);",
+                    "      prices.update(\"b\", -idx);",
+                    "    }",
+                    "    release.countDown();",
+                    "    prices.close();",
+                    "    return last.get(\"a\") + \";\" + last.get(\"b\") + ';'",
+                    "      + (calls.get() + prices.dropped());",
+                    "  }",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        Assertions.assertThat(new CompiledScenario(compilation, "test.Scenario").call())
+            .isEqualTo("100;-100;200");
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.CompilationSubject;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Tests for {@link GeneratedFlowTypeSpec}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class GeneratedFlowTypeSpecTest {
+
+    @Test
+    public void publishesIterableResults() {
+        final Compilation compilation = Compiler.javac()
+            .withOptions("-source", "8")
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "AnInterface",
+                    "import com.github.victornoel.eo.GenerateFlow;",
+                    "import java.io.IOException;",
+                    "import java.util.Collection;",
+                    "import java.util.List;",
+                    "@GenerateFlow",
+                    "public interface AnInterface {",
+                    "  List<String> names(String prefix) throws IOException;",
+                    "  Collection<? extends Number> numbers();",
+                    "  int size();",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeeded();
+        CompilationSubject.assertThat(compilation)
+            .generatedSourceFile("AnInterfaceFlow")
+            .hasSourceEquivalentTo(
+                JavaFileObjects.forSourceLines(
+                    "AnInterfaceFlow",
+                    "import com.github.victornoel.eo.runtime.IterablePublisher;",
+                    "import com.github.victornoel.eo.runtime.Publisher;",
+                    "import java.lang.Number;",
+                    "import java.lang.String;",
+                    "import javax.annotation.Generated;",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "@Generated(\"com.github.victornoel.eo.apt.GenerateEnvelopeProcessor\")",
+                    "public final class AnInterfaceFlow {",
+                    "  private final AnInterface wrapped;",
+                    "  public AnInterfaceFlow(AnInterface wrapped) {",
+                    "    this.wrapped = wrapped;",
+                    "  }",
+                    "  public Publisher<String> names(String prefix) {",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "    return new IterablePublisher<String>(() -> this.wrapped.names(prefix));",
+                    "  }",
+                    "  public Publisher<Number> numbers() {",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "    return new IterablePublisher<Number>(() -> this.wrapped.numbers());",
+                    "  }",
+                    "}"
+                )
+            );
+    }
+
+    @Test
+    public void streamsOnDemand() throws Exception {
+        final Compilation compilation = Compiler.javac()
+            .withOptions("-source", "8")
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "test.Catalog",
+                    "package test;",
+                    "import com.github.victornoel.eo.GenerateFlow;",
+                    "import java.util.List;",
+                    "@GenerateFlow",
+                    "public interface Catalog {",
+                    "  List<String> items(int count);",
+                    "}"
+                ),
+                JavaFileObjects.forSourceLines(
+                    "test.Scenario",
+                    "package test;",
+                    "import com.github.victornoel.eo.runtime.Publisher;",
+                    "import java.util.ArrayList;",
+                    "import java.util.List;",
+                    "import java.util.concurrent.Callable;",
+                    "public final class Scenario implements Callable<Object> {",
+                    "  public Object call() {",
+                    "    final StringBuilder seen = new StringBuilder();",
+                    "    final CatalogFlow flow = new CatalogFlow(",
+                    "      count -> {",
+                    "        seen.append(\"load;\");",
+                    "        final List<String> items = new ArrayList<>(count);",
+                    "        for (int idx = 0; idx < count; ++idx) {",
+                    "          items.add(String.valueOf(idx));",
+                    "        }",
+                    "        return items;",
+                    "      }",
+                    "    );",
+                    "    final Publisher.Subscription[] link = new Publisher.Subscription[1];",
+                    "    flow.items(5).subscribe(",
+                    "      new Publisher.Subscriber<String>() {",
+                    "        public void onSubscribe(final Publisher.Subscription sub) {",
+                    "          seen.append(\"subscribed;\");",
+                    "          link[0] = sub;",
+                    "        }",
+                    "        public void onNext(final String item) {",
+                    "          seen.append(item);",
+                    "          if (\"1\".equals(item)) {",
+                    "            link[0].request(2);",
+                    "          }",
+                    "        }",
+                    "        public void onError(final Throwable error) {",
+                    "          seen.append(error.getMessage());",
+                    "        }",
+                    "        public void onComplete() {",
+                    "          seen.append(\";done\");",
+                    "        }",
+                    "      }",
+                    "    );",
+                    "    link[0].request(2);",
+                    "    seen.append(';');",
+                    "    link[0].request(10);",
+                    "    return seen.toString();",
+                    "  }",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeeded();
+        Assertions.assertThat(new CompiledScenario(compilation, "test.Scenario").call())
+            .isEqualTo("subscribed;load;0123;4;done");
+    }
+
+    @Test
+    public void rejectsInterfacesWithoutIterables() {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "AnInterface",
+                    "import com.github.victornoel.eo.GenerateFlow;",
+                    "@GenerateFlow",
+                    "public interface AnInterface {",
+                    "  int size();",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).failed();
+        CompilationSubject.assertThat(compilation)
+            .hadErrorContaining("@GenerateFlow requires methods returning an Iterable");
+    }
+}
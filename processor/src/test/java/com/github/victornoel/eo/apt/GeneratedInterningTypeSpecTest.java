@@ -0,0 +1,167 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.CompilationSubject;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Tests for {@link GeneratedInterningTypeSpec}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class GeneratedInterningTypeSpecTest {
+
+    @Test
+    public void internsObjectResults() {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "AnInterface",
+                    "import com.github.victornoel.eo.GenerateInterning;",
+                    "import java.io.IOException;",
+                    "@GenerateInterning",
+                    "public interface AnInterface {",
+                    "  String code(int id) throws IOException;",
+                    "  <T> T value(T value);",
+                    "  int size();",
+                    "  byte[] bytes();",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        CompilationSubject.assertThat(compilation)
+            .generatedSourceFile("AnInterfaceInterning")
+            .hasSourceEquivalentTo(
+                JavaFileObjects.forSourceLines(
+                    "AnInterfaceInterning",
+                    "import com.github.victornoel.eo.runtime.InternTable;",
+                    "import java.io.IOException;",
+                    "import java.lang.Override;",
+                    "import java.lang.String;",
+                    "import javax.annotation.Generated;",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "@Generated(\"com.github.victornoel.eo.apt.GenerateEnvelopeProcessor\")",
+                    "public final class AnInterfaceInterning implements AnInterface {",
+                    "  private final AnInterface wrapped;",
+                    "  private final InternTable interned;",
+                    "  public AnInterfaceInterning(AnInterface wrapped) {",
+                    "    this(wrapped, new InternTable(4096));",
+                    "  }",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "  public AnInterfaceInterning(AnInterface wrapped, InternTable interned) {",
+                    "    this.wrapped = wrapped;",
+                    "    this.interned = interned;",
+                    "  }",
+                    "  @Override",
+                    "  public String code(int id) throws IOException {",
+                    "    return this.interned.intern(this.wrapped.code(id));",
+                    "  }",
+                    "  @Override",
+                    "  public <T> T value(T value) {",
+                    "    return this.interned.intern(this.wrapped.value(value));",
+                    "  }",
+                    "  @Override",
+                    "  public int size() {",
+                    "    return this.wrapped.size();",
+                    "  }",
+                    "  @Override",
+                    "  public byte[] bytes() {",
+                    "    return this.wrapped.bytes();",
+                    "  }",
+                    "  public InternTable interned() {",
+                    "    return this.interned;",
+                    "  }",
+                    "}"
+                )
+            );
+    }
+
+    @Test
+    public void sharesEqualResults() throws Exception {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "test.Codes",
+                    "package test;",
+                    "import com.github.victornoel.eo.GenerateInterning;",
+                    "import com.github.victornoel.eo.Interned;",
+                    "@GenerateInterning",
+                    "public interface Codes {",
+                    "  @Interned",
+                    "  String code(int id);",
+                    "  String name(int id);",
+                    "}"
+                ),
+                JavaFileObjects.forSourceLines(
+                    "test.Scenario",
+                    "package test;",
+                    "import java.util.concurrent.Callable;",
+                    "public final class Scenario implements Callable<Object> {",
+                    "  public Object call() {",
+                    "    final CodesInterning codes = new CodesInterning(",
+                    "      new Codes() {",
+                    "        public String code(int id) {",
+                    "          return new String(new char[] {'c', (char) ('0' + id % 2)});",
+                    "        }",
+                    "        public String name(int id) {",
+                    "          return this.code(id);",
+                    "        }",
+                    "      }",
+                    "    );",
+                    "    return (codes.code(1) == codes.code(3)) + \";\"",
+                    "      + (codes.name(1) == codes.name(3)) + ';'",
+                    "      + codes.interned().ratio();",
+                    "  }",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        Assertions.assertThat(new CompiledScenario(compilation, "test.Scenario").call())
+            .isEqualTo("true;false;0.5");
+    }
+
+    @Test
+    public void rejectsInternedPrimitives() {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "AnInterface",
+                    "import com.github.victornoel.eo.GenerateInterning;",
+                    "import com.github.victornoel.eo.Interned;",
+                    "@GenerateInterning",
+                    "public interface AnInterface {",
+                    "  @Interned",
+                    "  int size();",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation)
+            .hadErrorContaining("@Interned requires methods returning objects");
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.CompilationSubject;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Tests for {@link GeneratedLoadDriverTypeSpec}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class GeneratedLoadDriverTypeSpecTest {
+
+    @Test
+    public void callsMethodsWithGeneratedArguments() {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "AnInterface",
+                    "import com.github.victornoel.eo.GenerateLoadDriver;",
+                    "import java.io.IOException;",
+                    "@GenerateLoadDriver",
+                    "public interface AnInterface {",
+                    "  String get(int id) throws IOException;",
+                    "  void put(String value, Object meta);",
+                    "  <T> T value(T value);",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        CompilationSubject.assertThat(compilation)
+            .generatedSourceFile("AnInterfaceLoadDriver")
+            .hasSourceEquivalentTo(
+                JavaFileObjects.forSourceLines(
+                    "AnInterfaceLoadDriver",
+                    "import com.github.victornoel.eo.runtime.OpenLoop;",
+                    "import java.lang.Exception;",
+                    "import java.lang.InterruptedException;",
+                    "import java.lang.Object;",
+                    "import java.lang.StringBuilder;",
+                    "import java.lang.System;",
+                    "import java.util.SplittableRandom;",
+                    "import java.util.concurrent.TimeUnit;",
+                    "import javax.annotation.Generated;",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "@Generated(\"com.github.victornoel.eo.apt.GenerateEnvelopeProcessor\")",
+                    "public final class AnInterfaceLoadDriver {",
+                    "  private final AnInterface target;",
+                    "  private final OpenLoop loop;",
+                    "  private final int size;",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "  public AnInterfaceLoadDriver(AnInterface target, double rate, int threads) {",
+                    "    this(target, new OpenLoop(rate, threads, \"get\", \"put\"), 16);",
+                    "  }",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "  public AnInterfaceLoadDriver(AnInterface target, OpenLoop loop, int size) {",
+                    "    this.target = target;",
+                    "    this.loop = loop;",
+                    "    this.size = size;",
+                    "  }",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "  public void run(long duration, TimeUnit unit) throws InterruptedException {",
+                    "    this.loop.run(this::call, duration, unit);",
+                    "    this.loop.print(System.out);",
+                    "  }",
+                    "  public OpenLoop loop() {",
+                    "    return this.loop;",
+                    "  }",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "  private void call(final int method, final SplittableRandom random) throws Exception {",
+                    "    final int size = this.size;",
+                    "    switch (method) {",
+                    "      case 0:",
+                    "        this.target.get(random.nextInt());",
+                    "        break;",
+                    "      case 1:",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "        this.target.put(random.ints(size, 'a', 'z' + 1).collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append).toString(), (Object) null);",
+                    "        break;",
+                    "    }",
+                    "  }",
+                    "}"
+                )
+            );
+    }
+
+    @Test
+    public void drivesTheLoad() throws Exception {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "test.Store",
+                    "package test;",
+                    "import com.github.victornoel.eo.GenerateLoadDriver;",
+                    "import java.util.List;",
+                    "@GenerateLoadDriver",
+                    "public interface Store {",
+                    "  int get(long id);",
+                    "  void put(List<String> values);",
+                    "}"
+                ),
+                JavaFileObjects.forSourceLines(
+                    "test.Scenario",
+                    "package test;",
+                    "import java.util.List;",
+                    "import java.util.concurrent.Callable;",
+                    "import java.util.concurrent.TimeUnit;",
+                    "public final class Scenario implements Callable<Object> {",
+                    "  public Object call() throws Exception {",
+                    "    final StringBuffer sizes = new StringBuffer();",
+                    "    final StoreLoadDriver driver = new StoreLoadDriver(",
+                    "      new Store() {",
+                    "        public int get(long id) {",
+                    "          return 0;",
+                    "        }",
+                    "        public void put(List<String> values) {",
+                    "          sizes.append(values.size());",
+                    "        }",
+                    "      },",
+                    "      1000.0, 2",
+                    "    );",
+                    "    driver.loop().mix(\"get\", 0);",
+                    "    driver.run(20L, TimeUnit.MILLISECONDS);",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "    return driver.loop().latencies().get(1).count() + \";\" + sizes.substring(0, 4);",
+                    "  }",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        Assertions.assertThat(new CompiledScenario(compilation, "test.Scenario").call())
+            .isEqualTo("20;1616");
+    }
+
+    @Test
+    public void rejectsGenericInterfaces() {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "AnInterface",
+                    "import com.github.victornoel.eo.GenerateLoadDriver;",
+                    "@GenerateLoadDriver",
+                    "public interface AnInterface<T> {",
+                    "  T get();",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation)
+            .hadErrorContaining("@GenerateLoadDriver requires a non-generic interface");
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.CompilationSubject;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Tests for {@link GeneratedManagedTypeSpec}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class GeneratedManagedTypeSpecTest {
+
+    @Test
+    public void reportsCallsToControl() {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "test.AnInterface",
+                    "package test;",
+                    "import com.github.victornoel.eo.GenerateManaged;",
+                    "import java.io.IOException;",
+                    "import java.util.concurrent.CompletionStage;",
+                    "@GenerateManaged",
+                    "public interface AnInterface {",
+                    "  String get(int id) throws IOException;",
+                    "  CompletionStage<String> load(String key);",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        CompilationSubject.assertThat(compilation)
+            .generatedSourceFile("test.AnInterfaceManaged")
+            .hasSourceEquivalentTo(
+                JavaFileObjects.forSourceLines(
+                    "test.AnInterfaceManaged",
+                    "package test;",
+                    "import com.github.victornoel.eo.runtime.EnvelopeControl;",
+                    "import com.github.victornoel.eo.runtime.EnvelopeRegistry;",
+                    "import java.io.IOException;",
+                    "import java.lang.AutoCloseable;",
+                    "import java.lang.Override;",
+                    "import java.lang.String;",
+                    "import java.lang.Throwable;",
+                    "import java.util.Optional;",
+                    "import java.util.concurrent.CompletionStage;",
+                    "import javax.annotation.Generated;",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "@Generated(\"com.github.victornoel.eo.apt.GenerateEnvelopeProcessor\")",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "public final class AnInterfaceManaged implements AnInterface, AutoCloseable {",
+                    "  private final AnInterface wrapped;",
+                    "  private final EnvelopeControl control;",
+                    "  private final Optional<EnvelopeRegistry> registry;",
+                    "  public AnInterfaceManaged(AnInterface wrapped) {",
+                    "    this(wrapped, new EnvelopeControl(\"get\", \"load\"));",
+                    "  }",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "  public AnInterfaceManaged(AnInterface wrapped, EnvelopeRegistry registry) {",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "    this(wrapped, registry.registered(\"test.AnInterface\", new EnvelopeControl(\"get\", \"load\")), Optional.of(registry));",
+                    "  }",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "  public AnInterfaceManaged(AnInterface wrapped, EnvelopeControl control) {",
+                    "    this(wrapped, control, Optional.empty());",
+                    "  }",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "  private AnInterfaceManaged(AnInterface wrapped, EnvelopeControl control, Optional<EnvelopeRegistry> registry) {",
+                    "    this.wrapped = wrapped;",
+                    "    this.control = control;",
+                    "    this.registry = registry;",
+                    "  }",
+                    "  @Override",
+                    "  public String get(int id) throws IOException {",
+                    "    final long start = this.control.enter(0);",
+                    "    final String result;",
+                    "    try {",
+                    "      result = this.wrapped.get(id);",
+                    "    } catch (final Throwable error) {",
+                    "      this.control.exit(0, start, true);",
+                    "      throw error;",
+                    "    }",
+                    "    this.control.exit(0, start, false);",
+                    "    return result;",
+                    "  }",
+                    "  @Override",
+                    "  public CompletionStage<String> load(String key) {",
+                    "    final long start = this.control.enter(1);",
+                    "    final CompletionStage<String> result;",
+                    "    try {",
+                    "      result = this.wrapped.load(key);",
+                    "    } catch (final Throwable error) {",
+                    "      this.control.exit(1, start, true);",
+                    "      throw error;",
+                    "    }",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "    result.whenComplete((value, error) -> this.control.exit(1, start, error != null));",
+                    "    return result;",
+                    "  }",
+                    "  @Override",
+                    "  public void close() {",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "    this.registry.ifPresent(registry -> registry.unregister(this.control));",
+                    "  }",
+                    "  public EnvelopeControl control() {",
+                    "    return this.control;",
+                    "  }",
+                    "}"
+                )
+            );
+    }
+
+    @Test
+    public void countsFailedCalls() throws Exception {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "test.Parser",
+                    "package test;",
+                    "import com.github.victornoel.eo.GenerateManaged;",
+                    "@GenerateManaged",
+                    "public interface Parser {",
+                    "  int parse(String text);",
+                    "}"
+                ),
+                JavaFileObjects.forSourceLines(
+                    "test.Scenario",
+                    "package test;",
+                    "import java.util.concurrent.Callable;",
+                    "public final class Scenario implements Callable<Object> {",
+                    "  public Object call() {",
+                    "    final ParserManaged parser = new ParserManaged(Integer::parseInt);",
+                    "    parser.parse(\"1\");",
+                    "    try {",
+                    "      parser.parse(\"one\");",
+                    "    } catch (final NumberFormatException ex) {",
+                    "      parser.parse(\"2\");",
+                    "    }",
+                    "    return parser.control().getCalls()[0] + \";\"",
+                    "      + parser.control().getFailures()[0] + ';'",
+                    "      + parser.control().getInflight();",
+                    "  }",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        Assertions.assertThat(new CompiledScenario(compilation, "test.Scenario").call())
+            .isEqualTo("3;1;0");
+    }
+
+    @Test
+    public void unregistersControlWhenClosed() throws Exception {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "test.Parser",
+                    "package test;",
+                    "import com.github.victornoel.eo.GenerateManaged;",
+                    "@GenerateManaged",
+                    "public interface Parser {",
+                    "  int parse(String text);",
+                    "}"
+                ),
+                JavaFileObjects.forSourceLines(
+                    "test.Store",
+                    "package test;",
+                    "import com.github.victornoel.eo.GenerateManaged;",
+                    "@GenerateManaged",
+                    "public interface Store extends java.io.Closeable {",
+                    "  String get();",
+                    "  void close();",
+                    "}"
+                ),
+                JavaFileObjects.forSourceLines(
+                    "test.Scenario",
+                    "package test;",
+                    "import com.github.victornoel.eo.runtime.EnvelopeRegistry;",
+                    "import java.util.concurrent.Callable;",
+                    "import javax.management.MBeanServer;",
+                    "import javax.management.MBeanServerFactory;",
+                    "public final class Scenario implements Callable<Object> {",
+                    "  public Object call() throws Exception {",
+                    "    final MBeanServer server = MBeanServerFactory.newMBeanServer();",
+                    "    final EnvelopeRegistry registry = new EnvelopeRegistry(server);",
+                    "    final StringBuilder closed = new StringBuilder();",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "    final ParserManaged parser = new ParserManaged(Integer::parseInt, registry);",
+                    "    final StoreManaged store = new StoreManaged(",
+                    "      new Store() {",
+                    "        public String get() { return \"\"; }",
+                    "        public void close() { closed.append(\"closed\"); }",
+                    "      },",
+                    "      registry",
+                    "    );",
+                    "    final int before = server.getMBeanCount();",
+                    "    parser.close();",
+                    "    store.close();",
+                    "    return closed.toString() + ';' + (before - server.getMBeanCount());",
+                    "  }",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        CompilationSubject.assertThat(compilation)
+            .generatedSourceFile("test.StoreManaged")
+            .containsElementsIn(
+                JavaFileObjects.forSourceLines(
+                    "test.StoreManaged",
+                    "package test;",
+                    "import javax.annotation.Generated;",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "@Generated(\"com.github.victornoel.eo.apt.GenerateEnvelopeProcessor\")",
+                    "public final class StoreManaged implements Store {",
+                    "  @Override",
+                    "  public void close() {",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "    this.registry.ifPresent(registry -> registry.unregister(this.control));",
+                    "    final long start = this.control.enter(1);",
+                    "    try {",
+                    "      this.wrapped.close();",
+                    "    } catch (final Throwable error) {",
+                    "      this.control.exit(1, start, true);",
+                    "      throw error;",
+                    "    }",
+                    "    this.control.exit(1, start, false);",
+                    "  }",
+                    "}"
+                )
+            );
+        Assertions.assertThat(new CompiledScenario(compilation, "test.Scenario").call())
+            .isEqualTo("closed;2");
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.CompilationSubject;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Tests for {@link GeneratedMaterializedTypeSpec}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class GeneratedMaterializedTypeSpecTest {
+
+    @Test
+    public void keepsResultsInFinalFields() {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "AnInterface",
+                    "import com.github.victornoel.eo.GenerateMaterialized;",
+                    "import java.io.IOException;",
+                    "import java.util.List;",
+                    "@GenerateMaterialized",
+                    "public interface AnInterface {",
+                    "  String text() throws IOException;",
+                    "  int length();",
+                    "  List<String> words();",
+                    "  String greet(String who);",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        CompilationSubject.assertThat(compilation)
+            .generatedSourceFile("AnInterfaceMaterialized")
+            .hasSourceEquivalentTo(
+                JavaFileObjects.forSourceLines(
+                    "AnInterfaceMaterialized",
+                    "import com.github.victornoel.eo.runtime.Materialization;",
+                    "import java.io.IOException;",
+                    "import java.lang.Integer;",
+                    "import java.lang.Object;",
+                    "import java.lang.Override;",
+                    "import java.lang.String;",
+                    "import java.lang.SuppressWarnings;",
+                    "import java.util.List;",
+                    "import java.util.concurrent.CompletionException;",
+                    "import java.util.concurrent.Executor;",
+                    "import java.util.concurrent.ForkJoinPool;",
+                    "import javax.annotation.Generated;",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "@Generated(\"com.github.victornoel.eo.apt.GenerateEnvelopeProcessor\")",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "public final class AnInterfaceMaterialized implements AnInterface {",
+                    "  private final AnInterface wrapped;",
+                    "  private final Materialization materialization;",
+                    "  private final String result0;",
+                    "  private final int result1;",
+                    "  private final List<String> result2;",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "  public AnInterfaceMaterialized(AnInterface wrapped) throws IOException {",
+                    "    this(wrapped, ForkJoinPool.commonPool());",
+                    "  }",
+                    "  @SuppressWarnings(\"unchecked\")",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "  public AnInterfaceMaterialized(AnInterface wrapped, Executor executor) throws IOException {",
+                    "    this.wrapped = wrapped;",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "    this.materialization = new Materialization(\"text()\", \"length()\", \"words()\");",
+                    "    final Object[] values;",
+                    "    try {",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "      values = this.materialization.values(executor, wrapped::text, wrapped::length, wrapped::words);",
+                    "    } catch (final CompletionException ex) {",
+                    "      if (ex.getCause() instanceof IOException) {",
+                    "        throw (IOException) ex.getCause();",
+                    "      }",
+                    "      throw ex;",
+                    "    }",
+                    "    this.result0 = (String) values[0];",
+                    "    this.result1 = (Integer) values[1];",
+                    "    this.result2 = (List<String>) values[2];",
+                    "  }",
+                    "  @Override",
+                    "  public String text() throws IOException {",
+                    "    return this.result0;",
+                    "  }",
+                    "  @Override",
+                    "  public int length() {",
+                    "    return this.result1;",
+                    "  }",
+                    "  @Override",
+                    "  public List<String> words() {",
+                    "    return this.result2;",
+                    "  }",
+                    "  @Override",
+                    "  public String greet(String who) {",
+                    "    return this.wrapped.greet(who);",
+                    "  }",
+                    "  public Materialization materialization() {",
+                    "    return this.materialization;",
+                    "  }",
+                    "}"
+                )
+            );
+    }
+
+    @Test
+    public void evaluatesMethodsConcurrentlyOnce() throws Exception {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "test.Text",
+                    "package test;",
+                    "import com.github.victornoel.eo.GenerateMaterialized;",
+                    "@GenerateMaterialized",
+                    "public interface Text {",
+                    "  String upper() throws InterruptedException;",
+                    "  String lower() throws InterruptedException;",
+                    "}"
+                ),
+                JavaFileObjects.forSourceLines(
+                    "test.Scenario",
+                    "package test;",
+                    "import java.util.concurrent.Callable;",
+                    "import java.util.concurrent.CountDownLatch;",
+                    "import java.util.concurrent.Executors;",
+                    "import java.util.concurrent.ExecutorService;",
+                    "import java.util.concurrent.atomic.AtomicInteger;",
+                    "public final class Scenario implements Callable<Object> {",
+                    "  public Object call() throws Exception {",
+                    "    final CountDownLatch both = new CountDownLatch(2);",
+                    "    final AtomicInteger calls = new AtomicInteger();",
+                    "    final ExecutorService pool = Executors.newFixedThreadPool(2);",
+                    "    final TextMaterialized text = new TextMaterialized(",
+                    "      new Text() {",
+                    "        public String upper() throws InterruptedException {",
+                    "          calls.incrementAndGet();",
+                    "          both.countDown();",
+                    "          both.await();",
+                    "          return \"ABC\";",
+                    "        }",
+                    "        public String lower() throws InterruptedException {",
+                    "          calls.incrementAndGet();",
+                    "          both.countDown();",
+                    "          both.await();",
+                    "          return \"abc\";",
+                    "        }",
+                    "      },",
+                    "      pool",
+                    "    );",
+                    "    pool.shutdown();",
+                    "    return text.upper() + text.lower() + text.upper()",
+                    "      + ';' + calls.get()",
+                    "      + ';' + (text.materialization().nanos(1) > 0L);",
+                    "  }",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        Assertions.assertThat(new CompiledScenario(compilation, "test.Scenario").call())
+            .isEqualTo("ABCabcABC;2;true");
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.CompilationSubject;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Tests for {@link GeneratedOffHeapTypeSpec}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class GeneratedOffHeapTypeSpecTest {
+
+    @Test
+    public void storesBytesOffHeap() {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "AnInterface",
+                    "import com.github.victornoel.eo.GenerateOffHeap;",
+                    "import java.io.IOException;",
+                    "@GenerateOffHeap",
+                    "public interface AnInterface {",
+                    "  byte[] page(int number) throws IOException;",
+                    "  int count();",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        CompilationSubject.assertThat(compilation)
+            .generatedSourceFile("AnInterfaceOffHeap")
+            .hasSourceEquivalentTo(
+                JavaFileObjects.forSourceLines(
+                    "AnInterfaceOffHeap",
+                    "import com.github.victornoel.eo.runtime.OffHeapStore;",
+                    "import java.io.IOException;",
+                    "import java.lang.Integer;",
+                    "import java.lang.Object;",
+                    "import java.lang.Override;",
+                    "import java.util.concurrent.CompletionException;",
+                    "import javax.annotation.Generated;",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "@Generated(\"com.github.victornoel.eo.apt.GenerateEnvelopeProcessor\")",
+                    "public final class AnInterfaceOffHeap implements AnInterface {",
+                    "  private final AnInterface wrapped;",
+                    "  private final OffHeapStore store;",
+                    "  public AnInterfaceOffHeap(AnInterface wrapped, long capacity) {",
+                    "    this(wrapped, new OffHeapStore(capacity));",
+                    "  }",
+                    "  public AnInterfaceOffHeap(AnInterface wrapped, OffHeapStore store) {",
+                    "    this.wrapped = wrapped;",
+                    "    this.store = store;",
+                    "  }",
+                    "  @Override",
+                    "  public byte[] page(int number) throws IOException {",
+                    "    try {",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "      return this.store.bytes(new Key0(number), () -> this.wrapped.page(number));",
+                    "    } catch (final CompletionException ex) {",
+                    "      if (ex.getCause() instanceof IOException) {",
+                    "        throw (IOException) ex.getCause();",
+                    "      }",
+                    "      throw ex;",
+                    "    }",
+                    "  }",
+                    "  @Override",
+                    "  public int count() {",
+                    "    return this.wrapped.count();",
+                    "  }",
+                    "  public OffHeapStore store() {",
+                    "    return this.store;",
+                    "  }",
+                    "  private static final class Key0 {",
+                    "    private final int number;",
+                    "    Key0(final int number) {",
+                    "      this.number = number;",
+                    "    }",
+                    "    @Override",
+                    "    public boolean equals(final Object other) {",
+                    "      if (!(other instanceof Key0)) {",
+                    "        return false;",
+                    "      }",
+                    "      final Key0 that = (Key0) other;",
+                    "      return this.number == that.number;",
+                    "    }",
+                    "    @Override",
+                    "    public int hashCode() {",
+                    "      int hash = 1;",
+                    "      hash = 31 * hash + Integer.hashCode(this.number);",
+                    "      return hash;",
+                    "    }",
+                    "  }",
+                    "}"
+                )
+            );
+    }
+
+    @Test
+    public void callsWrappedOncePerArguments() throws Exception {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "test.Renderer",
+                    "package test;",
+                    "import com.github.victornoel.eo.GenerateOffHeap;",
+                    "@GenerateOffHeap",
+                    "public interface Renderer {",
+                    "  String render(String name, int[] sizes);",
+                    "}"
+                ),
+                JavaFileObjects.forSourceLines(
+                    "test.Scenario",
+                    "package test;",
+                    "import java.util.concurrent.Callable;",
+                    "public final class Scenario implements Callable<Object> {",
+                    "  public Object call() {",
+                    "    final int[] calls = new int[1];",
+                    "    final RendererOffHeap renderer = new RendererOffHeap(",
+                    "      (name, sizes) -> name + ++calls[0] + sizes.length, 1L << 20",
+                    "    );",
+                    "    renderer.render(\"a\", new int[] {1, 2});",
+                    "    renderer.render(\"b\", new int[] {1});",
+                    "    return renderer.render(\"a\", new int[] {1, 2}) + ';'",
+                    "      + renderer.store().size() + ';' + renderer.store().used();",
+                    "  }",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        Assertions.assertThat(new CompiledScenario(compilation, "test.Scenario").call())
+            .isEqualTo("a12;2;6");
+    }
+
+    @Test
+    public void rejectsInterfacesWithoutStorableResults() {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "AnInterface",
+                    "import com.github.victornoel.eo.GenerateOffHeap;",
+                    "@GenerateOffHeap",
+                    "public interface AnInterface {",
+                    "  long count();",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation)
+            .hadErrorContaining("requires methods returning byte[]");
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.CompilationSubject;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Tests for {@link GeneratedPerThreadTypeSpec}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class GeneratedPerThreadTypeSpecTest {
+
+    @Test
+    public void delegatesToInstanceOfThread() {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "AnInterface",
+                    "import com.github.victornoel.eo.GeneratePerThread;",
+                    "@GeneratePerThread",
+                    "public interface AnInterface {",
+                    "  String format(long delegate);",
+                    "  void reset();",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        CompilationSubject.assertThat(compilation)
+            .generatedSourceFile("AnInterfacePerThread")
+            .hasSourceEquivalentTo(
+                JavaFileObjects.forSourceLines(
+                    "AnInterfacePerThread",
+                    "import com.github.victornoel.eo.runtime.PerThread;",
+                    "import java.lang.Override;",
+                    "import java.lang.String;",
+                    "import java.util.function.Supplier;",
+                    "import javax.annotation.Generated;",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "@Generated(\"com.github.victornoel.eo.apt.GenerateEnvelopeProcessor\")",
+                    "public final class AnInterfacePerThread implements AnInterface {",
+                    "  private final PerThread<AnInterface> delegates;",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "  public AnInterfacePerThread(Supplier<? extends AnInterface> factory) {",
+                    "    this(new PerThread<>(factory));",
+                    "  }",
+                    "  public AnInterfacePerThread(PerThread<AnInterface> delegates) {",
+                    "    this.delegates = delegates;",
+                    "  }",
+                    "  @Override",
+                    "  public String format(long delegate) {",
+                    "    final AnInterface delegate1 = this.delegates.acquire();",
+                    "    try {",
+                    "      return delegate1.format(delegate);",
+                    "    } finally {",
+                    "      this.delegates.release(delegate1);",
+                    "    }",
+                    "  }",
+                    "  @Override",
+                    "  public void reset() {",
+                    "    final AnInterface delegate = this.delegates.acquire();",
+                    "    try {",
+                    "      delegate.reset();",
+                    "    } finally {",
+                    "      this.delegates.release(delegate);",
+                    "    }",
+                    "  }",
+                    "  public PerThread<AnInterface> delegates() {",
+                    "    return this.delegates;",
+                    "  }",
+                    "}"
+                )
+            );
+    }
+
+    @Test
+    public void keepsOneInstancePerThread() throws Exception {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "test.Counter",
+                    "package test;",
+                    "import com.github.victornoel.eo.GeneratePerThread;",
+                    "@GeneratePerThread",
+                    "public interface Counter {",
+                    "  int next();",
+                    "}"
+                ),
+                JavaFileObjects.forSourceLines(
+                    "test.Scenario",
+                    "package test;",
+                    "import java.util.concurrent.Callable;",
+                    "public final class Scenario implements Callable<Object> {",
+                    "  public Object call() throws Exception {",
+                    "    final CounterPerThread counter = new CounterPerThread(",
+                    "      () -> new Counter() {",
+                    "        private int count;",
+                    "        public int next() {",
+                    "          return ++this.count;",
+                    "        }",
+                    "      }",
+                    "    );",
+                    "    final int[] other = new int[1];",
+                    "    counter.next();",
+                    "    final Thread thread = new Thread(() -> other[0] = counter.next());",
+                    "    thread.start();",
+                    "    thread.join();",
+                    "    return counter.next() + \";\" + other[0] + ';'",
+                    "      + counter.delegates().instances();",
+                    "  }",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        Assertions.assertThat(new CompiledScenario(compilation, "test.Scenario").call())
+            .isEqualTo("2;1;2");
+    }
+}
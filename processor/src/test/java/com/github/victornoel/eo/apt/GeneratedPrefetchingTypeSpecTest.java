@@ -0,0 +1,234 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.CompilationSubject;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Tests for {@link GeneratedPrefetchingTypeSpec}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class GeneratedPrefetchingTypeSpecTest {
+
+    @Test
+    public void wrapsIteratorsAndIterables() {
+        final Compilation compilation = Compiler.javac()
+            .withOptions("-source", "8")
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "AnInterface",
+                    "import com.github.victornoel.eo.GeneratePrefetching;",
+                    "import com.github.victornoel.eo.Prefetched;",
+                    "import java.util.Iterator;",
+                    "@GeneratePrefetching",
+                    "public interface AnInterface {",
+                    "  Iterator<String> lines(String origin);",
+                    "  @Prefetched(buffer = 4)",
+                    "  Iterable<? extends Number> values();",
+                    "  int size();",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeeded();
+        CompilationSubject.assertThat(compilation)
+            .generatedSourceFile("AnInterfacePrefetching")
+            .hasSourceEquivalentTo(
+                JavaFileObjects.forSourceLines(
+                    "AnInterfacePrefetching",
+                    "import com.github.victornoel.eo.runtime.DaemonThreads;",
+                    "import com.github.victornoel.eo.runtime.Prefetching;",
+                    "import java.lang.Iterable;",
+                    "import java.lang.Number;",
+                    "import java.lang.Override;",
+                    "import java.lang.String;",
+                    "import java.util.Iterator;",
+                    "import java.util.concurrent.Executor;",
+                    "import java.util.concurrent.Executors;",
+                    "import javax.annotation.Generated;",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "@Generated(\"com.github.victornoel.eo.apt.GenerateEnvelopeProcessor\")",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "public final class AnInterfacePrefetching implements AnInterface {",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "  private static final Executor SHARED = Executors.newCachedThreadPool(",
+                    "    new DaemonThreads(\"AnInterfacePrefetching\"));",
+                    "  private final AnInterface wrapped;",
+                    "  private final Executor executor;",
+                    "  public AnInterfacePrefetching(AnInterface wrapped) {",
+                    "    this(wrapped, AnInterfacePrefetching.SHARED);",
+                    "  }",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "  public AnInterfacePrefetching(AnInterface wrapped, Executor executor) {",
+                    "    this.wrapped = wrapped;",
+                    "    this.executor = executor;",
+                    "  }",
+                    "  @Override",
+                    "  public Iterator<String> lines(String origin) {",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "    return new Prefetching<String>(this.wrapped.lines(origin), 16, this.executor).start();",
+                    "  }",
+                    "  @Override",
+                    "  public Iterable<? extends Number> values() {",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "    final Iterable<? extends Number> origin = this.wrapped.values();",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "    return () -> new Prefetching<Number>(origin.iterator(), 4, this.executor).start();",
+                    "  }",
+                    "  @Override",
+                    "  public int size() {",
+                    "    return this.wrapped.size();",
+                    "  }",
+                    "}"
+                )
+            );
+    }
+
+    @Test
+    public void readsAheadOnExecutor() throws Exception {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "test.Rows",
+                    "package test;",
+                    "import com.github.victornoel.eo.GeneratePrefetching;",
+                    "import com.github.victornoel.eo.Prefetched;",
+                    "import java.util.Iterator;",
+                    "@GeneratePrefetching",
+                    "public interface Rows {",
+                    "  @Prefetched(buffer = 2)",
+                    "  Iterator<Integer> rows(int count);",
+                    "}"
+                ),
+                JavaFileObjects.forSourceLines(
+                    "test.Scenario",
+                    "package test;",
+                    "import java.util.Iterator;",
+                    "import java.util.concurrent.Callable;",
+                    "import java.util.concurrent.ExecutorService;",
+                    "import java.util.concurrent.Executors;",
+                    "import java.util.stream.IntStream;",
+                    "public final class Scenario implements Callable<Object> {",
+                    "  public Object call() throws Exception {",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "    final ExecutorService executor = Executors.newSingleThreadExecutor();",
+                    "    final StringBuilder seen = new StringBuilder();",
+                    "    final Thread caller = Thread.currentThread();",
+                    "    final Iterator<Integer> rows = new RowsPrefetching(",
+                    "      count -> IntStream.range(0, count).boxed().peek(",
+                    "        row -> seen.append(Thread.currentThread() != caller)",
+                    "      ).iterator(),",
+                    "      executor",
+                    "    ).rows(3);",
+                    "    int sum = 0;",
+                    "    while (rows.hasNext()) {",
+                    "      sum += rows.next();",
+                    "    }",
+                    "    executor.shutdown();",
+                    "    return seen.append(';').append(sum).toString();",
+                    "  }",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        Assertions.assertThat(new CompiledScenario(compilation, "test.Scenario").call())
+            .isEqualTo("truetruetrue;3");
+    }
+
+    @Test
+    public void rejectsPrefetchedOnOtherResults() {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "AnInterface",
+                    "import com.github.victornoel.eo.GeneratePrefetching;",
+                    "import com.github.victornoel.eo.Prefetched;",
+                    "import java.util.List;",
+                    "@GeneratePrefetching",
+                    "public interface AnInterface {",
+                    "  @Prefetched",
+                    "  List<String> lines();",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).failed();
+        CompilationSubject.assertThat(compilation)
+            .hadErrorContaining("but lines returns a java.util.List<java.lang.String>");
+    }
+
+    @Test
+    public void delegatesIterablesOfLowerBoundedElements() throws Exception {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "AnInterface",
+                    "import com.github.victornoel.eo.GeneratePrefetching;",
+                    "import java.util.Iterator;",
+                    "@GeneratePrefetching",
+                    "public interface AnInterface {",
+                    "  Iterable<? super String> sinks();",
+                    "  <T> Iterable<? super T> typed(T value);",
+                    "  Iterator<? super String> lines();",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        Assertions.assertThat(
+            compilation.generatedSourceFile("AnInterfacePrefetching")
+                .get()
+                .getCharContent(false)
+                .toString()
+        ).contains(
+            "return this.wrapped.sinks();",
+            "return this.wrapped.typed(value);"
+        );
+    }
+
+    @Test
+    public void rejectsPrefetchedOnLowerBoundedIterables() {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "AnInterface",
+                    "import com.github.victornoel.eo.GeneratePrefetching;",
+                    "import com.github.victornoel.eo.Prefetched;",
+                    "@GeneratePrefetching",
+                    "public interface AnInterface {",
+                    "  @Prefetched",
+                    "  Iterable<? super String> sinks();",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).failed();
+        CompilationSubject.assertThat(compilation)
+            .hadErrorContaining("@Prefetched can't read ahead of sinks");
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.CompilationSubject;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Tests for {@link GeneratedRateLimitedTypeSpec}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class GeneratedRateLimitedTypeSpecTest {
+
+    @Test
+    public void limitsAnnotatedMethods() {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "AnInterface",
+                    "import com.github.victornoel.eo.GenerateRateLimited;",
+                    "import com.github.victornoel.eo.Key;",
+                    "import com.github.victornoel.eo.RateLimit;",
+                    "import java.io.IOException;",
+                    "import java.util.concurrent.TimeUnit;",
+                    "@GenerateRateLimited",
+                    "public interface AnInterface {",
+                    "  @RateLimit(permits = 100)",
+                    "  String get(@Key String tenant, int id) throws IOException;",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "  @RateLimit(permits = 10, period = 2, unit = TimeUnit.MINUTES, burst = 1, policy = RateLimit.Policy.FAIL)",
+                    "  void put(String value);",
+                    "  int size();",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        CompilationSubject.assertThat(compilation)
+            .generatedSourceFile("AnInterfaceRateLimited")
+            .hasSourceEquivalentTo(
+                JavaFileObjects.forSourceLines(
+                    "AnInterfaceRateLimited",
+                    "import com.github.victornoel.eo.runtime.Throttle;",
+                    "import java.io.IOException;",
+                    "import java.lang.Override;",
+                    "import java.lang.String;",
+                    "import java.util.Arrays;",
+                    "import java.util.Collections;",
+                    "import java.util.List;",
+                    "import java.util.concurrent.TimeUnit;",
+                    "import javax.annotation.Generated;",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "@Generated(\"com.github.victornoel.eo.apt.GenerateEnvelopeProcessor\")",
+                    "public final class AnInterfaceRateLimited implements AnInterface {",
+                    "  private final AnInterface wrapped;",
+                    "  private final List<Throttle> throttles;",
+                    "  public AnInterfaceRateLimited(AnInterface wrapped) {",
+                    "    this.wrapped = wrapped;",
+                    "    this.throttles = Collections.unmodifiableList(Arrays.asList(",
+                    "      new Throttle(\"get\", 100L, 1L, TimeUnit.SECONDS, 0L),",
+                    "      new Throttle(\"put\", 10L, 2L, TimeUnit.MINUTES, 1L)",
+                    "    ));",
+                    "  }",
+                    "  @Override",
+                    "  public String get(String tenant, int id) throws IOException {",
+                    "    this.throttles.get(0).block(tenant);",
+                    "    return this.wrapped.get(tenant, id);",
+                    "  }",
+                    "  @Override",
+                    "  public void put(String value) {",
+                    "    this.throttles.get(1).fail(null);",
+                    "    this.wrapped.put(value);",
+                    "  }",
+                    "  @Override",
+                    "  public int size() {",
+                    "    return this.wrapped.size();",
+                    "  }",
+                    "  public List<Throttle> throttles() {",
+                    "    return this.throttles;",
+                    "  }",
+                    "}"
+                )
+            );
+    }
+
+    @Test
+    public void delaysCallsOverTheLimit() throws Exception {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "test.Calls",
+                    "package test;",
+                    "import com.github.victornoel.eo.GenerateRateLimited;",
+                    "import com.github.victornoel.eo.RateLimit;",
+                    "@GenerateRateLimited",
+                    "public interface Calls {",
+                    "  @RateLimit(permits = 20, burst = 1, policy = RateLimit.Policy.DELAY)",
+                    "  int call(int value);",
+                    "}"
+                ),
+                JavaFileObjects.forSourceLines(
+                    "test.Scenario",
+                    "package test;",
+                    "import java.util.concurrent.Callable;",
+                    "public final class Scenario implements Callable<Object> {",
+                    "  public Object call() {",
+                    "    final CallsRateLimited calls = new CallsRateLimited(value -> value);",
+                    "    int sum = 0;",
+                    "    for (int idx = 1; idx <= 3; ++idx) {",
+                    "      sum += calls.call(idx);",
+                    "    }",
+                    "    return sum + \";\" + calls.throttles().get(0).throttled();",
+                    "  }",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        Assertions.assertThat(new CompiledScenario(compilation, "test.Scenario").call())
+            .isEqualTo("6;2");
+    }
+
+    @Test
+    public void rejectsInvalidRates() {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "AnInterface",
+                    "import com.github.victornoel.eo.GenerateRateLimited;",
+                    "import com.github.victornoel.eo.RateLimit;",
+                    "@GenerateRateLimited",
+                    "public interface AnInterface {",
+                    "  @RateLimit(permits = 0)",
+                    "  String get(String key);",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation)
+            .hadErrorContaining("@RateLimit of get requires positive permits");
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.CompilationSubject;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Tests for {@link GeneratedRecorderTypeSpec} and
+ * {@link GeneratedReplayerTypeSpec}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class GeneratedRecorderTypeSpecTest {
+
+    @Test
+    public void recordsBeforeDelegating() {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "AnInterface",
+                    "import com.github.victornoel.eo.GenerateRecorder;",
+                    "@GenerateRecorder",
+                    "public interface AnInterface {",
+                    "  String test(int at, String b);",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        CompilationSubject.assertThat(compilation)
+            .generatedSourceFile("AnInterfaceRecorder")
+            .hasSourceEquivalentTo(
+                JavaFileObjects.forSourceLines(
+                    "AnInterfaceRecorder",
+                    "import com.github.victornoel.eo.runtime.BufferWriter;",
+                    "import com.github.victornoel.eo.runtime.Journal;",
+                    "import java.lang.Override;",
+                    "import java.lang.String;",
+                    "import javax.annotation.Generated;",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "@Generated(\"com.github.victornoel.eo.apt.GenerateEnvelopeProcessor\")",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "public final class AnInterfaceRecorder implements AnInterface {",
+                    String.format(
+                        "  public static final int FINGERPRINT = %d;",
+                        "test(int,java.lang.String)".hashCode()
+                    ),
+                    "  private final AnInterface wrapped;",
+                    "  private final Journal journal;",
+                    "  private final BufferWriter writer;",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "  public AnInterfaceRecorder(AnInterface wrapped, Journal journal) {",
+                    "    this.wrapped = wrapped;",
+                    "    this.journal = journal;",
+                    "    this.writer = journal.writer();",
+                    "    journal.stamp(FINGERPRINT);",
+                    "  }",
+                    "  @Override",
+                    "  public String test(int at, String b) {",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "    final int at1 = this.journal.claim(0, this.writer.bounded(0L + 4 + this.writer.sizeOf(b)));",
+                    "    if (at1 >= 0) {",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "      this.journal.commit(at1, this.writer.putString(this.writer.putInt(at1, at), b));",
+                    "    }",
+                    "    return this.wrapped.test(at, b);",
+                    "  }",
+                    "}"
+                )
+            );
+    }
+
+    @Test
+    public void rejectsUnsupportedParameters() {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "AnInterface",
+                    "import com.github.victornoel.eo.GenerateRecorder;",
+                    "@GenerateRecorder",
+                    "public interface AnInterface {",
+                    "  void test(Object obj);",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).failed();
+        CompilationSubject.assertThat(compilation)
+            .hadErrorContaining("obj of test is a java.lang.Object");
+    }
+
+    @Test
+    public void replaysRecordedCalls() throws Exception {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "test.Calls",
+                    "package test;",
+                    "import com.github.victornoel.eo.GenerateRecorder;",
+                    "@GenerateRecorder",
+                    "public interface Calls {",
+                    "  void hit(int count, String name);",
+                    "  long sum(long a, double b, byte[] c) throws Exception;",
+                    "  void none();",
+                    "}"
+                ),
+                JavaFileObjects.forSourceLines(
+                    "test.Scenario",
+                    "package test;",
+                    "import com.github.victornoel.eo.runtime.Journal;",
+                    "import java.nio.file.Files;",
+                    "import java.nio.file.Path;",
+                    "import java.util.concurrent.Callable;",
+                    "public final class Scenario implements Callable<Object> {",
+                    "  public Object call() throws Exception {",
+                    "    final Path file = Files.createTempFile(\"calls\", \".journal\");",
+                    "    final StringBuilder seen = new StringBuilder();",
+                    "    final Calls log = new Calls() {",
+                    // @checkstyle LineLengthCheck (3 lines)
+                    "      public void hit(int count, String name) { seen.append(count).append(name).append(';'); }",
+                    "      public long sum(long a, double b, byte[] c) { seen.append(a + b + c.length).append(';'); return 0; }",
+                    "      public void none() { seen.append(\"none;\"); }",
+                    "    };",
+                    "    try (Journal journal = new Journal(file, 16, 64)) {",
+                    "      final Calls calls = new CallsRecorder(log, journal);",
+                    "      calls.hit(1, \"a\");",
+                    "      calls.sum(2L, 0.5, new byte[] {1, 2});",
+                    "      calls.hit(3, null);",
+                    "      calls.none();",
+                    "      calls.sum(4L, 1.5, new byte[100]);",
+                    "    }",
+                    "    seen.append('|');",
+                    "    final long count = new CallsReplayer(file).replay(log);",
+                    "    Files.delete(file);",
+                    "    return seen.append(count).toString();",
+                    "  }",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        Assertions.assertThat(new CompiledScenario(compilation, "test.Scenario").call())
+            .isEqualTo("1a;4.5;3null;none;105.5;|1a;4.5;3null;none;4");
+    }
+}
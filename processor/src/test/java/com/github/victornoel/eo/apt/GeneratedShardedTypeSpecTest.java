@@ -0,0 +1,186 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.CompilationSubject;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Tests for {@link GeneratedShardedTypeSpec}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class GeneratedShardedTypeSpecTest {
+
+    @Test
+    public void routesByKey() {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "AnInterface",
+                    "import com.github.victornoel.eo.Broadcast;",
+                    "import com.github.victornoel.eo.GenerateSharded;",
+                    "import com.github.victornoel.eo.Key;",
+                    "@GenerateSharded",
+                    "public interface AnInterface {",
+                    "  String get(@Key long id, String field);",
+                    "  int size();",
+                    "  @Broadcast",
+                    "  void clear(boolean delegate);",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        CompilationSubject.assertThat(compilation)
+            .generatedSourceFile("AnInterfaceSharded")
+            .hasSourceEquivalentTo(
+                JavaFileObjects.forSourceLines(
+                    "AnInterfaceSharded",
+                    "import com.github.victornoel.eo.runtime.Shards;",
+                    "import java.lang.Override;",
+                    "import java.lang.String;",
+                    "import java.util.ArrayList;",
+                    "import java.util.List;",
+                    "import javax.annotation.Generated;",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "@Generated(\"com.github.victornoel.eo.apt.GenerateEnvelopeProcessor\")",
+                    "public final class AnInterfaceSharded implements AnInterface {",
+                    "  private final List<AnInterface> delegates;",
+                    "  private final Shards shards;",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "  public AnInterfaceSharded(List<? extends AnInterface> delegates) {",
+                    "    this.delegates = new ArrayList<>(delegates);",
+                    "    this.shards = new Shards(delegates.size());",
+                    "  }",
+                    "  @Override",
+                    "  public String get(long id, String field) {",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "    return this.delegates.get(this.shards.index(id)).get(id, field);",
+                    "  }",
+                    "  @Override",
+                    "  public int size() {",
+                    "    return this.delegates.get(0).size();",
+                    "  }",
+                    "  @Override",
+                    "  public void clear(boolean delegate) {",
+                    "    for (final AnInterface delegate1 : this.delegates) {",
+                    "      delegate1.clear(delegate);",
+                    "    }",
+                    "  }",
+                    "}"
+                )
+            );
+    }
+
+    @Test
+    public void keepsEachKeyOnOneDelegate() throws Exception {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "test.Counters",
+                    "package test;",
+                    "import com.github.victornoel.eo.Broadcast;",
+                    "import com.github.victornoel.eo.GenerateSharded;",
+                    "import com.github.victornoel.eo.Key;",
+                    "@GenerateSharded",
+                    "public interface Counters {",
+                    "  int increment(@Key String name);",
+                    "  @Broadcast",
+                    "  void reset();",
+                    "}"
+                ),
+                JavaFileObjects.forSourceLines(
+                    "test.Scenario",
+                    "package test;",
+                    "import java.util.ArrayList;",
+                    "import java.util.HashMap;",
+                    "import java.util.List;",
+                    "import java.util.Map;",
+                    "import java.util.concurrent.Callable;",
+                    "public final class Scenario implements Callable<Object> {",
+                    "  public Object call() {",
+                    "    final List<Map<String, Integer>> shards = new ArrayList<>();",
+                    "    final List<Counters> delegates = new ArrayList<>();",
+                    "    for (int idx = 0; idx < 4; ++idx) {",
+                    "      final Map<String, Integer> counts = new HashMap<>();",
+                    "      shards.add(counts);",
+                    "      delegates.add(",
+                    "        new Counters() {",
+                    "          public int increment(final String name) {",
+                    "            return counts.merge(name, 1, Integer::sum);",
+                    "          }",
+                    "          public void reset() {",
+                    "            counts.clear();",
+                    "          }",
+                    "        }",
+                    "      );",
+                    "    }",
+                    "    final Counters counters = new CountersSharded(delegates);",
+                    "    int last = 0;",
+                    "    for (int idx = 0; idx < 100; ++idx) {",
+                    "      last = counters.increment(\"k\" + idx % 10);",
+                    "    }",
+                    "    int keys = 0;",
+                    "    for (final Map<String, Integer> counts : shards) {",
+                    "      keys += counts.size();",
+                    "    }",
+                    "    counters.reset();",
+                    "    int left = 0;",
+                    "    for (final Map<String, Integer> counts : shards) {",
+                    "      left += counts.size();",
+                    "    }",
+                    "    return last + \";\" + keys + ';' + left;",
+                    "  }",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        Assertions.assertThat(new CompiledScenario(compilation, "test.Scenario").call())
+            .isEqualTo("10;10;0");
+    }
+
+    @Test
+    public void rejectsBroadcastWithResult() {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "AnInterface",
+                    "import com.github.victornoel.eo.Broadcast;",
+                    "import com.github.victornoel.eo.GenerateSharded;",
+                    "@GenerateSharded",
+                    "public interface AnInterface {",
+                    "  @Broadcast",
+                    "  int size();",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).failed();
+        CompilationSubject.assertThat(compilation)
+            .hadErrorContaining("only applies to void methods without @Key");
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.CompilationSubject;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Tests for {@link GeneratedSingleflightTypeSpec}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class GeneratedSingleflightTypeSpecTest {
+
+    @Test
+    public void collapsesOnlyAnnotatedMethods() {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "AnInterface",
+                    "import com.github.victornoel.eo.Collapsed;",
+                    "import com.github.victornoel.eo.GenerateSingleflight;",
+                    "@GenerateSingleflight",
+                    "public interface AnInterface {",
+                    "  @Collapsed",
+                    "  String load(String key, double ratio);",
+                    "  String uncached(String key);",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        CompilationSubject.assertThat(compilation)
+            .generatedSourceFile("AnInterfaceSingleflight")
+            .hasSourceEquivalentTo(
+                JavaFileObjects.forSourceLines(
+                    "AnInterfaceSingleflight",
+                    "import com.github.victornoel.eo.runtime.Singleflight;",
+                    "import java.lang.Double;",
+                    "import java.lang.Object;",
+                    "import java.lang.Override;",
+                    "import java.lang.String;",
+                    "import java.util.Objects;",
+                    "import javax.annotation.Generated;",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "@Generated(\"com.github.victornoel.eo.apt.GenerateEnvelopeProcessor\")",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "public final class AnInterfaceSingleflight implements AnInterface {",
+                    "  private final AnInterface wrapped;",
+                    "  private final Singleflight flights;",
+                    "  public AnInterfaceSingleflight(AnInterface wrapped) {",
+                    "    this.wrapped = wrapped;",
+                    "    this.flights = new Singleflight();",
+                    "  }",
+                    "  @Override",
+                    "  public String load(String key, double ratio) {",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "    return (String) this.flights.call(new Key0(key, ratio), () -> this.wrapped.load(key, ratio));",
+                    "  }",
+                    "  @Override",
+                    "  public String uncached(String key) {",
+                    "    return this.wrapped.uncached(key);",
+                    "  }",
+                    "  public Singleflight flights() {",
+                    "    return this.flights;",
+                    "  }",
+                    "  private static final class Key0 {",
+                    "    private final Object key;",
+                    "    private final double ratio;",
+                    "    Key0(final Object key, final double ratio) {",
+                    "      this.key = key;",
+                    "      this.ratio = ratio;",
+                    "    }",
+                    "    @Override",
+                    "    public boolean equals(final Object other) {",
+                    "      if (!(other instanceof Key0)) {",
+                    "        return false;",
+                    "      }",
+                    "      final Key0 that = (Key0) other;",
+                    "      return Objects.equals(this.key, that.key)",
+                    "        && Double.compare(this.ratio, that.ratio) == 0;",
+                    "    }",
+                    "    @Override",
+                    "    public int hashCode() {",
+                    "      int hash = 1;",
+                    "      hash = 31 * hash + Objects.hashCode(this.key);",
+                    "      hash = 31 * hash + Double.hashCode(this.ratio);",
+                    "      return hash;",
+                    "    }",
+                    "  }",
+                    "}"
+                )
+            );
+    }
+
+    @Test
+    public void collapsesConcurrentIdenticalCalls() throws Exception {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "test.Loader",
+                    "package test;",
+                    "import com.github.victornoel.eo.GenerateSingleflight;",
+                    "@GenerateSingleflight",
+                    "public interface Loader {",
+                    "  String load(String key) throws InterruptedException;",
+                    "}"
+                ),
+                JavaFileObjects.forSourceLines(
+                    "test.Scenario",
+                    "package test;",
+                    "import java.util.concurrent.Callable;",
+                    "import java.util.concurrent.CountDownLatch;",
+                    "import java.util.concurrent.atomic.AtomicInteger;",
+                    "public final class Scenario implements Callable<Object> {",
+                    "  public Object call() throws Exception {",
+                    "    final AtomicInteger loads = new AtomicInteger();",
+                    "    final CountDownLatch release = new CountDownLatch(1);",
+                    "    final LoaderSingleflight loader = new LoaderSingleflight(",
+                    "      key -> {",
+                    "        loads.incrementAndGet();",
+                    "        release.await();",
+                    "        return key.toUpperCase();",
+                    "      }",
+                    "    );",
+                    "    final String[] seen = new String[4];",
+                    "    final Thread[] callers = new Thread[seen.length];",
+                    "    for (int idx = 0; idx < callers.length; ++idx) {",
+                    "      final int pos = idx;",
+                    "      callers[idx] = new Thread(() -> {",
+                    "        try {",
+                    "          seen[pos] = loader.load(\"a\");",
+                    "        } catch (final InterruptedException ex) {",
+                    "          Thread.currentThread().interrupt();",
+                    "        }",
+                    "      });",
+                    "      callers[idx].start();",
+                    "    }",
+                    "    while (loader.flights().collapsed() < callers.length - 1) {",
+                    "      Thread.yield();",
+                    "    }",
+                    "    release.countDown();",
+                    "    for (final Thread caller : callers) {",
+                    "      caller.join();",
+                    "    }",
+                    "    return String.join(\",\", seen) + ';' + loads.get()",
+                    "      + ';' + loader.flights().inflight();",
+                    "  }",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        Assertions.assertThat(new CompiledScenario(compilation, "test.Scenario").call())
+            .isEqualTo("A,A,A,A;1;0");
+    }
+
+    @Test
+    public void propagatesFailureToEveryCaller() throws Exception {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "test.Loader",
+                    "package test;",
+                    "import com.github.victornoel.eo.GenerateSingleflight;",
+                    "import java.io.IOException;",
+                    "@GenerateSingleflight",
+                    "public interface Loader {",
+                    "  String load(int key) throws IOException;",
+                    "}"
+                ),
+                JavaFileObjects.forSourceLines(
+                    "test.Scenario",
+                    "package test;",
+                    "import java.io.IOException;",
+                    "import java.util.concurrent.Callable;",
+                    "public final class Scenario implements Callable<Object> {",
+                    "  public Object call() throws Exception {",
+                    "    final LoaderSingleflight loader = new LoaderSingleflight(",
+                    "      key -> {",
+                    "        throw new IOException(\"down \" + key);",
+                    "      }",
+                    "    );",
+                    "    final StringBuilder seen = new StringBuilder();",
+                    "    for (int idx = 0; idx < 2; ++idx) {",
+                    "      try {",
+                    "        loader.load(idx);",
+                    "      } catch (final IOException ex) {",
+                    "        seen.append(ex.getMessage()).append(';');",
+                    "      }",
+                    "    }",
+                    "    return seen.append(loader.flights().inflight()).toString();",
+                    "  }",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        Assertions.assertThat(new CompiledScenario(compilation, "test.Scenario").call())
+            .isEqualTo("down 0;down 1;0");
+    }
+
+    @Test
+    public void collapsesAsynchronousCallsUntilCompleted() throws Exception {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "test.Loader",
+                    "package test;",
+                    "import com.github.victornoel.eo.GenerateSingleflight;",
+                    "import java.util.concurrent.CompletableFuture;",
+                    "@GenerateSingleflight",
+                    "public interface Loader {",
+                    "  CompletableFuture<String> load(String key);",
+                    "}"
+                ),
+                JavaFileObjects.forSourceLines(
+                    "test.Scenario",
+                    "package test;",
+                    "import java.util.concurrent.Callable;",
+                    "import java.util.concurrent.CompletableFuture;",
+                    "public final class Scenario implements Callable<Object> {",
+                    "  public Object call() {",
+                    "    final CompletableFuture<String> pending = new CompletableFuture<>();",
+                    "    final int[] loads = new int[1];",
+                    "    final LoaderSingleflight loader = new LoaderSingleflight(",
+                    "      key -> {",
+                    "        ++loads[0];",
+                    "        return pending;",
+                    "      }",
+                    "    );",
+                    "    final CompletableFuture<String> first = loader.load(\"a\");",
+                    "    final CompletableFuture<String> second = loader.load(\"a\");",
+                    "    final boolean waiting = !first.isDone() && !second.isDone();",
+                    "    pending.complete(\"value\");",
+                    "    loader.load(\"a\");",
+                    "    return first.join() + second.join() + ';' + waiting + ';' + loads[0]",
+                    "      + ';' + loader.flights().collapsed();",
+                    "  }",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        Assertions.assertThat(new CompiledScenario(compilation, "test.Scenario").call())
+            .isEqualTo("valuevalue;true;2;1");
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.CompilationSubject;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Tests for {@link GeneratedStubTypeSpec} and
+ * {@link GeneratedSkeletonTypeSpec}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class GeneratedStubTypeSpecTest {
+
+    @Test
+    public void sendsCallsThroughChannel() {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "AnInterface",
+                    "import com.github.victornoel.eo.GenerateIpc;",
+                    "@GenerateIpc",
+                    "public interface AnInterface {",
+                    "  long test(int at, String b);",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        CompilationSubject.assertThat(compilation)
+            .generatedSourceFile("AnInterfaceStub")
+            .hasSourceEquivalentTo(
+                JavaFileObjects.forSourceLines(
+                    "AnInterfaceStub",
+                    "import com.github.victornoel.eo.runtime.BufferWriter;",
+                    "import com.github.victornoel.eo.runtime.IpcChannel;",
+                    "import java.lang.Override;",
+                    "import java.lang.String;",
+                    "import javax.annotation.Generated;",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "@Generated(\"com.github.victornoel.eo.apt.GenerateEnvelopeProcessor\")",
+                    "public final class AnInterfaceStub implements AnInterface {",
+                    String.format(
+                        "  public static final int FINGERPRINT = %d;",
+                        "test(int,java.lang.String)".hashCode()
+                    ),
+                    "  private final IpcChannel channel;",
+                    "  private final BufferWriter writer;",
+                    "  public AnInterfaceStub(IpcChannel channel) {",
+                    "    this.channel = channel;",
+                    "    this.writer = channel.writer();",
+                    "    channel.bind(FINGERPRINT);",
+                    "  }",
+                    "  @Override",
+                    "  public long test(int at, String b) {",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "    final int at1 = this.channel.request(0, this.writer.bounded(0L + 4 + this.writer.sizeOf(b)));",
+                    "    try {",
+                    "      this.writer.putString(this.writer.putInt(at1, at), b);",
+                    "      this.channel.send(at1);",
+                    "      return this.channel.receive(at1).readLong();",
+                    "    } finally {",
+                    "      this.channel.release(at1);",
+                    "    }",
+                    "  }",
+                    "}"
+                )
+            );
+    }
+
+    @Test
+    public void rejectsUnsupportedResults() {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "AnInterface",
+                    "import com.github.victornoel.eo.GenerateIpc;",
+                    "@GenerateIpc",
+                    "public interface AnInterface {",
+                    "  Object test(int count);",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).failed();
+        CompilationSubject.assertThat(compilation)
+            .hadErrorContaining("test returns a java.lang.Object");
+    }
+
+    @Test
+    public void callsSkeletonThroughSharedMemory() throws Exception {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "test.Remote",
+                    "package test;",
+                    "import com.github.victornoel.eo.GenerateIpc;",
+                    "@GenerateIpc",
+                    "public interface Remote {",
+                    "  String greet(String name, int times);",
+                    "  double half(long value) throws Exception;",
+                    "  void fail();",
+                    "}"
+                ),
+                JavaFileObjects.forSourceLines(
+                    "test.Scenario",
+                    "package test;",
+                    "import com.github.victornoel.eo.runtime.IpcChannel;",
+                    "import com.github.victornoel.eo.runtime.IpcException;",
+                    "import java.nio.file.Files;",
+                    "import java.nio.file.Path;",
+                    "import java.util.concurrent.Callable;",
+                    "public final class Scenario implements Callable<Object> {",
+                    "  public Object call() throws Exception {",
+                    "    final Path file = Files.createTempFile(\"remote\", \".ipc\");",
+                    "    final Remote impl = new Remote() {",
+                    "      public String greet(String name, int times) {",
+                    "        final StringBuilder str = new StringBuilder();",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "        for (int idx = 0; idx < times; ++idx) { str.append(name); }",
+                    "        return str.toString();",
+                    "      }",
+                    "      public double half(long value) { return value / 2.0; }",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "      public void fail() { throw new IllegalArgumentException(\"boom\"); }",
+                    "    };",
+                    "    final StringBuilder seen = new StringBuilder();",
+                    "    try (IpcChannel server = new IpcChannel(file, 4, 128);",
+                    "      IpcChannel client = new IpcChannel(file, 4, 128)) {",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "      final Thread thread = new Thread(new RemoteSkeleton(impl, server));",
+                    "      thread.start();",
+                    "      final Remote remote = new RemoteStub(client);",
+                    "      seen.append(remote.greet(\"ab\", 3)).append(';');",
+                    "      seen.append(remote.half(5L)).append(';');",
+                    "      try {",
+                    "        remote.fail();",
+                    "      } catch (final IpcException ex) {",
+                    "        seen.append(ex.getMessage()).append(';');",
+                    "      }",
+                    "      seen.append(remote.greet(null, 0));",
+                    "      thread.interrupt();",
+                    "      thread.join();",
+                    "    }",
+                    "    Files.delete(file);",
+                    "    return seen.toString();",
+                    "  }",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        Assertions.assertThat(new CompiledScenario(compilation, "test.Scenario").call())
+            .isEqualTo(
+                String.join(
+                    "",
+                    "ababab;2.5;",
+                    "Remote call failed with java.lang.IllegalArgumentException: boom;"
+                )
+            );
+    }
+}
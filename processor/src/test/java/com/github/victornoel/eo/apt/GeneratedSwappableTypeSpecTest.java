@@ -0,0 +1,179 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.CompilationSubject;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Tests for {@link GeneratedSwappableTypeSpec}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class GeneratedSwappableTypeSpecTest {
+
+    @Test
+    public void delegatesToCurrentImplementation() {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "AnInterface",
+                    "import com.github.victornoel.eo.GenerateSwappable;",
+                    "@GenerateSwappable",
+                    "public interface AnInterface {",
+                    "  String test(int epoch);",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        CompilationSubject.assertThat(compilation)
+            .generatedSourceFile("AnInterfaceSwappable")
+            .hasSourceEquivalentTo(
+                JavaFileObjects.forSourceLines(
+                    "AnInterfaceSwappable",
+                    "import com.github.victornoel.eo.runtime.Drain;",
+                    "import java.lang.Override;",
+                    "import java.lang.String;",
+                    "import javax.annotation.Generated;",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "@Generated(\"com.github.victornoel.eo.apt.GenerateEnvelopeProcessor\")",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "public final class AnInterfaceSwappable implements AnInterface {",
+                    "  private final Drain calls;",
+                    "  private volatile AnInterface wrapped;",
+                    "  public AnInterfaceSwappable(AnInterface wrapped) {",
+                    "    this(wrapped, false);",
+                    "  }",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "  public AnInterfaceSwappable(AnInterface wrapped, boolean drain) {",
+                    "    this.calls = new Drain(drain);",
+                    "    this.wrapped = wrapped;",
+                    "  }",
+                    "  @Override",
+                    "  public String test(int epoch) {",
+                    "    final int epoch1 = this.calls.enter();",
+                    "    try {",
+                    "      return this.wrapped.test(epoch);",
+                    "    } finally {",
+                    "      this.calls.exit(epoch1);",
+                    "    }",
+                    "  }",
+                    "  public AnInterface swap(AnInterface replacement) {",
+                    "    synchronized (this.calls) {",
+                    "      final AnInterface replaced = this.wrapped;",
+                    "      this.wrapped = replacement;",
+                    "      this.calls.drain();",
+                    "      return replaced;",
+                    "    }",
+                    "  }",
+                    "}"
+                )
+            );
+    }
+
+    @Test
+    public void drainsCallsInFlightWhenSwapping() throws Exception {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "test.Config",
+                    "package test;",
+                    "import com.github.victornoel.eo.GenerateSwappable;",
+                    "@GenerateSwappable",
+                    "public interface Config {",
+                    "  String value() throws InterruptedException;",
+                    "}"
+                ),
+                JavaFileObjects.forSourceLines(
+                    "test.Scenario",
+                    "package test;",
+                    "import java.util.concurrent.Callable;",
+                    "import java.util.concurrent.CountDownLatch;",
+                    "import java.util.concurrent.TimeUnit;",
+                    "public final class Scenario implements Callable<Object> {",
+                    "  public Object call() throws Exception {",
+                    "    final CountDownLatch entered = new CountDownLatch(1);",
+                    "    final CountDownLatch release = new CountDownLatch(1);",
+                    "    final ConfigSwappable config = new ConfigSwappable(() -> {",
+                    "      entered.countDown();",
+                    "      release.await();",
+                    "      return \"old\";",
+                    "    }, true);",
+                    "    final StringBuilder seen = new StringBuilder();",
+                    "    final Thread caller = new Thread(() -> {",
+                    "      try {",
+                    "        seen.append(config.value()).append(';');",
+                    "      } catch (final InterruptedException ex) {",
+                    "        Thread.currentThread().interrupt();",
+                    "      }",
+                    "    });",
+                    "    caller.start();",
+                    "    entered.await();",
+                    "    final CountDownLatch swapped = new CountDownLatch(1);",
+                    "    final Thread swapper = new Thread(() -> {",
+                    "      config.swap(() -> \"new\");",
+                    "      swapped.countDown();",
+                    "    });",
+                    "    swapper.start();",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "    seen.append(swapped.await(100L, TimeUnit.MILLISECONDS)).append(';');",
+                    "    release.countDown();",
+                    "    swapper.join();",
+                    "    caller.join();",
+                    "    return seen.append(config.value()).toString();",
+                    "  }",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        Assertions.assertThat(new CompiledScenario(compilation, "test.Scenario").call())
+            .isEqualTo("false;old;new");
+    }
+
+    @Test
+    public void rejectsConflictingSwap() {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "test.AnInterface",
+                    "package test;",
+                    "import com.github.victornoel.eo.GenerateSwappable;",
+                    "@GenerateSwappable",
+                    "public interface AnInterface<T> {",
+                    "  void swap();",
+                    "  void swap(String other);",
+                    "  AnInterface<T> swap(AnInterface<T> other);",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).failed();
+        CompilationSubject.assertThat(compilation)
+            .hadErrorContaining("generates a method swap(test.AnInterface)");
+        CompilationSubject.assertThat(compilation).hadErrorCount(1);
+    }
+}
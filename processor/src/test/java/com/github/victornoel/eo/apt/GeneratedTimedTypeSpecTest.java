@@ -0,0 +1,165 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.CompilationSubject;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Tests for {@link GeneratedTimedTypeSpec}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class GeneratedTimedTypeSpecTest {
+
+    @Test
+    public void timesSynchronousAndAsynchronousMethods() {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "AnInterface",
+                    "import com.github.victornoel.eo.GenerateTimed;",
+                    "import java.io.IOException;",
+                    "import java.util.concurrent.CompletionStage;",
+                    "@GenerateTimed",
+                    "public interface AnInterface {",
+                    "  String get(int start) throws IOException;",
+                    "  void put(String value);",
+                    "  CompletionStage<String> load(String result);",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        CompilationSubject.assertThat(compilation)
+            .generatedSourceFile("AnInterfaceTimed")
+            .hasSourceEquivalentTo(
+                JavaFileObjects.forSourceLines(
+                    "AnInterfaceTimed",
+                    "import com.github.victornoel.eo.runtime.Histogram;",
+                    "import java.io.IOException;",
+                    "import java.lang.Override;",
+                    "import java.lang.String;",
+                    "import java.lang.System;",
+                    "import java.lang.Throwable;",
+                    "import java.util.Arrays;",
+                    "import java.util.Collections;",
+                    "import java.util.List;",
+                    "import java.util.concurrent.CompletionStage;",
+                    "import javax.annotation.Generated;",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "@Generated(\"com.github.victornoel.eo.apt.GenerateEnvelopeProcessor\")",
+                    "public final class AnInterfaceTimed implements AnInterface {",
+                    "  private final AnInterface wrapped;",
+                    "  private final List<Histogram> latencies;",
+                    "  public AnInterfaceTimed(AnInterface wrapped) {",
+                    "    this.wrapped = wrapped;",
+                    "    this.latencies = Collections.unmodifiableList(Arrays.asList(",
+                    "      new Histogram(),",
+                    "      new Histogram(),",
+                    "      new Histogram()",
+                    "    ));",
+                    "  }",
+                    "  @Override",
+                    "  public String get(int start) throws IOException {",
+                    "    final long start1 = System.nanoTime();",
+                    "    try {",
+                    "      return this.wrapped.get(start);",
+                    "    } finally {",
+                    "      this.latencies.get(0).record(System.nanoTime() - start1);",
+                    "    }",
+                    "  }",
+                    "  @Override",
+                    "  public void put(String value) {",
+                    "    final long start = System.nanoTime();",
+                    "    try {",
+                    "      this.wrapped.put(value);",
+                    "    } finally {",
+                    "      this.latencies.get(1).record(System.nanoTime() - start);",
+                    "    }",
+                    "  }",
+                    "  @Override",
+                    "  public CompletionStage<String> load(String result) {",
+                    "    final long start = System.nanoTime();",
+                    "    final CompletionStage<String> stage;",
+                    "    try {",
+                    "      stage = this.wrapped.load(result);",
+                    "    } catch (final Throwable error) {",
+                    "      this.latencies.get(2).record(System.nanoTime() - start);",
+                    "      throw error;",
+                    "    }",
+                    // @checkstyle LineLengthCheck (1 line)
+                    "    stage.whenComplete((result1, error) -> this.latencies.get(2).record(System.nanoTime() - start));",
+                    "    return stage;",
+                    "  }",
+                    "  public List<Histogram> latencies() {",
+                    "    return this.latencies;",
+                    "  }",
+                    "}"
+                )
+            );
+    }
+
+    @Test
+    public void recordsLatencyWhenStageCompletes() throws Exception {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "test.Loader",
+                    "package test;",
+                    "import com.github.victornoel.eo.GenerateTimed;",
+                    "import java.util.concurrent.CompletableFuture;",
+                    "@GenerateTimed",
+                    "public interface Loader {",
+                    "  CompletableFuture<String> load(String key);",
+                    "}"
+                ),
+                JavaFileObjects.forSourceLines(
+                    "test.Scenario",
+                    "package test;",
+                    "import java.util.concurrent.Callable;",
+                    "import java.util.concurrent.CompletableFuture;",
+                    "import java.util.concurrent.TimeUnit;",
+                    "public final class Scenario implements Callable<Object> {",
+                    "  public Object call() throws Exception {",
+                    "    final CompletableFuture<String> pending = new CompletableFuture<>();",
+                    "    final LoaderTimed loader = new LoaderTimed(key -> pending);",
+                    "    final CompletableFuture<String> result = loader.load(\"a\");",
+                    "    final long before = loader.latencies().get(0).count();",
+                    "    TimeUnit.MILLISECONDS.sleep(20L);",
+                    "    pending.complete(\"value\");",
+                    "    return result.join() + ';' + before + ';'",
+                    "      + loader.latencies().get(0).count() + ';'",
+                    "      + (loader.latencies().get(0).max() >= 20_000_000L);",
+                    "  }",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        Assertions.assertThat(new CompiledScenario(compilation, "test.Scenario").call())
+            .isEqualTo("value;0;1;true");
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.CompilationSubject;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import org.assertj.core.api.Assertions;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link MethodCache}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ * @checkstyle VisibilityModifierCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class MethodCacheTest {
+
+    /**
+     * The folder of the persisted caches.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void persistsLibraryHierarchies() throws Exception {
+        final File file = new File(this.folder.getRoot(), "build/eo.cache");
+        MethodCacheTest.generated(file);
+        Assertions.assertThat(
+            Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)
+        ).anySatisfy(
+            line -> Assertions.assertThat(line)
+                .startsWith("java.io.Closeable@")
+                .endsWith("\tjava.io.Closeable#close()")
+        );
+    }
+
+    @Test
+    public void resolvesLikeWithoutCache() throws Exception {
+        final File file = this.folder.newFile("eo.cache");
+        final String first = MethodCacheTest.generated(file);
+        Assertions.assertThat(first)
+            .contains("public final void close() throws IOException")
+            .doesNotContain("throws Exception")
+            .isEqualTo(MethodCacheTest.generated());
+        Assertions.assertThat(MethodCacheTest.generated(file))
+            .isEqualTo(first);
+    }
+
+    @Test
+    public void persistsOnlyEntriesOfTheCompilation() throws Exception {
+        final File file = this.folder.newFile("eo.cache");
+        Files.write(
+            file.toPath(),
+            Arrays.asList(
+                "test.Gone@0123\ttest.Gone#gone()",
+                "java.io.Closeable@0123\tjava.io.Closeable#closed()"
+            ),
+            StandardCharsets.UTF_8
+        );
+        MethodCacheTest.generated(file);
+        Assertions.assertThat(
+            Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)
+        )
+            .noneMatch(line -> line.startsWith("test.Gone@"))
+            .noneMatch(line -> line.contains("0123"))
+            .filteredOn(line -> line.startsWith("java.io.Closeable@"))
+            .hasSize(1);
+    }
+
+    /**
+     * Compile an interface extending library interfaces.
+     *
+     * @param file The file of the cache
+     * @return The code of the generated envelope
+     * @throws Exception If fails
+     */
+    private static String generated(final File file) throws Exception {
+        return MethodCacheTest.generated(
+            String.format("-A%s=%s", MethodCache.OPTION, file)
+        );
+    }
+
+    /**
+     * Compile an interface extending library interfaces and redeclaring
+     * one of their methods between its own ones.
+     *
+     * @param options The options of the compilation
+     * @return The code of the generated envelope
+     * @throws Exception If fails
+     */
+    private static String generated(final String... options)
+        throws Exception {
+        final Compilation compilation = Compiler.javac()
+            .withOptions((Object[]) options)
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "test.Resource",
+                    "package test;",
+                    "import com.github.victornoel.eo.GenerateEnvelope;",
+                    "@GenerateEnvelope",
+                    "public interface Resource extends java.io.Closeable, Runnable {",
+                    "    void open();",
+                    "    void run();",
+                    "    String name();",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeeded();
+        return compilation
+            .generatedSourceFile("test.ResourceEnvelope")
+            .get()
+            .getCharContent(false)
+            .toString();
+    }
+}
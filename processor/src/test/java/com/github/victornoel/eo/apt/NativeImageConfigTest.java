@@ -0,0 +1,84 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.CompilationSubject;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+import javax.tools.StandardLocation;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Tests for {@link NativeImageConfig}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ */
+public final class NativeImageConfigTest {
+
+    @Test
+    public void initializesSharedExecutorsAtRunTime() throws Exception {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .withOptions("-Aeo.envelopes.native=org.example/app")
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "test.Test",
+                    "package test;",
+                    "import com.github.victornoel.eo.GenerateEnvelope;",
+                    "import com.github.victornoel.eo.GeneratePrefetching;",
+                    "@GenerateEnvelope",
+                    "@GeneratePrefetching",
+                    "public interface Test {",
+                    "  Iterable<String> test();",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        Assertions.assertThat(
+            NativeImageConfigTest.resource(compilation, "reflect-config.json")
+        ).contains("\"name\": \"test.TestPrefetching\"");
+        Assertions.assertThat(
+            NativeImageConfigTest.resource(compilation, "native-image.properties")
+        ).isEqualTo("Args = --initialize-at-build-time=test.TestEnvelope\n");
+    }
+
+    /**
+     * Read a generated native-image configuration file.
+     *
+     * @param compilation The compilation
+     * @param name The name of the file
+     * @return The content of the file
+     * @throws Exception If fails
+     */
+    private static String resource(
+        final Compilation compilation, final String name
+    ) throws Exception {
+        return compilation
+            .generatedFile(
+                StandardLocation.CLASS_OUTPUT,
+                String.format("META-INF/native-image/org.example/app/%s", name)
+            )
+            .get()
+            .getCharContent(false)
+            .toString();
+    }
+}
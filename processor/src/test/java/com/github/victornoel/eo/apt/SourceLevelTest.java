@@ -0,0 +1,206 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.apt;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.CompilationSubject;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+import javax.lang.model.SourceVersion;
+import javax.tools.JavaFileObject;
+import org.assertj.core.api.Assertions;
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * Tests for {@link SourceLevel}, compiling the generated code for each
+ * level the running compiler supports.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class SourceLevelTest {
+
+    @Test
+    public void fallsBackOnOldestLevel() throws Exception {
+        final Compilation compilation = SourceLevelTest.compiled("8");
+        Assertions.assertThat(SourceLevelTest.generated(compilation, "Prefetching"))
+            .contains("private static final Executor SHARED")
+            .contains("Executors.newCachedThreadPool(new DaemonThreads(");
+        Assertions.assertThat(SourceLevelTest.generated(compilation, "Conflating"))
+            .contains("new DaemonThreads(\"FeedConflating\")");
+    }
+
+    @Test
+    public void usesVirtualThreadsWhenSupported() throws Exception {
+        Assume.assumeTrue(SourceVersion.latestSupported().ordinal() >= 21);
+        final Compilation compilation = SourceLevelTest.compiled("21");
+        Assertions.assertThat(SourceLevelTest.generated(compilation, "Prefetching"))
+            .contains("Executors.newVirtualThreadPerTaskExecutor()");
+        Assertions.assertThat(SourceLevelTest.generated(compilation, "Conflating"))
+            .contains("Thread.ofVirtual().factory()");
+    }
+
+    @Test
+    public void publishesFlowWhenSupported() throws Exception {
+        Assume.assumeTrue(SourceVersion.latestSupported().ordinal() >= 9);
+        final Compilation compilation = Compiler.javac()
+            .withOptions("-source", "9")
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "test.Catalog",
+                    "package test;",
+                    "import com.github.victornoel.eo.GenerateFlow;",
+                    "import java.util.List;",
+                    "@GenerateFlow",
+                    "public interface Catalog {",
+                    "  List<String> items();",
+                    "}"
+                ),
+                JavaFileObjects.forSourceLines(
+                    "test.Scenario",
+                    "package test;",
+                    "import java.util.Arrays;",
+                    "import java.util.concurrent.Callable;",
+                    "import java.util.concurrent.Flow;",
+                    "public final class Scenario implements Callable<Object> {",
+                    "  public Object call() {",
+                    "    final StringBuilder seen = new StringBuilder();",
+                    "    new CatalogFlow(() -> Arrays.asList(\"a\", \"b\")).items().subscribe(",
+                    "      new Flow.Subscriber<String>() {",
+                    "        public void onSubscribe(final Flow.Subscription sub) {",
+                    "          sub.request(Long.MAX_VALUE);",
+                    "        }",
+                    "        public void onNext(final String item) {",
+                    "          seen.append(item);",
+                    "        }",
+                    "        public void onError(final Throwable error) {",
+                    "          seen.append(error);",
+                    "        }",
+                    "        public void onComplete() {",
+                    "          seen.append(\"c\");",
+                    "        }",
+                    "      }",
+                    "    );",
+                    "    return seen.toString();",
+                    "  }",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeeded();
+        Assertions.assertThat(new CompiledScenario(compilation, "test.Scenario").call())
+            .isEqualTo("abc");
+    }
+
+    @Test
+    public void runsDefaultBackendsOfRunningLevel() throws Exception {
+        final Compilation compilation = Compiler.javac()
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(
+                SourceLevelTest.source(),
+                JavaFileObjects.forSourceLines(
+                    "test.Scenario",
+                    "package test;",
+                    "import java.util.Arrays;",
+                    "import java.util.Iterator;",
+                    "import java.util.concurrent.Callable;",
+                    "public final class Scenario implements Callable<Object> {",
+                    "  public Object call() throws Exception {",
+                    "    final StringBuilder seen = new StringBuilder();",
+                    "    final Feed feed = new Feed() {",
+                    "      public Iterator<String> items() {",
+                    "        return Arrays.asList(\"a\", \"b\").iterator();",
+                    "      }",
+                    "      public void publish(final String topic, final int value) {",
+                    "        seen.append(topic).append(value);",
+                    "      }",
+                    "    };",
+                    "    final FeedPrefetching prefetching = new FeedPrefetching(feed);",
+                    "    prefetching.items().forEachRemaining(seen::append);",
+                    "    try (FeedConflating conflating = new FeedConflating(feed)) {",
+                    "      conflating.publish(\"c\", 1);",
+                    "    }",
+                    "    return seen.toString();",
+                    "  }",
+                    "}"
+                )
+            );
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        Assertions.assertThat(new CompiledScenario(compilation, "test.Scenario").call())
+            .isEqualTo("abc1");
+    }
+
+    /**
+     * Compile the interface for a source level.
+     *
+     * @param level The source level
+     * @return The compilation
+     */
+    private static Compilation compiled(final String level) {
+        final Compilation compilation = Compiler.javac()
+            .withOptions("-source", level)
+            .withProcessors(new GenerateEnvelopeProcessor())
+            .compile(SourceLevelTest.source());
+        CompilationSubject.assertThat(compilation).succeeded();
+        return compilation;
+    }
+
+    /**
+     * The code of a generated class.
+     *
+     * @param compilation The compilation
+     * @param variant The suffix of the generated class
+     * @return The code
+     * @throws Exception If fails
+     */
+    private static String generated(
+        final Compilation compilation, final String variant
+    ) throws Exception {
+        return compilation
+            .generatedSourceFile(String.format("test.Feed%s", variant))
+            .get()
+            .getCharContent(false)
+            .toString();
+    }
+
+    /**
+     * The interface with both variants using default backends.
+     *
+     * @return The source
+     */
+    private static JavaFileObject source() {
+        return JavaFileObjects.forSourceLines(
+            "test.Feed",
+            "package test;",
+            "import com.github.victornoel.eo.GenerateConflating;",
+            "import com.github.victornoel.eo.GeneratePrefetching;",
+            "import com.github.victornoel.eo.Key;",
+            "import java.util.Iterator;",
+            "@GenerateConflating",
+            "@GeneratePrefetching",
+            "public interface Feed {",
+            "  Iterator<String> items();",
+            "  void publish(@Key String topic, int value);",
+            "}"
+        );
+    }
+}
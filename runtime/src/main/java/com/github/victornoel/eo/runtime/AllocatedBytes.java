@@ -0,0 +1,128 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.management.ManagementFactory;
+
+/**
+ * The bytes allocated so far by the current thread, read from the
+ * {@code com.sun.management.ThreadMXBean} of the running JVM, or the
+ * bytes used in the heap when it isn't available.
+ *
+ * @since 1.1.0
+ */
+final class AllocatedBytes {
+
+    /**
+     * The meter of the bytes, constant so that the JIT can inline it.
+     */
+    private static final MethodHandle METER = AllocatedBytes.found();
+
+    /**
+     * The bytes allocated so far.
+     *
+     * @return The bytes
+     * @checkstyle NonStaticMethodCheck (3 lines)
+     */
+    @SuppressWarnings("PMD.AvoidCatchingThrowable")
+    public long read() {
+        try {
+            return (long) AllocatedBytes.METER.invokeExact();
+            // @checkstyle IllegalCatchCheck (1 line)
+        } catch (final Throwable ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * The bytes allocated so far by the current thread, read through
+     * a per-thread meter, before Java 14.
+     *
+     * @param meter The meter of the bytes allocated by a thread from its id
+     * @return The bytes
+     */
+    @SuppressWarnings({"PMD.UnusedPrivateMethod", "PMD.AvoidCatchingThrowable"})
+    private static long current(final MethodHandle meter) {
+        try {
+            return (long) meter.invokeExact(Thread.currentThread().getId());
+            // @checkstyle IllegalCatchCheck (1 line)
+        } catch (final Throwable ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * The bytes used in the heap, as a fallback.
+     *
+     * @return The bytes
+     */
+    @SuppressWarnings("PMD.UnusedPrivateMethod")
+    private static long heap() {
+        final Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * The meter of the bytes allocated so far: by the current thread if
+     * the JVM supports it, from the heap otherwise.
+     *
+     * @return The meter
+     */
+    @SuppressWarnings("PMD.PreserveStackTrace")
+    private static MethodHandle found() {
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        final MethodType type = MethodType.methodType(long.class);
+        MethodHandle meter;
+        try {
+            final Class<?> bean = Class.forName(
+                "com.sun.management.ThreadMXBean"
+            );
+            final Object threads = bean.cast(ManagementFactory.getThreadMXBean());
+            bean.getMethod("setThreadAllocatedMemoryEnabled", boolean.class)
+                .invoke(threads, true);
+            try {
+                meter = lookup.findVirtual(
+                    bean, "getCurrentThreadAllocatedBytes", type
+                ).bindTo(threads);
+            } catch (final NoSuchMethodException ex) {
+                meter = MethodHandles.insertArguments(
+                    lookup.findStatic(
+                        AllocatedBytes.class, "current",
+                        MethodType.methodType(long.class, MethodHandle.class)
+                    ),
+                    0,
+                    lookup.findVirtual(
+                        bean, "getThreadAllocatedBytes",
+                        MethodType.methodType(long.class, long.class)
+                    ).bindTo(threads)
+                );
+            }
+        } catch (final ReflectiveOperationException | ClassCastException ex) {
+            try {
+                meter = lookup.findStatic(AllocatedBytes.class, "heap", type);
+            } catch (final ReflectiveOperationException err) {
+                throw new IllegalStateException(err);
+            }
+        }
+        return meter;
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The bytes allocated by the methods of an interface, measured on a
+ * sample of the calls.
+ *
+ * <p>The bytes allocated by the calling thread are read before and after
+ * each sampled call from the {@code com.sun.management.ThreadMXBean} of
+ * the running JVM. When it isn't available, they fall back to the growth
+ * of the used heap, which also counts the allocations of other threads
+ * and is only meaningful for single-threaded measurements.</p>
+ *
+ * <p>Each method has its own {@link Histogram}, whose counters are
+ * striped, and the sampling rate can be changed at any time: one call out
+ * of {@code every} is measured, none if it is 0.</p>
+ *
+ * @since 1.1.0
+ */
+public final class Allocations {
+
+    /**
+     * The value returned by {@link #start()} for calls not sampled.
+     */
+    private static final long SKIPPED = -1L;
+
+    /**
+     * The bytes allocated so far, by the current thread if possible.
+     */
+    private static final AllocatedBytes BYTES = new AllocatedBytes();
+
+    /**
+     * The names of the methods.
+     */
+    private final String[] methods;
+
+    /**
+     * The allocations of each method.
+     */
+    private final Histogram[] meters;
+
+    /**
+     * One call out of this number is measured.
+     */
+    private volatile int every;
+
+    /**
+     * Ctor.
+     *
+     * @param every One call out of this number is measured, none if 0
+     * @param methods The names of the methods
+     */
+    public Allocations(final int every, final String... methods) {
+        this.every = Allocations.checked(every);
+        this.methods = methods.clone();
+        this.meters = Allocations.empty(methods.length);
+    }
+
+    /**
+     * Change the sampling rate.
+     *
+     * @param rate One call out of this number is measured, none if 0
+     */
+    public void sample(final int rate) {
+        this.every = Allocations.checked(rate);
+    }
+
+    /**
+     * The sampling rate.
+     *
+     * @return One call out of this number is measured, none if 0
+     */
+    public int rate() {
+        return this.every;
+    }
+
+    /**
+     * Start a call, to pass to {@link #record(int, long)} once it is done.
+     *
+     * @return The bytes allocated so far, or a marker if not sampled
+     */
+    public long start() {
+        final int rate = this.every;
+        final long start;
+        if (rate == 1 || rate > 1
+            && ThreadLocalRandom.current().nextInt(rate) == 0) {
+            start = Allocations.BYTES.read();
+        } else {
+            start = Allocations.SKIPPED;
+        }
+        return start;
+    }
+
+    /**
+     * Record the bytes allocated by a call, if it was sampled.
+     *
+     * @param method The position of the method
+     * @param start What {@link #start()} returned before the call
+     */
+    public void record(final int method, final long start) {
+        if (start != Allocations.SKIPPED) {
+            this.meters[method].record(Allocations.BYTES.read() - start);
+        }
+    }
+
+    /**
+     * The bytes allocated by the sampled calls of a method, their
+     * {@link Histogram#count()} being the number of samples and their
+     * {@link Histogram#sum()} the total.
+     *
+     * @param method The position of the method
+     * @return The allocations
+     */
+    public Histogram histogram(final int method) {
+        return this.meters[method];
+    }
+
+    /**
+     * Forget all the measurements.
+     */
+    public void reset() {
+        for (final Histogram histogram : this.meters) {
+            histogram.reset();
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder text = new StringBuilder(0);
+        for (int idx = 0; idx < this.methods.length; ++idx) {
+            text.append(this.methods[idx])
+                .append(": bytes=")
+                .append(this.meters[idx].sum())
+                .append(' ')
+                .append(this.meters[idx])
+                .append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Check a sampling rate.
+     *
+     * @param rate The rate
+     * @return The rate
+     */
+    private static int checked(final int rate) {
+        if (rate < 0) {
+            throw new IllegalArgumentException(
+                String.format("Negative sampling rate: %d", rate)
+            );
+        }
+        return rate;
+    }
+
+    /**
+     * Empty histograms.
+     *
+     * @param count The number of histograms
+     * @return The histograms
+     */
+    private static Histogram[] empty(final int count) {
+        final Histogram[] histograms = new Histogram[count];
+        for (int idx = 0; idx < count; ++idx) {
+            histograms[idx] = new Histogram();
+        }
+        return histograms;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Progressive waiting while polling for a condition: busy spinning
+ * first, then yielding, then parking for increasing durations.
+ *
+ * <p>Spinning uses {@code Thread.onSpinWait()} when the running Java
+ * version has it, so the processor can optimise the busy loop.</p>
+ *
+ * @since 1.1.0
+ */
+public final class Backoff {
+
+    /**
+     * The hint to the processor that the thread is spinning.
+     */
+    private static final MethodHandle ON_SPIN_WAIT = Backoff.hint();
+
+    /**
+     * Number of attempts spent spinning.
+     */
+    private final int spins;
+
+    /**
+     * Number of attempts spent spinning or yielding.
+     */
+    private final int yields;
+
+    /**
+     * The longest park, in nanoseconds.
+     */
+    private final long park;
+
+    /**
+     * Ctor.
+     */
+    public Backoff() {
+        // @checkstyle MagicNumberCheck (1 line)
+        this(100, 200, TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param spins Number of attempts spent spinning
+     * @param yields Number of attempts spent spinning or yielding
+     * @param park The longest park, in nanoseconds
+     */
+    public Backoff(final int spins, final int yields, final long park) {
+        this.spins = spins;
+        this.yields = yields;
+        this.park = park;
+    }
+
+    /**
+     * Wait a bit before the next attempt.
+     *
+     * @param attempt The number of failed attempts so far
+     */
+    public void pause(final int attempt) {
+        if (attempt >= this.yields) {
+            LockSupport.parkNanos(
+                Math.min(
+                    this.park,
+                    TimeUnit.MICROSECONDS.toNanos(attempt - this.yields + 1)
+                )
+            );
+        } else if (attempt >= this.spins) {
+            Thread.yield();
+        } else {
+            Backoff.spin();
+        }
+    }
+
+    /**
+     * Hint the processor that the thread is spinning.
+     */
+    @SuppressWarnings("PMD.AvoidCatchingThrowable")
+    private static void spin() {
+        try {
+            Backoff.ON_SPIN_WAIT.invokeExact();
+            // @checkstyle IllegalCatchCheck (1 line)
+        } catch (final Throwable ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * The hint to the processor that the thread is spinning, doing
+     * nothing before Java 9.
+     *
+     * @return The hint
+     */
+    private static MethodHandle hint() {
+        final MethodType type = MethodType.methodType(void.class);
+        MethodHandle hint;
+        try {
+            hint = MethodHandles.publicLookup()
+                .findStatic(Thread.class, "onSpinWait", type);
+        } catch (final NoSuchMethodException | IllegalAccessException ex) {
+            hint = MethodHandles.constant(Object.class, null).asType(type);
+        }
+        return hint;
+    }
+}
@@ -0,0 +1,423 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batches of single-key loads of several methods: the loads of a method
+ * issued within a window are dispatched as one call to its bulk method,
+ * and each caller waits for its value in the result.
+ *
+ * <p>A batch is opened by its first load and handed by a timer thread,
+ * shared by all the batchings, to an executor once the window is
+ * elapsed, with a window of 0 gathering the loads issued until the timer
+ * gets to it, so that a slow bulk call doesn't delay the batches of
+ * other methods. A batch reaching the
+ * maximum size is instead dispatched at once by the caller completing
+ * it. Loads of equal keys in a batch share the same value. The batches
+ * of each method are guarded by their own lock, so that loads of
+ * different methods don't contend. Closing dispatches the open batches
+ * and cancels their timeouts.</p>
+ *
+ * @since 1.1.0
+ */
+@SuppressWarnings("PMD.TooManyMethods")
+public final class Batching implements AutoCloseable {
+
+    /**
+     * The timer handing the batches over at the end of their window.
+     */
+    private static final ScheduledThreadPoolExecutor TIMER =
+        Batching.scheduler();
+
+    /**
+     * The names of the methods.
+     */
+    private final String[] methods;
+
+    /**
+     * The maximum number of keys in a batch.
+     */
+    private final int size;
+
+    /**
+     * The window of a batch, in nanoseconds.
+     */
+    private final long window;
+
+    /**
+     * The open batch of each method, guarded by the lock of the method.
+     */
+    private final Batch[] open;
+
+    /**
+     * The lock of each method.
+     */
+    private final Object[] locks;
+
+    /**
+     * The duration of the bulk calls of each method, in nanoseconds.
+     */
+    private final Histogram[] latencies;
+
+    /**
+     * The number of keys of the batches of each method.
+     */
+    private final Histogram[] sizes;
+
+    /**
+     * The executor of the bulk calls of the batches handed over by the
+     * timer.
+     */
+    private final Executor executor;
+
+    /**
+     * Whether loads are not accepted anymore.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Ctor.
+     *
+     * @param size The maximum number of keys in a batch
+     * @param window The window of a batch, in nanoseconds
+     * @param executor The executor of the bulk calls of expired batches
+     * @param methods The names of the batched methods
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    public Batching(
+        final int size, final long window, final Executor executor,
+        final String... methods
+    ) {
+        this.methods = methods.clone();
+        this.size = size;
+        this.window = window;
+        this.open = new Batch[methods.length];
+        this.locks = Batching.monitors(methods.length);
+        this.latencies = Batching.histograms(methods.length);
+        this.sizes = Batching.histograms(methods.length);
+        this.executor = executor;
+    }
+
+    /**
+     * Load the value of a key with the next batch of a method.
+     *
+     * @param method The id of the method
+     * @param key The key
+     * @param bulk The bulk method loading the values of a batch
+     * @param <K> The type of the keys
+     * @param <V> The type of the values
+     * @return The value of the key in the result of the bulk method,
+     *  null if missing
+     * @throws CompletionException Wrapping a checked failure of the bulk
+     *  method, unchecked ones being thrown as is
+     * @throws IllegalStateException If the batching is closed
+     */
+    @SuppressWarnings({"unchecked", "PMD.PreserveStackTrace"})
+    public <K, V> V load(
+        final int method, final K key, final Bulk<K, ? extends V> bulk
+    ) {
+        final CompletableFuture<Object> value;
+        Batch full = null;
+        synchronized (this.locks[method]) {
+            if (this.closed) {
+                throw new IllegalStateException("Batching is closed");
+            }
+            if (this.open[method] == null) {
+                this.open[method] = new Batch(bulk);
+                final Batch batch = this.open[method];
+                batch.timeout = Batching.TIMER.schedule(
+                    () -> this.expire(method, batch),
+                    this.window, TimeUnit.NANOSECONDS
+                );
+            }
+            value = this.open[method].calls.computeIfAbsent(
+                key, ignored -> new CompletableFuture<>()
+            );
+            if (this.open[method].calls.size() >= this.size) {
+                full = this.open[method];
+                this.open[method] = null;
+                full.timeout.cancel(false);
+            }
+        }
+        if (full != null) {
+            this.dispatch(method, full);
+        }
+        try {
+            return (V) value.join();
+        } catch (final CompletionException ex) {
+            throw new Unchecked(ex.getCause()).thrown();
+        }
+    }
+
+    /**
+     * The duration of the bulk calls of a method.
+     *
+     * @param method The id of the method
+     * @return The durations, in nanoseconds
+     */
+    public Histogram latency(final int method) {
+        return this.latencies[method];
+    }
+
+    /**
+     * The number of keys of the batches of a method.
+     *
+     * @param method The id of the method
+     * @return The numbers of keys, counting one per batch
+     */
+    public Histogram batches(final int method) {
+        return this.sizes[method];
+    }
+
+    @Override
+    public void close() {
+        this.closed = true;
+        final Batch[] left = new Batch[this.open.length];
+        for (int method = 0; method < left.length; ++method) {
+            synchronized (this.locks[method]) {
+                left[method] = this.open[method];
+            }
+        }
+        for (int method = 0; method < left.length; ++method) {
+            if (this.removed(method, left[method])) {
+                left[method].timeout.cancel(false);
+                this.dispatch(method, left[method]);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringJoiner text = new StringJoiner("\n");
+        for (int idx = 0; idx < this.methods.length; ++idx) {
+            text.add(
+                String.format(
+                    "%s: batches=%d keys=%d latency=%s",
+                    this.methods[idx], this.sizes[idx].count(),
+                    this.sizes[idx].sum(), this.latencies[idx]
+                )
+            );
+        }
+        return text.toString();
+    }
+
+    /**
+     * Hand a batch over to the executor at the end of its window, unless
+     * it was already dispatched for being full or closed.
+     *
+     * @param method The id of the method
+     * @param batch The batch
+     */
+    private void expire(final int method, final Batch batch) {
+        if (this.removed(method, batch)) {
+            try {
+                this.executor.execute(() -> this.dispatch(method, batch));
+            } catch (final RejectedExecutionException ex) {
+                Batching.complete(batch, Collections.emptyMap(), ex);
+            }
+        }
+    }
+
+    /**
+     * Remove a batch from the open ones, unless it was already removed
+     * to be dispatched.
+     *
+     * @param method The id of the method
+     * @param batch The batch, possibly null
+     * @return Whether it was removed
+     */
+    private boolean removed(final int method, final Batch batch) {
+        synchronized (this.locks[method]) {
+            final boolean removed = batch != null && this.open[method] == batch;
+            if (removed) {
+                this.open[method] = null;
+            }
+            return removed;
+        }
+    }
+
+    /**
+     * Call the bulk method of a batch and complete its loads.
+     *
+     * @param method The id of the method
+     * @param batch The batch
+     */
+    @SuppressWarnings(
+        {"unchecked", "PMD.AvoidCatchingThrowable"}
+    )
+    private void dispatch(final int method, final Batch batch) {
+        final long start = System.nanoTime();
+        Map<?, ?> values = Collections.emptyMap();
+        Throwable failure = null;
+        try {
+            values = ((Bulk<Object, ?>) batch.bulk).load(
+                new ArrayList<>(batch.calls.keySet())
+            );
+            // @checkstyle IllegalCatchCheck (1 line)
+        } catch (final Throwable ex) {
+            failure = ex;
+        }
+        this.latencies[method].record(System.nanoTime() - start);
+        this.sizes[method].record(batch.calls.size());
+        Batching.complete(batch, values, failure);
+    }
+
+    /**
+     * Complete the loads of a batch.
+     *
+     * @param batch The batch
+     * @param values The result of the bulk method, possibly null
+     * @param failure The failure of the bulk method, null if none
+     */
+    private static void complete(
+        final Batch batch, final Map<?, ?> values, final Throwable failure
+    ) {
+        for (final Map.Entry<Object, CompletableFuture<Object>> call
+            : batch.calls.entrySet()) {
+            if (failure == null) {
+                call.getValue().complete(Batching.found(values, call.getKey()));
+            } else {
+                call.getValue().completeExceptionally(failure);
+            }
+        }
+    }
+
+    /**
+     * The value of a key in the result of a bulk method.
+     *
+     * @param values The result, possibly null
+     * @param key The key
+     * @return The value, null if missing
+     */
+    private static Object found(final Map<?, ?> values, final Object key) {
+        Object value = null;
+        if (values != null) {
+            value = values.get(key);
+        }
+        return value;
+    }
+
+    /**
+     * The timer shared by the batchings, on a daemon thread, forgetting
+     * the timeouts of the batches dispatched before their window ends.
+     *
+     * @return The timer
+     */
+    private static ScheduledThreadPoolExecutor scheduler() {
+        final ScheduledThreadPoolExecutor timer =
+            new ScheduledThreadPoolExecutor(1, new DaemonThreads("eo-batching"));
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    /**
+     * The locks of the methods.
+     *
+     * @param count The number of methods
+     * @return The locks
+     */
+    private static Object[] monitors(final int count) {
+        final Object[] locks = new Object[count];
+        for (int idx = 0; idx < count; ++idx) {
+            locks[idx] = new Object();
+        }
+        return locks;
+    }
+
+    /**
+     * Empty histograms.
+     *
+     * @param count The number of histograms
+     * @return The histograms
+     */
+    private static Histogram[] histograms(final int count) {
+        final Histogram[] histograms = new Histogram[count];
+        for (int idx = 0; idx < count; ++idx) {
+            histograms[idx] = new Histogram();
+        }
+        return histograms;
+    }
+
+    /**
+     * The bulk method of a batched method.
+     *
+     * @param <K> The type of the keys
+     * @param <V> The type of the values
+     * @since 1.1.0
+     */
+    public interface Bulk<K, V> {
+
+        /**
+         * Load the values of keys.
+         *
+         * @param keys The distinct keys
+         * @return The values by key, missing ones being null
+         * @throws Exception If fails
+         */
+        Map<?, ? extends V> load(List<K> keys) throws Exception;
+    }
+
+    /**
+     * The loads of a batch, in the order they were issued.
+     *
+     * @since 1.1.0
+     */
+    private static final class Batch {
+
+        /**
+         * The bulk method loading the values.
+         */
+        private final Bulk<?, ?> bulk;
+
+        /**
+         * The values of the loads by key, guarded by the lock of the
+         * method while the batch is open.
+         */
+        private final Map<Object, CompletableFuture<Object>> calls;
+
+        /**
+         * The dispatch of the batch at the end of its window.
+         */
+        private ScheduledFuture<?> timeout;
+
+        /**
+         * Ctor.
+         *
+         * @param bulk The bulk method loading the values
+         */
+        Batch(final Bulk<?, ?> bulk) {
+            this.bulk = bulk;
+            this.calls = new LinkedHashMap<>();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads in sequence what was written by a {@link BufferWriter}.
+ *
+ * <p>The reader keeps its own position and never modifies the one
+ * of the buffer. It is not thread-safe.</p>
+ *
+ * @since 1.1.0
+ */
+@SuppressWarnings("PMD.TooManyMethods")
+public final class BufferReader {
+
+    /**
+     * The buffer.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * The position of the next read.
+     */
+    private int position;
+
+    /**
+     * Ctor.
+     *
+     * @param buffer The buffer
+     */
+    public BufferReader(final ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Move to a position.
+     *
+     * @param pos The position of the next read
+     */
+    public void moveTo(final int pos) {
+        this.position = pos;
+    }
+
+    /**
+     * Read a boolean.
+     *
+     * @return The value
+     */
+    public boolean readBoolean() {
+        return this.readByte() != 0;
+    }
+
+    /**
+     * Read a byte.
+     *
+     * @return The value
+     */
+    public byte readByte() {
+        final byte value = this.buffer.get(this.position);
+        this.position += Byte.BYTES;
+        return value;
+    }
+
+    /**
+     * Read a short.
+     *
+     * @return The value
+     */
+    @SuppressWarnings("PMD.AvoidUsingShortType")
+    public short readShort() {
+        final short value = this.buffer.getShort(this.position);
+        this.position += Short.BYTES;
+        return value;
+    }
+
+    /**
+     * Read a char.
+     *
+     * @return The value
+     */
+    public char readChar() {
+        final char value = this.buffer.getChar(this.position);
+        this.position += Character.BYTES;
+        return value;
+    }
+
+    /**
+     * Read an int.
+     *
+     * @return The value
+     */
+    public int readInt() {
+        final int value = this.buffer.getInt(this.position);
+        this.position += Integer.BYTES;
+        return value;
+    }
+
+    /**
+     * Read a long.
+     *
+     * @return The value
+     */
+    public long readLong() {
+        final long value = this.buffer.getLong(this.position);
+        this.position += Long.BYTES;
+        return value;
+    }
+
+    /**
+     * Read a float.
+     *
+     * @return The value
+     */
+    public float readFloat() {
+        final float value = this.buffer.getFloat(this.position);
+        this.position += Float.BYTES;
+        return value;
+    }
+
+    /**
+     * Read a double.
+     *
+     * @return The value
+     */
+    public double readDouble() {
+        final double value = this.buffer.getDouble(this.position);
+        this.position += Double.BYTES;
+        return value;
+    }
+
+    /**
+     * Read a string.
+     *
+     * @return The value, may be {@code null}
+     */
+    @SuppressWarnings("PMD.NullAssignment")
+    public String readString() {
+        final int length = this.readInt();
+        final String value;
+        if (length < 0) {
+            value = null;
+        } else {
+            final char[] chars = new char[length];
+            for (int idx = 0; idx < length; ++idx) {
+                chars[idx] = this.readChar();
+            }
+            value = new String(chars);
+        }
+        return value;
+    }
+
+    /**
+     * Read bytes.
+     *
+     * @return The value, may be {@code null}
+     */
+    @SuppressWarnings("PMD.NullAssignment")
+    public byte[] readBytes() {
+        final int length = this.readInt();
+        final byte[] value;
+        if (length < 0) {
+            value = null;
+        } else {
+            value = new byte[length];
+            for (int idx = 0; idx < length; ++idx) {
+                value[idx] = this.readByte();
+            }
+        }
+        return value;
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Writes primitives, {@link String} and {@code byte[]} at absolute
+ * positions of a {@link ByteBuffer}.
+ *
+ * <p>Every write returns the position right after the written value
+ * so that writes can be chained without allocating anything. The
+ * position of the buffer itself is never modified, so distinct regions
+ * can be written concurrently.</p>
+ *
+ * @since 1.1.0
+ */
+@SuppressWarnings("PMD.TooManyMethods")
+public final class BufferWriter {
+
+    /**
+     * The length written for {@code null} values.
+     */
+    private static final int NULL = -1;
+
+    /**
+     * The buffer.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * Ctor.
+     *
+     * @param buffer The buffer
+     */
+    public BufferWriter(final ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Write a boolean.
+     *
+     * @param pos The position to write at
+     * @param value The value
+     * @return The position after the value
+     */
+    public int putBoolean(final int pos, final boolean value) {
+        final byte bool;
+        if (value) {
+            bool = 1;
+        } else {
+            bool = 0;
+        }
+        this.buffer.put(pos, bool);
+        return pos + Byte.BYTES;
+    }
+
+    /**
+     * Write a byte.
+     *
+     * @param pos The position to write at
+     * @param value The value
+     * @return The position after the value
+     */
+    public int putByte(final int pos, final byte value) {
+        this.buffer.put(pos, value);
+        return pos + Byte.BYTES;
+    }
+
+    /**
+     * Write a short.
+     *
+     * @param pos The position to write at
+     * @param value The value
+     * @return The position after the value
+     */
+    @SuppressWarnings("PMD.AvoidUsingShortType")
+    public int putShort(final int pos, final short value) {
+        this.buffer.putShort(pos, value);
+        return pos + Short.BYTES;
+    }
+
+    /**
+     * Write a char.
+     *
+     * @param pos The position to write at
+     * @param value The value
+     * @return The position after the value
+     */
+    public int putChar(final int pos, final char value) {
+        this.buffer.putChar(pos, value);
+        return pos + Character.BYTES;
+    }
+
+    /**
+     * Write an int.
+     *
+     * @param pos The position to write at
+     * @param value The value
+     * @return The position after the value
+     */
+    public int putInt(final int pos, final int value) {
+        this.buffer.putInt(pos, value);
+        return pos + Integer.BYTES;
+    }
+
+    /**
+     * Write a long.
+     *
+     * @param pos The position to write at
+     * @param value The value
+     * @return The position after the value
+     */
+    public int putLong(final int pos, final long value) {
+        this.buffer.putLong(pos, value);
+        return pos + Long.BYTES;
+    }
+
+    /**
+     * Write a float.
+     *
+     * @param pos The position to write at
+     * @param value The value
+     * @return The position after the value
+     */
+    public int putFloat(final int pos, final float value) {
+        this.buffer.putFloat(pos, value);
+        return pos + Float.BYTES;
+    }
+
+    /**
+     * Write a double.
+     *
+     * @param pos The position to write at
+     * @param value The value
+     * @return The position after the value
+     */
+    public int putDouble(final int pos, final double value) {
+        this.buffer.putDouble(pos, value);
+        return pos + Double.BYTES;
+    }
+
+    /**
+     * Write a string, char by char, prefixed with its length.
+     *
+     * @param pos The position to write at
+     * @param value The value, may be {@code null}
+     * @return The position after the value
+     */
+    public int putString(final int pos, final String value) {
+        int end = pos;
+        if (value == null) {
+            end = this.putInt(end, BufferWriter.NULL);
+        } else {
+            end = this.putInt(end, value.length());
+            for (int idx = 0; idx < value.length(); ++idx) {
+                end = this.putChar(end, value.charAt(idx));
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Write bytes, prefixed with their length.
+     *
+     * @param pos The position to write at
+     * @param value The value, may be {@code null}
+     * @return The position after the value
+     */
+    public int putBytes(final int pos, final byte[] value) {
+        int end = pos;
+        if (value == null) {
+            end = this.putInt(end, BufferWriter.NULL);
+        } else {
+            end = this.putInt(end, value.length);
+            for (final byte item : value) {
+                end = this.putByte(end, item);
+            }
+        }
+        return end;
+    }
+
+    /**
+     * The number of bytes needed to write a string.
+     *
+     * @param value The value, may be {@code null}
+     * @return The number of bytes
+     */
+    public int sizeOf(final String value) {
+        long size = Integer.BYTES;
+        if (value != null) {
+            size += (long) value.length() * Character.BYTES;
+        }
+        return this.bounded(size);
+    }
+
+    /**
+     * The number of bytes needed to write bytes.
+     *
+     * @param value The value, may be {@code null}
+     * @return The number of bytes
+     */
+    public int sizeOf(final byte[] value) {
+        long size = Integer.BYTES;
+        if (value != null) {
+            size += value.length;
+        }
+        return this.bounded(size);
+    }
+
+    /**
+     * Bound a size, such as a sum of sizes computed as a long so it can't
+     * wrap around, to the sizes that can fit in the buffer.
+     *
+     * @param size The size
+     * @return The size, or a size bigger than any payload that fits in
+     *  the buffer if it doesn't fit
+     */
+    public int bounded(final long size) {
+        return (int) Math.min(
+            size, Math.min(this.buffer.capacity() + 1L, Integer.MAX_VALUE)
+        );
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The faults injected in the calls to the methods of an envelope, which
+ * can be changed at any time.
+ *
+ * <p>The latencies and failures are drawn from a {@link SplitMix}, so the
+ * same seed gives the same faults for the same calls from one thread. A
+ * method without faults only costs one branch per call. The latency is
+ * injected by parking the calling thread before the call, an interruption
+ * ending it early.</p>
+ *
+ * @since 1.1.0
+ */
+public final class Chaos {
+
+    /**
+     * The names of the methods.
+     */
+    private final String[] methods;
+
+    /**
+     * The faults of each method, {@code null} if it has none.
+     */
+    private final AtomicReferenceArray<Fault> faults;
+
+    /**
+     * The generator of the faults.
+     */
+    private final SplitMix random;
+
+    /**
+     * The number of delayed calls.
+     */
+    private final LongAdder slowed;
+
+    /**
+     * The number of failed calls.
+     */
+    private final LongAdder broken;
+
+    /**
+     * Ctor.
+     *
+     * @param seed The seed of the generator of the faults
+     * @param methods The names of the methods
+     */
+    public Chaos(final long seed, final String... methods) {
+        this.methods = methods.clone();
+        this.faults = new AtomicReferenceArray<>(methods.length);
+        this.random = new SplitMix(seed);
+        this.slowed = new LongAdder();
+        this.broken = new LongAdder();
+    }
+
+    /**
+     * Inject the faults of a method in a call.
+     *
+     * @param method The index of the method
+     * @throws ChaosException If the call must fail
+     */
+    public void inject(final int method) {
+        final Fault fault = this.faults.get(method);
+        if (fault != null) {
+            this.apply(method, fault);
+        }
+    }
+
+    /**
+     * Inject faults in the calls to a method.
+     *
+     * @param method The name of the method, overloads included
+     * @param fault The faults
+     * @return This
+     */
+    public Chaos enable(final String method, final Fault fault) {
+        for (int idx = 0; idx < this.methods.length; ++idx) {
+            if (this.methods[idx].equals(method)) {
+                this.faults.set(idx, fault);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Stop injecting faults in the calls to a method.
+     *
+     * @param method The name of the method, overloads included
+     * @return This
+     */
+    public Chaos disable(final String method) {
+        for (int idx = 0; idx < this.methods.length; ++idx) {
+            if (this.methods[idx].equals(method)) {
+                this.faults.set(idx, null);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * The number of calls delayed.
+     *
+     * @return The count
+     */
+    public long delayed() {
+        return this.slowed.sum();
+    }
+
+    /**
+     * The number of calls failed.
+     *
+     * @return The count
+     */
+    public long failed() {
+        return this.broken.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "methods=%s delayed=%d failed=%d",
+            Arrays.toString(this.methods), this.slowed.sum(),
+            this.broken.sum()
+        );
+    }
+
+    /**
+     * Inject faults in a call.
+     *
+     * @param method The index of the method
+     * @param fault The faults
+     * @throws ChaosException If the call must fail
+     */
+    private void apply(final int method, final Fault fault) {
+        final long delay = fault.delay(this.random);
+        if (delay > 0L) {
+            this.slowed.increment();
+            final long deadline = System.nanoTime() + delay;
+            for (long left = delay;
+                left > 0L && !Thread.currentThread().isInterrupted();
+                left = deadline - System.nanoTime()) {
+                LockSupport.parkNanos(left);
+            }
+        }
+        if (fault.fails(this.random)) {
+            this.broken.increment();
+            throw new ChaosException(
+                String.format("Injected failure of %s", this.methods[method])
+            );
+        }
+    }
+}
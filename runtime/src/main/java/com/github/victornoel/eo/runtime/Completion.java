@@ -0,0 +1,146 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A reusable slot through which a thread waits for the result of a call
+ * made by another thread.
+ *
+ * <p>A completion belongs to the thread waiting on it: it is reused for
+ * each of its calls, so waiting does not allocate.</p>
+ *
+ * @since 1.1.0
+ */
+public final class Completion {
+
+    /**
+     * State of a completion waiting for its result.
+     */
+    private static final int PENDING = 0;
+
+    /**
+     * State of a completion holding a result.
+     */
+    private static final int DONE = 1;
+
+    /**
+     * State of a completion holding a failure.
+     */
+    private static final int FAILED = 2;
+
+    /**
+     * Number of attempts spent spinning or yielding before parking.
+     */
+    private static final int ROUNDS = 200;
+
+    /**
+     * The thread waiting on this completion.
+     */
+    private final Thread waiter;
+
+    /**
+     * The waiting strategy before parking.
+     */
+    private final Backoff backoff;
+
+    /**
+     * The state, published after the result.
+     */
+    private volatile int state;
+
+    /**
+     * The result.
+     */
+    private Object value;
+
+    /**
+     * The failure.
+     */
+    private Throwable failure;
+
+    /**
+     * Ctor.
+     *
+     * @param waiter The thread waiting on this completion
+     */
+    public Completion(final Thread waiter) {
+        this.waiter = waiter;
+        this.backoff = new Backoff();
+    }
+
+    /**
+     * Complete with a result.
+     *
+     * @param result The result
+     */
+    public void complete(final Object result) {
+        this.value = result;
+        this.state = Completion.DONE;
+        LockSupport.unpark(this.waiter);
+    }
+
+    /**
+     * Complete with a failure.
+     *
+     * @param error The failure
+     */
+    public void fail(final Throwable error) {
+        this.failure = error;
+        this.state = Completion.FAILED;
+        LockSupport.unpark(this.waiter);
+    }
+
+    /**
+     * Wait for the result, then make the completion ready for the next
+     * call.
+     *
+     * @return The result
+     * @throws CompletionException Wrapping a checked failure, unchecked
+     *  ones being thrown as is
+     */
+    @SuppressWarnings("PMD.NullAssignment")
+    public Object await() {
+        int attempt = 0;
+        while (this.state == Completion.PENDING) {
+            if (attempt < Completion.ROUNDS) {
+                this.backoff.pause(attempt);
+                attempt += 1;
+            } else {
+                LockSupport.park(this);
+            }
+        }
+        final boolean failed = this.state == Completion.FAILED;
+        final Object result;
+        if (failed) {
+            result = this.failure;
+        } else {
+            result = this.value;
+        }
+        this.value = null;
+        this.failure = null;
+        this.state = Completion.PENDING;
+        if (failed) {
+            throw new Unchecked((Throwable) result).thrown();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Pending calls conflated by key: a call replaces the pending call to
+ * the same method with the same key, and a drainer thread applies the
+ * latest pending call of each key.
+ *
+ * <p>The drainer applies the pending calls whenever it is free, or at
+ * most once per period if one is given, so that a slow consumer only
+ * sees the latest value of each key.</p>
+ *
+ * <p>A {@code null} key is a key like the others. A call racing with
+ * {@link #close()} is either rejected or left to the drainer, never
+ * pending forever.</p>
+ *
+ * @since 1.1.0
+ */
+@SuppressWarnings("PMD.TooManyMethods")
+public final class Conflation {
+
+    /**
+     * The key standing for {@code null} in the maps, which can't hold it.
+     */
+    private static final Object NULL = new Object();
+
+    /**
+     * The message of calls rejected once closed.
+     */
+    private static final String CLOSED = "Conflation is closed";
+
+    /**
+     * The pending calls of each method by key.
+     */
+    private final List<ConcurrentMap<Object, Object[]>> calls;
+
+    /**
+     * The minimum time between two drains, in nanoseconds.
+     */
+    private final long period;
+
+    /**
+     * The number of calls replaced before being applied.
+     */
+    private final LongAdder replaced;
+
+    /**
+     * The number of failed calls.
+     */
+    private final LongAdder failures;
+
+    /**
+     * The drainer thread, once started.
+     */
+    private final AtomicReference<Thread> drainer;
+
+    /**
+     * Whether the drainer is parked for lack of pending calls.
+     */
+    private final AtomicBoolean parked;
+
+    /**
+     * Whether calls are not accepted anymore.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Ctor.
+     *
+     * @param methods The number of conflated methods
+     * @param period The minimum time between two drains, in
+     *  nanoseconds, or 0 to drain whenever the drainer is free
+     */
+    public Conflation(final int methods, final long period) {
+        this.calls = Conflation.maps(methods);
+        this.period = period;
+        this.replaced = new LongAdder();
+        this.failures = new LongAdder();
+        this.drainer = new AtomicReference<>();
+        this.parked = new AtomicBoolean();
+    }
+
+    /**
+     * Make a call pending, replacing the pending call with the same key.
+     *
+     * @param method The id of the called method
+     * @param key The key of the call
+     * @param arguments The arguments of the call
+     * @throws IllegalStateException If the conflation is closed
+     */
+    public void offer(
+        final int method, final Object key, final Object... arguments
+    ) {
+        if (this.closed) {
+            throw new IllegalStateException(Conflation.CLOSED);
+        }
+        final Object nonnull = Conflation.nonnull(key);
+        final Map<Object, Object[]> map = this.calls.get(method);
+        if (map.put(nonnull, arguments) == null) {
+            if (this.parked.get()) {
+                LockSupport.unpark(this.drainer.get());
+            }
+        } else {
+            this.replaced.increment();
+        }
+        if (this.closed && map.remove(nonnull, arguments)) {
+            throw new IllegalStateException(Conflation.CLOSED);
+        }
+    }
+
+    /**
+     * Start the drainer thread applying the pending calls.
+     *
+     * @param threads The factory of the drainer thread
+     * @param dispatch The way to apply calls
+     * @throws IllegalStateException If it is already started
+     */
+    public void start(final ThreadFactory threads, final Dispatch dispatch) {
+        final Thread thread = threads.newThread(() -> this.drain(dispatch));
+        if (!this.drainer.compareAndSet(null, thread)) {
+            throw new IllegalStateException("Conflation is already started");
+        }
+        thread.start();
+    }
+
+    /**
+     * Stop accepting calls, waiting for the drainer to apply the pending
+     * ones.
+     */
+    public void close() {
+        this.closed = true;
+        final Thread thread = this.drainer.get();
+        LockSupport.unpark(thread);
+        if (thread != null && thread != Thread.currentThread()) {
+            try {
+                thread.join();
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * The number of calls dropped because a later call with the same key
+     * replaced them before they were applied.
+     *
+     * @return The number of calls
+     */
+    public long dropped() {
+        return this.replaced.sum();
+    }
+
+    /**
+     * The number of pending calls.
+     *
+     * @return The number of calls
+     */
+    public int pending() {
+        int pending = 0;
+        for (final Map<Object, Object[]> map : this.calls) {
+            pending += map.size();
+        }
+        return pending;
+    }
+
+    /**
+     * The number of applied calls that failed.
+     *
+     * @return The number of failures
+     */
+    public long failed() {
+        return this.failures.sum();
+    }
+
+    /**
+     * Apply the pending calls until the conflation is closed and
+     * nothing is pending.
+     *
+     * @param dispatch The way to apply calls
+     */
+    private void drain(final Dispatch dispatch) {
+        final Thread thread = Thread.currentThread();
+        boolean more = true;
+        while (more) {
+            final boolean last = this.closed;
+            final long start = System.nanoTime();
+            final boolean applied = this.flush(dispatch, thread);
+            more = applied || !last;
+            if (more) {
+                this.rest(applied, start);
+            }
+        }
+    }
+
+    /**
+     * Apply the latest pending call of every key.
+     *
+     * @param dispatch The way to apply calls
+     * @param thread The drainer thread
+     * @return Whether any call was applied
+     */
+    @SuppressWarnings("PMD.AvoidCatchingThrowable")
+    private boolean flush(final Dispatch dispatch, final Thread thread) {
+        boolean applied = false;
+        for (int method = 0; method < this.calls.size(); ++method) {
+            final Map<Object, Object[]> map = this.calls.get(method);
+            for (final Object key : map.keySet()) {
+                final Object[] arguments = map.remove(key);
+                if (arguments != null) {
+                    applied = true;
+                    try {
+                        dispatch.apply(method, arguments);
+                        // @checkstyle IllegalCatchCheck (1 line)
+                    } catch (final Throwable ex) {
+                        this.failures.increment();
+                        thread.getUncaughtExceptionHandler()
+                            .uncaughtException(thread, ex);
+                    }
+                }
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Wait for the end of the period started by a drain that applied
+     * calls, or for pending calls otherwise.
+     *
+     * @param applied Whether the drain applied calls
+     * @param start The start of the drain, in nanoseconds
+     */
+    private void rest(final boolean applied, final long start) {
+        if (applied) {
+            long left = this.period - (System.nanoTime() - start);
+            while (left > 0L && !this.closed) {
+                LockSupport.parkNanos(this, left);
+                left = this.period - (System.nanoTime() - start);
+            }
+        } else {
+            this.parked.set(true);
+            if (this.pending() == 0 && !this.closed) {
+                LockSupport.park(this);
+            }
+            this.parked.set(false);
+        }
+    }
+
+    /**
+     * A key the maps can hold.
+     *
+     * @param key The key, may be {@code null}
+     * @return The key, or {@link #NULL} if {@code null}
+     */
+    private static Object nonnull(final Object key) {
+        final Object nonnull;
+        if (key == null) {
+            nonnull = Conflation.NULL;
+        } else {
+            nonnull = key;
+        }
+        return nonnull;
+    }
+
+    /**
+     * The maps of pending calls.
+     *
+     * @param methods The number of conflated methods
+     * @return One map per method
+     */
+    private static List<ConcurrentMap<Object, Object[]>> maps(
+        final int methods
+    ) {
+        final List<ConcurrentMap<Object, Object[]>> maps =
+            new ArrayList<>(methods);
+        for (int idx = 0; idx < methods; ++idx) {
+            maps.add(new ConcurrentHashMap<>());
+        }
+        return maps;
+    }
+}
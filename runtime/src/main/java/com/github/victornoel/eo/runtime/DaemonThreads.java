@@ -0,0 +1,61 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A factory of named daemon threads, for background tasks that must not
+ * keep the JVM running.
+ *
+ * @since 1.1.0
+ */
+public final class DaemonThreads implements ThreadFactory {
+
+    /**
+     * The prefix of the names of the threads.
+     */
+    private final String prefix;
+
+    /**
+     * The number of created threads.
+     */
+    private final AtomicInteger created;
+
+    /**
+     * Ctor.
+     *
+     * @param prefix The prefix of the names of the threads
+     */
+    public DaemonThreads(final String prefix) {
+        this.prefix = prefix;
+        this.created = new AtomicInteger();
+    }
+
+    @Override
+    public Thread newThread(final Runnable task) {
+        final Thread thread = new Thread(
+            task,
+            String.format("%s-%d", this.prefix, this.created.incrementAndGet())
+        );
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+/**
+ * Applies an invocation record, identified by a method id and its
+ * arguments, to an implementation.
+ *
+ * @since 1.1.0
+ */
+@FunctionalInterface
+public interface Dispatch {
+
+    /**
+     * Apply an invocation.
+     *
+     * @param method The id of the called method
+     * @param arguments The arguments
+     * @return The result, or null for void methods
+     * @throws Exception If the call fails
+     */
+    Object apply(int method, Object... arguments) throws Exception;
+}
@@ -0,0 +1,121 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracks the calls in flight on a replaceable delegate, so that a
+ * replacement can wait for the calls still running on the replaced one.
+ *
+ * <p>Calls are counted per epoch with striped counters: entering a call
+ * increments the counter of the current epoch and exiting decrements it,
+ * and draining flips the epoch before waiting for the counter of the
+ * previous one to reach zero. When disabled, entering and exiting cost a
+ * single branch. Draining must not happen concurrently.</p>
+ *
+ * @since 1.1.0
+ */
+public final class Drain {
+
+    /**
+     * Whether calls are tracked.
+     */
+    private final boolean enabled;
+
+    /**
+     * The number of calls in flight of each epoch.
+     */
+    private final LongAdder[] active;
+
+    /**
+     * The waiting strategy.
+     */
+    private final Backoff backoff;
+
+    /**
+     * The current epoch, 0 or 1.
+     */
+    private volatile int epoch;
+
+    /**
+     * Ctor.
+     *
+     * @param enabled Whether calls are tracked
+     */
+    public Drain(final boolean enabled) {
+        this.enabled = enabled;
+        this.active = new LongAdder[] {new LongAdder(), new LongAdder()};
+        this.backoff = new Backoff();
+    }
+
+    /**
+     * Enter a call, before reading the delegate.
+     *
+     * @return The epoch of the call, to give back to {@link #exit(int)}
+     */
+    public int enter() {
+        int current = 0;
+        if (this.enabled) {
+            current = this.epoch;
+            this.active[current].increment();
+            while (current != this.epoch) {
+                this.active[current].decrement();
+                current = this.epoch;
+                this.active[current].increment();
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Exit a call.
+     *
+     * @param entered The epoch returned by {@link #enter()}
+     */
+    public void exit(final int entered) {
+        if (this.enabled) {
+            this.active[entered].decrement();
+        }
+    }
+
+    /**
+     * Wait for the calls entered before, once the delegate has been
+     * replaced.
+     */
+    public void drain() {
+        if (this.enabled) {
+            final int previous = this.epoch;
+            this.epoch = 1 - previous;
+            for (int attempt = 0; this.active[previous].sum() > 0L;
+                ++attempt) {
+                this.backoff.pause(attempt);
+            }
+        }
+    }
+
+    /**
+     * The number of calls in flight, if they are tracked.
+     *
+     * @return The number of calls
+     */
+    public long inflight() {
+        return this.active[0].sum() + this.active[1].sum();
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * The emission of the elements of an {@link Iterable} to one subscriber,
+ * no faster than it requests them.
+ *
+ * <p>The iterable is only obtained on the first request, and elements
+ * are pulled from its iterator one at a time as they are requested, so
+ * nothing is buffered. Elements are emitted by the thread requesting
+ * them, requests made while emitting (even from the subscriber itself)
+ * being served by the emitting thread without recursion.</p>
+ *
+ * @param <T> Type of the elements
+ * @since 1.1.0
+ */
+public final class Emission<T> implements Publisher.Subscription {
+
+    /**
+     * The iterable to emit.
+     */
+    private final Callable<? extends Iterable<? extends T>> source;
+
+    /**
+     * Receives each element.
+     */
+    private final Consumer<? super T> item;
+
+    /**
+     * Receives the failure.
+     */
+    private final Consumer<? super Throwable> failure;
+
+    /**
+     * Called once all elements were emitted.
+     */
+    private final Runnable completion;
+
+    /**
+     * The number of requested elements not yet emitted.
+     */
+    private final AtomicLong demand;
+
+    /**
+     * The number of requests not yet served by the emitting thread.
+     */
+    private final AtomicInteger work;
+
+    /**
+     * Whether nothing must be emitted anymore.
+     */
+    private volatile boolean done;
+
+    /**
+     * The failure to report for an invalid request.
+     */
+    private volatile IllegalArgumentException invalid;
+
+    /**
+     * The elements being emitted, only used by the emitting thread.
+     */
+    private Iterator<? extends T> elements;
+
+    /**
+     * Ctor.
+     *
+     * @param source The iterable to emit
+     * @param item Receives each element
+     * @param failure Receives the failure
+     * @param completion Called once all elements were emitted
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    public Emission(final Callable<? extends Iterable<? extends T>> source,
+        final Consumer<? super T> item,
+        final Consumer<? super Throwable> failure,
+        final Runnable completion) {
+        this.source = source;
+        this.item = item;
+        this.failure = failure;
+        this.completion = completion;
+        this.demand = new AtomicLong();
+        this.work = new AtomicInteger();
+    }
+
+    @Override
+    public void request(final long count) {
+        if (count > 0L) {
+            this.demand.accumulateAndGet(
+                count, Emission::capped
+            );
+        } else {
+            this.invalid = new IllegalArgumentException(
+                String.format("Non-positive request: %d", count)
+            );
+        }
+        if (this.work.getAndIncrement() == 0) {
+            int missed = 1;
+            while (missed != 0) {
+                this.emit();
+                missed = this.work.addAndGet(-missed);
+            }
+        }
+    }
+
+    @Override
+    public void cancel() {
+        this.done = true;
+    }
+
+    /**
+     * Emit as many elements as requested, then the completion if the
+     * elements are exhausted.
+     */
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private void emit() {
+        if (this.invalid != null) {
+            this.fail(this.invalid);
+        }
+        try {
+            if (!this.done) {
+                this.pull();
+            }
+            // @checkstyle IllegalCatchCheck (1 line)
+        } catch (final Exception ex) {
+            this.fail(ex);
+        }
+        if (this.done) {
+            this.elements = Collections.emptyIterator();
+        }
+    }
+
+    /**
+     * Pull the requested elements from the iterable, obtaining it first
+     * if needed, and complete once it is exhausted.
+     *
+     * @throws Exception If the iterable fails
+     */
+    @SuppressWarnings("PMD.SignatureDeclareThrowsException")
+    private void pull() throws Exception {
+        if (this.elements == null) {
+            this.elements = this.source.call().iterator();
+        }
+        final long requested = this.demand.get();
+        long emitted = 0L;
+        while (!this.done && emitted < requested && this.elements.hasNext()) {
+            this.item.accept(this.elements.next());
+            ++emitted;
+        }
+        if (requested != Long.MAX_VALUE) {
+            this.demand.addAndGet(-emitted);
+        }
+        if (!this.done && !this.elements.hasNext()) {
+            this.done = true;
+            this.completion.run();
+        }
+    }
+
+    /**
+     * Report a failure, unless nothing must be emitted anymore.
+     *
+     * @param error The failure
+     */
+    private void fail(final Throwable error) {
+        if (!this.done) {
+            this.done = true;
+            this.failure.accept(error);
+        }
+    }
+
+    /**
+     * The sum of two demands, capped to an unbounded demand.
+     *
+     * @param left The demand not yet emitted
+     * @param more The new demand
+     * @return Their sum
+     */
+    private static long capped(final long left, final long more) {
+        final long sum = left + more;
+        final long capped;
+        if (sum < 0L) {
+            capped = Long.MAX_VALUE;
+        } else {
+            capped = sum;
+        }
+        return capped;
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The statistics and the knobs of an envelope, managed at runtime through
+ * JMX (see {@link EnvelopeRegistry}).
+ *
+ * <p>The knobs are volatile fields read once per call, so changing them
+ * takes effect on the next calls without making calls contend. Every
+ * call is counted, but only the sampled ones are timed. The calls in
+ * flight are counted in striped counters too, only summed to check the
+ * concurrency limit when one is set: concurrent calls at the limit may
+ * then all be refused, but never all admitted over it.</p>
+ *
+ * @since 1.1.0
+ */
+public final class EnvelopeControl implements EnvelopeControlMBean {
+
+    /**
+     * The start of a call which is not sampled.
+     */
+    private static final long UNSAMPLED = Long.MIN_VALUE;
+
+    /**
+     * The 99th percentile.
+     */
+    private static final double P99 = 0.99;
+
+    /**
+     * The names of the methods.
+     */
+    private final String[] names;
+
+    /**
+     * The number of calls to each method.
+     */
+    private final LongAdder[] counts;
+
+    /**
+     * The number of failed calls to each method.
+     */
+    private final LongAdder[] failed;
+
+    /**
+     * The latency of the sampled calls to each method.
+     */
+    private final Histogram[] latencies;
+
+    /**
+     * The number of calls in flight.
+     */
+    private final LongAdder running;
+
+    /**
+     * The number of calls refused.
+     */
+    private final LongAdder refused;
+
+    /**
+     * Whether the latency of the calls is sampled.
+     */
+    private volatile boolean sampled;
+
+    /**
+     * The average number of calls per sampled call.
+     */
+    private volatile int period;
+
+    /**
+     * The largest number of calls in flight at once, or 0.
+     */
+    private volatile int limit;
+
+    /**
+     * Ctor.
+     *
+     * @param methods The names of the methods
+     */
+    public EnvelopeControl(final String... methods) {
+        this.names = methods.clone();
+        this.counts = EnvelopeControl.adders(methods.length);
+        this.failed = EnvelopeControl.adders(methods.length);
+        this.latencies = EnvelopeControl.histograms(methods.length);
+        this.running = new LongAdder();
+        this.refused = new LongAdder();
+        this.sampled = true;
+        this.period = 1;
+        this.limit = 0;
+    }
+
+    /**
+     * Start a call.
+     *
+     * @param method The index of the method
+     * @return The start of the call, to give to {@link #exit}
+     * @throws ThrottledException If the call is over the concurrency limit
+     */
+    public long enter(final int method) {
+        final int max = this.limit;
+        this.running.increment();
+        if (max > 0 && this.running.sum() > max) {
+            this.running.decrement();
+            this.refused.increment();
+            throw new ThrottledException(
+                String.format(
+                    "Concurrency limit of %s exceeded", this.names[method]
+                )
+            );
+        }
+        this.counts[method].increment();
+        final int every = this.period;
+        final long start;
+        if (this.sampled && (every == 1
+            || ThreadLocalRandom.current().nextInt(every) == 0)) {
+            start = System.nanoTime();
+        } else {
+            start = EnvelopeControl.UNSAMPLED;
+        }
+        return start;
+    }
+
+    /**
+     * End a call.
+     *
+     * @param method The index of the method
+     * @param start The start of the call, given by {@link #enter}
+     * @param failure Whether the call failed
+     */
+    public void exit(final int method, final long start, final boolean failure) {
+        this.running.decrement();
+        if (failure) {
+            this.failed[method].increment();
+        }
+        if (start != EnvelopeControl.UNSAMPLED) {
+            this.latencies[method].record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * The latency of the sampled calls to a method.
+     *
+     * @param method The index of the method
+     * @return The histogram, in nanoseconds
+     */
+    public Histogram latency(final int method) {
+        return this.latencies[method];
+    }
+
+    @Override
+    public boolean isSampling() {
+        return this.sampled;
+    }
+
+    @Override
+    public void setSampling(final boolean sampling) {
+        this.sampled = sampling;
+    }
+
+    @Override
+    public int getSamplePeriod() {
+        return this.period;
+    }
+
+    @Override
+    public void setSamplePeriod(final int every) {
+        if (every < 1) {
+            throw new IllegalArgumentException(
+                String.format("Sample period %d is not positive", every)
+            );
+        }
+        this.period = every;
+    }
+
+    @Override
+    public int getConcurrencyLimit() {
+        return this.limit;
+    }
+
+    @Override
+    public void setConcurrencyLimit(final int max) {
+        if (max < 0) {
+            throw new IllegalArgumentException(
+                String.format("Concurrency limit %d is negative", max)
+            );
+        }
+        this.limit = max;
+    }
+
+    @Override
+    public int getInflight() {
+        return this.running.intValue();
+    }
+
+    @Override
+    public long getRejected() {
+        return this.refused.sum();
+    }
+
+    @Override
+    public String[] getMethods() {
+        return this.names.clone();
+    }
+
+    @Override
+    public long[] getCalls() {
+        return EnvelopeControl.sums(this.counts);
+    }
+
+    @Override
+    public long[] getFailures() {
+        return EnvelopeControl.sums(this.failed);
+    }
+
+    @Override
+    public double[] getMeanLatencies() {
+        final double[] means = new double[this.latencies.length];
+        for (int idx = 0; idx < means.length; ++idx) {
+            means[idx] = this.latencies[idx].mean();
+        }
+        return means;
+    }
+
+    @Override
+    public long[] getTailLatencies() {
+        final long[] percentiles = new long[this.latencies.length];
+        for (int idx = 0; idx < percentiles.length; ++idx) {
+            percentiles[idx] = this.latencies[idx].percentile(
+                EnvelopeControl.P99
+            );
+        }
+        return percentiles;
+    }
+
+    @Override
+    public void reset() {
+        for (int idx = 0; idx < this.names.length; ++idx) {
+            this.counts[idx].reset();
+            this.failed[idx].reset();
+            this.latencies[idx].reset();
+        }
+        this.refused.reset();
+    }
+
+    @Override
+    public String toString() {
+        final StringJoiner joiner = new StringJoiner(", ");
+        for (int idx = 0; idx < this.names.length; ++idx) {
+            joiner.add(
+                String.format(
+                    "%s: calls=%d failures=%d latency=[%s]",
+                    this.names[idx], this.counts[idx].sum(),
+                    this.failed[idx].sum(), this.latencies[idx]
+                )
+            );
+        }
+        return joiner.toString();
+    }
+
+    /**
+     * The sums of counters.
+     *
+     * @param adders The counters
+     * @return The sums
+     */
+    private static long[] sums(final LongAdder... adders) {
+        final long[] sums = new long[adders.length];
+        for (int idx = 0; idx < sums.length; ++idx) {
+            sums[idx] = adders[idx].sum();
+        }
+        return sums;
+    }
+
+    /**
+     * New counters.
+     *
+     * @param count The number of counters
+     * @return The counters
+     */
+    private static LongAdder[] adders(final int count) {
+        final LongAdder[] adders = new LongAdder[count];
+        for (int idx = 0; idx < count; ++idx) {
+            adders[idx] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * New histograms.
+     *
+     * @param count The number of histograms
+     * @return The histograms
+     */
+    private static Histogram[] histograms(final int count) {
+        final Histogram[] histograms = new Histogram[count];
+        for (int idx = 0; idx < count; ++idx) {
+            histograms[idx] = new Histogram();
+        }
+        return histograms;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+/**
+ * The management interface of an {@link EnvelopeControl}, exposing the
+ * statistics of the methods of an envelope and the knobs changing its
+ * behaviour at runtime.
+ *
+ * @since 1.1.0
+ */
+public interface EnvelopeControlMBean {
+
+    /**
+     * Whether the latency of the calls is sampled.
+     *
+     * @return True if it is
+     */
+    boolean isSampling();
+
+    /**
+     * Enable or disable the sampling of the latency of the calls.
+     *
+     * @param sampling True to enable it
+     */
+    void setSampling(boolean sampling);
+
+    /**
+     * The average number of calls per sampled call.
+     *
+     * @return The period, 1 meaning every call is sampled
+     */
+    int getSamplePeriod();
+
+    /**
+     * Change the average number of calls per sampled call.
+     *
+     * @param period The period, at least 1
+     */
+    void setSamplePeriod(int period);
+
+    /**
+     * The largest number of calls in flight at once.
+     *
+     * @return The limit, 0 meaning there is none
+     */
+    int getConcurrencyLimit();
+
+    /**
+     * Change the largest number of calls in flight at once, the calls
+     * over it failing with a {@link ThrottledException}.
+     *
+     * @param limit The limit, 0 meaning there is none
+     */
+    void setConcurrencyLimit(int limit);
+
+    /**
+     * The number of calls in flight.
+     *
+     * @return The count
+     */
+    int getInflight();
+
+    /**
+     * The number of calls refused because of the concurrency limit.
+     *
+     * @return The count
+     */
+    long getRejected();
+
+    /**
+     * The names of the methods, in the order of the statistics.
+     *
+     * @return The names
+     */
+    String[] getMethods();
+
+    /**
+     * The number of calls to each method.
+     *
+     * @return The counts
+     */
+    long[] getCalls();
+
+    /**
+     * The number of failed calls to each method.
+     *
+     * @return The counts
+     */
+    long[] getFailures();
+
+    /**
+     * The mean latency of the sampled calls to each method.
+     *
+     * @return The means, in nanoseconds
+     */
+    double[] getMeanLatencies();
+
+    /**
+     * The 99th percentile of the latency of the sampled calls to each
+     * method.
+     *
+     * @return The percentiles, in nanoseconds
+     */
+    long[] getTailLatencies();
+
+    /**
+     * Forget the statistics.
+     */
+    void reset();
+}
@@ -0,0 +1,185 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The classes generated for each interface, read once from the
+ * {@code META-INF/eo-envelopes.idx} resources written by the annotation
+ * processor, so that frameworks can wire them without scanning the
+ * classpath.
+ *
+ * @since 1.1.0
+ */
+public final class EnvelopeIndex {
+
+    /**
+     * The number of columns of a line of the index.
+     */
+    private static final int COLUMNS = 4;
+
+    /**
+     * The location of the index resources.
+     */
+    private static final String RESOURCE = "META-INF/eo-envelopes.idx";
+
+    /**
+     * The generated classes by binary name of interface.
+     */
+    private final Map<String, List<IndexedEnvelope>> generated;
+
+    /**
+     * Ctor, reading the resources visible from the context class loader.
+     *
+     * @throws IOException If a resource can't be read
+     */
+    public EnvelopeIndex() throws IOException {
+        this(Thread.currentThread().getContextClassLoader());
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param loader The class loader to read the resources from
+     * @throws IOException If a resource can't be read
+     */
+    public EnvelopeIndex(final ClassLoader loader) throws IOException {
+        this(EnvelopeIndex.read(loader.getResources(EnvelopeIndex.RESOURCE)));
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param envelopes The generated classes by binary name of interface
+     */
+    public EnvelopeIndex(final Map<String, List<IndexedEnvelope>> envelopes) {
+        this.generated = envelopes;
+    }
+
+    /**
+     * All the indexed interfaces and their generated classes.
+     *
+     * @return The unmodifiable map of generated classes by binary name of
+     *  interface
+     */
+    public Map<String, List<IndexedEnvelope>> all() {
+        return this.generated;
+    }
+
+    /**
+     * The classes generated for an interface.
+     *
+     * @param itf The binary name of the interface
+     * @return The generated classes, empty if there are none
+     */
+    public List<IndexedEnvelope> envelopes(final String itf) {
+        return this.generated.getOrDefault(itf, Collections.emptyList());
+    }
+
+    /**
+     * Read all the index resources into an unmodifiable map.
+     *
+     * @param resources The index resources
+     * @return The generated classes by binary name of interface
+     * @throws IOException If a resource can't be read
+     */
+    private static Map<String, List<IndexedEnvelope>> read(
+        final Enumeration<URL> resources
+    ) throws IOException {
+        final Map<String, Map<String, List<String>>> lines =
+            new LinkedHashMap<>();
+        while (resources.hasMoreElements()) {
+            try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(
+                    resources.nextElement().openStream(),
+                    StandardCharsets.UTF_8
+                )
+            )) {
+                String line = reader.readLine();
+                while (line != null) {
+                    if (!line.isEmpty() && line.charAt(0) != '#') {
+                        final String[] parts = line.split(
+                            "\t", EnvelopeIndex.COLUMNS
+                        );
+                        lines
+                            .computeIfAbsent(parts[0], k -> new LinkedHashMap<>())
+                            .computeIfAbsent(
+                                String.join("\t", parts[2], parts[1]),
+                                k -> new ArrayList<>(1)
+                            )
+                            .add(parts[EnvelopeIndex.COLUMNS - 1]);
+                    }
+                    line = reader.readLine();
+                }
+            }
+        }
+        final Map<String, List<IndexedEnvelope>> envelopes =
+            new LinkedHashMap<>();
+        lines.forEach(
+            (itf, classes) -> {
+                final List<IndexedEnvelope> generated =
+                    new ArrayList<>(classes.size());
+                classes.forEach(
+                    (key, ctors) -> generated.add(
+                        EnvelopeIndex.envelope(key.split("\t"), ctors)
+                    )
+                );
+                envelopes.put(itf, Collections.unmodifiableList(generated));
+            }
+        );
+        return Collections.unmodifiableMap(envelopes);
+    }
+
+    /**
+     * An indexed generated class.
+     *
+     * @param key The binary name of the class and the annotation
+     * @param ctors The parameters of its constructors, comma-separated
+     * @return The indexed class
+     */
+    private static IndexedEnvelope envelope(
+        final String[] key, final List<String> ctors
+    ) {
+        final List<List<String>> signatures = new ArrayList<>(ctors.size());
+        for (final String ctor : ctors) {
+            if (ctor.isEmpty()) {
+                signatures.add(Collections.emptyList());
+            } else {
+                signatures.add(
+                    Collections.unmodifiableList(Arrays.asList(ctor.split(",")))
+                );
+            }
+        }
+        return new IndexedEnvelope(
+            key[0], key[1], Collections.unmodifiableList(signatures)
+        );
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * A registry of the {@link EnvelopeControl} of envelopes as MBeans,
+ * named {@code com.github.victornoel.eo:type=<interface>}, followed by
+ * {@code ,instance=<n>} for the second and next envelopes of an
+ * interface, numbered in the order of their registration.
+ *
+ * @since 1.1.0
+ */
+public final class EnvelopeRegistry {
+
+    /**
+     * The domain of the names of the MBeans.
+     */
+    public static final String DOMAIN = "com.github.victornoel.eo";
+
+    /**
+     * The MBean server.
+     */
+    private final MBeanServer server;
+
+    /**
+     * The names of the registered controls.
+     */
+    private final Map<EnvelopeControl, ObjectName> names;
+
+    /**
+     * The number of the last envelope registered for each interface.
+     */
+    private final Map<String, AtomicInteger> instances;
+
+    /**
+     * Ctor, registering in the platform MBean server.
+     */
+    public EnvelopeRegistry() {
+        this(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param server The MBean server
+     */
+    public EnvelopeRegistry(final MBeanServer server) {
+        this.server = server;
+        this.names = new ConcurrentHashMap<>();
+        this.instances = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Register the control of an envelope.
+     *
+     * @param type The name of the interface of the envelope
+     * @param control The control
+     * @return The control
+     * @throws IllegalStateException If it can't be registered
+     */
+    public EnvelopeControl registered(
+        final String type, final EnvelopeControl control
+    ) {
+        final AtomicInteger last = this.instances.computeIfAbsent(
+            type, key -> new AtomicInteger()
+        );
+        Optional<ObjectName> name = Optional.empty();
+        while (!name.isPresent()) {
+            name = this.register(type, last.incrementAndGet(), control);
+        }
+        this.names.put(control, name.get());
+        return control;
+    }
+
+    /**
+     * Unregister the control of an envelope, if it is registered.
+     *
+     * @param control The control
+     * @throws IllegalStateException If it can't be unregistered
+     */
+    public void unregister(final EnvelopeControl control) {
+        final ObjectName name = this.names.remove(control);
+        if (name != null) {
+            try {
+                this.server.unregisterMBean(name);
+            } catch (final JMException ex) {
+                throw new IllegalStateException(
+                    String.format("Can't unregister %s", name), ex
+                );
+            }
+        }
+    }
+
+    /**
+     * Register the control of an envelope under the name of a given
+     * instance.
+     *
+     * @param type The name of the interface of the envelope
+     * @param instance The number of the envelope for the interface
+     * @param control The control
+     * @return The name, or nothing if it is already used
+     * @throws IllegalStateException If it can't be registered
+     */
+    private Optional<ObjectName> register(
+        final String type, final int instance, final EnvelopeControl control
+    ) {
+        Optional<ObjectName> name;
+        try {
+            name = Optional.of(
+                this.server.registerMBean(
+                    control, EnvelopeRegistry.name(type, instance)
+                ).getObjectName()
+            );
+        } catch (final InstanceAlreadyExistsException ex) {
+            name = Optional.empty();
+        } catch (final JMException ex) {
+            throw new IllegalStateException(
+                String.format("Can't register the envelope of %s", type), ex
+            );
+        }
+        return name;
+    }
+
+    /**
+     * The name of the MBean of an envelope.
+     *
+     * @param type The name of the interface of the envelope
+     * @param instance The number of the envelope for the interface
+     * @return The name
+     * @throws JMException If the name is invalid
+     */
+    private static ObjectName name(final String type, final int instance)
+        throws JMException {
+        final String name;
+        if (instance == 1) {
+            name = String.format(
+                "%s:type=%s", EnvelopeRegistry.DOMAIN, type
+            );
+        } else {
+            name = String.format(
+                "%s:type=%s,instance=%d",
+                EnvelopeRegistry.DOMAIN, type, instance
+            );
+        }
+        return new ObjectName(name);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+/**
+ * The faults injected in the calls to a method by a {@link Chaos}: a
+ * latency, and failures at a given rate.
+ *
+ * @since 1.1.0
+ */
+public final class Fault {
+
+    /**
+     * The latency of the calls.
+     */
+    private final Latency latency;
+
+    /**
+     * The ratio of failed calls.
+     */
+    private final double errors;
+
+    /**
+     * Ctor.
+     *
+     * @param latency The latency of the calls
+     * @param errors The ratio of failed calls, between 0 and 1
+     */
+    public Fault(final Latency latency, final double errors) {
+        this.latency = latency;
+        this.errors = Fault.ratio(errors);
+    }
+
+    /**
+     * Draw the latency of a call.
+     *
+     * @param random The generator of the draw
+     * @return The latency, in nanoseconds
+     */
+    public long delay(final SplitMix random) {
+        return this.latency.nanos(random);
+    }
+
+    /**
+     * Draw whether a call fails.
+     *
+     * @param random The generator of the draw
+     * @return True if it fails
+     */
+    public boolean fails(final SplitMix random) {
+        return this.errors > 0.0 && random.uniform() < this.errors;
+    }
+
+    /**
+     * Check a ratio.
+     *
+     * @param ratio The ratio
+     * @return The ratio
+     */
+    private static double ratio(final double ratio) {
+        if (!(ratio >= 0.0 && ratio <= 1.0)) {
+            throw new IllegalArgumentException(
+                String.format("Error rate %f is not between 0 and 1", ratio)
+            );
+        }
+        return ratio;
+    }
+}
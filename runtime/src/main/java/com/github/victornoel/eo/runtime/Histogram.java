@@ -0,0 +1,279 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of non-negative values, such as latencies in nanoseconds,
+ * with log-linear buckets: values are counted exactly below 32 and with
+ * a relative error under 1/32 above, in a fixed amount of memory.
+ *
+ * <p>Recording is lock-free and allocation-free, and can happen
+ * concurrently with reading. The count, the sum and the buckets are
+ * striped, so recording from many threads doesn't contend on them: each
+ * thread counts in the buckets of one of a few stripes, allocated the
+ * first time a thread uses them, so that a histogram only recorded by
+ * one thread takes the memory of one stripe.</p>
+ *
+ * @since 1.1.0
+ */
+@SuppressWarnings("PMD.TooManyMethods")
+public final class Histogram {
+
+    /**
+     * Number of bits of precision in each power of two.
+     */
+    private static final int PRECISION = 5;
+
+    /**
+     * Number of buckets in each power of two.
+     */
+    private static final int LINEAR = 1 << Histogram.PRECISION;
+
+    /**
+     * Total number of buckets.
+     */
+    private static final int BUCKETS =
+        (Long.SIZE - Histogram.PRECISION) * Histogram.LINEAR;
+
+    /**
+     * Number of stripes of buckets, a power of two.
+     */
+    private static final int STRIPES = Integer.highestOneBit(
+        // @checkstyle MagicNumberCheck (1 line)
+        Math.min(8, Runtime.getRuntime().availableProcessors()) * 2 - 1
+    );
+
+    /**
+     * The counts of each bucket, per stripe.
+     */
+    private final AtomicReferenceArray<AtomicLongArray> counts;
+
+    /**
+     * The number of recorded values.
+     */
+    private final LongAdder total;
+
+    /**
+     * The sum of recorded values.
+     */
+    private final LongAdder values;
+
+    /**
+     * The highest recorded value.
+     */
+    private final AtomicLong highest;
+
+    /**
+     * Ctor.
+     */
+    public Histogram() {
+        this.counts = new AtomicReferenceArray<>(Histogram.STRIPES);
+        this.total = new LongAdder();
+        this.values = new LongAdder();
+        this.highest = new AtomicLong();
+    }
+
+    /**
+     * Record a value, negative values being recorded as 0.
+     *
+     * @param value The value
+     */
+    public void record(final long value) {
+        final long positive = Math.max(0L, value);
+        this.stripe().incrementAndGet(Histogram.bucket(positive));
+        this.total.increment();
+        this.values.add(positive);
+        long max = this.highest.get();
+        while (positive > max && !this.highest.compareAndSet(max, positive)) {
+            max = this.highest.get();
+        }
+    }
+
+    /**
+     * The number of recorded values.
+     *
+     * @return The count
+     */
+    public long count() {
+        return this.total.sum();
+    }
+
+    /**
+     * The sum of recorded values.
+     *
+     * @return The sum
+     */
+    public long sum() {
+        return this.values.sum();
+    }
+
+    /**
+     * The highest recorded value.
+     *
+     * @return The maximum, or 0 if nothing was recorded
+     */
+    public long max() {
+        return this.highest.get();
+    }
+
+    /**
+     * The mean of recorded values.
+     *
+     * @return The mean, or 0 if nothing was recorded
+     */
+    public double mean() {
+        final long count = this.total.sum();
+        final double mean;
+        if (count == 0L) {
+            mean = 0.0;
+        } else {
+            mean = (double) this.values.sum() / count;
+        }
+        return mean;
+    }
+
+    /**
+     * The value under which a given ratio of the recorded values are.
+     *
+     * @param ratio The ratio, between 0 and 1, such as 0.99
+     * @return The highest value of the bucket holding that percentile,
+     *  or 0 if nothing was recorded
+     */
+    public long percentile(final double ratio) {
+        final long count = this.total.sum();
+        final long rank = (long) Math.ceil(
+            Math.max(0.0, Math.min(1.0, ratio)) * count
+        );
+        long seen = 0L;
+        long value = 0L;
+        for (int idx = 0; count > 0L && idx < Histogram.BUCKETS; ++idx) {
+            seen += this.counted(idx);
+            if (seen >= Math.max(1L, rank)) {
+                value = Math.min(Histogram.ceiling(idx), this.highest.get());
+                break;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Forget all the recorded values.
+     */
+    public void reset() {
+        for (int stripe = 0; stripe < Histogram.STRIPES; ++stripe) {
+            final AtomicLongArray buckets = this.counts.get(stripe);
+            for (int idx = 0; buckets != null && idx < Histogram.BUCKETS; ++idx) {
+                buckets.set(idx, 0L);
+            }
+        }
+        this.total.reset();
+        this.values.reset();
+        this.highest.set(0L);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "count=%d mean=%.1f p50=%d p99=%d p999=%d max=%d",
+            this.count(), this.mean(),
+            // @checkstyle MagicNumberCheck (1 line)
+            this.percentile(0.5), this.percentile(0.99), this.percentile(0.999),
+            this.max()
+        );
+    }
+
+    /**
+     * The buckets of the current thread, allocated on first use.
+     *
+     * @return The counts of the buckets
+     */
+    private AtomicLongArray stripe() {
+        final int idx = (int) Thread.currentThread().getId()
+            & Histogram.STRIPES - 1;
+        AtomicLongArray buckets = this.counts.get(idx);
+        if (buckets == null) {
+            this.counts.compareAndSet(
+                idx, null, new AtomicLongArray(Histogram.BUCKETS)
+            );
+            buckets = this.counts.get(idx);
+        }
+        return buckets;
+    }
+
+    /**
+     * The count of a bucket in all the stripes.
+     *
+     * @param bucket The index of the bucket
+     * @return The count
+     */
+    private long counted(final int bucket) {
+        long count = 0L;
+        for (int idx = 0; idx < Histogram.STRIPES; ++idx) {
+            final AtomicLongArray buckets = this.counts.get(idx);
+            if (buckets != null) {
+                count += buckets.get(bucket);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The bucket of a value.
+     *
+     * @param value The non-negative value
+     * @return The index of its bucket
+     */
+    private static int bucket(final long value) {
+        final int bucket;
+        if (value < Histogram.LINEAR) {
+            bucket = (int) value;
+        } else {
+            final int magnitude = Long.SIZE - 1
+                - Long.numberOfLeadingZeros(value);
+            final int shift = magnitude - Histogram.PRECISION;
+            bucket = (shift + 1) * Histogram.LINEAR
+                + (int) (value >>> shift) - Histogram.LINEAR;
+        }
+        return bucket;
+    }
+
+    /**
+     * The highest value of a bucket.
+     *
+     * @param bucket The index of the bucket
+     * @return The highest value
+     */
+    private static long ceiling(final int bucket) {
+        final long highest;
+        if (bucket < Histogram.LINEAR) {
+            highest = bucket;
+        } else {
+            final int shift = bucket / Histogram.LINEAR - 1;
+            final long lowest = (long) (Histogram.LINEAR
+                + bucket % Histogram.LINEAR) << shift;
+            highest = lowest + (1L << shift) - 1L;
+        }
+        return highest;
+    }
+}
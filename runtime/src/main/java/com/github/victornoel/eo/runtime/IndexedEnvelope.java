@@ -0,0 +1,97 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.util.List;
+
+/**
+ * A class generated for an interface, as listed in the envelope index.
+ *
+ * @since 1.1.0
+ */
+public final class IndexedEnvelope {
+
+    /**
+     * The binary name of the generated class.
+     */
+    private final String name;
+
+    /**
+     * The simple name of the generating annotation.
+     */
+    private final String annotation;
+
+    /**
+     * The binary names of the parameters of each public constructor.
+     */
+    private final List<List<String>> constructors;
+
+    /**
+     * Ctor.
+     *
+     * @param name The binary name of the generated class
+     * @param annotation The simple name of the generating annotation
+     * @param constructors The binary names of the parameters of each
+     *  public constructor
+     */
+    public IndexedEnvelope(
+        final String name, final String annotation,
+        final List<List<String>> constructors
+    ) {
+        this.name = name;
+        this.annotation = annotation;
+        this.constructors = constructors;
+    }
+
+    /**
+     * The binary name of the generated class, to load it.
+     *
+     * @return The name
+     */
+    public String type() {
+        return this.name;
+    }
+
+    /**
+     * The simple name of the generating annotation, such as
+     * {@code GenerateEnvelope} or {@code GenerateActor}.
+     *
+     * @return The annotation
+     */
+    public String variant() {
+        return this.annotation;
+    }
+
+    /**
+     * The binary names of the parameters of each public constructor,
+     * arrays being suffixed with {@code []}.
+     *
+     * @return The parameters of the constructors
+     */
+    public List<List<String>> signatures() {
+        return this.constructors;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "%s (@%s) %s", this.name, this.annotation, this.constructors
+        );
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded concurrent table of weakly referenced values, returning for
+ * a value the equal one it already holds, so equal values share one
+ * instance.
+ *
+ * <p>The table is set-associative: a value can only be held in one of the
+ * few slots of the set given by its hash, and replaces one of them at
+ * random when none is free, so its size is bounded and looking a value up
+ * takes no lock. Values are only weakly referenced, so the table doesn't
+ * keep them alive, and a slot whose value was collected is free again.</p>
+ *
+ * <p>Values are only shared with values of the same class, and must be
+ * immutable.</p>
+ *
+ * @since 1.1.0
+ */
+public final class InternTable {
+
+    /**
+     * The largest capacity.
+     */
+    public static final int MAXIMUM = 268_435_456;
+
+    /**
+     * The number of slots of a set.
+     */
+    private static final int WAYS = 4;
+
+    /**
+     * The slots.
+     */
+    private final AtomicReferenceArray<WeakReference<Object>> slots;
+
+    /**
+     * The mask of the index of a set.
+     */
+    private final int mask;
+
+    /**
+     * The number of values looked up.
+     */
+    private final LongAdder looked;
+
+    /**
+     * The number of values replaced by an equal one.
+     */
+    private final LongAdder hits;
+
+    /**
+     * Ctor.
+     *
+     * @param capacity The largest number of values held, rounded up to a
+     *  power of two
+     */
+    public InternTable(final int capacity) {
+        this.slots = new AtomicReferenceArray<>(
+            InternTable.sets(capacity) * InternTable.WAYS
+        );
+        this.mask = InternTable.sets(capacity) - 1;
+        this.looked = new LongAdder();
+        this.hits = new LongAdder();
+    }
+
+    /**
+     * The value equal to a given one held by the table, the given one
+     * being held from now on if there is none.
+     *
+     * @param value The value, or {@code null}
+     * @param <T> The type of the value
+     * @return The equal value held, or the given one
+     */
+    public <T> T intern(final T value) {
+        final T interned;
+        if (value == null) {
+            interned = null;
+        } else {
+            this.looked.increment();
+            interned = this.held(value);
+        }
+        return interned;
+    }
+
+    /**
+     * The number of values looked up.
+     *
+     * @return The count
+     */
+    public long lookups() {
+        return this.looked.sum();
+    }
+
+    /**
+     * The number of values replaced by an equal one held by the table.
+     *
+     * @return The count
+     */
+    public long shared() {
+        return this.hits.sum();
+    }
+
+    /**
+     * The ratio of the values replaced by an equal one.
+     *
+     * @return The ratio, between 0 and 1, 0 if nothing was looked up
+     */
+    public double ratio() {
+        final long count = this.looked.sum();
+        final double ratio;
+        if (count == 0L) {
+            ratio = 0.0;
+        } else {
+            ratio = (double) this.hits.sum() / count;
+        }
+        return ratio;
+    }
+
+    /**
+     * The number of values held, which are not collected yet.
+     *
+     * @return The count
+     */
+    public int size() {
+        int size = 0;
+        for (int idx = 0; idx < this.slots.length(); ++idx) {
+            if (InternTable.referent(this.slots.get(idx)) != null) {
+                ++size;
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "lookups=%d shared=%d ratio=%.3f capacity=%d",
+            this.looked.sum(), this.hits.sum(), this.ratio(),
+            this.slots.length()
+        );
+    }
+
+    /**
+     * The value equal to a given one held by the table, the given one
+     * being held from now on if there is none.
+     *
+     * @param value The value
+     * @param <T> The type of the value
+     * @return The equal value held, or the given one
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T held(final T value) {
+        final int hash = value.hashCode();
+        final int base = ((hash ^ (hash >>> Short.SIZE)) & this.mask)
+            * InternTable.WAYS;
+        Object found = null;
+        int free = -1;
+        for (int way = 0; way < InternTable.WAYS && found == null; ++way) {
+            final Object held = InternTable.referent(
+                this.slots.get(base + way)
+            );
+            if (held == null && free < 0) {
+                free = base + way;
+            } else if (held != null && held.getClass() == value.getClass()
+                && held.equals(value)) {
+                found = held;
+            }
+        }
+        if (found == null) {
+            found = value;
+            this.slots.set(InternTable.victim(base, free), new WeakReference<>(value));
+        } else {
+            this.hits.increment();
+        }
+        return (T) found;
+    }
+
+    /**
+     * The slot where to hold a new value.
+     *
+     * @param base The first slot of the set of the value
+     * @param free The first free slot of the set, or -1
+     * @return The free slot, or a random one of the set
+     */
+    private static int victim(final int base, final int free) {
+        final int victim;
+        if (free < 0) {
+            victim = base
+                + ThreadLocalRandom.current().nextInt(InternTable.WAYS);
+        } else {
+            victim = free;
+        }
+        return victim;
+    }
+
+    /**
+     * The value of a slot.
+     *
+     * @param slot The reference in the slot, or {@code null}
+     * @return The value, or {@code null} if there is none
+     */
+    private static Object referent(final WeakReference<Object> slot) {
+        final Object referent;
+        if (slot == null) {
+            referent = null;
+        } else {
+            referent = slot.get();
+        }
+        return referent;
+    }
+
+    /**
+     * The number of sets for a capacity.
+     *
+     * @param capacity The capacity
+     * @return The number of sets, a power of two
+     */
+    private static int sets(final int capacity) {
+        if (capacity < 1 || capacity > InternTable.MAXIMUM) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Capacity %d is not between 1 and %d",
+                    capacity, InternTable.MAXIMUM
+                )
+            );
+        }
+        final int sets = (capacity + InternTable.WAYS - 1) / InternTable.WAYS;
+        return Integer.highestOneBit(sets * 2 - 1);
+    }
+}
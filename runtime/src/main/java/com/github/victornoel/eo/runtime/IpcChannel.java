@@ -0,0 +1,654 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Request/response slots in a memory-mapped file shared by a client
+ * process, using generated stubs, and a server process, using generated
+ * skeletons.
+ *
+ * <p>Each call uses one slot: the client claims a free slot, writes the
+ * method id and the arguments and publishes a new ticket for the
+ * request; the server polls for requests, takes the ticket, overwrites
+ * the arguments with the result and publishes the ticket as a response
+ * or a failure; the client then reads the result and frees the slot.
+ * Slots are claimed without locking, so a channel supports concurrent
+ * calls from as many threads as there are slots, but only one client
+ * process and one server process.</p>
+ *
+ * <p>A client waiting longer than a timeout for a free slot or for a
+ * response, such as when the server process died, fails with an
+ * {@link IpcException}. The request of a response that timed out is
+ * cancelled: each word of a slot is only written by one side, since a
+ * mapped file has no compare-and-set on Java 8, and the server takes a
+ * ticket before checking it was not cancelled while the client cancels
+ * it before checking it was not taken, so at least one side sees the
+ * other. A request cancelled before being taken is never served and its
+ * slot is reused at once; a request taken before being cancelled is
+ * answered and its slot is only reused once it is, so a late answer
+ * never overwrites another call.</p>
+ *
+ * <p>Placing the file under {@code /dev/shm} keeps it in memory.</p>
+ *
+ * @since 1.1.0
+ */
+@SuppressWarnings({"PMD.TooManyMethods", "PMD.GodClass"})
+public final class IpcChannel implements Closeable {
+
+    /**
+     * Size of the header of the file.
+     */
+    private static final int HEADER = 64;
+
+    /**
+     * Size of the header of a slot.
+     */
+    private static final int SLOT_HEADER = 16;
+
+    /**
+     * Magic number identifying a channel.
+     */
+    private static final int MAGIC = 0x454f4931;
+
+    /**
+     * Position of the fingerprint in the header.
+     */
+    private static final int FINGERPRINT = 4;
+
+    /**
+     * Position of the number of slots in the header.
+     */
+    private static final int SLOTS = 8;
+
+    /**
+     * Position of the size of slots in the header.
+     */
+    private static final int SIZE = 12;
+
+    /**
+     * Position in a slot of the ticket of the request, written by the
+     * client and negated once cancelled.
+     */
+    private static final int TICKET = 0;
+
+    /**
+     * Position of the method id in a slot.
+     */
+    private static final int METHOD_ID = 4;
+
+    /**
+     * Position in a slot of the last ticket taken, written by the server.
+     */
+    private static final int TAKEN = 8;
+
+    /**
+     * Position in a slot of the last ticket answered, written by the
+     * server and negated for a failure.
+     */
+    private static final int ANSWER = 12;
+
+    /**
+     * Claim of a slot whose client stopped waiting for the response.
+     */
+    private static final int ABANDONED = 2;
+
+    /**
+     * The default timeout, in seconds.
+     */
+    private static final long TIMEOUT = 30L;
+
+    /**
+     * The channel of the file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The mapped file.
+     */
+    private final MappedByteBuffer buffer;
+
+    /**
+     * The writer over the mapped file.
+     */
+    private final BufferWriter output;
+
+    /**
+     * The readers of each slot.
+     */
+    private final BufferReader[] inputs;
+
+    /**
+     * The slots claimed by this process: 0 if free, 1 if claimed and
+     * {@link #ABANDONED} if abandoned.
+     */
+    private final AtomicIntegerArray claimed;
+
+    /**
+     * The waiting strategy.
+     */
+    private final Backoff backoff;
+
+    /**
+     * The size of slots.
+     */
+    private final int size;
+
+    /**
+     * How long to wait for a free slot or for a response, in nanoseconds.
+     */
+    private final long timeout;
+
+    /**
+     * The next slot to poll on the server side.
+     */
+    private int next;
+
+    /**
+     * Ctor.
+     *
+     * @param file The file to share
+     * @param slots The number of slots
+     * @param size The size of each slot, including its header
+     * @throws IOException If the file can't be mapped
+     */
+    public IpcChannel(final Path file, final int slots, final int size)
+        throws IOException {
+        this(file, slots, size, IpcChannel.TIMEOUT, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param file The file to share
+     * @param slots The number of slots
+     * @param size The size of each slot, including its header
+     * @param timeout How long to wait for a free slot or for a response
+     * @param unit The unit of the timeout
+     * @throws IOException If the file can't be mapped
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    public IpcChannel(final Path file, final int slots, final int size,
+        final long timeout, final TimeUnit unit) throws IOException {
+        this(
+            IpcChannel.total(slots, size),
+            FileChannel.open(
+                file,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+            ),
+            slots,
+            size,
+            unit.toNanos(timeout)
+        );
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param total The size of the file
+     * @param channel The channel of the file to map
+     * @param slots The number of slots
+     * @param size The size of each slot, including its header
+     * @param timeout How long to wait for a free slot or for a response,
+     *  in nanoseconds
+     * @throws IOException If the file can't be mapped
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private IpcChannel(
+        final long total, final FileChannel channel,
+        final int slots, final int size, final long timeout
+    ) throws IOException {
+        this.channel = channel;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, total);
+        this.output = new BufferWriter(this.buffer);
+        this.inputs = IpcChannel.readers(this.buffer, slots);
+        this.claimed = new AtomicIntegerArray(slots);
+        this.backoff = new Backoff();
+        this.size = size;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Bind the channel to an interface, failing if the other side uses
+     * another interface or another layout.
+     *
+     * @param fingerprint The fingerprint of the interface
+     */
+    public void bind(final int fingerprint) {
+        if (this.buffer.getInt(0) == IpcChannel.MAGIC) {
+            if (this.buffer.getInt(IpcChannel.FINGERPRINT) != fingerprint
+                || this.buffer.getInt(IpcChannel.SLOTS) != this.inputs.length
+                || this.buffer.getInt(IpcChannel.SIZE) != this.size) {
+                throw new IllegalStateException(
+                    "Channel is used with another interface or layout"
+                );
+            }
+        } else {
+            this.buffer.putInt(IpcChannel.FINGERPRINT, fingerprint);
+            this.buffer.putInt(IpcChannel.SLOTS, this.inputs.length);
+            this.buffer.putInt(IpcChannel.SIZE, this.size);
+            this.fence(0);
+            this.buffer.putInt(0, IpcChannel.MAGIC);
+        }
+    }
+
+    /**
+     * The writer to use for arguments and results.
+     *
+     * @return The writer
+     */
+    public BufferWriter writer() {
+        return this.output;
+    }
+
+    /**
+     * Claim a free slot to make a call, waiting if none is free.
+     *
+     * @param method The id of the called method
+     * @param payload The size of the arguments
+     * @return The position where to write the arguments
+     * @throws IpcException If no slot is freed before the timeout
+     */
+    public int request(final int method, final int payload) {
+        this.check(payload);
+        final int slots = this.inputs.length;
+        final long start = System.nanoTime();
+        int slot = ThreadLocalRandom.current().nextInt(slots);
+        for (int attempt = 0; !this.claimed.compareAndSet(slot, 0, 1)
+            && !this.reclaimed(slot); ++attempt) {
+            slot = (slot + 1) % slots;
+            if (slot == 0) {
+                if (System.nanoTime() - start > this.timeout) {
+                    throw this.timedOut("No free slot");
+                }
+                this.backoff.pause(attempt);
+            }
+        }
+        final int pos = this.start(slot);
+        this.buffer.putInt(pos + IpcChannel.METHOD_ID, method);
+        return pos + IpcChannel.SLOT_HEADER;
+    }
+
+    /**
+     * Send a request once its arguments have been written.
+     *
+     * @param pos The position returned by {@link #request(int, int)}
+     */
+    public void send(final int pos) {
+        final int start = pos - IpcChannel.SLOT_HEADER;
+        this.publish(
+            start + IpcChannel.TICKET,
+            Math.abs(this.buffer.getInt(start + IpcChannel.TICKET))
+                % Integer.MAX_VALUE + 1
+        );
+    }
+
+    /**
+     * Wait for the response to a sent request.
+     *
+     * @param pos The position returned by {@link #request(int, int)}
+     * @return The reader of the result
+     * @throws IpcException If the call failed on the server or if it
+     *  didn't answer before the timeout
+     */
+    public BufferReader receive(final int pos) {
+        final int start = pos - IpcChannel.SLOT_HEADER;
+        final int ticket = this.buffer.getInt(start + IpcChannel.TICKET);
+        final long begin = System.nanoTime();
+        int answer = this.word(start + IpcChannel.ANSWER);
+        for (int attempt = 0; Math.abs(answer) != ticket; ++attempt) {
+            if (System.nanoTime() - begin > this.timeout) {
+                this.cancel(start, ticket);
+                throw this.timedOut("No response");
+            }
+            this.backoff.pause(attempt);
+            answer = this.word(start + IpcChannel.ANSWER);
+        }
+        final BufferReader reader = this.reader(pos);
+        if (answer < 0) {
+            throw new IpcException(
+                String.format(
+                    "Remote call failed with %s: %s",
+                    reader.readString(),
+                    reader.readString()
+                )
+            );
+        }
+        return reader;
+    }
+
+    /**
+     * Free the slot of a call once its result has been read or once it
+     * failed to be sent, unless its response was abandoned.
+     *
+     * @param pos The position returned by {@link #request(int, int)}
+     */
+    public void release(final int pos) {
+        this.claimed.compareAndSet(this.slot(pos - IpcChannel.SLOT_HEADER), 1, 0);
+    }
+
+    /**
+     * Find the next request to serve.
+     *
+     * @return The position of the arguments of the request, or a negative
+     *  value if there are no requests
+     */
+    public int poll() {
+        int pos = -1;
+        final int slots = this.inputs.length;
+        for (int idx = 0; pos < 0 && idx < slots; ++idx) {
+            final int start = this.start(this.next);
+            this.next = (this.next + 1) % slots;
+            if (this.accepted(start)) {
+                pos = start + IpcChannel.SLOT_HEADER;
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * Wait a bit when there are no requests.
+     *
+     * @param attempt The number of polls without requests so far
+     */
+    public void idle(final int attempt) {
+        this.backoff.pause(attempt);
+    }
+
+    /**
+     * The id of the called method of a request.
+     *
+     * @param pos The position returned by {@link #poll()}
+     * @return The method id
+     */
+    public int method(final int pos) {
+        return this.buffer.getInt(pos - IpcChannel.SLOT_HEADER + IpcChannel.METHOD_ID);
+    }
+
+    /**
+     * The reader of the payload of a slot.
+     *
+     * @param pos The position of the payload
+     * @return The reader
+     */
+    public BufferReader reader(final int pos) {
+        final BufferReader reader =
+            this.inputs[this.slot(pos - IpcChannel.SLOT_HEADER)];
+        reader.moveTo(pos);
+        return reader;
+    }
+
+    /**
+     * Check that a payload fits in a slot.
+     *
+     * @param pos The position of the payload
+     * @param payload The size of the payload
+     * @return The position of the payload
+     * @throws IpcException If it doesn't fit
+     */
+    public int reserve(final int pos, final int payload) {
+        this.check(payload);
+        return pos;
+    }
+
+    /**
+     * Answer a request once its result has been written.
+     *
+     * @param pos The position returned by {@link #poll()}
+     */
+    public void respond(final int pos) {
+        final int start = pos - IpcChannel.SLOT_HEADER;
+        this.publish(
+            start + IpcChannel.ANSWER,
+            this.buffer.getInt(start + IpcChannel.TAKEN)
+        );
+    }
+
+    /**
+     * Answer a request with a failure.
+     *
+     * @param pos The position returned by {@link #poll()}
+     * @param failure The failure
+     */
+    public void fail(final int pos, final Throwable failure) {
+        final int room = (this.size - IpcChannel.SLOT_HEADER
+            - 2 * Integer.BYTES) / Character.BYTES;
+        final String type = IpcChannel.clip(
+            failure.getClass().getName(), room
+        );
+        this.output.putString(
+            this.output.putString(pos, type),
+            IpcChannel.clip(
+                String.valueOf(failure.getMessage()), room - type.length()
+            )
+        );
+        final int start = pos - IpcChannel.SLOT_HEADER;
+        this.publish(
+            start + IpcChannel.ANSWER,
+            -this.buffer.getInt(start + IpcChannel.TAKEN)
+        );
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * Claim an abandoned slot once the server answered it late.
+     *
+     * @param slot The slot
+     * @return True if claimed
+     */
+    private boolean reclaimed(final int slot) {
+        final int start = this.start(slot);
+        final int ticket = this.buffer.getInt(start + IpcChannel.TICKET);
+        return this.claimed.get(slot) == IpcChannel.ABANDONED
+            && Math.abs(this.word(start + IpcChannel.ANSWER)) == -ticket
+            && this.claimed.compareAndSet(slot, IpcChannel.ABANDONED, 1);
+    }
+
+    /**
+     * Cancel a request whose response timed out, abandoning its slot
+     * until it is answered if the server already took it.
+     *
+     * @param start The position of the slot
+     * @param ticket The ticket of the request
+     */
+    private void cancel(final int start, final int ticket) {
+        this.publish(start + IpcChannel.TICKET, -ticket);
+        if (this.word(start + IpcChannel.TAKEN) == ticket) {
+            this.claimed.set(this.slot(start), IpcChannel.ABANDONED);
+        }
+    }
+
+    /**
+     * Take the request of a slot if it has one not yet answered, unless
+     * it is cancelled meanwhile, in which case it is answered at once so
+     * that its client can reuse the slot.
+     *
+     * @param start The position of the slot
+     * @return True if taken
+     */
+    private boolean accepted(final int start) {
+        final int ticket = this.word(start + IpcChannel.TICKET);
+        boolean accepted = false;
+        if (ticket > 0
+            && Math.abs(this.word(start + IpcChannel.ANSWER)) != ticket) {
+            this.publish(start + IpcChannel.TAKEN, ticket);
+            final int now = this.word(start + IpcChannel.TICKET);
+            accepted = now == ticket;
+            if (now == -ticket) {
+                this.publish(start + IpcChannel.ANSWER, ticket);
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * The failure of a wait longer than the timeout.
+     *
+     * @param what What was waited for
+     * @return The failure
+     */
+    private IpcException timedOut(final String what) {
+        return new IpcException(
+            String.format(
+                "%s within %d ms, the server may be down",
+                what, TimeUnit.NANOSECONDS.toMillis(this.timeout)
+            )
+        );
+    }
+
+    /**
+     * Check that a payload fits in a slot.
+     *
+     * @param payload The size of the payload
+     * @throws IpcException If it doesn't fit
+     */
+    private void check(final int payload) {
+        if (payload > this.size - IpcChannel.SLOT_HEADER) {
+            throw new IpcException(
+                String.format(
+                    "Payload of %d bytes does not fit in slots of %d bytes",
+                    payload, this.size
+                )
+            );
+        }
+    }
+
+    /**
+     * Publish a word of a slot after the accesses preceding it and before
+     * the ones following it.
+     *
+     * @param pos The position of the word
+     * @param value The value
+     */
+    private void publish(final int pos, final int value) {
+        final int slot = this.slot(pos);
+        this.fence(slot);
+        this.buffer.putInt(pos, value);
+        this.fence(slot);
+    }
+
+    /**
+     * Read a word of a slot before the accesses following it.
+     *
+     * @param pos The position of the word
+     * @return The value
+     */
+    private int word(final int pos) {
+        final int value = this.buffer.getInt(pos);
+        this.fence(this.slot(pos));
+        return value;
+    }
+
+    /**
+     * Order the accesses to the mapped file: Java 8 has no fence usable
+     * on it, so this relies on the full fence of an atomic update.
+     *
+     * @param slot The slot being accessed
+     */
+    private void fence(final int slot) {
+        this.claimed.getAndAdd(slot, 0);
+    }
+
+    /**
+     * The position of a slot.
+     *
+     * @param slot The slot
+     * @return The position
+     */
+    private int start(final int slot) {
+        return IpcChannel.HEADER + slot * this.size;
+    }
+
+    /**
+     * The slot at a position.
+     *
+     * @param start The position of the slot
+     * @return The slot
+     */
+    private int slot(final int start) {
+        return (start - IpcChannel.HEADER) / this.size;
+    }
+
+    /**
+     * The readers of each slot.
+     *
+     * @param buffer The mapped file
+     * @param slots The number of slots
+     * @return The readers
+     */
+    private static BufferReader[] readers(
+        final MappedByteBuffer buffer, final int slots
+    ) {
+        final BufferReader[] readers = new BufferReader[slots];
+        for (int idx = 0; idx < slots; ++idx) {
+            readers[idx] = new BufferReader(buffer);
+        }
+        return readers;
+    }
+
+    /**
+     * Clip a text to a maximum length.
+     *
+     * @param text The text
+     * @param length The maximum length
+     * @return The clipped text
+     */
+    private static String clip(final String text, final int length) {
+        return text.substring(0, Math.max(0, Math.min(length, text.length())));
+    }
+
+    /**
+     * The size of the file of a channel.
+     *
+     * @param slots The number of slots
+     * @param size The size of each slot, including its header
+     * @return The size of the file
+     */
+    private static long total(final int slots, final int size) {
+        if (slots <= 0 || size <= IpcChannel.SLOT_HEADER) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Invalid channel of %d slots of %d bytes", slots, size
+                )
+            );
+        }
+        final long total = IpcChannel.HEADER + (long) slots * size;
+        if (total > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                String.format("Channel of %d bytes is too big", total)
+            );
+        }
+        return total;
+    }
+}
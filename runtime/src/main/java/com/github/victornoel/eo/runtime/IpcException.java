@@ -0,0 +1,43 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+/**
+ * A call through an {@link IpcChannel} that could not be completed,
+ * either because it didn't fit in the channel or because it failed in
+ * the server process.
+ *
+ * @since 1.1.0
+ */
+public final class IpcException extends RuntimeException {
+
+    /**
+     * Serialization marker.
+     */
+    private static final long serialVersionUID = -2860231412536532916L;
+
+    /**
+     * Ctor.
+     *
+     * @param message The error
+     */
+    public IpcException(final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.util.concurrent.Callable;
+
+/**
+ * A {@link Publisher} of the elements of an {@link Iterable}, each
+ * subscriber getting them from a new {@link Emission}.
+ *
+ * @param <T> Type of the elements
+ * @since 1.1.0
+ */
+public final class IterablePublisher<T> implements Publisher<T> {
+
+    /**
+     * The iterable to emit to each subscriber.
+     */
+    private final Callable<? extends Iterable<? extends T>> source;
+
+    /**
+     * Ctor.
+     *
+     * @param source The iterable to emit to each subscriber
+     */
+    public IterablePublisher(
+        final Callable<? extends Iterable<? extends T>> source
+    ) {
+        this.source = source;
+    }
+
+    @Override
+    public void subscribe(final Subscriber<? super T> subscriber) {
+        subscriber.onSubscribe(
+            new Emission<T>(
+                this.source, subscriber::onNext, subscriber::onError,
+                subscriber::onComplete
+            )
+        );
+    }
+}
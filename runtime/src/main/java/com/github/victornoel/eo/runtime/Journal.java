@@ -0,0 +1,278 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An append-only ring of fixed-size slots in a memory-mapped file,
+ * written by generated recorders and read back with a
+ * {@link JournalCursor}.
+ *
+ * <p>Writers claim slots with a single atomic increment and write
+ * directly into the mapped memory, so recording a call does not allocate
+ * nor lock. When the ring is full, the oldest slots are overwritten.
+ * A slot becomes visible to readers only once committed. Calls whose
+ * arguments do not fit in a slot are counted as dropped.</p>
+ *
+ * <p>The file starts with a header of {@link #HEADER} bytes holding
+ * a magic number, the fingerprint of the recorded interface, the number
+ * of slots and their size. Every slot starts with {@link #SLOT_HEADER}
+ * bytes holding the committed length of the slot, the method id, the
+ * sequence number and the timestamp of the call.</p>
+ *
+ * @since 1.1.0
+ */
+public final class Journal implements Closeable {
+
+    /**
+     * Size of the header of the file.
+     */
+    static final int HEADER = 64;
+
+    /**
+     * Size of the header of a slot.
+     */
+    static final int SLOT_HEADER = 24;
+
+    /**
+     * Magic number identifying a journal.
+     */
+    static final int MAGIC = 0x454f4a31;
+
+    /**
+     * Position of the fingerprint in the header.
+     */
+    static final int FINGERPRINT = 4;
+
+    /**
+     * Position of the number of slots in the header.
+     */
+    static final int SLOTS = 8;
+
+    /**
+     * Position of the size of slots in the header.
+     */
+    static final int SIZE = 12;
+
+    /**
+     * Position of the method id in a slot.
+     */
+    static final int METHOD = 4;
+
+    /**
+     * Position of the sequence number in a slot.
+     */
+    static final int SEQUENCE = 8;
+
+    /**
+     * Position of the timestamp in a slot.
+     */
+    static final int TIMESTAMP = 16;
+
+    /**
+     * The channel of the file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The mapped file.
+     */
+    private final MappedByteBuffer buffer;
+
+    /**
+     * The writer over the mapped file.
+     */
+    private final BufferWriter output;
+
+    /**
+     * The number of slots.
+     */
+    private final int slots;
+
+    /**
+     * The size of slots.
+     */
+    private final int size;
+
+    /**
+     * The next sequence number to claim.
+     */
+    private final AtomicLong sequence;
+
+    /**
+     * The number of dropped calls.
+     */
+    private final AtomicLong drops;
+
+    /**
+     * Ctor.
+     *
+     * <p>An existing file is truncated.</p>
+     *
+     * @param file The file to map
+     * @param slots The number of slots in the ring
+     * @param size The size of each slot, including its header
+     * @throws IOException If the file can't be mapped
+     */
+    public Journal(final Path file, final int slots, final int size)
+        throws IOException {
+        this(
+            Journal.total(slots, size),
+            FileChannel.open(
+                file,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+            ),
+            slots,
+            size
+        );
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param total The size of the file
+     * @param channel The channel of the file to map
+     * @param slots The number of slots in the ring
+     * @param size The size of each slot, including its header
+     * @throws IOException If the file can't be mapped
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private Journal(
+        final long total, final FileChannel channel,
+        final int slots, final int size
+    ) throws IOException {
+        this.channel = channel;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, total);
+        this.output = new BufferWriter(this.buffer);
+        this.slots = slots;
+        this.size = size;
+        this.sequence = new AtomicLong();
+        this.drops = new AtomicLong();
+    }
+
+    /**
+     * The writer to use for the payload of claimed slots.
+     *
+     * @return The writer
+     */
+    public BufferWriter writer() {
+        return this.output;
+    }
+
+    /**
+     * Mark the journal as recording calls of a given interface.
+     *
+     * <p>A journal can't be read until it has been stamped.</p>
+     *
+     * @param fingerprint The fingerprint of the interface
+     */
+    public void stamp(final int fingerprint) {
+        this.buffer.putInt(Journal.FINGERPRINT, fingerprint);
+        this.buffer.putInt(Journal.SLOTS, this.slots);
+        this.buffer.putInt(Journal.SIZE, this.size);
+        this.buffer.putInt(0, Journal.MAGIC);
+    }
+
+    /**
+     * Claim a slot to record a call.
+     *
+     * @param method The id of the called method
+     * @param payload The size of the arguments
+     * @return The position where to write the arguments, or a negative
+     *  value if they don't fit in a slot
+     */
+    public int claim(final int method, final int payload) {
+        final int pos;
+        if (payload > this.size - Journal.SLOT_HEADER) {
+            this.drops.incrementAndGet();
+            pos = -1;
+        } else {
+            final long seq = this.sequence.getAndIncrement();
+            final int start = Journal.HEADER
+                + (int) (seq % this.slots) * this.size;
+            this.buffer.putInt(start, 0);
+            this.buffer.putInt(start + Journal.METHOD, method);
+            this.buffer.putLong(start + Journal.SEQUENCE, seq);
+            this.buffer.putLong(start + Journal.TIMESTAMP, System.nanoTime());
+            pos = start + Journal.SLOT_HEADER;
+        }
+        return pos;
+    }
+
+    /**
+     * Commit a claimed slot.
+     *
+     * @param pos The position returned by {@link #claim(int, int)}
+     * @param end The position after the last written argument
+     */
+    public void commit(final int pos, final int end) {
+        this.buffer.putInt(
+            pos - Journal.SLOT_HEADER, end - pos + Journal.SLOT_HEADER
+        );
+    }
+
+    /**
+     * The number of calls that could not be recorded.
+     *
+     * @return The number of dropped calls
+     */
+    public long dropped() {
+        return this.drops.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.buffer.force();
+        this.channel.close();
+    }
+
+    /**
+     * The size of the file of a journal.
+     *
+     * @param slots The number of slots in the ring
+     * @param size The size of each slot, including its header
+     * @return The size of the file
+     */
+    private static long total(final int slots, final int size) {
+        if (slots <= 0 || size <= Journal.SLOT_HEADER) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Invalid journal of %d slots of %d bytes", slots, size
+                )
+            );
+        }
+        final long total = Journal.HEADER + (long) slots * size;
+        if (total > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                String.format("Journal of %d bytes is too big", total)
+            );
+        }
+        return total;
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Reads the calls recorded in a {@link Journal}, oldest first.
+ *
+ * <p>The file is mapped read-only and arguments are decoded directly
+ * from the mapped memory. When paced, {@link #next()} waits so that
+ * calls are returned with the same delays between them as when they
+ * were recorded. It is not thread-safe.</p>
+ *
+ * @since 1.1.0
+ */
+public final class JournalCursor implements Closeable {
+
+    /**
+     * The channel of the file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The mapped file.
+     */
+    private final MappedByteBuffer buffer;
+
+    /**
+     * The reader over the mapped file.
+     */
+    private final BufferReader input;
+
+    /**
+     * Whether to reproduce the recorded pace.
+     */
+    private final boolean paced;
+
+    /**
+     * The number of slots.
+     */
+    private final int slots;
+
+    /**
+     * The size of slots.
+     */
+    private final int size;
+
+    /**
+     * The next slot to read.
+     */
+    private int slot;
+
+    /**
+     * The number of slots left to read.
+     */
+    private int remaining;
+
+    /**
+     * The position of the current slot.
+     */
+    private int current;
+
+    /**
+     * The timestamp of the first call, or -1 if not read yet.
+     */
+    private long origin;
+
+    /**
+     * The time at which the first call was read.
+     */
+    private long start;
+
+    /**
+     * Ctor.
+     *
+     * @param file The file of the journal
+     * @param fingerprint The fingerprint of the recorded interface
+     * @param paced Whether to reproduce the recorded pace
+     * @throws IOException If the file is not a journal of this interface
+     */
+    public JournalCursor(
+        final Path file, final int fingerprint, final boolean paced
+    ) throws IOException {
+        this(
+            file, FileChannel.open(file, StandardOpenOption.READ),
+            fingerprint, paced
+        );
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param file The file of the journal
+     * @param channel The channel of the file
+     * @param fingerprint The fingerprint of the recorded interface
+     * @param paced Whether to reproduce the recorded pace
+     * @throws IOException If the file is not a journal of this interface
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private JournalCursor(
+        final Path file, final FileChannel channel,
+        final int fingerprint, final boolean paced
+    ) throws IOException {
+        this.channel = channel;
+        this.buffer = JournalCursor.mapped(file, channel, fingerprint);
+        this.input = new BufferReader(this.buffer);
+        this.paced = paced;
+        this.slots = this.buffer.getInt(Journal.SLOTS);
+        this.size = this.buffer.getInt(Journal.SIZE);
+        this.slot = this.oldest();
+        this.remaining = this.slots;
+        this.origin = -1;
+    }
+
+    /**
+     * Move to the next recorded call.
+     *
+     * @return False if there are no more calls
+     */
+    public boolean next() {
+        boolean found = false;
+        while (!found && this.remaining > 0) {
+            final int pos = this.position(this.slot);
+            this.slot = (this.slot + 1) % this.slots;
+            --this.remaining;
+            if (this.buffer.getInt(pos) != 0) {
+                this.current = pos;
+                this.input.moveTo(pos + Journal.SLOT_HEADER);
+                found = true;
+            }
+        }
+        if (found && this.paced) {
+            this.pace();
+        }
+        return found;
+    }
+
+    /**
+     * The id of the method of the current call.
+     *
+     * @return The method id
+     */
+    public int method() {
+        return this.buffer.getInt(this.current + Journal.METHOD);
+    }
+
+    /**
+     * The timestamp of the current call, in nanoseconds.
+     *
+     * @return The timestamp
+     */
+    public long timestamp() {
+        return this.buffer.getLong(this.current + Journal.TIMESTAMP);
+    }
+
+    /**
+     * The reader of the arguments of the current call.
+     *
+     * @return The reader
+     */
+    public BufferReader reader() {
+        return this.input;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * Wait until the current call is due.
+     */
+    private void pace() {
+        if (this.origin < 0) {
+            this.origin = this.timestamp();
+            this.start = System.nanoTime();
+        }
+        final long due = this.start + this.timestamp() - this.origin;
+        for (long wait = due - System.nanoTime(); wait > 0;
+            wait = due - System.nanoTime()) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+
+    /**
+     * The slot holding the committed call with the lowest sequence.
+     *
+     * @return The slot
+     */
+    private int oldest() {
+        int oldest = 0;
+        long lowest = Long.MAX_VALUE;
+        for (int idx = 0; idx < this.slots; ++idx) {
+            final int pos = this.position(idx);
+            final long seq = this.buffer.getLong(pos + Journal.SEQUENCE);
+            if (this.buffer.getInt(pos) != 0 && seq < lowest) {
+                lowest = seq;
+                oldest = idx;
+            }
+        }
+        return oldest;
+    }
+
+    /**
+     * Map the file of a journal.
+     *
+     * @param file The file of the journal
+     * @param channel The channel of the file
+     * @param fingerprint The fingerprint of the recorded interface
+     * @return The mapped file
+     * @throws IOException If the file is not a journal of this interface
+     */
+    private static MappedByteBuffer mapped(
+        final Path file, final FileChannel channel, final int fingerprint
+    ) throws IOException {
+        final MappedByteBuffer buffer = channel.map(
+            FileChannel.MapMode.READ_ONLY, 0, channel.size()
+        );
+        if (buffer.capacity() < Journal.HEADER
+            || buffer.getInt(0) != Journal.MAGIC) {
+            channel.close();
+            throw new IOException(String.format("%s is not a journal", file));
+        }
+        if (buffer.getInt(Journal.FINGERPRINT) != fingerprint) {
+            channel.close();
+            throw new IOException(
+                String.format(
+                    "%s was recorded from another interface", file
+                )
+            );
+        }
+        return buffer;
+    }
+
+    /**
+     * The position of a slot.
+     *
+     * @param idx The slot
+     * @return The position
+     */
+    private int position(final int idx) {
+        return Journal.HEADER + idx * this.size;
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+/**
+ * An open-addressing table of the entries of {@link LruIndex} by key,
+ * with linear probing: keys and entries are kept in two parallel arrays
+ * instead of one node per key. It is not thread-safe.
+ *
+ * @since 1.1.0
+ */
+final class KeyTable {
+
+    /**
+     * The marker of no entry.
+     */
+    private static final int NONE = -1;
+
+    /**
+     * The initial number of slots.
+     */
+    private static final int INITIAL = 32;
+
+    /**
+     * The key of the slots whose entry was removed.
+     */
+    private static final Object REMOVED = new Object();
+
+    /**
+     * The keys of the slots, null for empty ones.
+     */
+    private Object[] keys;
+
+    /**
+     * The entries of the slots.
+     */
+    private int[] entries;
+
+    /**
+     * The number of entries.
+     */
+    private int count;
+
+    /**
+     * The number of slots not empty, removed ones included.
+     */
+    private int filled;
+
+    /**
+     * Ctor.
+     */
+    KeyTable() {
+        this.keys = new Object[KeyTable.INITIAL];
+        this.entries = new int[KeyTable.INITIAL];
+    }
+
+    /**
+     * Find the entry of a key.
+     *
+     * @param key The key
+     * @return The entry, negative if none
+     */
+    int find(final Object key) {
+        final int slot = this.slot(key);
+        int entry = KeyTable.NONE;
+        if (slot >= 0) {
+            entry = this.entries[slot];
+        }
+        return entry;
+    }
+
+    /**
+     * Put the entry of a key not in the table yet.
+     *
+     * @param key The key
+     * @param entry The entry
+     */
+    void put(final Object key, final int entry) {
+        if ((this.filled + 1) * 2 > this.keys.length) {
+            this.rehash();
+        }
+        this.place(key, entry);
+        this.count += 1;
+    }
+
+    /**
+     * Remove a key in the table.
+     *
+     * @param key The key
+     */
+    void remove(final Object key) {
+        this.keys[this.slot(key)] = KeyTable.REMOVED;
+        this.count -= 1;
+    }
+
+    /**
+     * The slot of a key.
+     *
+     * @param key The key
+     * @return The slot, negative if the key is not in the table
+     */
+    private int slot(final Object key) {
+        final int mask = this.keys.length - 1;
+        int pos = KeyTable.spread(key) & mask;
+        int found = KeyTable.NONE;
+        while (this.keys[pos] != null && found == KeyTable.NONE) {
+            if (this.keys[pos].equals(key)) {
+                found = pos;
+            }
+            pos = pos + 1 & mask;
+        }
+        return found;
+    }
+
+    /**
+     * Put an entry in the first empty or removed slot for its key.
+     *
+     * @param key The key
+     * @param entry The entry
+     */
+    private void place(final Object key, final int entry) {
+        final int mask = this.keys.length - 1;
+        int pos = KeyTable.spread(key) & mask;
+        while (this.keys[pos] != null && this.keys[pos] != KeyTable.REMOVED) {
+            pos = pos + 1 & mask;
+        }
+        if (this.keys[pos] == null) {
+            this.filled += 1;
+        }
+        this.keys[pos] = key;
+        this.entries[pos] = entry;
+    }
+
+    /**
+     * Rebuild the table without its removed slots, doubling it if a
+     * quarter of it is used by entries.
+     */
+    private void rehash() {
+        final Object[] before = this.keys;
+        final int[] previous = this.entries;
+        int size = before.length;
+        if (this.count * 2 >= size / 2) {
+            size *= 2;
+        }
+        this.keys = new Object[size];
+        this.entries = new int[size];
+        this.filled = 0;
+        for (int slot = 0; slot < before.length; ++slot) {
+            if (before[slot] != null && before[slot] != KeyTable.REMOVED) {
+                this.place(before[slot], previous[slot]);
+            }
+        }
+    }
+
+    /**
+     * The spread hash of a key.
+     *
+     * @param key The key
+     * @return The hash
+     */
+    private static int spread(final Object key) {
+        final int hash = key.hashCode();
+        return hash ^ hash >>> Short.SIZE;
+    }
+}
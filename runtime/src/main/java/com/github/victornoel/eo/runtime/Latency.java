@@ -0,0 +1,132 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+/**
+ * A distribution of latencies to inject in calls.
+ *
+ * @since 1.1.0
+ */
+public interface Latency {
+
+    /**
+     * Draw a latency.
+     *
+     * @param random The generator of the draw
+     * @return The latency, in nanoseconds
+     */
+    long nanos(SplitMix random);
+
+    /**
+     * The same latency for every call.
+     *
+     * @since 1.1.0
+     */
+    final class Fixed implements Latency {
+
+        /**
+         * The latency, in nanoseconds.
+         */
+        private final long latency;
+
+        /**
+         * Ctor.
+         *
+         * @param latency The latency, in nanoseconds
+         */
+        public Fixed(final long latency) {
+            this.latency = latency;
+        }
+
+        @Override
+        public long nanos(final SplitMix random) {
+            return this.latency;
+        }
+    }
+
+    /**
+     * Latencies uniformly distributed in a range.
+     *
+     * @since 1.1.0
+     */
+    final class Uniform implements Latency {
+
+        /**
+         * The lowest latency, in nanoseconds.
+         */
+        private final long min;
+
+        /**
+         * The highest latency, in nanoseconds.
+         */
+        private final long max;
+
+        /**
+         * Ctor.
+         *
+         * @param min The lowest latency, in nanoseconds
+         * @param max The highest latency, in nanoseconds
+         */
+        public Uniform(final long min, final long max) {
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        public long nanos(final SplitMix random) {
+            return this.min + (long) (random.uniform() * (this.max - this.min));
+        }
+    }
+
+    /**
+     * Latencies whose logarithm is normally distributed, with a long tail
+     * like the latencies of real services.
+     *
+     * @since 1.1.0
+     */
+    final class LogNormal implements Latency {
+
+        /**
+         * The median latency, in nanoseconds.
+         */
+        private final long median;
+
+        /**
+         * The deviation of the logarithm of the latencies.
+         */
+        private final double sigma;
+
+        /**
+         * Ctor.
+         *
+         * @param median The median latency, in nanoseconds
+         * @param sigma The deviation of the logarithm of the latencies,
+         *  such as 0.5 for a 99th percentile about 3 times the median
+         */
+        public LogNormal(final long median, final double sigma) {
+            this.median = median;
+            this.sigma = sigma;
+        }
+
+        @Override
+        public long nanos(final SplitMix random) {
+            return (long) (this.median * Math.exp(this.sigma * random.gaussian()));
+        }
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.util.Arrays;
+
+/**
+ * A compact index of the blocks of {@link Slabs} by key, with a least
+ * recently used order per size class.
+ *
+ * <p>Entries live in parallel primitive arrays, linked by their indices
+ * in the LRU list of their class, and are found with a {@link KeyTable}:
+ * the only objects per entry are the keys themselves. It is not
+ * thread-safe.</p>
+ *
+ * @since 1.1.0
+ */
+final class LruIndex {
+
+    /**
+     * The marker of no entry.
+     */
+    private static final int NONE = -1;
+
+    /**
+     * The initial number of entries.
+     */
+    private static final int INITIAL = 16;
+
+    /**
+     * The key of free entries, for removed keys not to be retained.
+     */
+    private static final Object FREED = new Object();
+
+    /**
+     * The entries by key.
+     */
+    private final KeyTable table;
+
+    /**
+     * The most recently used entry of each class.
+     */
+    private final int[] newest;
+
+    /**
+     * The least recently used entry of each class.
+     */
+    private final int[] oldest;
+
+    /**
+     * The keys of the entries.
+     */
+    private Object[] keys;
+
+    /**
+     * The addresses of the blocks of the entries.
+     */
+    private long[] addresses;
+
+    /**
+     * The number of bytes stored by the entries.
+     */
+    private int[] lengths;
+
+    /**
+     * The next least recently used entry of the same class.
+     */
+    private int[] older;
+
+    /**
+     * The next most recently used entry of the same class, or the next
+     * free entry.
+     */
+    private int[] newer;
+
+    /**
+     * The first free entry.
+     */
+    private int spare;
+
+    /**
+     * The first entry never used.
+     */
+    private int fresh;
+
+    /**
+     * Ctor.
+     */
+    LruIndex() {
+        this.table = new KeyTable();
+        this.newest = LruIndex.empty(Slabs.CLASSES);
+        this.oldest = LruIndex.empty(Slabs.CLASSES);
+        this.keys = new Object[LruIndex.INITIAL];
+        this.addresses = new long[LruIndex.INITIAL];
+        this.lengths = new int[LruIndex.INITIAL];
+        this.older = new int[LruIndex.INITIAL];
+        this.newer = new int[LruIndex.INITIAL];
+        this.spare = LruIndex.NONE;
+    }
+
+    /**
+     * Find the entry of a key, marking it as the most recently used of
+     * its class.
+     *
+     * @param key The key
+     * @return The entry, negative if none
+     */
+    int find(final Object key) {
+        final int entry = this.table.find(key);
+        if (entry >= 0) {
+            this.unlink(entry);
+            this.link(entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Add the entry of a key not indexed yet, as the most recently used
+     * of its class.
+     *
+     * @param key The key
+     * @param address The address of its block
+     * @param length The number of bytes stored in the block
+     */
+    void add(final Object key, final long address, final int length) {
+        final int entry = this.entry();
+        this.keys[entry] = key;
+        this.addresses[entry] = address;
+        this.lengths[entry] = length;
+        this.table.put(key, entry);
+        this.link(entry);
+    }
+
+    /**
+     * Remove an entry.
+     *
+     * @param entry The entry
+     */
+    void remove(final int entry) {
+        this.table.remove(this.keys[entry]);
+        this.unlink(entry);
+        this.keys[entry] = LruIndex.FREED;
+        this.newer[entry] = this.spare;
+        this.spare = entry;
+    }
+
+    /**
+     * The least recently used entry of a class.
+     *
+     * @param cls The size class
+     * @return The entry, negative if none
+     */
+    int eldest(final int cls) {
+        return this.oldest[cls];
+    }
+
+    /**
+     * The address of the block of an entry.
+     *
+     * @param entry The entry
+     * @return The address
+     */
+    long address(final int entry) {
+        return this.addresses[entry];
+    }
+
+    /**
+     * The number of bytes stored by an entry.
+     *
+     * @param entry The entry
+     * @return The number of bytes
+     */
+    int length(final int entry) {
+        return this.lengths[entry];
+    }
+
+    /**
+     * Take a free entry, growing the arrays if needed.
+     *
+     * @return The entry
+     */
+    private int entry() {
+        final int entry;
+        if (this.spare == LruIndex.NONE) {
+            if (this.fresh == this.keys.length) {
+                final int size = this.keys.length * 2;
+                this.keys = Arrays.copyOf(this.keys, size);
+                this.addresses = Arrays.copyOf(this.addresses, size);
+                this.lengths = Arrays.copyOf(this.lengths, size);
+                this.older = Arrays.copyOf(this.older, size);
+                this.newer = Arrays.copyOf(this.newer, size);
+            }
+            entry = this.fresh;
+            this.fresh += 1;
+        } else {
+            entry = this.spare;
+            this.spare = this.newer[entry];
+        }
+        return entry;
+    }
+
+    /**
+     * Link an entry as the most recently used of its class.
+     *
+     * @param entry The entry
+     */
+    private void link(final int entry) {
+        final int cls = Slabs.sizeClass(this.lengths[entry]);
+        this.older[entry] = this.newest[cls];
+        this.newer[entry] = LruIndex.NONE;
+        if (this.newest[cls] == LruIndex.NONE) {
+            this.oldest[cls] = entry;
+        } else {
+            this.newer[this.newest[cls]] = entry;
+        }
+        this.newest[cls] = entry;
+    }
+
+    /**
+     * Unlink an entry from the list of its class.
+     *
+     * @param entry The entry
+     */
+    private void unlink(final int entry) {
+        final int cls = Slabs.sizeClass(this.lengths[entry]);
+        final int before = this.older[entry];
+        final int after = this.newer[entry];
+        if (before == LruIndex.NONE) {
+            this.oldest[cls] = after;
+        } else {
+            this.newer[before] = after;
+        }
+        if (after == LruIndex.NONE) {
+            this.newest[cls] = before;
+        } else {
+            this.older[after] = before;
+        }
+    }
+
+    /**
+     * An array of no entries.
+     *
+     * @param size The size of the array
+     * @return The array
+     */
+    private static int[] empty(final int size) {
+        final int[] empty = new int[size];
+        Arrays.fill(empty, LruIndex.NONE);
+        return empty;
+    }
+}
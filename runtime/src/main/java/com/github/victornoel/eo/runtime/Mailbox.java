@@ -0,0 +1,419 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded lock-free queue of invocation records with many producers
+ * and a single consumer applying them in order.
+ *
+ * <p>Records are allocated once: a producer claims the next one, fills
+ * its pre-sized arguments and publishes it, waiting while the mailbox
+ * is full. Callers needing a result wait on their thread's
+ * {@link Completion}. The consumer spins, then yields, then parks when
+ * the mailbox stays empty.</p>
+ *
+ * @since 1.1.0
+ */
+@SuppressWarnings("PMD.TooManyMethods")
+public final class Mailbox {
+
+    /**
+     * Number of idle attempts before the consumer parks.
+     */
+    private static final int ROUNDS = 200;
+
+    /**
+     * The sequence of each record, telling whether it is free or
+     * published.
+     */
+    private final AtomicLongArray sequences;
+
+    /**
+     * The arguments of each record.
+     */
+    private final Object[][] records;
+
+    /**
+     * The method id of each record.
+     */
+    private final int[] methods;
+
+    /**
+     * The completion of each record, if any.
+     */
+    private final Completion[] completions;
+
+    /**
+     * The time each record was published.
+     */
+    private final long[] published;
+
+    /**
+     * The next record to claim.
+     */
+    private final AtomicLong tail;
+
+    /**
+     * The next record to consume.
+     */
+    private final AtomicLong head;
+
+    /**
+     * The completions of the calling threads.
+     */
+    private final ThreadLocal<Completion> waiting;
+
+    /**
+     * The processing latencies, from publication to completion.
+     */
+    private final Histogram latencies;
+
+    /**
+     * The number of failed calls without completion.
+     */
+    private final AtomicLong failures;
+
+    /**
+     * Whether the consumer is parked.
+     */
+    private final AtomicBoolean parked;
+
+    /**
+     * The waiting strategy.
+     */
+    private final Backoff backoff;
+
+    /**
+     * The consumer thread, once started.
+     */
+    private final AtomicReference<Thread> consumer;
+
+    /**
+     * Whether the mailbox is closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Ctor.
+     *
+     * @param capacity The number of records, rounded up to a power of two
+     * @param arity The number of arguments of each record
+     */
+    public Mailbox(final int capacity, final int arity) {
+        this(Mailbox.initial(capacity), arity);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param sequences The initial sequences of the records
+     * @param arity The number of arguments of each record
+     */
+    private Mailbox(final AtomicLongArray sequences, final int arity) {
+        this.sequences = sequences;
+        this.records = new Object[sequences.length()][arity];
+        this.methods = new int[sequences.length()];
+        this.completions = new Completion[sequences.length()];
+        this.published = new long[sequences.length()];
+        this.tail = new AtomicLong();
+        this.head = new AtomicLong();
+        this.waiting = ThreadLocal.withInitial(
+            () -> new Completion(Thread.currentThread())
+        );
+        this.latencies = new Histogram();
+        this.failures = new AtomicLong();
+        this.parked = new AtomicBoolean();
+        this.backoff = new Backoff();
+        this.consumer = new AtomicReference<>();
+    }
+
+    /**
+     * Claim the next record, waiting while the mailbox is full.
+     *
+     * @return The sequence of the claimed record
+     * @throws IllegalStateException If the mailbox is closed
+     */
+    public long claim() {
+        final int mask = this.sequences.length() - 1;
+        long seq = this.tail.get();
+        for (int attempt = 0; true; ++attempt) {
+            if (this.closed || seq < 0L) {
+                throw new IllegalStateException("Mailbox is closed");
+            }
+            final long current = this.sequences.get((int) seq & mask);
+            if (current == seq && this.tail.compareAndSet(seq, seq + 1L)) {
+                break;
+            }
+            if (current < seq) {
+                this.backoff.pause(attempt);
+            }
+            seq = this.tail.get();
+        }
+        return seq;
+    }
+
+    /**
+     * The arguments of a claimed record, to fill before publishing it.
+     *
+     * @param seq The sequence of the record
+     * @return The arguments
+     */
+    public Object[] arguments(final long seq) {
+        return this.records[this.index(seq)];
+    }
+
+    /**
+     * Publish a claimed record without waiting for its result.
+     *
+     * @param seq The sequence of the record
+     * @param method The id of the called method
+     */
+    public void post(final long seq, final int method) {
+        this.publish(seq, method, null);
+    }
+
+    /**
+     * Publish a claimed record, returning the completion to wait on for
+     * its result.
+     *
+     * @param seq The sequence of the record
+     * @param method The id of the called method
+     * @return The completion of the calling thread
+     */
+    public Completion call(final long seq, final int method) {
+        final Completion completion = this.waiting.get();
+        this.publish(seq, method, completion);
+        return completion;
+    }
+
+    /**
+     * Start the consumer thread, applying the published records in order
+     * until the mailbox is closed and empty.
+     *
+     * <p>Failures of calls without completion are counted and handed to
+     * the uncaught exception handler of the consumer thread. A record
+     * must not be published from the consumer thread while waiting for
+     * its result: it would wait forever.</p>
+     *
+     * @param threads The factory of the consumer thread
+     * @param dispatch The way to apply records
+     * @throws IllegalStateException If it is already started
+     */
+    public void start(final ThreadFactory threads, final Dispatch dispatch) {
+        final Thread thread = threads.newThread(() -> this.consume(dispatch));
+        if (!this.consumer.compareAndSet(null, thread)) {
+            throw new IllegalStateException("Mailbox is already started");
+        }
+        thread.start();
+    }
+
+    /**
+     * Stop accepting records, waiting for the consumer to apply the
+     * published ones.
+     */
+    public void close() {
+        this.closed = true;
+        this.wake();
+        final Thread thread = this.consumer.get();
+        if (thread != null && thread != Thread.currentThread()) {
+            try {
+                thread.join();
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * The number of records waiting to be applied.
+     *
+     * @return The depth of the mailbox
+     */
+    public int depth() {
+        return (int) Math.max(0L, this.tail.get() - this.head.get());
+    }
+
+    /**
+     * The processing latencies, from publication to completion, in
+     * nanoseconds.
+     *
+     * @return The histogram of latencies
+     */
+    public Histogram latency() {
+        return this.latencies;
+    }
+
+    /**
+     * The number of failed calls whose caller did not wait for a result.
+     *
+     * @return The number of failures
+     */
+    public long failed() {
+        return this.failures.get();
+    }
+
+    /**
+     * Apply the published records in order until the mailbox is closed
+     * and empty.
+     *
+     * @param dispatch The way to apply records
+     */
+    private void consume(final Dispatch dispatch) {
+        final Thread thread = Thread.currentThread();
+        final int mask = this.sequences.length() - 1;
+        int idle = 0;
+        long seq = this.head.get();
+        while (true) {
+            final int idx = (int) seq & mask;
+            if (this.sequences.get(idx) == seq + 1L) {
+                this.apply(dispatch, idx, thread);
+                this.latencies.record(System.nanoTime() - this.published[idx]);
+                Arrays.fill(this.records[idx], null);
+                this.completions[idx] = null;
+                this.sequences.lazySet(idx, seq + this.sequences.length());
+                seq += 1L;
+                this.head.lazySet(seq);
+                idle = 0;
+            } else if (this.closed && this.tail.compareAndSet(seq, -1L)) {
+                break;
+            } else {
+                this.idle(idle, idx, seq);
+                idle += 1;
+            }
+        }
+    }
+
+    /**
+     * Apply a published record, completing it or reporting its failure.
+     *
+     * @param dispatch The way to apply records
+     * @param idx The index of the record
+     * @param thread The consumer thread
+     */
+    @SuppressWarnings("PMD.AvoidCatchingThrowable")
+    private void apply(
+        final Dispatch dispatch, final int idx, final Thread thread
+    ) {
+        final Completion completion = this.completions[idx];
+        try {
+            final Object result = dispatch.apply(
+                this.methods[idx], this.records[idx]
+            );
+            if (completion != null) {
+                completion.complete(result);
+            }
+            // @checkstyle IllegalCatchCheck (1 line)
+        } catch (final Throwable ex) {
+            if (completion == null) {
+                this.failures.incrementAndGet();
+                thread.getUncaughtExceptionHandler()
+                    .uncaughtException(thread, ex);
+            } else {
+                completion.fail(ex);
+            }
+        }
+    }
+
+    /**
+     * Publish a claimed record.
+     *
+     * @param seq The sequence of the record
+     * @param method The id of the called method
+     * @param completion The completion, if any
+     */
+    private void publish(
+        final long seq, final int method, final Completion completion
+    ) {
+        final int idx = this.index(seq);
+        this.methods[idx] = method;
+        this.completions[idx] = completion;
+        this.published[idx] = System.nanoTime();
+        this.sequences.set(idx, seq + 1L);
+        if (this.parked.get()) {
+            this.wake();
+        }
+    }
+
+    /**
+     * Wait for records on the consumer side.
+     *
+     * @param attempt The number of idle attempts so far
+     * @param idx The index of the next record
+     * @param seq The sequence of the next record
+     */
+    private void idle(final int attempt, final int idx, final long seq) {
+        if (attempt < Mailbox.ROUNDS) {
+            this.backoff.pause(attempt);
+        } else {
+            this.parked.set(true);
+            if (this.sequences.get(idx) != seq + 1L && !this.closed) {
+                LockSupport.park(this);
+            }
+            this.parked.set(false);
+        }
+    }
+
+    /**
+     * Unpark the consumer if it is parked.
+     */
+    private void wake() {
+        final Thread thread = this.consumer.get();
+        if (thread != null && this.parked.compareAndSet(true, false)) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * The index of a record.
+     *
+     * @param seq The sequence of the record
+     * @return The index
+     */
+    private int index(final long seq) {
+        return (int) seq & this.sequences.length() - 1;
+    }
+
+    /**
+     * The initial sequences of records.
+     *
+     * @param capacity The number of records, rounded up to a power of two
+     * @return The sequences
+     */
+    private static AtomicLongArray initial(final int capacity) {
+        if (capacity <= 0 || capacity > 1 << Integer.SIZE - 2) {
+            throw new IllegalArgumentException(
+                String.format("Invalid capacity %d", capacity)
+            );
+        }
+        final int size = Integer.highestOneBit(capacity * 2 - 1);
+        final AtomicLongArray sequences = new AtomicLongArray(size);
+        for (int idx = 0; idx < size; ++idx) {
+            sequences.set(idx, idx);
+        }
+        return sequences;
+    }
+}
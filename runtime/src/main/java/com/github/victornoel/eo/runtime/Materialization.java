@@ -0,0 +1,131 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The concurrent evaluation of the no-argument methods of an object,
+ * timing each of them.
+ *
+ * @since 1.1.0
+ */
+public final class Materialization {
+
+    /**
+     * The names of the methods.
+     */
+    private final String[] methods;
+
+    /**
+     * The time spent computing each method, in nanoseconds.
+     */
+    private final AtomicLongArray timings;
+
+    /**
+     * Ctor.
+     *
+     * @param methods The names of the methods
+     */
+    public Materialization(final String... methods) {
+        this.methods = methods.clone();
+        this.timings = new AtomicLongArray(methods.length);
+    }
+
+    /**
+     * Evaluate calls concurrently and wait for all of them, timing each.
+     *
+     * @param executor The executor running the calls
+     * @param calls The calls, in the order of the methods
+     * @return Their results
+     * @throws CompletionException Wrapping the first checked failure,
+     *  unchecked ones being thrown as is
+     */
+    public Object[] values(final Executor executor, final Callable<?>... calls) {
+        final CompletableFuture<?>[] futures =
+            new CompletableFuture<?>[calls.length];
+        for (int idx = 0; idx < calls.length; ++idx) {
+            final int method = idx;
+            futures[idx] = CompletableFuture.supplyAsync(
+                () -> this.timed(method, calls[method]), executor
+            );
+        }
+        final Object[] values = new Object[calls.length];
+        Throwable failure = null;
+        for (int idx = 0; idx < calls.length; ++idx) {
+            try {
+                values[idx] = futures[idx].join();
+            } catch (final CompletionException ex) {
+                if (failure == null) {
+                    failure = ex.getCause();
+                }
+            }
+        }
+        if (failure != null) {
+            throw new Unchecked(failure).thrown();
+        }
+        return values;
+    }
+
+    /**
+     * The time spent computing a method.
+     *
+     * @param method The position of the method
+     * @return The time in nanoseconds
+     */
+    public long nanos(final int method) {
+        return this.timings.get(method);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder text = new StringBuilder(0);
+        for (int idx = 0; idx < this.methods.length; ++idx) {
+            text.append(this.methods[idx])
+                .append(": ")
+                .append(this.timings.get(idx))
+                .append("ns\n");
+        }
+        return text.toString();
+    }
+
+    /**
+     * Evaluate a call, timing it.
+     *
+     * @param method The position of the method
+     * @param call The call
+     * @return Its result
+     */
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private Object timed(final int method, final Callable<?> call) {
+        final long start = System.nanoTime();
+        try {
+            return call.call();
+            // @checkstyle IllegalCatchCheck (1 line)
+        } catch (final Exception ex) {
+            throw new CompletionException(ex);
+        } finally {
+            this.timings.set(method, System.nanoTime() - start);
+        }
+    }
+}
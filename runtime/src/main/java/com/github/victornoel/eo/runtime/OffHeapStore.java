@@ -0,0 +1,265 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionException;
+
+/**
+ * A store of results kept off heap, in direct memory or in a memory-mapped
+ * file, so that large results don't weigh on the garbage collector.
+ *
+ * <p>Results are stored in blocks of a slab allocator, indexed by key.
+ * When no block of the right size is left, the least recently used result
+ * of the same size is evicted. Results larger than {@link #MAXIMUM} bytes
+ * are not stored.</p>
+ *
+ * <p>Results are copied from the store on each read, while holding its
+ * lock, since the block of a result is reused for another one once
+ * evicted: buffers are returned as read-only heap copies.</p>
+ *
+ * @since 1.1.0
+ */
+public final class OffHeapStore {
+
+    /**
+     * The size of the largest results stored.
+     */
+    public static final int MAXIMUM = Slabs.SLAB;
+
+    /**
+     * The results, guarded by themselves.
+     */
+    private final SlabStore results;
+
+    /**
+     * Ctor.
+     *
+     * @param capacity The maximum number of bytes to allocate in direct
+     *  memory, rounded up to whole slabs of {@link #MAXIMUM} bytes
+     */
+    public OffHeapStore(final long capacity) {
+        this(new Slabs(capacity, slab -> ByteBuffer.allocateDirect(Slabs.SLAB)));
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param file The file to map, created if needed
+     * @param capacity The maximum number of bytes to map, rounded up to
+     *  whole slabs of {@link #MAXIMUM} bytes
+     */
+    public OffHeapStore(final Path file, final long capacity) {
+        this(new Slabs(capacity, slab -> Slabs.mapped(file, slab)));
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param slabs The blocks of the results
+     */
+    private OffHeapStore(final Slabs slabs) {
+        this.results = new SlabStore(slabs);
+    }
+
+    /**
+     * The bytes stored for a key, computed and stored if missing.
+     *
+     * @param key The key, with equals and hashCode
+     * @param source The computation of the bytes
+     * @return A copy of the bytes
+     * @throws CompletionException Wrapping a checked failure of the
+     *  computation, unchecked ones being thrown as is
+     */
+    public byte[] bytes(final Object key, final Callable<byte[]> source) {
+        byte[] bytes = null;
+        synchronized (this.results) {
+            final ByteBuffer stored = this.results.read(key);
+            if (stored != null) {
+                bytes = new byte[stored.remaining()];
+                stored.get(bytes);
+            }
+        }
+        if (bytes == null) {
+            bytes = OffHeapStore.computed(source);
+            if (bytes != null) {
+                this.store(key, ByteBuffer.wrap(bytes));
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * The text stored for a key, computed and stored in UTF-8 if missing.
+     *
+     * @param key The key, with equals and hashCode
+     * @param source The computation of the text
+     * @return The text, decoded from the store
+     * @throws CompletionException Wrapping a checked failure of the
+     *  computation, unchecked ones being thrown as is
+     */
+    public String text(final Object key, final Callable<String> source) {
+        String text = null;
+        synchronized (this.results) {
+            final ByteBuffer stored = this.results.read(key);
+            if (stored != null) {
+                text = StandardCharsets.UTF_8.decode(stored).toString();
+            }
+        }
+        if (text == null) {
+            text = OffHeapStore.computed(source);
+            if (text != null) {
+                this.store(
+                    key, ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8))
+                );
+            }
+        }
+        return text;
+    }
+
+    /**
+     * The remaining bytes of a buffer stored for a key, computed and stored
+     * if missing.
+     *
+     * @param key The key, with equals and hashCode
+     * @param source The computation of the buffer
+     * @return A read-only copy of the stored bytes, or a read-only view of
+     *  the computed buffer if it was missing
+     * @throws CompletionException Wrapping a checked failure of the
+     *  computation, unchecked ones being thrown as is
+     */
+    public ByteBuffer buffer(
+        final Object key, final Callable<ByteBuffer> source
+    ) {
+        ByteBuffer buffer = null;
+        synchronized (this.results) {
+            final ByteBuffer stored = this.results.read(key);
+            if (stored != null) {
+                buffer = ByteBuffer.allocate(stored.remaining());
+                buffer.put(stored).flip();
+            }
+        }
+        if (buffer == null) {
+            buffer = OffHeapStore.computed(source);
+            if (buffer != null) {
+                this.store(key, buffer);
+            }
+        }
+        if (buffer != null) {
+            buffer = buffer.asReadOnlyBuffer();
+        }
+        return buffer;
+    }
+
+    /**
+     * The number of bytes of the stored results.
+     *
+     * @return The number of bytes
+     */
+    public long used() {
+        synchronized (this.results) {
+            return this.results.used();
+        }
+    }
+
+    /**
+     * The number of bytes reserved off heap, used or not.
+     *
+     * @return The number of bytes
+     */
+    public long reserved() {
+        synchronized (this.results) {
+            return this.results.reserved();
+        }
+    }
+
+    /**
+     * The number of stored results.
+     *
+     * @return The number of results
+     */
+    public int size() {
+        synchronized (this.results) {
+            return this.results.size();
+        }
+    }
+
+    /**
+     * The number of results evicted to store others.
+     *
+     * @return The number of results
+     */
+    public long evictions() {
+        synchronized (this.results) {
+            return this.results.evictions();
+        }
+    }
+
+    @Override
+    public String toString() {
+        synchronized (this.results) {
+            return String.format(
+                "results=%d used=%d reserved=%d evictions=%d",
+                this.results.size(), this.results.used(),
+                this.results.reserved(), this.results.evictions()
+            );
+        }
+    }
+
+    /**
+     * Compute a result.
+     *
+     * @param source The computation
+     * @param <T> The type of the result
+     * @return The result
+     */
+    @SuppressWarnings(
+        {
+            "PMD.AvoidCatchingGenericException",
+            "PMD.AvoidRethrowingException"
+        }
+    )
+    private static <T> T computed(final Callable<T> source) {
+        try {
+            return source.call();
+            // @checkstyle IllegalCatchCheck (1 line)
+        } catch (final RuntimeException ex) {
+            throw ex;
+            // @checkstyle IllegalCatchCheck (1 line)
+        } catch (final Exception ex) {
+            throw new CompletionException(ex);
+        }
+    }
+
+    /**
+     * Store the remaining bytes of a buffer for a key.
+     *
+     * @param key The key
+     * @param content The bytes
+     */
+    private void store(final Object key, final ByteBuffer content) {
+        final ByteBuffer duplicate = content.duplicate();
+        synchronized (this.results) {
+            this.results.write(key, duplicate);
+        }
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An open-loop load: calls to a mix of methods started at a fixed rate
+ * from some threads, whatever the time the previous calls took.
+ *
+ * <p>The calls are scheduled ahead, each thread taking its share of them
+ * in turn, and their latency is measured from their scheduled start, so
+ * the time a call waited behind slower ones is counted and coordinated
+ * omission is corrected. The latencies are recorded in log-linear
+ * {@link Histogram}s, one per method.</p>
+ *
+ * @since 1.1.0
+ */
+public final class OpenLoop {
+
+    /**
+     * The percentiles printed.
+     */
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.99, 0.999};
+
+    /**
+     * The number of nanoseconds in a second.
+     */
+    private static final double SECOND = 1e9;
+
+    /**
+     * The number of nanoseconds in a microsecond.
+     */
+    private static final double MICROS = 1e3;
+
+    /**
+     * The time between two calls, in nanoseconds.
+     */
+    private final double period;
+
+    /**
+     * The number of threads calling.
+     */
+    private final int threads;
+
+    /**
+     * The names of the methods.
+     */
+    private final String[] methods;
+
+    /**
+     * The weight of each method in the mix.
+     */
+    private final int[] weights;
+
+    /**
+     * The latencies of each method.
+     */
+    private final List<Histogram> measured;
+
+    /**
+     * The number of failed calls.
+     */
+    private final LongAdder failures;
+
+    /**
+     * The generator of the mix and of the arguments.
+     */
+    private final SplittableRandom random;
+
+    /**
+     * Ctor.
+     *
+     * @param rate The number of calls per second
+     * @param threads The number of threads calling
+     * @param methods The names of the methods, all of weight 1 in the mix
+     */
+    public OpenLoop(final double rate, final int threads, final String... methods) {
+        this.period = OpenLoop.interval(rate, threads);
+        this.threads = threads;
+        this.methods = methods.clone();
+        this.weights = OpenLoop.ones(methods.length);
+        this.measured = OpenLoop.histograms(methods.length);
+        this.failures = new LongAdder();
+        this.random = new SplittableRandom();
+    }
+
+    /**
+     * Change the weight of a method in the mix, before running.
+     *
+     * @param method The name of the method, overloads included
+     * @param weight The weight, 0 to leave the method out
+     * @return This
+     */
+    public OpenLoop mix(final String method, final int weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException(
+                String.format("Negative weight %d for %s", weight, method)
+            );
+        }
+        for (int idx = 0; idx < this.methods.length; ++idx) {
+            if (this.methods[idx].equals(method)) {
+                this.weights[idx] = weight;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Run the load, until its duration has elapsed and its last calls
+     * have returned.
+     *
+     * @param load The calls
+     * @param duration The duration of the load
+     * @param unit The unit of the duration
+     * @throws InterruptedException If interrupted while waiting for the
+     *  threads, which are then interrupted too
+     */
+    public void run(final Load load, final long duration, final TimeUnit unit)
+        throws InterruptedException {
+        if (this.cumulated()[this.weights.length] == 0) {
+            throw new IllegalStateException("No method in the mix");
+        }
+        final long calls = (long) (unit.toNanos(duration) / this.period);
+        final long begin = System.nanoTime();
+        final List<Thread> workers = new ArrayList<>(this.threads);
+        for (int idx = 0; idx < this.threads; ++idx) {
+            final long first = idx;
+            final SplittableRandom split = this.random.split();
+            final Thread worker = new Thread(
+                () -> this.work(load, split, begin, first, calls),
+                String.format("open-loop-%d", idx)
+            );
+            worker.start();
+            workers.add(worker);
+        }
+        try {
+            for (final Thread worker : workers) {
+                worker.join();
+            }
+        } finally {
+            workers.forEach(Thread::interrupt);
+        }
+    }
+
+    /**
+     * The latencies of each method, from the scheduled start of the calls.
+     *
+     * @return The latencies, in nanoseconds, in the order of the methods
+     */
+    public List<Histogram> latencies() {
+        return Collections.unmodifiableList(this.measured);
+    }
+
+    /**
+     * The number of calls which threw an exception.
+     *
+     * @return The count
+     */
+    public long failed() {
+        return this.failures.sum();
+    }
+
+    /**
+     * Print the percentiles of the latencies of each method, in
+     * microseconds.
+     *
+     * @param out Where to print
+     */
+    public void print(final PrintStream out) {
+        out.printf(
+            "%-24s %10s %10s %10s %10s %10s %10s%n",
+            "method", "calls", "p50", "p90", "p99", "p99.9", "max"
+        );
+        for (int idx = 0; idx < this.methods.length; ++idx) {
+            final Histogram histogram = this.measured.get(idx);
+            out.printf("%-24s %10d", this.methods[idx], histogram.count());
+            for (final double ratio : OpenLoop.PERCENTILES) {
+                out.printf(" %10.1f", histogram.percentile(ratio) / OpenLoop.MICROS);
+            }
+            out.printf(" %10.1f%n", histogram.max() / OpenLoop.MICROS);
+        }
+        out.printf("failed %d%n", this.failures.sum());
+    }
+
+    /**
+     * Make the calls of a thread, one out of {@code threads} of the load.
+     *
+     * @param load The calls
+     * @param split The generator of the thread
+     * @param begin When the load begins
+     * @param first The index of the first call of the thread
+     * @param calls The number of calls of the load
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private void work(final Load load, final SplittableRandom split,
+        final long begin, final long first, final long calls) {
+        final int[] cumulated = this.cumulated();
+        final int total = cumulated[this.weights.length];
+        for (long call = first; call < calls
+            && !Thread.currentThread().isInterrupted(); call += this.threads) {
+            final long scheduled = begin + (long) (call * this.period);
+            for (long left = scheduled - System.nanoTime(); left > 0L;
+                left = scheduled - System.nanoTime()) {
+                LockSupport.parkNanos(left);
+            }
+            final int draw = split.nextInt(total);
+            int method = 0;
+            while (cumulated[method + 1] <= draw) {
+                ++method;
+            }
+            try {
+                load.call(method, split);
+                // @checkstyle IllegalCatchCheck (1 line)
+            } catch (final Exception ex) {
+                this.failures.increment();
+            }
+            this.measured.get(method).record(System.nanoTime() - scheduled);
+        }
+    }
+
+    /**
+     * The cumulated weights of the methods in the mix.
+     *
+     * @return The weights, starting from 0 and ending with the total
+     */
+    private int[] cumulated() {
+        final int[] cumulated = new int[this.weights.length + 1];
+        for (int idx = 0; idx < this.weights.length; ++idx) {
+            cumulated[idx + 1] = cumulated[idx] + this.weights[idx];
+        }
+        return cumulated;
+    }
+
+    /**
+     * The time between two calls.
+     *
+     * @param rate The number of calls per second
+     * @param threads The number of threads calling
+     * @return The period, in nanoseconds
+     */
+    private static double interval(final double rate, final int threads) {
+        if (rate <= 0.0 || Double.isNaN(rate) || threads <= 0) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Open loop requires a positive rate and threads, not %f and %d",
+                    rate, threads
+                )
+            );
+        }
+        return OpenLoop.SECOND / rate;
+    }
+
+    /**
+     * Weights of 1.
+     *
+     * @param size The number of weights
+     * @return The weights
+     */
+    private static int[] ones(final int size) {
+        final int[] weights = new int[size];
+        Arrays.fill(weights, 1);
+        return weights;
+    }
+
+    /**
+     * Empty histograms.
+     *
+     * @param size The number of histograms
+     * @return The histograms
+     */
+    private static List<Histogram> histograms(final int size) {
+        final List<Histogram> histograms = new ArrayList<>(size);
+        for (int idx = 0; idx < size; ++idx) {
+            histograms.add(new Histogram());
+        }
+        return histograms;
+    }
+
+    /**
+     * The calls of a load.
+     *
+     * @since 1.1.0
+     */
+    public interface Load {
+
+        /**
+         * Call a method.
+         *
+         * @param method The index of the method
+         * @param random The generator of the arguments
+         * @throws Exception If the call fails
+         */
+        void call(int method, SplittableRandom random) throws Exception;
+    }
+}
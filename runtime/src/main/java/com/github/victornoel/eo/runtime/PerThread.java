@@ -0,0 +1,216 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Instances confined to a thread, for implementations that are cheap to
+ * create but not thread-safe.
+ *
+ * <p>Platform threads each get their own instance, kept in a thread
+ * local. Virtual threads, which may be too many to each get one, borrow
+ * instances from a small shared pool instead, instances in excess being
+ * cleaned up when returned.</p>
+ *
+ * <p>Instances of platform threads are cleaned up by {@link #remove()}
+ * from their thread or by {@link #close()}; those of threads that end
+ * before are only garbage collected.</p>
+ *
+ * @param <T> Type of the instances
+ * @since 1.1.0
+ */
+public final class PerThread<T> {
+
+    /**
+     * The default number of instances kept for virtual threads.
+     */
+    private static final int POOL = 16;
+
+    /**
+     * Whether a thread is a virtual one, never before Java 21.
+     */
+    private static final MethodHandle IS_VIRTUAL = PerThread.virtual();
+
+    /**
+     * Creates the instances.
+     */
+    private final Supplier<? extends T> factory;
+
+    /**
+     * Cleans up the instances no longer used.
+     */
+    private final Consumer<? super T> cleanup;
+
+    /**
+     * The instances of the platform threads that weren't cleaned up.
+     */
+    private final Map<Thread, T> owned;
+
+    /**
+     * The instances available to virtual threads.
+     */
+    private final BlockingQueue<T> pool;
+
+    /**
+     * The instance of each platform thread, replaced when closed.
+     */
+    private volatile ThreadLocal<T> local;
+
+    /**
+     * Ctor.
+     *
+     * @param factory Creates the instances
+     */
+    public PerThread(final Supplier<? extends T> factory) {
+        this(factory, item -> { }, PerThread.POOL);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param factory Creates the instances
+     * @param cleanup Cleans up the instances no longer used
+     * @param pool The number of instances kept for virtual threads
+     */
+    public PerThread(final Supplier<? extends T> factory,
+        final Consumer<? super T> cleanup, final int pool) {
+        this.factory = factory;
+        this.cleanup = cleanup;
+        this.owned = Collections.synchronizedMap(new WeakHashMap<>());
+        this.pool = new ArrayBlockingQueue<>(pool);
+        this.local = new ThreadLocal<>();
+    }
+
+    /**
+     * The instance to use from the current thread, to release once used.
+     *
+     * @return The instance
+     */
+    public T acquire() {
+        T item;
+        if (PerThread.isVirtual()) {
+            item = this.pool.poll();
+            if (item == null) {
+                item = this.factory.get();
+            }
+        } else {
+            final ThreadLocal<T> slot = this.local;
+            item = slot.get();
+            if (item == null) {
+                item = this.factory.get();
+                slot.set(item);
+                this.owned.put(Thread.currentThread(), item);
+            }
+        }
+        return item;
+    }
+
+    /**
+     * Release an instance once used.
+     *
+     * @param item The instance returned by {@link #acquire()}
+     */
+    public void release(final T item) {
+        if (PerThread.isVirtual() && !this.pool.offer(item)) {
+            this.cleanup.accept(item);
+        }
+    }
+
+    /**
+     * Clean up the instance of the current platform thread, a new one
+     * being created if it is used again.
+     */
+    public void remove() {
+        final T item = this.owned.remove(Thread.currentThread());
+        this.local.remove();
+        if (item != null) {
+            this.cleanup.accept(item);
+        }
+    }
+
+    /**
+     * The number of instances not cleaned up, owned by platform threads
+     * or pooled for virtual threads.
+     *
+     * @return The number of instances
+     */
+    public int instances() {
+        return this.owned.size() + this.pool.size();
+    }
+
+    /**
+     * Clean up all the instances, new ones being created if used again.
+     */
+    public void close() {
+        this.local = new ThreadLocal<>();
+        final List<T> items;
+        synchronized (this.owned) {
+            items = new ArrayList<>(this.owned.values());
+            this.owned.clear();
+        }
+        this.pool.drainTo(items);
+        items.forEach(this.cleanup);
+    }
+
+    /**
+     * Whether the current thread is a virtual one.
+     *
+     * @return True if it is virtual
+     */
+    @SuppressWarnings("PMD.AvoidCatchingThrowable")
+    private static boolean isVirtual() {
+        try {
+            return (boolean) PerThread.IS_VIRTUAL.invokeExact(Thread.currentThread());
+            // @checkstyle IllegalCatchCheck (1 line)
+        } catch (final Throwable ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Whether a thread is a virtual one, never before Java 21.
+     *
+     * @return The check
+     */
+    private static MethodHandle virtual() {
+        final MethodType type = MethodType.methodType(boolean.class);
+        MethodHandle virtual;
+        try {
+            virtual = MethodHandles.publicLookup()
+                .findVirtual(Thread.class, "isVirtual", type);
+        } catch (final NoSuchMethodException | IllegalAccessException ex) {
+            virtual = MethodHandles.dropArguments(
+                MethodHandles.constant(boolean.class, false), 0, Thread.class
+            );
+        }
+        return virtual;
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * An iterator reading ahead of its consumer: the elements of the origin
+ * iterator are buffered by a task run on an executor, so that producing
+ * them overlaps consuming them.
+ *
+ * <p>The task stops when the buffer is full and is run again once the
+ * consumer made room, so an abandoned iteration doesn't hold any thread.
+ * A failure of the origin iterator is thrown to the consumer once it
+ * reached it. {@link #close()} cancels the iteration explicitly.</p>
+ *
+ * <p>This iterator must be consumed by a single thread and the origin
+ * iterator must not be used anymore by anyone else.</p>
+ *
+ * @param <T> The type of the elements
+ * @since 1.1.0
+ */
+public final class Prefetching<T> implements Iterator<T>, AutoCloseable {
+
+    /**
+     * The marker of a null element.
+     */
+    private static final Object NULL = new Object();
+
+    /**
+     * The marker of the end of the iteration.
+     */
+    private static final Object END = new Object();
+
+    /**
+     * The origin iterator.
+     */
+    private final Iterator<? extends T> origin;
+
+    /**
+     * The buffered elements, with room for a last marker.
+     */
+    private final BlockingQueue<Object> buffer;
+
+    /**
+     * The executor running the filling task.
+     */
+    private final Executor executor;
+
+    /**
+     * Whether the filling task is running or the origin is exhausted.
+     */
+    private final AtomicBoolean filling;
+
+    /**
+     * Whether the iteration was cancelled.
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * The next element taken from the buffer, if any.
+     */
+    private Object head;
+
+    /**
+     * Ctor.
+     *
+     * @param origin The origin iterator
+     * @param size The number of elements to read ahead
+     * @param executor The executor running the filling task
+     */
+    public Prefetching(
+        final Iterator<? extends T> origin, final int size,
+        final Executor executor
+    ) {
+        this.origin = origin;
+        this.buffer = new ArrayBlockingQueue<>(size + 1);
+        this.executor = executor;
+        this.filling = new AtomicBoolean();
+    }
+
+    /**
+     * Start reading ahead.
+     *
+     * @return This iterator
+     */
+    public Prefetching<T> start() {
+        this.schedule();
+        return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (this.head == null) {
+            try {
+                this.head = this.buffer.take();
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(ex);
+            }
+            this.schedule();
+        }
+        if (this.head instanceof Failure) {
+            throw new Unchecked(((Failure) this.head).error).thrown();
+        }
+        return this.head != Prefetching.END;
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "PMD.NullAssignment"})
+    public T next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final Object next = this.head;
+        this.head = null;
+        final T element;
+        if (next == Prefetching.NULL) {
+            element = null;
+        } else {
+            element = (T) next;
+        }
+        return element;
+    }
+
+    /**
+     * The number of elements read ahead and not consumed yet.
+     *
+     * @return The number of elements
+     */
+    public int buffered() {
+        int size = this.buffer.size();
+        if (this.head != null) {
+            ++size;
+        }
+        return size;
+    }
+
+    @Override
+    public void close() {
+        this.cancelled = true;
+        this.head = Prefetching.END;
+        this.buffer.clear();
+    }
+
+    /**
+     * Run the filling task unless it is already running or done.
+     */
+    private void schedule() {
+        if (!this.cancelled
+            && this.buffer.remainingCapacity() > 1
+            && this.filling.compareAndSet(false, true)) {
+            this.executor.execute(this::fill);
+        }
+    }
+
+    /**
+     * Fill the buffer until it is full, keeping the task running if the
+     * consumer made room in between.
+     */
+    private void fill() {
+        boolean more = true;
+        while (more) {
+            if (this.read()) {
+                this.filling.set(false);
+                more = !this.cancelled
+                    && this.buffer.remainingCapacity() > 1
+                    && this.filling.compareAndSet(false, true);
+            } else {
+                more = false;
+            }
+        }
+    }
+
+    /**
+     * Read elements of the origin iterator until the buffer is full.
+     *
+     * @return Whether the origin iterator may have more elements
+     */
+    @SuppressWarnings("PMD.AvoidCatchingThrowable")
+    private boolean read() {
+        boolean open = true;
+        try {
+            while (open && !this.cancelled
+                && this.buffer.remainingCapacity() > 1) {
+                if (this.origin.hasNext()) {
+                    final T next = this.origin.next();
+                    if (next == null) {
+                        this.buffer.add(Prefetching.NULL);
+                    } else {
+                        this.buffer.add(next);
+                    }
+                } else {
+                    this.buffer.add(Prefetching.END);
+                    open = false;
+                }
+            }
+            // @checkstyle IllegalCatchCheck (1 line)
+        } catch (final Throwable ex) {
+            this.buffer.add(new Failure(ex));
+            open = false;
+        }
+        return open;
+    }
+
+    /**
+     * The marker of a failure of the origin iterator.
+     *
+     * @since 1.1.0
+     */
+    private static final class Failure {
+
+        /**
+         * The failure.
+         */
+        private final Throwable error;
+
+        /**
+         * Ctor.
+         *
+         * @param error The failure
+         */
+        Failure(final Throwable error) {
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+/**
+ * A producer of elements streamed to subscribers under backpressure,
+ * with the same contract as {@code java.util.concurrent.Flow.Publisher},
+ * for code compiled for Java 8.
+ *
+ * @param <T> Type of the elements
+ * @since 1.1.0
+ */
+public interface Publisher<T> {
+
+    /**
+     * Start streaming elements to a subscriber, once it requests them.
+     *
+     * @param subscriber The subscriber
+     */
+    void subscribe(Subscriber<? super T> subscriber);
+
+    /**
+     * A receiver of elements, with the same contract as
+     * {@code java.util.concurrent.Flow.Subscriber}.
+     *
+     * @param <T> Type of the elements
+     * @since 1.1.0
+     */
+    interface Subscriber<T> {
+
+        /**
+         * Called once before any other method.
+         *
+         * @param subscription The subscription to request elements
+         */
+        void onSubscribe(Subscription subscription);
+
+        /**
+         * Called for each requested element.
+         *
+         * @param item The element
+         */
+        void onNext(T item);
+
+        /**
+         * Called once on failure, no other method being called after.
+         *
+         * @param error The failure
+         */
+        void onError(Throwable error);
+
+        /**
+         * Called once all the elements were received, no other method
+         * being called after.
+         */
+        void onComplete();
+    }
+
+    /**
+     * The link between a publisher and a subscriber, with the same
+     * contract as {@code java.util.concurrent.Flow.Subscription}.
+     *
+     * @since 1.1.0
+     */
+    interface Subscription {
+
+        /**
+         * Request more elements.
+         *
+         * @param count The number of elements, strictly positive
+         */
+        void request(long count);
+
+        /**
+         * Stop receiving elements.
+         */
+        void cancel();
+    }
+}
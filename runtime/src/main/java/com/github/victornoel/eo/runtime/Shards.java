@@ -0,0 +1,153 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The shard of a key among a fixed number of shards.
+ *
+ * <p>Primitive keys are hashed without boxing and every hash is mixed
+ * before being mapped to a shard, so that sequential or poorly
+ * distributed keys are spread evenly. Equal keys always map to the same
+ * shard. Arrays other than {@code byte[]} are hashed by identity, as
+ * with their {@code hashCode}.</p>
+ *
+ * @since 1.1.0
+ */
+public final class Shards {
+
+    /**
+     * The first multiplier of the mix of a hash.
+     */
+    private static final long FIRST = 0xff51afd7ed558ccdL;
+
+    /**
+     * The second multiplier of the mix of a hash.
+     */
+    private static final long SECOND = 0xc4ceb9fe1a85ec53L;
+
+    /**
+     * The number of bits of the shifts of the mix of a hash.
+     */
+    private static final int SHIFT = 33;
+
+    /**
+     * The number of bits of an int.
+     */
+    private static final int BITS = 32;
+
+    /**
+     * The number of shards.
+     */
+    private final long count;
+
+    /**
+     * Ctor.
+     *
+     * @param count The number of shards, which must be positive
+     * @throws IllegalArgumentException If the count is not positive
+     */
+    public Shards(final int count) {
+        this.count = Shards.positive(count);
+    }
+
+    /**
+     * The shard of a key.
+     *
+     * @param key The key
+     * @return The index of its shard
+     */
+    public int index(final long key) {
+        long hash = key;
+        hash ^= hash >>> Shards.SHIFT;
+        hash *= Shards.FIRST;
+        hash ^= hash >>> Shards.SHIFT;
+        hash *= Shards.SECOND;
+        hash ^= hash >>> Shards.SHIFT;
+        return (int) ((hash >>> Shards.BITS) * this.count >>> Shards.BITS);
+    }
+
+    /**
+     * The shard of a key.
+     *
+     * @param key The key
+     * @return The index of its shard
+     */
+    public int index(final int key) {
+        return this.index((long) key);
+    }
+
+    /**
+     * The shard of a key.
+     *
+     * @param key The key
+     * @return The index of its shard
+     */
+    public int index(final boolean key) {
+        return this.index(Boolean.hashCode(key));
+    }
+
+    /**
+     * The shard of a key.
+     *
+     * @param key The key
+     * @return The index of its shard
+     */
+    public int index(final double key) {
+        return this.index(Double.doubleToLongBits(key));
+    }
+
+    /**
+     * The shard of a key.
+     *
+     * @param key The key
+     * @return The index of its shard
+     */
+    public int index(final byte[] key) {
+        return this.index(Arrays.hashCode(key));
+    }
+
+    /**
+     * The shard of a key.
+     *
+     * @param key The key, possibly null
+     * @return The index of its shard
+     */
+    public int index(final Object key) {
+        return this.index(Objects.hashCode(key));
+    }
+
+    /**
+     * Check that a number of shards is positive.
+     *
+     * @param count The number of shards
+     * @return The number of shards
+     * @throws IllegalArgumentException If it is not positive
+     */
+    private static int positive(final int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException(
+                String.format("Invalid number of shards %d", count)
+            );
+        }
+        return count;
+    }
+}
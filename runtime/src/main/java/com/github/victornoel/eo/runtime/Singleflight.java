@@ -0,0 +1,167 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Collapses concurrent identical calls: the first caller for a key makes
+ * the call while the others wait for its result or failure.
+ *
+ * <p>A key is only kept while its call is in flight, so results are not
+ * cached: a call made after the previous one completed is made again.</p>
+ *
+ * @since 1.1.0
+ */
+public final class Singleflight {
+
+    /**
+     * The calls in flight by key.
+     */
+    private final ConcurrentMap<Object, CompletableFuture<Object>> flights;
+
+    /**
+     * The number of calls that waited for another one.
+     */
+    private final LongAdder joined;
+
+    /**
+     * Ctor.
+     */
+    public Singleflight() {
+        this.flights = new ConcurrentHashMap<>();
+        this.joined = new LongAdder();
+    }
+
+    /**
+     * Make a call, unless an identical one is in flight, in which case
+     * wait for its outcome.
+     *
+     * @param key The key identifying the call, with equals and hashCode
+     * @param call The call
+     * @return The result
+     * @throws CompletionException Wrapping a checked failure, unchecked
+     *  ones being thrown as is
+     */
+    @SuppressWarnings(
+        {"PMD.AvoidCatchingThrowable", "PMD.PreserveStackTrace"}
+    )
+    public Object call(final Object key, final Callable<?> call) {
+        final CompletableFuture<Object> flight = new CompletableFuture<>();
+        final CompletableFuture<Object> existing =
+            this.flights.putIfAbsent(key, flight);
+        final Object result;
+        if (existing == null) {
+            try {
+                result = call.call();
+                this.flights.remove(key, flight);
+                flight.complete(result);
+                // @checkstyle IllegalCatchCheck (1 line)
+            } catch (final Throwable ex) {
+                this.flights.remove(key, flight);
+                flight.completeExceptionally(ex);
+                throw new Unchecked(ex).thrown();
+            }
+        } else {
+            this.joined.increment();
+            try {
+                result = existing.join();
+            } catch (final CompletionException ex) {
+                throw new Unchecked(ex.getCause()).thrown();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Make an asynchronous call, unless an identical one is in flight, in
+     * which case share its outcome without waiting for it.
+     *
+     * <p>The call is in flight until the stage it returns completes. Each
+     * caller gets its own stage depending on it, a {@link CompletableFuture}
+     * if the call returned one, so a caller can't complete or cancel the
+     * stage of another one.</p>
+     *
+     * @param key The key identifying the call, with equals and hashCode
+     * @param call The call
+     * @return The stage of the result
+     * @throws CompletionException Wrapping a checked failure to start the
+     *  call, unchecked ones being thrown as is
+     */
+    @SuppressWarnings(
+        {"PMD.AvoidCatchingThrowable", "PMD.PreserveStackTrace"}
+    )
+    public CompletionStage<?> stage(
+        final Object key, final Callable<? extends CompletionStage<?>> call
+    ) {
+        final CompletableFuture<Object> flight = new CompletableFuture<>();
+        final CompletableFuture<Object> existing =
+            this.flights.putIfAbsent(key, flight);
+        final CompletionStage<?> result;
+        if (existing == null) {
+            try {
+                result = call.call().whenComplete(
+                    (value, error) -> {
+                        this.flights.remove(key, flight);
+                        if (error == null) {
+                            flight.complete(value);
+                        } else {
+                            flight.completeExceptionally(error);
+                        }
+                    }
+                );
+                // @checkstyle IllegalCatchCheck (1 line)
+            } catch (final Throwable ex) {
+                this.flights.remove(key, flight);
+                flight.completeExceptionally(ex);
+                throw new Unchecked(ex).thrown();
+            }
+        } else {
+            this.joined.increment();
+            result = existing.thenApply(Function.identity());
+        }
+        return result;
+    }
+
+    /**
+     * The number of calls in flight.
+     *
+     * @return The number of calls
+     */
+    public int inflight() {
+        return this.flights.size();
+    }
+
+    /**
+     * The number of calls that waited for an identical one instead of
+     * being made.
+     *
+     * @return The number of calls
+     */
+    public long collapsed() {
+        return this.joined.sum();
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The results of an {@link OffHeapStore}: blocks of {@link Slabs} indexed
+ * by a {@link LruIndex}. It is not thread-safe.
+ *
+ * @since 1.1.0
+ */
+final class SlabStore {
+
+    /**
+     * The blocks of the results.
+     */
+    private final Slabs slabs;
+
+    /**
+     * The index of the results.
+     */
+    private final LruIndex index;
+
+    /**
+     * The number of results.
+     */
+    private int count;
+
+    /**
+     * The number of bytes of the results.
+     */
+    private long inuse;
+
+    /**
+     * The number of results evicted.
+     */
+    private long evicted;
+
+    /**
+     * Ctor.
+     *
+     * @param slabs The blocks of the results
+     */
+    SlabStore(final Slabs slabs) {
+        this.slabs = slabs;
+        this.index = new LruIndex();
+    }
+
+    /**
+     * The bytes stored for a key, marked as recently used.
+     *
+     * @param key The key
+     * @return The bytes, null if missing
+     */
+    ByteBuffer read(final Object key) {
+        final int entry = this.index.find(key);
+        ByteBuffer stored = null;
+        if (entry >= 0) {
+            stored = this.slabs.region(
+                this.index.address(entry), this.index.length(entry)
+            );
+        }
+        return stored;
+    }
+
+    /**
+     * Store the remaining bytes of a buffer for a key, unless they are
+     * missing, too large or already stored, evicting the least recently
+     * used result of the same size if needed.
+     *
+     * @param key The key
+     * @param content The bytes, possibly null
+     * @return The stored bytes, null if not stored
+     */
+    ByteBuffer write(final Object key, final ByteBuffer content) {
+        ByteBuffer stored = null;
+        if (content != null && content.remaining() <= Slabs.SLAB
+            && this.index.find(key) < 0) {
+            final int length = content.remaining();
+            final long address = this.block(Slabs.sizeClass(length));
+            if (address >= 0) {
+                stored = this.slabs.region(address, length);
+                stored.put(content).flip();
+                this.index.add(key, address, length);
+                this.count += 1;
+                this.inuse += length;
+            }
+        }
+        return stored;
+    }
+
+    /**
+     * The number of results.
+     *
+     * @return The number of results
+     */
+    int size() {
+        return this.count;
+    }
+
+    /**
+     * The number of bytes of the results.
+     *
+     * @return The number of bytes
+     */
+    long used() {
+        return this.inuse;
+    }
+
+    /**
+     * The number of bytes reserved by slabs.
+     *
+     * @return The number of bytes
+     */
+    long reserved() {
+        return this.slabs.reserved();
+    }
+
+    /**
+     * The number of results evicted.
+     *
+     * @return The number of results
+     */
+    long evictions() {
+        return this.evicted;
+    }
+
+    /**
+     * Allocate a block, evicting the least recently used result of its
+     * class if none is left.
+     *
+     * @param cls The size class
+     * @return The address of the block, negative if there is none
+     */
+    private long block(final int cls) {
+        long address = this.slabs.allocate(cls);
+        final int eldest = this.index.eldest(cls);
+        if (address < 0 && eldest >= 0) {
+            address = this.index.address(eldest);
+            this.inuse -= this.index.length(eldest);
+            this.index.remove(eldest);
+            this.count -= 1;
+            this.evicted += 1;
+        }
+        return address;
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * A slab allocator of off-heap blocks: memory is reserved by slabs of
+ * {@link #SLAB} bytes, each one cut into blocks of a single power of two
+ * size, from 64 bytes to a whole slab.
+ *
+ * <p>A slab is dedicated to its size class once cut. Blocks are never
+ * released, the results they store being replaced in place when evicted.
+ * Blocks are identified by addresses packing the index of their slab and
+ * their offset in it. It is not thread-safe.</p>
+ *
+ * @since 1.1.0
+ */
+final class Slabs {
+
+    /**
+     * The size of a slab, 1 MiB.
+     */
+    static final int SLAB = 1_048_576;
+
+    /**
+     * The number of size classes.
+     */
+    static final int CLASSES = 15;
+
+    /**
+     * The power of two of the smallest blocks.
+     */
+    private static final int SMALLEST = 6;
+
+    /**
+     * The shift of the slab index in an address.
+     */
+    private static final int SHIFT = 32;
+
+    /**
+     * The marker of no address.
+     */
+    private static final long NONE = -1L;
+
+    /**
+     * The reservation of the memory of a slab from its index.
+     */
+    private final IntFunction<ByteBuffer> regions;
+
+    /**
+     * The memory of the slabs, reserved on demand.
+     */
+    private final ByteBuffer[] memory;
+
+    /**
+     * The next block never used in the last slab of each class.
+     */
+    private final long[] cursors;
+
+    /**
+     * The number of slabs reserved.
+     */
+    private int taken;
+
+    /**
+     * Ctor.
+     *
+     * @param capacity The maximum number of bytes to reserve, rounded up
+     *  to whole slabs
+     * @param regions The reservation of the memory of a slab from its index
+     */
+    Slabs(final long capacity, final IntFunction<ByteBuffer> regions) {
+        this.regions = regions;
+        this.memory = new ByteBuffer[
+            Math.toIntExact((capacity + Slabs.SLAB - 1) / Slabs.SLAB)
+        ];
+        this.cursors = Slabs.unused();
+    }
+
+    /**
+     * The size class of blocks able to hold some bytes.
+     *
+     * @param length The number of bytes, at most {@link #SLAB}
+     * @return The size class
+     */
+    static int sizeClass(final int length) {
+        return Math.max(
+            0,
+            Integer.SIZE - Integer.numberOfLeadingZeros(Math.max(length, 1) - 1)
+                - Slabs.SMALLEST
+        );
+    }
+
+    /**
+     * Map the memory of a slab in a file.
+     *
+     * @param file The file
+     * @param slab The index of the slab
+     * @return The memory
+     */
+    static ByteBuffer mapped(final Path file, final int slab) {
+        try (FileChannel channel = FileChannel.open(
+            file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE
+        )) {
+            return channel.map(
+                FileChannel.MapMode.READ_WRITE, (long) slab * Slabs.SLAB,
+                Slabs.SLAB
+            );
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Allocate a block, reserving a new slab if needed and possible.
+     *
+     * @param cls The size class of the block
+     * @return The address of the block, negative if none is left
+     */
+    long allocate(final int cls) {
+        if (this.cursors[cls] == Slabs.NONE && this.taken < this.memory.length) {
+            this.memory[this.taken] = this.regions.apply(this.taken);
+            this.cursors[cls] = (long) this.taken << Slabs.SHIFT;
+            this.taken += 1;
+        }
+        final long address = this.cursors[cls];
+        if (address != Slabs.NONE) {
+            this.cursors[cls] = Slabs.advanced(address, cls);
+        }
+        return address;
+    }
+
+    /**
+     * The memory of a block.
+     *
+     * @param address The address of the block
+     * @param length The number of bytes of the block to see
+     * @return The memory, from position 0 to the length
+     */
+    ByteBuffer region(final long address, final int length) {
+        final int offset = (int) address;
+        final ByteBuffer region = this.memory[(int) (address >>> Slabs.SHIFT)]
+            .duplicate();
+        region.limit(offset + length);
+        region.position(offset);
+        return region.slice();
+    }
+
+    /**
+     * The number of bytes reserved by slabs.
+     *
+     * @return The number of bytes
+     */
+    long reserved() {
+        return (long) this.taken * Slabs.SLAB;
+    }
+
+    /**
+     * The address of the block following another one of the same class
+     * in its slab.
+     *
+     * @param address The address of the block
+     * @param cls The size class of the block
+     * @return The address, {@link #NONE} if the slab is full
+     */
+    private static long advanced(final long address, final int cls) {
+        final long next = address + (1L << cls + Slabs.SMALLEST);
+        long advanced = next;
+        if ((int) next == Slabs.SLAB) {
+            advanced = Slabs.NONE;
+        }
+        return advanced;
+    }
+
+    /**
+     * The cursors of the classes, none having a slab yet.
+     *
+     * @return The cursors
+     */
+    private static long[] unused() {
+        final long[] cursors = new long[Slabs.CLASSES];
+        Arrays.fill(cursors, Slabs.NONE);
+        return cursors;
+    }
+}
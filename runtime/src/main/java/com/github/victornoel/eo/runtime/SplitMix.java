@@ -0,0 +1,112 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A seedable pseudo-random number generator (SplitMix64), thread-safe,
+ * lock-free and allocation-free, the same seed giving the same sequence.
+ *
+ * @since 1.1.0
+ */
+public final class SplitMix {
+
+    /**
+     * The increment of the state, the odd part of the golden ratio.
+     */
+    private static final long GAMMA = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The first multiplier of the mix.
+     */
+    private static final long FIRST = 0xBF58476D1CE4E5B9L;
+
+    /**
+     * The second multiplier of the mix.
+     */
+    private static final long SECOND = 0x94D049BB133111EBL;
+
+    /**
+     * The first shift of the mix.
+     */
+    private static final int SHIFT1 = 30;
+
+    /**
+     * The second shift of the mix.
+     */
+    private static final int SHIFT2 = 27;
+
+    /**
+     * The last shift of the mix.
+     */
+    private static final int SHIFT3 = 31;
+
+    /**
+     * The number of bits of the mantissa of a double.
+     */
+    private static final int MANTISSA = 53;
+
+    /**
+     * The state.
+     */
+    private final AtomicLong state;
+
+    /**
+     * Ctor.
+     *
+     * @param seed The seed
+     */
+    public SplitMix(final long seed) {
+        this.state = new AtomicLong(seed);
+    }
+
+    /**
+     * The next value.
+     *
+     * @return A value uniformly distributed over all longs
+     */
+    public long next() {
+        long mix = this.state.addAndGet(SplitMix.GAMMA);
+        mix = (mix ^ (mix >>> SplitMix.SHIFT1)) * SplitMix.FIRST;
+        mix = (mix ^ (mix >>> SplitMix.SHIFT2)) * SplitMix.SECOND;
+        return mix ^ (mix >>> SplitMix.SHIFT3);
+    }
+
+    /**
+     * The next value between 0, included, and 1, excluded.
+     *
+     * @return A value uniformly distributed over this range
+     */
+    public double uniform() {
+        return (this.next() >>> Long.SIZE - SplitMix.MANTISSA)
+            / (double) (1L << SplitMix.MANTISSA);
+    }
+
+    /**
+     * The next value of the standard normal distribution, with the
+     * Box-Muller transform.
+     *
+     * @return A value normally distributed, of mean 0 and deviation 1
+     */
+    public double gaussian() {
+        final double radius = Math.sqrt(-2.0 * Math.log(1.0 - this.uniform()));
+        return radius * Math.cos(2.0 * Math.PI * this.uniform());
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The rate limit of a method, with one {@link TokenBucket} shared by all
+ * the calls or one per key.
+ *
+ * <p>A call over the limit either blocks until a token is available,
+ * fails fast, or takes its token on credit and is delayed until the token
+ * would have been available, so delayed calls are admitted in order. The
+ * calls over the limit are counted, and the time they waited recorded.</p>
+ *
+ * <p>A bucket is kept for each key, a {@code null} key using the bucket
+ * shared by all the calls. Each time the number of buckets doubles, the
+ * full ones are dropped, since the fresh bucket a key gets on its next
+ * call admits the same calls, so that keys seen once don't hold memory
+ * forever. A call racing with this sweep may be admitted by the dropped
+ * bucket, over the limit of the fresh one by a call.</p>
+ *
+ * @since 1.1.0
+ * @checkstyle ClassDataAbstractionCouplingCheck (300 lines)
+ */
+@SuppressWarnings("PMD.TooManyMethods")
+public final class Throttle {
+
+    /**
+     * The number of buckets under which full ones are not dropped.
+     */
+    private static final int SPARED = 64;
+
+    /**
+     * The name of the limited method.
+     */
+    private final String method;
+
+    /**
+     * The bucket shared by all the calls.
+     */
+    private final TokenBucket shared;
+
+    /**
+     * The buckets by key.
+     */
+    private final ConcurrentMap<Object, TokenBucket> buckets;
+
+    /**
+     * The number of buckets above which the full ones are dropped.
+     */
+    private final AtomicInteger threshold;
+
+    /**
+     * The number of calls over the limit.
+     */
+    private final LongAdder over;
+
+    /**
+     * The nanoseconds waited by the calls over the limit.
+     */
+    private final Histogram waited;
+
+    /**
+     * Ctor.
+     *
+     * @param method The name of the limited method
+     * @param permits The number of calls allowed per period
+     * @param period The period
+     * @param unit The unit of the period
+     * @param burst The largest number of calls allowed at once, 0 meaning
+     *  the number of calls allowed per period
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    public Throttle(
+        final String method, final long permits, final long period,
+        final TimeUnit unit, final long burst
+    ) {
+        this(method, new TokenBucket(permits, period, unit, burst));
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param method The name of the limited method
+     * @param shared The bucket shared by all the calls, a copy of which
+     *  is made for each key
+     */
+    private Throttle(final String method, final TokenBucket shared) {
+        this.method = method;
+        this.shared = shared;
+        this.buckets = new ConcurrentHashMap<>();
+        this.threshold = new AtomicInteger(Throttle.SPARED);
+        this.over = new LongAdder();
+        this.waited = new Histogram();
+    }
+
+    /**
+     * Admit a call, blocking while it is over the limit.
+     *
+     * @param key The key of the call, or {@code null}
+     * @throws CompletionException Wrapping an {@link InterruptedException}
+     *  if the thread is interrupted while blocked
+     */
+    public void block(final Object key) {
+        this.admit(key, false);
+    }
+
+    /**
+     * Admit a call, delaying it if it is over the limit.
+     *
+     * @param key The key of the call, or {@code null}
+     * @throws CompletionException Wrapping an {@link InterruptedException}
+     *  if the thread is interrupted while delayed
+     */
+    public void delay(final Object key) {
+        this.admit(key, true);
+    }
+
+    /**
+     * Admit a call, failing if it is over the limit.
+     *
+     * @param key The key of the call, or {@code null}
+     * @throws ThrottledException If the call is over the limit
+     */
+    public void fail(final Object key) {
+        if (this.bucket(key).take(false) != 0L) {
+            this.over.increment();
+            throw new ThrottledException(
+                String.format("Rate limit of %s exceeded", this.method)
+            );
+        }
+    }
+
+    /**
+     * The number of calls over the limit.
+     *
+     * @return The count
+     */
+    public long throttled() {
+        return this.over.sum();
+    }
+
+    /**
+     * The nanoseconds waited by the calls over the limit that were
+     * blocked or delayed.
+     *
+     * @return The histogram
+     */
+    public Histogram waits() {
+        return this.waited;
+    }
+
+    /**
+     * The number of keys having their own bucket.
+     *
+     * @return The count
+     */
+    public int keys() {
+        return this.buckets.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "%s: throttled=%d keys=%d waits=[%s]",
+            this.method, this.over.sum(), this.buckets.size(), this.waited
+        );
+    }
+
+    /**
+     * Admit a call, waiting while it is over the limit.
+     *
+     * @param key The key of the call, or {@code null}
+     * @param credit Whether to take its token on credit
+     */
+    private void admit(final Object key, final boolean credit) {
+        final TokenBucket bucket = this.bucket(key);
+        long taken = bucket.take(credit);
+        if (taken != 0L) {
+            this.over.increment();
+            final long start = System.nanoTime();
+            while (taken < 0L) {
+                Throttle.pause(-taken);
+                taken = bucket.take(credit);
+            }
+            final long deadline = System.nanoTime() + taken;
+            for (long left = taken; left > 0L;
+                left = deadline - System.nanoTime()) {
+                Throttle.pause(left);
+            }
+            this.waited.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * The bucket of a key.
+     *
+     * @param key The key, or {@code null}
+     * @return The bucket
+     */
+    private TokenBucket bucket(final Object key) {
+        final TokenBucket bucket;
+        if (key == null) {
+            bucket = this.shared;
+        } else {
+            this.sweep();
+            bucket = this.buckets.computeIfAbsent(
+                key, any -> this.shared.fresh()
+            );
+        }
+        return bucket;
+    }
+
+    /**
+     * Drop the full buckets once their number is over the threshold,
+     * which becomes twice the number of buckets left.
+     */
+    private void sweep() {
+        final int limit = this.threshold.get();
+        if (this.buckets.size() > limit
+            && this.threshold.compareAndSet(limit, Integer.MAX_VALUE)) {
+            this.buckets.values().removeIf(TokenBucket::full);
+            this.threshold.set(
+                Math.max(Throttle.SPARED, this.buckets.size() << 1)
+            );
+        }
+    }
+
+    /**
+     * Park the current thread.
+     *
+     * @param nanos The nanoseconds to park for
+     * @throws CompletionException Wrapping an {@link InterruptedException}
+     *  if the thread is interrupted
+     */
+    private static void pause(final long nanos) {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CompletionException(
+                new InterruptedException("Interrupted while throttled")
+            );
+        }
+        LockSupport.parkNanos(nanos);
+    }
+}
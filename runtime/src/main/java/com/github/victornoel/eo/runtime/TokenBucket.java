@@ -0,0 +1,307 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A lock-free token bucket, refilled lazily by the callers.
+ *
+ * <p>The number of tokens and the time of the last refill are packed in
+ * one {@code long}, updated with a compare-and-set: the highest bits hold
+ * the signed number of tokens, the lowest ones the number of refill
+ * intervals elapsed since the bucket was created, modulo 2^42. Tokens can
+ * be taken on credit, the bucket then holding a negative number of them
+ * until it is refilled.</p>
+ *
+ * <p>The stamp wraps around after 2^42 intervals, about 73 minutes with
+ * an interval of 1 ns, so the time of the last update is also kept
+ * aside, only written when it is a quarter of this range old: a bucket
+ * left untouched for more than half of this range is full, and its
+ * stamp is resynchronized by the next compare-and-set.</p>
+ *
+ * @since 1.1.0
+ */
+public final class TokenBucket {
+
+    /**
+     * The largest number of tokens in a bucket.
+     */
+    public static final long MAXIMUM =
+        (1L << (Long.SIZE - TokenBucket.BITS - 1)) - 1L;
+
+    /**
+     * Number of bits of the time of the last refill.
+     */
+    private static final int BITS = 42;
+
+    /**
+     * The mask of the time of the last refill.
+     */
+    private static final long STAMP = (1L << TokenBucket.BITS) - 1L;
+
+    /**
+     * One token, in the packed state.
+     */
+    private static final long TOKEN = 1L << TokenBucket.BITS;
+
+    /**
+     * The nanoseconds between two tokens.
+     */
+    private final long interval;
+
+    /**
+     * The largest number of tokens.
+     */
+    private final long burst;
+
+    /**
+     * The creation of the bucket, in nanoseconds.
+     */
+    private final long origin;
+
+    /**
+     * The tokens and the time of the last refill.
+     */
+    private final AtomicLong state;
+
+    /**
+     * The time of the last update of the state, in nanoseconds since the
+     * creation, give or take a quarter of the range of the stamp, only
+     * precise enough to tell a long idle bucket.
+     */
+    private volatile long touched;
+
+    /**
+     * Ctor.
+     *
+     * @param permits The number of tokens added per period
+     * @param period The period
+     * @param unit The unit of the period
+     * @param burst The largest number of tokens, 0 meaning the number of
+     *  tokens added per period, the bucket being full when created
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    public TokenBucket(
+        final long permits, final long period, final TimeUnit unit,
+        final long burst
+    ) {
+        this(
+            TokenBucket.spacing(permits, unit.toNanos(period)),
+            TokenBucket.capacity(permits, burst)
+        );
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param interval The nanoseconds between two tokens
+     * @param burst The largest number of tokens, the bucket being full
+     *  when created
+     */
+    public TokenBucket(final long interval, final long burst) {
+        this(interval, burst, System.nanoTime());
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param interval The nanoseconds between two tokens
+     * @param burst The largest number of tokens, the bucket being full
+     *  when created
+     * @param origin The creation of the bucket, in nanoseconds
+     */
+    TokenBucket(final long interval, final long burst, final long origin) {
+        this.interval = TokenBucket.positive(interval, Long.MAX_VALUE);
+        this.burst = TokenBucket.positive(burst, TokenBucket.MAXIMUM);
+        this.origin = origin;
+        this.state = new AtomicLong(burst << TokenBucket.BITS);
+    }
+
+    /**
+     * Take a token.
+     *
+     * <p>When none is available, it is either not taken, or taken on
+     * credit, to be paid back by the next refills, as long as the debt
+     * stays under {@link #MAXIMUM}.</p>
+     *
+     * @param credit Whether to take the token on credit
+     * @return The nanoseconds to wait for the token if it was taken,
+     *  0 meaning it was available, or the opposite of the nanoseconds to
+     *  wait before trying again if it wasn't
+     */
+    public long take(final boolean credit) {
+        long result;
+        boolean done;
+        do {
+            final long current = this.state.get();
+            final long nanos = System.nanoTime() - this.origin;
+            final long tick = nanos / this.interval;
+            final long refilled = this.refilled(current, nanos);
+            final long tokens = refilled >> TokenBucket.BITS;
+            final long wait = (tick + 1L - tokens) * this.interval - nanos;
+            this.touch(nanos);
+            if (tokens > 0L) {
+                result = 0L;
+                done = this.state.compareAndSet(
+                    current, refilled - TokenBucket.TOKEN
+                );
+            } else if (credit && tokens > -TokenBucket.MAXIMUM) {
+                result = wait;
+                done = this.state.compareAndSet(
+                    current, refilled - TokenBucket.TOKEN
+                );
+            } else {
+                result = -wait;
+                done = true;
+            }
+        } while (!done);
+        return result;
+    }
+
+    /**
+     * A new full bucket with the same rate.
+     *
+     * @return The bucket
+     */
+    public TokenBucket fresh() {
+        return new TokenBucket(this.interval, this.burst);
+    }
+
+    /**
+     * Whether the bucket is full, and thus can be replaced by a fresh one
+     * without changing the calls it admits.
+     *
+     * @return True if it is
+     */
+    public boolean full() {
+        return this.tokens() >= this.burst;
+    }
+
+    /**
+     * The number of tokens available now.
+     *
+     * @return The tokens, negative if some were taken on credit
+     */
+    public long tokens() {
+        final long current = this.state.get();
+        return this.refilled(current, System.nanoTime() - this.origin)
+            >> TokenBucket.BITS;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d/%d tokens", this.tokens(), this.burst);
+    }
+
+    /**
+     * The state refilled at a given time.
+     *
+     * <p>A bucket untouched for more than half the range of the stamp is
+     * full, whatever its wrapped stamp says. Otherwise, a time earlier
+     * than the last refill, as seen by a thread lagging behind another
+     * one, refills nothing.</p>
+     *
+     * @param current The current state
+     * @param nanos The nanoseconds since the creation
+     * @return The refilled state
+     */
+    private long refilled(final long current, final long nanos) {
+        final long tick = nanos / this.interval;
+        final long tokens = current >> TokenBucket.BITS;
+        final long stamp = current & TokenBucket.STAMP;
+        final long elapsed = (tick - stamp) & TokenBucket.STAMP;
+        final long refilled;
+        if ((nanos - this.touched) / this.interval > TokenBucket.STAMP >>> 1) {
+            refilled = (this.burst << TokenBucket.BITS)
+                | (tick & TokenBucket.STAMP);
+        } else if (elapsed == 0L || elapsed > TokenBucket.STAMP >>> 1) {
+            refilled = current;
+        } else if (tokens + elapsed >= this.burst) {
+            refilled = (this.burst << TokenBucket.BITS)
+                | (tick & TokenBucket.STAMP);
+        } else {
+            refilled = ((tokens + elapsed) << TokenBucket.BITS)
+                | ((stamp + elapsed) & TokenBucket.STAMP);
+        }
+        return refilled;
+    }
+
+    /**
+     * Record the time of an update of the state, before it is made
+     * visible, unless the time recorded is recent enough.
+     *
+     * @param nanos The nanoseconds since the creation
+     */
+    private void touch(final long nanos) {
+        if ((nanos - this.touched) / this.interval > TokenBucket.STAMP >>> 2) {
+            this.touched = nanos;
+        }
+    }
+
+    /**
+     * Check a positive value.
+     *
+     * @param value The value
+     * @param max The largest value allowed
+     * @return The value
+     */
+    private static long positive(final long value, final long max) {
+        if (value < 1L || value > max) {
+            throw new IllegalArgumentException(
+                String.format("%d is not between 1 and %d", value, max)
+            );
+        }
+        return value;
+    }
+
+    /**
+     * The nanoseconds between two tokens.
+     *
+     * @param permits The number of tokens added per period
+     * @param period The period, in nanoseconds
+     * @return The nanoseconds, at least 1
+     */
+    private static long spacing(final long permits, final long period) {
+        if (permits < 1L) {
+            throw new IllegalArgumentException(
+                String.format("%d permits is not positive", permits)
+            );
+        }
+        return Math.max(1L, period / permits);
+    }
+
+    /**
+     * The largest number of tokens in a bucket.
+     *
+     * @param permits The number of tokens added per period
+     * @param burst The largest number of tokens, or 0
+     * @return The number of tokens
+     */
+    private static long capacity(final long permits, final long burst) {
+        final long tokens;
+        if (burst == 0L) {
+            tokens = Math.min(permits, TokenBucket.MAXIMUM);
+        } else {
+            tokens = burst;
+        }
+        return tokens;
+    }
+}
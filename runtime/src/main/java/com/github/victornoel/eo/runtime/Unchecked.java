@@ -0,0 +1,63 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.util.concurrent.CompletionException;
+
+/**
+ * A failure to throw from a method declaring no checked exceptions:
+ * errors are thrown and unchecked exceptions returned as they are,
+ * checked ones are wrapped in a {@link CompletionException}.
+ *
+ * @since 1.1.0
+ */
+final class Unchecked {
+
+    /**
+     * The failure.
+     */
+    private final Throwable error;
+
+    /**
+     * Ctor.
+     *
+     * @param error The failure
+     */
+    Unchecked(final Throwable error) {
+        this.error = error;
+    }
+
+    /**
+     * The failure to throw.
+     *
+     * @return The failure to throw, unless it is an error
+     */
+    public RuntimeException thrown() {
+        if (this.error instanceof Error) {
+            throw (Error) this.error;
+        }
+        final RuntimeException unchecked;
+        if (this.error instanceof RuntimeException) {
+            unchecked = (RuntimeException) this.error;
+        } else {
+            unchecked = new CompletionException(this.error);
+        }
+        return unchecked;
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Tests for {@link Allocations}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+public final class AllocationsTest {
+
+    @Test
+    public void measuresSampledCalls() {
+        final Allocations allocations = new Allocations(1, "load()", "save()");
+        final List<byte[]> kept = new ArrayList<>(1);
+        final long start = allocations.start();
+        kept.add(new byte[1 << 20]);
+        allocations.record(1, start);
+        Assertions.assertThat(kept).hasSize(1);
+        Assertions.assertThat(allocations.histogram(0).count()).isZero();
+        Assertions.assertThat(allocations.histogram(1).count()).isEqualTo(1L);
+        Assertions.assertThat(allocations.histogram(1).sum())
+            .isGreaterThanOrEqualTo(1L << 20);
+        Assertions.assertThat(allocations.toString())
+            .contains("save(): bytes=");
+    }
+
+    @Test
+    public void changesSamplingRate() {
+        final Allocations allocations = new Allocations(0, "find()");
+        allocations.record(0, allocations.start());
+        allocations.sample(1);
+        allocations.record(0, allocations.start());
+        allocations.record(0, allocations.start());
+        Assertions.assertThat(allocations.histogram(0).count()).isEqualTo(2L);
+        Assertions.assertThat(allocations.rate()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Tests for {@link Batching}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class BatchingTest {
+
+    @Test
+    public void batchesLoadsOfWindow() throws Exception {
+        final List<List<String>> calls = new CopyOnWriteArrayList<>();
+        final Map<String, Integer> values = new ConcurrentHashMap<>();
+        try (Batching batching = new Batching(
+            10, TimeUnit.MILLISECONDS.toNanos(200L),
+            ForkJoinPool.commonPool(), "length"
+        )) {
+            final List<Thread> threads = new ArrayList<>(3);
+            for (final String key : new String[] {"a", "bb", "a"}) {
+                threads.add(
+                    new Thread(
+                        () -> values.put(
+                            key,
+                            batching.<String, Integer>load(
+                                0, key,
+                                keys -> {
+                                    calls.add(keys);
+                                    return keys.stream().collect(
+                                        Collectors.toMap(
+                                            Function.identity(), String::length
+                                        )
+                                    );
+                                }
+                            )
+                        )
+                    )
+                );
+            }
+            threads.forEach(Thread::start);
+            for (final Thread thread : threads) {
+                thread.join();
+            }
+            Assertions.assertThat(calls).hasSize(1);
+            Assertions.assertThat(calls.get(0))
+                .containsExactlyInAnyOrder("a", "bb");
+            Assertions.assertThat(values)
+                .containsEntry("a", 1)
+                .containsEntry("bb", 2);
+            Assertions.assertThat(batching.batches(0).count()).isEqualTo(1L);
+            Assertions.assertThat(batching.batches(0).sum()).isEqualTo(2L);
+            Assertions.assertThat(batching.latency(0).count()).isEqualTo(1L);
+        }
+    }
+
+    @Test
+    public void dispatchesFullBatchesAtOnce() {
+        try (Batching batching = new Batching(
+            1, TimeUnit.HOURS.toNanos(1L), ForkJoinPool.commonPool(), "twice"
+        )) {
+            for (int key = 1; key <= 2; ++key) {
+                Assertions.assertThat(
+                    batching.<Integer, Integer>load(
+                        0, key,
+                        keys -> Collections.singletonMap(
+                            keys.get(0), keys.get(0) * 2
+                        )
+                    )
+                ).isEqualTo(key * 2);
+            }
+            Assertions.assertThat(batching.batches(0).count()).isEqualTo(2L);
+        }
+    }
+
+    @Test
+    public void failsAllLoadsOfBatch() {
+        try (Batching batching = new Batching(
+            1, 0L, ForkJoinPool.commonPool(), "missing", "failing"
+        )) {
+            Assertions.assertThat(
+                batching.<String, String>load(0, "key", keys -> null)
+            ).isNull();
+            Assertions.assertThatThrownBy(
+                () -> batching.<String, String>load(
+                    1, "key",
+                    keys -> {
+                        throw new IOException("unavailable");
+                    }
+                )
+            ).isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(IOException.class);
+            Assertions.assertThatThrownBy(
+                () -> batching.<String, String>load(
+                    1, "key",
+                    keys -> {
+                        throw new IllegalArgumentException("invalid");
+                    }
+                )
+            ).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    public void callsBulkMethodsOnExecutor() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newCachedThreadPool(
+            new DaemonThreads("bulk")
+        );
+        try (Batching batching = new Batching(
+            10, 0L, executor, "slow", "fast"
+        )) {
+            final Thread slow = new Thread(
+                () -> batching.<String, String>load(
+                    0, "key",
+                    keys -> {
+                        release.await();
+                        return null;
+                    }
+                )
+            );
+            slow.start();
+            Assertions.assertThat(
+                batching.<String, String>load(
+                    1, "key",
+                    keys -> Collections.singletonMap(
+                        "key", Thread.currentThread().getName()
+                    )
+                )
+            ).startsWith("bulk-");
+            release.countDown();
+            slow.join();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void keepsExpiringBatchesOfOthersOnClose() {
+        try (Batching batching = new Batching(
+            10, 0L, ForkJoinPool.commonPool(), "kept"
+        )) {
+            new Batching(10, 0L, ForkJoinPool.commonPool(), "closed").close();
+            Assertions.assertThat(
+                batching.<String, String>load(
+                    0, "key", keys -> Collections.singletonMap("key", "value")
+                )
+            ).isEqualTo("value");
+        }
+    }
+}
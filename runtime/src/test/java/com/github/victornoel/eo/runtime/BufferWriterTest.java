@@ -0,0 +1,42 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.nio.ByteBuffer;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Tests for {@link BufferWriter}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+public final class BufferWriterTest {
+
+    @Test
+    public void boundsSizesThatDontFit() {
+        final BufferWriter writer = new BufferWriter(ByteBuffer.allocate(16));
+        Assertions.assertThat(writer.sizeOf(new byte[8])).isEqualTo(12);
+        Assertions.assertThat(writer.sizeOf(new byte[64])).isEqualTo(17);
+        Assertions.assertThat(writer.bounded(3L * Integer.MAX_VALUE))
+            .isEqualTo(17);
+    }
+}
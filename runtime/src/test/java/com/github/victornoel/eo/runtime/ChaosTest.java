@@ -0,0 +1,104 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.util.concurrent.TimeUnit;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Tests for {@link Chaos}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class ChaosTest {
+
+    @Test
+    public void injectsNothingWhenDisabled() {
+        final Chaos chaos = new Chaos(1L, "get", "put");
+        chaos.enable("put", new Fault(new Latency.Fixed(0L), 1.0));
+        chaos.inject(0);
+        chaos.disable("put");
+        chaos.inject(1);
+        Assertions.assertThat(chaos.delayed()).isZero();
+        Assertions.assertThat(chaos.failed()).isZero();
+    }
+
+    @Test
+    public void failsAtTheErrorRate() {
+        final Chaos chaos = new Chaos(42L, "get")
+            .enable("get", new Fault(new Latency.Fixed(0L), 0.25));
+        int failures = 0;
+        for (int idx = 0; idx < 10_000; ++idx) {
+            try {
+                chaos.inject(0);
+            } catch (final ChaosException ex) {
+                ++failures;
+            }
+        }
+        Assertions.assertThat(failures).isBetween(2_300, 2_700);
+        Assertions.assertThat(chaos.failed()).isEqualTo(failures);
+    }
+
+    @Test
+    public void delaysCalls() {
+        final Chaos chaos = new Chaos(7L, "get").enable(
+            "get", new Fault(new Latency.Fixed(TimeUnit.MILLISECONDS.toNanos(20L)), 0.0)
+        );
+        final long start = System.nanoTime();
+        chaos.inject(0);
+        Assertions.assertThat(System.nanoTime() - start)
+            .isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(20L));
+        Assertions.assertThat(chaos.delayed()).isEqualTo(1L);
+    }
+
+    @Test
+    public void drawsTheSameLatenciesForTheSameSeed() {
+        final SplitMix first = new SplitMix(3L);
+        final SplitMix second = new SplitMix(3L);
+        final Latency latency = new Latency.LogNormal(1_000L, 0.5);
+        for (int idx = 0; idx < 100; ++idx) {
+            Assertions.assertThat(latency.nanos(first))
+                .isEqualTo(latency.nanos(second));
+        }
+    }
+
+    @Test
+    public void drawsLatenciesOfTheDistribution() {
+        final SplitMix random = new SplitMix(11L);
+        final Latency uniform = new Latency.Uniform(100L, 200L);
+        final Latency normal = new Latency.LogNormal(1_000L, 0.5);
+        int below = 0;
+        for (int idx = 0; idx < 10_000; ++idx) {
+            Assertions.assertThat(uniform.nanos(random)).isBetween(100L, 200L);
+            if (normal.nanos(random) < 1_000L) {
+                ++below;
+            }
+        }
+        Assertions.assertThat(below).isBetween(4_700, 5_300);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidErrorRates() {
+        new Fault(new Latency.Fixed(0L), 1.5);
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Tests for {@link Conflation}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class ConflationTest {
+
+    @Test
+    public void appliesLatestCallOfEachKey() throws Exception {
+        final Conflation conflation = new Conflation(1, 0L);
+        final CountDownLatch busy = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Object> applied = Collections.synchronizedList(
+            new ArrayList<>(3)
+        );
+        conflation.start(
+            Executors.defaultThreadFactory(),
+            (method, args) -> {
+                busy.countDown();
+                release.await();
+                applied.add(args[0]);
+                return null;
+            }
+        );
+        conflation.offer(0, "first", "first");
+        busy.await();
+        conflation.offer(0, "key", "old");
+        conflation.offer(0, "key", "new");
+        release.countDown();
+        conflation.close();
+        Assertions.assertThat(applied).containsExactly("first", "new");
+        Assertions.assertThat(conflation.dropped()).isEqualTo(1L);
+        Assertions.assertThat(conflation.pending()).isZero();
+    }
+
+    @Test
+    public void countsFailures() {
+        final Conflation conflation = new Conflation(2, 0L);
+        final Thread.UncaughtExceptionHandler ignore = (thread, ex) -> { };
+        conflation.start(
+            runnable -> {
+                final Thread thread = new Thread(runnable);
+                thread.setUncaughtExceptionHandler(ignore);
+                return thread;
+            },
+            (method, args) -> {
+                throw new IllegalStateException("down");
+            }
+        );
+        conflation.offer(1, 1, 1);
+        conflation.close();
+        Assertions.assertThat(conflation.failed()).isEqualTo(1L);
+        Assertions.assertThatThrownBy(() -> conflation.offer(0, 1))
+            .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void conflatesNullKeys() {
+        final Conflation conflation = new Conflation(1, 0L);
+        final List<Object> applied = Collections.synchronizedList(
+            new ArrayList<>(1)
+        );
+        conflation.offer(0, null, "old");
+        conflation.offer(0, null, "new");
+        conflation.start(
+            Executors.defaultThreadFactory(),
+            (method, args) -> applied.add(args[0])
+        );
+        conflation.close();
+        Assertions.assertThat(applied).containsExactly("new");
+        Assertions.assertThat(conflation.dropped()).isEqualTo(1L);
+    }
+
+    @Test
+    public void leavesNoCallPendingWhenOffersRaceWithClose()
+        throws Exception {
+        final Conflation conflation = new Conflation(1, 0L);
+        final LongAdder applied = new LongAdder();
+        conflation.start(
+            Executors.defaultThreadFactory(),
+            (method, args) -> {
+                applied.increment();
+                return null;
+            }
+        );
+        final AtomicLong keys = new AtomicLong();
+        final LongAdder accepted = new LongAdder();
+        final CountDownLatch started = new CountDownLatch(4);
+        final List<Thread> threads = new ArrayList<>(4);
+        for (int idx = 0; idx < 4; ++idx) {
+            threads.add(
+                ConflationTest.offering(conflation, started, keys, accepted)
+            );
+        }
+        started.await();
+        Thread.sleep(10L);
+        conflation.close();
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        Assertions.assertThat(conflation.pending()).isZero();
+        Assertions.assertThat(applied.sum()).isEqualTo(accepted.sum());
+    }
+
+    /**
+     * Start a thread offering calls with new keys until rejected.
+     *
+     * @param conflation The conflation
+     * @param started The latch to count down once started
+     * @param keys The last key offered
+     * @param accepted The number of accepted calls
+     * @return The started thread
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    private static Thread offering(
+        final Conflation conflation, final CountDownLatch started,
+        final AtomicLong keys, final LongAdder accepted
+    ) {
+        final Thread thread = new Thread(
+            () -> {
+                started.countDown();
+                boolean open = true;
+                while (open) {
+                    try {
+                        conflation.offer(0, keys.incrementAndGet(), 1);
+                        accepted.increment();
+                    } catch (final IllegalStateException ex) {
+                        open = false;
+                    }
+                }
+            }
+        );
+        thread.start();
+        return thread;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Tests for {@link Drain}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ */
+public final class DrainTest {
+
+    @Test
+    public void tracksCallsOfEachEpoch() throws Exception {
+        final Drain drain = new Drain(true);
+        final int first = drain.enter();
+        Assertions.assertThat(drain.inflight()).isEqualTo(1L);
+        final Thread waiting = new Thread(drain::drain);
+        waiting.start();
+        while (drain.enter() == first) {
+            drain.exit(first);
+        }
+        Assertions.assertThat(waiting.isAlive()).isTrue();
+        drain.exit(first);
+        waiting.join();
+        Assertions.assertThat(drain.inflight()).isEqualTo(1L);
+    }
+
+    @Test
+    public void ignoresCallsWhenDisabled() {
+        final Drain drain = new Drain(false);
+        drain.enter();
+        drain.drain();
+        Assertions.assertThat(drain.inflight()).isZero();
+    }
+}
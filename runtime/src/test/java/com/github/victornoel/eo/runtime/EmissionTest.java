@@ -0,0 +1,75 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.io.IOException;
+import java.util.Arrays;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Tests for {@link Emission}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class EmissionTest {
+
+    @Test
+    public void emitsNoMoreThanRequested() {
+        final StringBuilder seen = new StringBuilder();
+        final Emission<String> emission = new Emission<>(
+            () -> Arrays.asList("a", "b", "c"),
+            seen::append, seen::append, () -> seen.append('!')
+        );
+        emission.request(1L);
+        seen.append(';');
+        emission.request(Long.MAX_VALUE);
+        emission.request(Long.MAX_VALUE);
+        Assertions.assertThat(seen.toString()).isEqualTo("a;bc!");
+    }
+
+    @Test
+    public void reportsFailuresOnce() {
+        final StringBuilder seen = new StringBuilder();
+        final Emission<String> emission = new Emission<>(
+            () -> {
+                throw new IOException("down");
+            },
+            seen::append, error -> seen.append(error.getMessage()),
+            () -> seen.append('!')
+        );
+        emission.request(1L);
+        emission.request(0L);
+        Assertions.assertThat(seen.toString()).isEqualTo("down");
+    }
+
+    @Test
+    public void rejectsNonPositiveRequests() {
+        final StringBuilder seen = new StringBuilder();
+        new Emission<String>(
+            () -> Arrays.asList("a"),
+            seen::append, error -> seen.append(error.getMessage()),
+            () -> seen.append('!')
+        ).request(0L);
+        Assertions.assertThat(seen.toString())
+            .isEqualTo("Non-positive request: 0");
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Tests for {@link EnvelopeControl} and {@link EnvelopeRegistry}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class EnvelopeControlTest {
+
+    @Test
+    public void countsCallsAndSamplesLatencies() {
+        final EnvelopeControl control = new EnvelopeControl("get", "put");
+        control.exit(0, control.enter(0), false);
+        control.exit(1, control.enter(1), true);
+        control.setSampling(false);
+        control.exit(0, control.enter(0), false);
+        Assertions.assertThat(control.getCalls()).containsExactly(2L, 1L);
+        Assertions.assertThat(control.getFailures()).containsExactly(0L, 1L);
+        Assertions.assertThat(control.latency(0).count()).isEqualTo(1L);
+        Assertions.assertThat(control.getInflight()).isZero();
+        control.reset();
+        Assertions.assertThat(control.getCalls()).containsExactly(0L, 0L);
+    }
+
+    @Test
+    public void refusesCallsOverConcurrencyLimit() {
+        final EnvelopeControl control = new EnvelopeControl("get");
+        control.setConcurrencyLimit(1);
+        final long start = control.enter(0);
+        Assertions.assertThatThrownBy(() -> control.enter(0))
+            .isInstanceOf(ThrottledException.class)
+            .hasMessage("Concurrency limit of get exceeded");
+        control.exit(0, start, false);
+        control.exit(0, control.enter(0), false);
+        Assertions.assertThat(control.getRejected()).isEqualTo(1L);
+        Assertions.assertThat(control.getInflight()).isZero();
+    }
+
+    @Test
+    public void registersControlsAsMbeans() throws Exception {
+        final MBeanServer server = MBeanServerFactory.newMBeanServer();
+        final EnvelopeRegistry registry = new EnvelopeRegistry(server);
+        final EnvelopeControl first = registry.registered(
+            "com.example.Test", new EnvelopeControl("get")
+        );
+        registry.registered("com.example.Test", new EnvelopeControl("get"));
+        final ObjectName name = new ObjectName(
+            "com.github.victornoel.eo:type=com.example.Test"
+        );
+        server.setAttribute(name, new Attribute("ConcurrencyLimit", 8));
+        Assertions.assertThat(first.getConcurrencyLimit()).isEqualTo(8);
+        Assertions.assertThat(server.getAttribute(name, "Methods"))
+            .isEqualTo(new String[] {"get"});
+        Assertions.assertThat(
+            server.isRegistered(
+                new ObjectName(
+                    "com.github.victornoel.eo:type=com.example.Test,instance=2"
+                )
+            )
+        ).isTrue();
+        registry.unregister(first);
+        Assertions.assertThat(server.isRegistered(name)).isFalse();
+        registry.registered("com.example.Test", new EnvelopeControl("get"));
+        Assertions.assertThat(
+            server.isRegistered(
+                new ObjectName(
+                    "com.github.victornoel.eo:type=com.example.Test,instance=3"
+                )
+            )
+        ).isTrue();
+    }
+}
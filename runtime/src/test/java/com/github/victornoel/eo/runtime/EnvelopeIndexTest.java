@@ -0,0 +1,103 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import org.assertj.core.api.Assertions;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link EnvelopeIndex}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class EnvelopeIndexTest {
+
+    /**
+     * Temporary folder.
+     * @checkstyle VisibilityModifierCheck (3 lines)
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsAllIndexResources() throws Exception {
+        final File first = this.index(
+            "# comment",
+            "a.Foo\tGenerateActor\ta.FooActor\ta.Foo,int",
+            "a.Foo\tGenerateActor\ta.FooActor\ta.Foo,int,java.util.concurrent.ThreadFactory"
+        );
+        final File second = this.index(
+            "a.Foo\tGenerateEnvelope\ta.FooEnvelope\ta.Foo",
+            "b.Bar\tGenerateSwappable\tb.BarSwappable\t"
+        );
+        try (URLClassLoader loader = new URLClassLoader(
+            new URL[] {first.toURI().toURL(), second.toURI().toURL()}, null
+        )) {
+            final EnvelopeIndex index = new EnvelopeIndex(loader);
+            Assertions.assertThat(index.all()).containsOnlyKeys("a.Foo", "b.Bar");
+            Assertions.assertThat(index.envelopes("a.Foo"))
+                .extracting(IndexedEnvelope::type)
+                .containsExactly("a.FooActor", "a.FooEnvelope");
+            Assertions.assertThat(index.envelopes("a.Foo").get(0).signatures())
+                .containsExactly(
+                    Arrays.asList("a.Foo", "int"),
+                    Arrays.asList(
+                        "a.Foo", "int", "java.util.concurrent.ThreadFactory"
+                    )
+                );
+            Assertions.assertThat(index.envelopes("b.Bar").get(0).signatures())
+                .containsExactly(Collections.emptyList());
+            Assertions.assertThat(index.envelopes("b.Bar").get(0).variant())
+                .isEqualTo("GenerateSwappable");
+            Assertions.assertThat(index.envelopes("c.Baz")).isEmpty();
+            Assertions.assertThatThrownBy(() -> index.all().clear())
+                .isInstanceOf(UnsupportedOperationException.class);
+        }
+    }
+
+    /**
+     * Write an index resource in a new folder.
+     *
+     * @param lines The lines of the index
+     * @return The folder
+     * @throws Exception If fails
+     */
+    private File index(final String... lines) throws Exception {
+        final File root = this.folder.newFolder();
+        final Path meta = Files.createDirectories(root.toPath().resolve("META-INF"));
+        Files.write(
+            meta.resolve("eo-envelopes.idx"),
+            Arrays.asList(lines),
+            StandardCharsets.UTF_8
+        );
+        return root;
+    }
+}
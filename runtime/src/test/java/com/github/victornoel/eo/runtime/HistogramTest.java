@@ -0,0 +1,95 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import org.assertj.core.api.Assertions;
+import org.assertj.core.data.Offset;
+import org.junit.Test;
+
+/**
+ * Tests for {@link Histogram}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+public final class HistogramTest {
+
+    @Test
+    public void countsSmallValuesExactly() {
+        final Histogram histogram = new Histogram();
+        for (long value = 1L; value <= 10L; ++value) {
+            histogram.record(value);
+        }
+        Assertions.assertThat(histogram.count()).isEqualTo(10L);
+        Assertions.assertThat(histogram.mean()).isEqualTo(5.5);
+        Assertions.assertThat(histogram.percentile(0.5)).isEqualTo(5L);
+        Assertions.assertThat(histogram.percentile(1.0)).isEqualTo(10L);
+        Assertions.assertThat(histogram.max()).isEqualTo(10L);
+    }
+
+    @Test
+    public void boundsRelativeErrorOfLargeValues() {
+        final Histogram histogram = new Histogram();
+        for (long value = 1L; value <= 1_000_000L; ++value) {
+            histogram.record(value * 1000L);
+        }
+        Assertions.assertThat(histogram.percentile(0.99))
+            .isCloseTo(990_000_000L, Offset.offset(990_000_000L / 32L));
+        Assertions.assertThat(histogram.percentile(1.0))
+            .isEqualTo(1_000_000_000L);
+        Assertions.assertThat(histogram.max()).isEqualTo(1_000_000_000L);
+    }
+
+    @Test
+    public void handlesExtremeValues() {
+        final Histogram histogram = new Histogram();
+        histogram.record(-5L);
+        histogram.record(Long.MAX_VALUE);
+        Assertions.assertThat(histogram.percentile(0.5)).isZero();
+        Assertions.assertThat(histogram.percentile(1.0))
+            .isEqualTo(Long.MAX_VALUE);
+        histogram.reset();
+        Assertions.assertThat(histogram.count()).isZero();
+        Assertions.assertThat(histogram.percentile(0.5)).isZero();
+    }
+
+    @Test
+    public void countsValuesRecordedByManyThreads() throws Exception {
+        final Histogram histogram = new Histogram();
+        final Thread[] threads = new Thread[8];
+        for (int idx = 0; idx < threads.length; ++idx) {
+            final long value = idx;
+            threads[idx] = new Thread(
+                () -> {
+                    for (int count = 0; count < 1000; ++count) {
+                        histogram.record(value);
+                    }
+                }
+            );
+            threads[idx].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        Assertions.assertThat(histogram.count()).isEqualTo(8000L);
+        Assertions.assertThat(histogram.percentile(0.5)).isEqualTo(3L);
+        Assertions.assertThat(histogram.percentile(1.0)).isEqualTo(7L);
+    }
+}
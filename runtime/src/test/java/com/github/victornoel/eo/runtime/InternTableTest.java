@@ -0,0 +1,74 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Tests for {@link InternTable}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+public final class InternTableTest {
+
+    @Test
+    public void sharesEqualValues() {
+        final InternTable table = new InternTable(16);
+        final String first = new String(new char[] {'a', 'b'});
+        final String second = new String(new char[] {'a', 'b'});
+        Assertions.assertThat(table.intern(first)).isSameAs(first);
+        Assertions.assertThat(table.intern(second)).isSameAs(first);
+        Assertions.assertThat(table.<String>intern(null)).isNull();
+        Assertions.assertThat(table.lookups()).isEqualTo(2L);
+        Assertions.assertThat(table.shared()).isEqualTo(1L);
+        Assertions.assertThat(table.ratio()).isEqualTo(0.5);
+        Assertions.assertThat(table.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void sharesOnlyValuesOfSameClass() {
+        final InternTable table = new InternTable(16);
+        final List<Integer> array = new ArrayList<>(Arrays.asList(1, 2));
+        final List<Integer> linked = new LinkedList<>(Arrays.asList(1, 2));
+        table.intern(array);
+        Assertions.assertThat(table.intern(linked)).isSameAs(linked);
+        Assertions.assertThat(table.shared()).isZero();
+    }
+
+    @Test
+    public void staysBounded() {
+        final InternTable table = new InternTable(8);
+        final List<String> values = new ArrayList<>(1000);
+        for (int idx = 0; idx < 1000; ++idx) {
+            values.add(table.intern(String.valueOf(idx)));
+        }
+        Assertions.assertThat(table.size()).isBetween(1, 8);
+        Assertions.assertThat(values).doesNotHaveDuplicates();
+        Assertions.assertThat(table.intern(Collections.emptyList()))
+            .isSameAs(Collections.emptyList());
+    }
+}
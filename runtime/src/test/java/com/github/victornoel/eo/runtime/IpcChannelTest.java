@@ -0,0 +1,243 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import org.assertj.core.api.Assertions;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link IpcChannel}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+public final class IpcChannelTest {
+
+    /**
+     * Temporary folder.
+     * @checkstyle VisibilityModifierCheck (3 lines)
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void exchangesRequestAndResponse() throws Exception {
+        final Path file = this.folder.newFile().toPath();
+        try (IpcChannel client = new IpcChannel(file, 2, 64);
+            IpcChannel server = new IpcChannel(file, 2, 64)) {
+            client.bind(7);
+            server.bind(7);
+            Assertions.assertThat(server.poll()).isNegative();
+            final int pos = client.request(3, 4);
+            client.send(client.writer().putInt(pos, 20) - 4);
+            final int req = server.poll();
+            Assertions.assertThat(req).isEqualTo(pos);
+            Assertions.assertThat(server.method(req)).isEqualTo(3);
+            final int arg = server.reader(req).readInt();
+            server.writer().putLong(server.reserve(req, 8), arg * 2L);
+            server.respond(req);
+            Assertions.assertThat(client.receive(pos).readLong()).isEqualTo(40L);
+            client.release(pos);
+            Assertions.assertThat(server.poll()).isNegative();
+        }
+    }
+
+    @Test
+    public void reportsRemoteFailures() throws Exception {
+        final Path file = this.folder.newFile().toPath();
+        try (IpcChannel client = new IpcChannel(file, 1, 128);
+            IpcChannel server = new IpcChannel(file, 1, 128)) {
+            final int pos = client.request(0, 0);
+            client.send(pos);
+            server.fail(server.poll(), new IllegalStateException("nope"));
+            Assertions.assertThatThrownBy(() -> client.receive(pos))
+                .isInstanceOf(IpcException.class)
+                .hasMessageContaining("java.lang.IllegalStateException: nope");
+            client.release(pos);
+            Assertions.assertThat(client.request(0, 0)).isEqualTo(pos);
+        }
+    }
+
+    @Test
+    public void abandonsResponsesAfterTimeout() throws Exception {
+        final Path file = this.folder.newFile().toPath();
+        try (IpcChannel client = new IpcChannel(
+            file, 1, 64, 50L, TimeUnit.MILLISECONDS
+        );
+            IpcChannel server = new IpcChannel(file, 1, 64)) {
+            final int pos = client.request(0, 0);
+            client.send(pos);
+            final int req = server.poll();
+            Assertions.assertThatThrownBy(() -> client.receive(pos))
+                .isInstanceOf(IpcException.class)
+                .hasMessageContaining("No response within 50 ms");
+            client.release(pos);
+            Assertions.assertThat(server.poll()).isNegative();
+            Assertions.assertThatThrownBy(() -> client.request(0, 0))
+                .isInstanceOf(IpcException.class)
+                .hasMessageContaining("No free slot");
+            server.respond(req);
+            Assertions.assertThat(client.request(0, 0)).isEqualTo(pos);
+        }
+    }
+
+    @Test
+    public void reusesSlotsAbandonedBeforeServerStarts() throws Exception {
+        final Path file = this.folder.newFile().toPath();
+        try (IpcChannel client = new IpcChannel(
+            file, 1, 64, 20L, TimeUnit.MILLISECONDS
+        )) {
+            for (int idx = 0; idx < 3; ++idx) {
+                Assertions.assertThatThrownBy(() -> IpcChannelTest.call(client, 1))
+                    .isInstanceOf(IpcException.class)
+                    .hasMessageContaining("No response within 20 ms");
+            }
+            try (IpcChannel server = new IpcChannel(file, 1, 64)) {
+                Assertions.assertThat(server.poll()).isNegative();
+                final int pos = client.request(0, 0);
+                client.send(pos);
+                final int req = server.poll();
+                Assertions.assertThat(req).isEqualTo(pos);
+                server.writer().putLong(server.reserve(req, 8), 42L);
+                server.respond(req);
+                Assertions.assertThat(client.receive(pos).readLong())
+                    .isEqualTo(42L);
+                client.release(pos);
+            }
+        }
+    }
+
+    @Test
+    public void callsServerInAnotherProcess() throws Exception {
+        final Path file = this.folder.newFile().toPath();
+        final Process process = new ProcessBuilder(
+            Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+            "-cp", System.getProperty("java.class.path"),
+            IpcChannelTest.Server.class.getName(), file.toString()
+        ).redirectOutput(ProcessBuilder.Redirect.INHERIT)
+            .redirectError(ProcessBuilder.Redirect.INHERIT)
+            .start();
+        try (IpcChannel client = new IpcChannel(
+            file, 2, 64, 30L, TimeUnit.SECONDS
+        );
+            IpcChannel impatient = new IpcChannel(
+                file, 2, 64, 100L, TimeUnit.MILLISECONDS
+            )) {
+            client.bind(7);
+            for (int idx = 0; idx < 1_000; ++idx) {
+                Assertions.assertThat(IpcChannelTest.call(client, idx))
+                    .isEqualTo(idx * 2L);
+            }
+            process.destroyForcibly().waitFor();
+            Assertions.assertThatThrownBy(() -> IpcChannelTest.call(impatient, 1))
+                .isInstanceOf(IpcException.class)
+                .hasMessageContaining("No response");
+        } finally {
+            process.destroyForcibly();
+        }
+    }
+
+    @Test
+    public void rejectsOversizedPayloads() throws Exception {
+        try (IpcChannel channel = new IpcChannel(
+            this.folder.newFile().toPath(), 1, 32
+        )) {
+            Assertions.assertThatThrownBy(() -> channel.request(0, 100))
+                .isInstanceOf(IpcException.class)
+                .hasMessageContaining("100 bytes");
+        }
+    }
+
+    @Test
+    public void rejectsAnotherInterface() throws Exception {
+        final Path file = this.folder.newFile().toPath();
+        try (IpcChannel first = new IpcChannel(file, 1, 32);
+            IpcChannel second = new IpcChannel(file, 1, 32)) {
+            first.bind(1);
+            Assertions.assertThatThrownBy(() -> second.bind(2))
+                .isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    /**
+     * Call the server doubling ints.
+     *
+     * @param client The channel
+     * @param arg The argument
+     * @return The result
+     */
+    private static long call(final IpcChannel client, final int arg) {
+        final int pos = client.request(0, Integer.BYTES);
+        try {
+            client.send(client.writer().putInt(pos, arg) - Integer.BYTES);
+            return client.receive(pos).readLong();
+        } finally {
+            client.release(pos);
+        }
+    }
+
+    /**
+     * A server doubling ints, run in another process until killed.
+     *
+     * @since 1.1.0
+     */
+    public static final class Server {
+
+        /**
+         * Ctor.
+         */
+        private Server() {
+            // entry point
+        }
+
+        /**
+         * Serve the channel given as argument.
+         *
+         * @param args The path of the file of the channel
+         * @throws IOException If the file can't be mapped
+         */
+        public static void main(final String... args) throws IOException {
+            try (IpcChannel server = new IpcChannel(
+                new File(args[0]).toPath(), 2, 64
+            )) {
+                server.bind(7);
+                for (int idle = 0; !Thread.currentThread().isInterrupted();) {
+                    final int req = server.poll();
+                    if (req < 0) {
+                        server.idle(idle);
+                        ++idle;
+                    } else {
+                        idle = 0;
+                        final int arg = server.reader(req).readInt();
+                        server.writer().putLong(server.reserve(req, 8), arg * 2L);
+                        server.respond(req);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.assertj.core.api.Assertions;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link Journal} and {@link JournalCursor}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+public final class JournalTest {
+
+    /**
+     * Temporary folder.
+     * @checkstyle VisibilityModifierCheck (3 lines)
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsBackWrittenValues() throws Exception {
+        final Path file = this.folder.newFile().toPath();
+        final String text = "héllo";
+        try (Journal journal = new Journal(file, 8, 128)) {
+            journal.stamp(42);
+            final BufferWriter writer = journal.writer();
+            final int pos = journal.claim(7, 64);
+            journal.commit(
+                pos,
+                writer.putBytes(
+                    writer.putString(
+                        writer.putDouble(
+                            writer.putChar(
+                                writer.putBoolean(writer.putLong(pos, -3L), true),
+                                'x'
+                            ),
+                            2.5
+                        ),
+                        text
+                    ),
+                    new byte[] {1, 2, 3}
+                )
+            );
+        }
+        try (JournalCursor cursor = new JournalCursor(file, 42, false)) {
+            Assertions.assertThat(cursor.next()).isTrue();
+            Assertions.assertThat(cursor.method()).isEqualTo(7);
+            final BufferReader reader = cursor.reader();
+            Assertions.assertThat(reader.readLong()).isEqualTo(-3L);
+            Assertions.assertThat(reader.readBoolean()).isTrue();
+            Assertions.assertThat(reader.readChar()).isEqualTo('x');
+            Assertions.assertThat(reader.readDouble()).isEqualTo(2.5);
+            Assertions.assertThat(reader.readString()).isEqualTo(text);
+            Assertions.assertThat(reader.readBytes()).containsExactly(1, 2, 3);
+            Assertions.assertThat(cursor.next()).isFalse();
+        }
+    }
+
+    @Test
+    public void keepsMostRecentCallsInOrder() throws Exception {
+        final Path file = this.folder.newFile().toPath();
+        try (Journal journal = new Journal(file, 4, 32)) {
+            journal.stamp(0);
+            for (int idx = 0; idx < 6; ++idx) {
+                final int pos = journal.claim(idx, 0);
+                journal.commit(pos, pos);
+            }
+            Assertions.assertThat(journal.claim(6, 9)).isNegative();
+            Assertions.assertThat(journal.dropped()).isEqualTo(1L);
+        }
+        final List<Integer> methods = new ArrayList<>(4);
+        try (JournalCursor cursor = new JournalCursor(file, 0, true)) {
+            while (cursor.next()) {
+                methods.add(cursor.method());
+            }
+        }
+        Assertions.assertThat(methods).containsExactly(2, 3, 4, 5);
+    }
+
+    @Test
+    public void refusesOtherInterfaces() throws Exception {
+        final Path file = this.folder.newFile().toPath();
+        try (Journal journal = new Journal(file, 1, 32)) {
+            journal.stamp(0);
+        }
+        Assertions.assertThatThrownBy(() -> new JournalCursor(file, 1, false))
+            .hasMessageContaining("another interface");
+        Files.write(file, new byte[Journal.HEADER]);
+        Assertions.assertThatThrownBy(() -> new JournalCursor(file, 0, false))
+            .hasMessageContaining("not a journal");
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Tests for {@link Mailbox}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+public final class MailboxTest {
+
+    @Test
+    public void appliesRecordsInOrder() {
+        final List<Object> applied = new ArrayList<>(10);
+        final Mailbox mailbox = new Mailbox(4, 1);
+        mailbox.start(
+            Executors.defaultThreadFactory(),
+            (method, args) -> applied.add(args[0])
+        );
+        for (int idx = 0; idx < 10; ++idx) {
+            final long seq = mailbox.claim();
+            mailbox.arguments(seq)[0] = idx;
+            mailbox.post(seq, 0);
+        }
+        mailbox.close();
+        Assertions.assertThat(applied)
+            .containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+        Assertions.assertThat(mailbox.depth()).isZero();
+        Assertions.assertThat(mailbox.latency().count()).isEqualTo(10L);
+    }
+
+    @Test
+    public void returnsResultsAndFailures() {
+        final Mailbox mailbox = new Mailbox(2, 1);
+        mailbox.start(
+            Executors.defaultThreadFactory(),
+            (method, args) -> {
+                if (method == 1) {
+                    throw new IllegalStateException("failed");
+                }
+                return (int) args[0] * 2;
+            }
+        );
+        long seq = mailbox.claim();
+        mailbox.arguments(seq)[0] = 21;
+        Assertions.assertThat(mailbox.call(seq, 0).await()).isEqualTo(42);
+        seq = mailbox.claim();
+        final Completion completion = mailbox.call(seq, 1);
+        Assertions.assertThatThrownBy(completion::await)
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("fail");
+        mailbox.close();
+        Assertions.assertThatThrownBy(mailbox::claim)
+            .isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.io.IOException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Tests for {@link Materialization}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class MaterializationTest {
+
+    @Test
+    public void returnsValuesInOrder() {
+        Assertions.assertThat(
+            new Materialization("name()", "size()").values(
+                ForkJoinPool.commonPool(), () -> "abc", () -> 3
+            )
+        ).containsExactly("abc", 3);
+    }
+
+    @Test
+    public void wrapsCheckedFailures() {
+        Assertions.assertThatThrownBy(
+            () -> new Materialization("name()", "size()").values(
+                ForkJoinPool.commonPool(),
+                () -> {
+                    throw new IOException("down");
+                },
+                () -> 3
+            )
+        )
+            .isInstanceOf(CompletionException.class)
+            .hasCauseInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void throwsUncheckedFailuresAsIs() {
+        Assertions.assertThatThrownBy(
+            () -> new Materialization("size()").values(
+                ForkJoinPool.commonPool(),
+                () -> {
+                    throw new IllegalStateException("broken");
+                }
+            )
+        ).isInstanceOf(IllegalStateException.class).hasMessage("broken");
+    }
+}
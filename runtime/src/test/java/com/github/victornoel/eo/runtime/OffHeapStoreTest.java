@@ -0,0 +1,145 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.util.Arrays;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.assertj.core.api.Assertions;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link OffHeapStore}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ * @checkstyle MagicNumberCheck (500 lines)
+ * @checkstyle VisibilityModifierCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class OffHeapStoreTest {
+
+    /**
+     * The folder of the mapped files.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsStoredResults() {
+        final OffHeapStore store = new OffHeapStore(Slabs.SLAB);
+        final AtomicInteger calls = new AtomicInteger();
+        for (int round = 0; round < 2; ++round) {
+            for (int key = 0; key < 1000; ++key) {
+                final int value = key;
+                Assertions.assertThat(
+                    store.text(
+                        key,
+                        () -> {
+                            calls.incrementAndGet();
+                            return String.format("\u00e9t\u00e9 %0100d", value);
+                        }
+                    )
+                ).endsWith(String.valueOf(value));
+            }
+        }
+        Assertions.assertThat(calls.get()).isEqualTo(1000);
+        Assertions.assertThat(store.size()).isEqualTo(1000);
+        Assertions.assertThat(store.used()).isEqualTo(106_000L);
+        Assertions.assertThat(store.reserved()).isEqualTo(Slabs.SLAB);
+    }
+
+    @Test
+    public void copiesBytesAndViewsBuffers() {
+        final OffHeapStore store = new OffHeapStore(Slabs.SLAB);
+        final byte[] first = store.bytes("a", () -> new byte[] {1, 2, 3});
+        first[0] = 0;
+        Assertions.assertThat(store.bytes("a", () -> new byte[0]))
+            .containsExactly(1, 2, 3);
+        final ByteBuffer view = store.buffer(
+            "b", () -> ByteBuffer.wrap(new byte[] {4, 5})
+        );
+        Assertions.assertThat(store.buffer("b", () -> null)).isEqualTo(view);
+        Assertions.assertThatThrownBy(() -> view.put((byte) 0))
+            .isInstanceOf(ReadOnlyBufferException.class);
+        Assertions.assertThat(store.bytes("c", () -> null)).isNull();
+        Assertions.assertThatThrownBy(
+            () -> store.text(
+                "d",
+                () -> {
+                    throw new IOException("unavailable");
+                }
+            )
+        ).isInstanceOf(CompletionException.class)
+            .hasCauseInstanceOf(IOException.class);
+        Assertions.assertThat(store.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void copiesBuffersOutOfEvictedBlocks() {
+        final OffHeapStore store = new OffHeapStore(Slabs.SLAB);
+        final ByteBuffer computed = ByteBuffer.allocate(Slabs.SLAB);
+        final ByteBuffer first = store.buffer("a", () -> computed);
+        Assertions.assertThat(first.isReadOnly()).isTrue();
+        Assertions.assertThatThrownBy(() -> first.put((byte) 1))
+            .isInstanceOf(ReadOnlyBufferException.class);
+        final ByteBuffer read = store.buffer("a", () -> null);
+        final byte[] other = new byte[Slabs.SLAB];
+        Arrays.fill(other, (byte) 7);
+        store.buffer("b", () -> ByteBuffer.wrap(other));
+        Assertions.assertThat(store.evictions()).isEqualTo(1L);
+        Assertions.assertThat(read.isReadOnly()).isTrue();
+        Assertions.assertThat(read.get(0)).isZero();
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedOfSameSize() {
+        final OffHeapStore store = new OffHeapStore(2L * Slabs.SLAB);
+        final AtomicInteger calls = new AtomicInteger();
+        for (final String key : new String[] {"a", "b", "a", "c", "a", "b"}) {
+            store.bytes(
+                key,
+                () -> {
+                    calls.incrementAndGet();
+                    return new byte[OffHeapStore.MAXIMUM];
+                }
+            );
+        }
+        Assertions.assertThat(calls.get()).isEqualTo(4);
+        Assertions.assertThat(store.evictions()).isEqualTo(2L);
+        Assertions.assertThat(store.bytes("x", () -> new byte[10])).hasSize(10);
+        Assertions.assertThat(store.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void storesInMappedFile() throws Exception {
+        final File file = new File(this.folder.getRoot(), "results.bin");
+        final OffHeapStore store = new OffHeapStore(file.toPath(), 1L);
+        store.text("key", () -> "mapped");
+        Assertions.assertThat(store.text("key", () -> "computed"))
+            .isEqualTo("mapped");
+        Assertions.assertThat(file.length()).isEqualTo(Slabs.SLAB);
+    }
+}
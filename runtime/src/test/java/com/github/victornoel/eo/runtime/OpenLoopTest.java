@@ -0,0 +1,88 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Tests for {@link OpenLoop}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class OpenLoopTest {
+
+    @Test
+    public void callsTheMixAtTheRate() throws Exception {
+        final OpenLoop loop = new OpenLoop(1_000.0, 2, "get", "put", "size")
+            .mix("get", 3)
+            .mix("size", 0);
+        loop.run(
+            (method, random) -> {
+                if (method == 1) {
+                    throw new IOException("put");
+                }
+            },
+            200L, TimeUnit.MILLISECONDS
+        );
+        final long gets = loop.latencies().get(0).count();
+        final long puts = loop.latencies().get(1).count();
+        Assertions.assertThat(gets + puts).isEqualTo(200L);
+        Assertions.assertThat(gets).isBetween(110L, 190L);
+        Assertions.assertThat(loop.latencies().get(2).count()).isZero();
+        Assertions.assertThat(loop.failed()).isEqualTo(puts);
+    }
+
+    @Test
+    public void measuresFromTheScheduledStart() throws Exception {
+        final OpenLoop loop = new OpenLoop(100.0, 1, "get");
+        loop.run(
+            (method, random) -> Thread.sleep(50L),
+            100L, TimeUnit.MILLISECONDS
+        );
+        final Histogram latencies = loop.latencies().get(0);
+        Assertions.assertThat(latencies.count()).isEqualTo(10L);
+        Assertions.assertThat(latencies.max())
+            .isGreaterThan(TimeUnit.MILLISECONDS.toNanos(400L));
+    }
+
+    @Test
+    public void printsPercentiles() throws Exception {
+        final OpenLoop loop = new OpenLoop(1_000.0, 1, "get");
+        loop.run((method, random) -> { }, 10L, TimeUnit.MILLISECONDS);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        loop.print(new PrintStream(out, true, "UTF-8"));
+        Assertions.assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8))
+            .contains("p99.9", "get", "failed 0");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsEmptyMixes() throws Exception {
+        new OpenLoop(1_000.0, 1, "get").mix("get", 0)
+            .run((method, random) -> { }, 10L, TimeUnit.MILLISECONDS);
+    }
+}
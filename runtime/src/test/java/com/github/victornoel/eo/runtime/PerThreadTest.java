@@ -0,0 +1,92 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.assertj.core.api.Assertions;
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * Tests for {@link PerThread}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+public final class PerThreadTest {
+
+    @Test
+    public void confinesInstancesToThreads() throws Exception {
+        final AtomicInteger created = new AtomicInteger();
+        final PerThread<StringBuilder> builders = new PerThread<>(
+            () -> new StringBuilder().append(created.incrementAndGet())
+        );
+        final StringBuilder mine = builders.acquire();
+        builders.release(mine);
+        final List<StringBuilder> theirs = new ArrayList<>(1);
+        final Thread other = new Thread(() -> theirs.add(builders.acquire()));
+        other.start();
+        other.join();
+        Assertions.assertThat(builders.acquire()).isSameAs(mine);
+        Assertions.assertThat(theirs).doesNotContain(mine);
+        Assertions.assertThat(created.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void cleansUpInstances() {
+        final List<String> cleaned = new ArrayList<>(2);
+        final AtomicInteger created = new AtomicInteger();
+        final PerThread<String> names = new PerThread<>(
+            () -> String.valueOf(created.incrementAndGet()), cleaned::add, 1
+        );
+        names.acquire();
+        names.remove();
+        names.acquire();
+        Assertions.assertThat(names.instances()).isEqualTo(1);
+        names.close();
+        Assertions.assertThat(cleaned).containsExactly("1", "2");
+        Assertions.assertThat(names.acquire()).isEqualTo("3");
+    }
+
+    @Test
+    public void poolsInstancesOfVirtualThreads() throws Exception {
+        final Method start;
+        try {
+            start = Thread.class.getMethod("startVirtualThread", Runnable.class);
+        } catch (final NoSuchMethodException ex) {
+            Assume.assumeNoException(ex);
+            throw ex;
+        }
+        final AtomicInteger created = new AtomicInteger();
+        final PerThread<Integer> ids = new PerThread<>(
+            created::incrementAndGet, id -> { }, 1
+        );
+        for (int idx = 0; idx < 3; ++idx) {
+            ((Thread) start.invoke(
+                null, (Runnable) () -> ids.release(ids.acquire())
+            )).join();
+        }
+        Assertions.assertThat(created.get()).isEqualTo(1);
+        Assertions.assertThat(ids.instances()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Tests for {@link Prefetching}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class PrefetchingTest {
+
+    @Test
+    public void readsAheadUpToBufferSize() {
+        final AtomicInteger produced = new AtomicInteger();
+        final Prefetching<Integer> iterator = new Prefetching<>(
+            IntStream.range(0, 5).boxed()
+                .peek(idx -> produced.incrementAndGet()).iterator(),
+            2,
+            Runnable::run
+        ).start();
+        Assertions.assertThat(produced.get()).isEqualTo(2);
+        Assertions.assertThat(iterator.next()).isZero();
+        Assertions.assertThat(produced.get()).isEqualTo(3);
+        final List<Integer> rest = new ArrayList<>(5);
+        iterator.forEachRemaining(rest::add);
+        Assertions.assertThat(rest).containsExactly(1, 2, 3, 4);
+    }
+
+    @Test
+    public void keepsNullElements() {
+        Assertions.assertThat(
+            new Prefetching<>(
+                Arrays.asList("a", null, "b").iterator(), 1, Runnable::run
+            ).start()
+        ).toIterable().containsExactly("a", null, "b");
+    }
+
+    @Test
+    public void throwsFailureOnceReached() {
+        final Iterator<String> iterator = new Prefetching<>(
+            Stream.of("a", "b").peek(
+                elt -> {
+                    if ("b".equals(elt)) {
+                        throw new IllegalStateException("broken");
+                    }
+                }
+            ).iterator(),
+            4,
+            Runnable::run
+        ).start();
+        Assertions.assertThat(iterator.next()).isEqualTo("a");
+        Assertions.assertThatThrownBy(iterator::hasNext)
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("broken");
+    }
+
+    @Test
+    public void stopsReadingWhenClosed() throws Exception {
+        final AtomicInteger produced = new AtomicInteger();
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final Prefetching<Integer> iterator = new Prefetching<>(
+            Stream.generate(produced::incrementAndGet).iterator(),
+            8,
+            executor
+        ).start();
+        Assertions.assertThat(iterator.next()).isEqualTo(1);
+        iterator.close();
+        executor.shutdown();
+        Assertions.assertThat(executor.awaitTermination(1L, TimeUnit.SECONDS))
+            .isTrue();
+        Assertions.assertThat(iterator.hasNext()).isFalse();
+        Assertions.assertThat(produced.get()).isLessThanOrEqualTo(10);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.util.stream.IntStream;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Tests for {@link Shards}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+public final class ShardsTest {
+
+    @Test
+    public void spreadsSequentialKeysEvenly() {
+        final Shards shards = new Shards(4);
+        final int[] counts = new int[4];
+        for (long key = 0; key < 4000L; ++key) {
+            ++counts[shards.index(key)];
+        }
+        Assertions.assertThat(IntStream.of(counts).min().getAsInt())
+            .isGreaterThan(900);
+        Assertions.assertThat(IntStream.of(counts).max().getAsInt())
+            .isLessThan(1100);
+    }
+
+    @Test
+    public void mapsEqualKeysToSameShard() {
+        final Shards shards = new Shards(7);
+        Assertions.assertThat(shards.index(Integer.valueOf(42)))
+            .isEqualTo(shards.index(42));
+        Assertions.assertThat(shards.index(new byte[] {1, 2}))
+            .isEqualTo(shards.index(new byte[] {1, 2}));
+        Assertions.assertThat(shards.index(new StringBuilder("ke").append('y').toString()))
+            .isEqualTo(shards.index("key"));
+    }
+
+    @Test
+    public void staysInRange() {
+        final Shards shards = new Shards(3);
+        Assertions.assertThat(
+            IntStream.of(
+                shards.index(Long.MIN_VALUE),
+                shards.index(-1L),
+                shards.index(Double.NaN),
+                shards.index((Object) null)
+            ).allMatch(idx -> idx >= 0 && idx < 3)
+        ).isTrue();
+    }
+
+    @Test
+    public void rejectsNoShards() {
+        Assertions.assertThatThrownBy(() -> new Shards(0))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Invalid number of shards 0");
+    }
+}
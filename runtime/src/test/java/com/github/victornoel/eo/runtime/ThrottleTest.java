@@ -0,0 +1,141 @@
+/*
+ * EO-Envelopes
+ * Copyright (C) 2018 Victor Noël
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.victornoel.eo.runtime;
+
+import java.util.concurrent.TimeUnit;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Tests for {@link Throttle}.
+ *
+ * @since 1.1.0
+ * @checkstyle JavadocMethodCheck (500 lines)
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class ThrottleTest {
+
+    @Test
+    public void failsOverTheLimit() {
+        final Throttle throttle = new Throttle(
+            "get", 2L, 1L, TimeUnit.HOURS, 0L
+        );
+        throttle.fail(null);
+        throttle.fail(null);
+        Assertions.assertThatThrownBy(() -> throttle.fail(null))
+            .isInstanceOf(ThrottledException.class)
+            .hasMessage("Rate limit of get exceeded");
+        Assertions.assertThat(throttle.throttled()).isEqualTo(1L);
+    }
+
+    @Test
+    public void limitsEachKeyOnItsOwn() {
+        final Throttle throttle = new Throttle(
+            "get", 1L, 1L, TimeUnit.HOURS, 0L
+        );
+        throttle.fail("a");
+        throttle.fail("b");
+        throttle.fail(null);
+        Assertions.assertThatThrownBy(() -> throttle.fail("a"))
+            .isInstanceOf(ThrottledException.class);
+        Assertions.assertThat(throttle.keys()).isEqualTo(2);
+    }
+
+    @Test
+    public void delaysCallsOverTheLimit() {
+        final Throttle throttle = new Throttle(
+            "get", 20L, 1L, TimeUnit.SECONDS, 1L
+        );
+        final long start = System.nanoTime();
+        for (int idx = 0; idx < 4; ++idx) {
+            throttle.delay(null);
+        }
+        Assertions.assertThat(System.nanoTime() - start)
+            .isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(100L));
+        Assertions.assertThat(throttle.throttled()).isEqualTo(3L);
+        Assertions.assertThat(throttle.waits().count()).isEqualTo(3L);
+    }
+
+    @Test
+    public void blocksUntilRefilled() throws Exception {
+        final Throttle throttle = new Throttle(
+            "get", 20L, 1L, TimeUnit.SECONDS, 1L
+        );
+        final long start = System.nanoTime();
+        final Thread[] threads = new Thread[3];
+        for (int idx = 0; idx < threads.length; ++idx) {
+            threads[idx] = new Thread(() -> throttle.block("a"));
+            threads[idx].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        Assertions.assertThat(System.nanoTime() - start)
+            .isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50L));
+        Assertions.assertThat(throttle.throttled()).isEqualTo(2L);
+        Assertions.assertThat(throttle.waits().max())
+            .isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50L));
+    }
+
+    @Test
+    public void dropsFullBuckets() {
+        final Throttle throttle = new Throttle(
+            "get", 1L, 1L, TimeUnit.NANOSECONDS, 0L
+        );
+        for (int key = 0; key < 1000; ++key) {
+            throttle.fail(key);
+        }
+        Assertions.assertThat(throttle.keys()).isLessThan(1000);
+        final Throttle slow = new Throttle(
+            "get", 1L, 1L, TimeUnit.HOURS, 0L
+        );
+        for (int key = 0; key < 100; ++key) {
+            slow.fail(key);
+        }
+        Assertions.assertThat(slow.keys()).isEqualTo(100);
+        Assertions.assertThatThrownBy(() -> slow.fail(0))
+            .isInstanceOf(ThrottledException.class);
+    }
+
+    @Test
+    public void refillsBucketLazily() throws Exception {
+        final TokenBucket bucket = new TokenBucket(
+            TimeUnit.MILLISECONDS.toNanos(100L), 2L
+        );
+        Assertions.assertThat(bucket.take(false)).isZero();
+        Assertions.assertThat(bucket.take(false)).isZero();
+        Assertions.assertThat(bucket.take(false)).isNegative();
+        Assertions.assertThat(bucket.take(true)).isPositive();
+        Assertions.assertThat(bucket.tokens()).isEqualTo(-1L);
+        TimeUnit.MILLISECONDS.sleep(400L);
+        Assertions.assertThat(bucket.tokens()).isEqualTo(2L);
+    }
+
+    @Test
+    public void refillsBucketIdleLongerThanItsStamp() throws Exception {
+        final TokenBucket bucket = new TokenBucket(
+            1L, 1L, System.nanoTime() - (3L << 40)
+        );
+        Assertions.assertThat(bucket.take(false)).isZero();
+        TimeUnit.MILLISECONDS.sleep(10L);
+        Assertions.assertThat(bucket.full()).isTrue();
+        Assertions.assertThat(bucket.take(false)).isZero();
+    }
+}